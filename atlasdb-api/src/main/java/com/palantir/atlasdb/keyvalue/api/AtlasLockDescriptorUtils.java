@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.immutables.value.Value;
 
 public final class AtlasLockDescriptorUtils {
@@ -66,6 +67,24 @@ public final class AtlasLockDescriptorUtils {
         return candidateCells;
     }
 
+    /**
+     * Returns every row that the given descriptor could lock, or could lock a cell of: the rows of all candidate
+     * cells, and the whole remainder of the descriptor in case it is a row lock descriptor.
+     */
+    public static List<RowReference> candidateRows(LockDescriptor lockDescriptor) {
+        Optional<TableRefAndRemainder> tableRefAndRemainder = tryParseTableRef(lockDescriptor);
+        if (!tableRefAndRemainder.isPresent()) {
+            return ImmutableList.of();
+        }
+
+        RowReference wholeRemainder = RowReference.of(
+                tableRefAndRemainder.get().tableRef(),
+                tableRefAndRemainder.get().remainder().toByteArray());
+        return Stream.concat(candidateCells(lockDescriptor).stream().map(RowReference::of), Stream.of(wholeRemainder))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
     public static Optional<TableRefAndRemainder> tryParseTableRef(LockDescriptor lockDescriptor) {
         byte[] rawBytes = lockDescriptor.getBytes();
 
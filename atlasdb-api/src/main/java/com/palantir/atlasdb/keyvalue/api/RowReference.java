@@ -0,0 +1,72 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.api;
+
+import com.palantir.logsafe.Preconditions;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Identifies a single row of a table, analogously to how {@link CellReference} identifies a cell.
+ */
+public final class RowReference {
+    private final TableReference tableRef;
+    private final byte[] row;
+
+    private RowReference(TableReference tableRef, byte[] row) {
+        this.tableRef = Preconditions.checkNotNull(tableRef, "tableRef");
+        this.row = Preconditions.checkNotNull(row, "row");
+    }
+
+    public static RowReference of(TableReference tableRef, byte[] row) {
+        return new RowReference(tableRef, row);
+    }
+
+    public static RowReference of(CellReference cellReference) {
+        return new RowReference(cellReference.tableRef(), cellReference.cell().getRowName());
+    }
+
+    public TableReference tableRef() {
+        return tableRef;
+    }
+
+    public byte[] row() {
+        return row;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RowReference)) {
+            return false;
+        }
+        RowReference other = (RowReference) obj;
+        return tableRef.equals(other.tableRef) && Arrays.equals(row, other.row);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableRef, Arrays.hashCode(row));
+    }
+
+    @Override
+    public String toString() {
+        return "RowReference{tableRef=" + tableRef + ", row=" + Arrays.toString(row) + "}";
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.api.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.UnsignedBytes;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.logsafe.Preconditions;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A range of rows of a table that was read in its entirety by a transaction, along with the names of the rows in the
+ * range that have any values, in ascending order. Any other row in the range is known to have no values at all. As
+ * with range requests, an empty start or end means that the range is unbounded on that side.
+ */
+public final class CacheRange {
+    private static final Comparator<byte[]> COMPARATOR = UnsignedBytes.lexicographicalComparator();
+
+    private final TableReference tableRef;
+    private final byte[] startInclusive;
+    private final byte[] endExclusive;
+    private final ImmutableList<byte[]> rows;
+
+    private CacheRange(TableReference tableRef, byte[] startInclusive, byte[] endExclusive, List<byte[]> rows) {
+        this.tableRef = Preconditions.checkNotNull(tableRef, "tableRef");
+        this.startInclusive = Preconditions.checkNotNull(startInclusive, "startInclusive");
+        this.endExclusive = Preconditions.checkNotNull(endExclusive, "endExclusive");
+        this.rows = ImmutableList.copyOf(rows);
+    }
+
+    public static CacheRange of(
+            TableReference tableRef, byte[] startInclusive, byte[] endExclusive, List<byte[]> rows) {
+        return new CacheRange(tableRef, startInclusive, endExclusive, rows);
+    }
+
+    public TableReference tableRef() {
+        return tableRef;
+    }
+
+    public byte[] startInclusive() {
+        return startInclusive;
+    }
+
+    public byte[] endExclusive() {
+        return endExclusive;
+    }
+
+    public ImmutableList<byte[]> rows() {
+        return rows;
+    }
+
+    public boolean contains(RowReference rowReference) {
+        return tableRef.equals(rowReference.tableRef()) && isInRange(startInclusive, endExclusive, rowReference.row());
+    }
+
+    /**
+     * Returns true if every row between the given bounds is within this range.
+     */
+    public boolean covers(TableReference table, byte[] otherStartInclusive, byte[] otherEndExclusive) {
+        return tableRef.equals(table) && startsNoLaterThan(otherStartInclusive) && endsNoEarlierThan(otherEndExclusive);
+    }
+
+    /**
+     * Returns the rows of this range that have any values and lie between the given bounds.
+     */
+    public List<byte[]> rowsWithin(byte[] otherStartInclusive, byte[] otherEndExclusive) {
+        int fromIndex = otherStartInclusive.length == 0 ? 0 : indexOfFirstRowNotBefore(otherStartInclusive);
+        int toIndex = otherEndExclusive.length == 0 ? rows.size() : indexOfFirstRowNotBefore(otherEndExclusive);
+        return fromIndex < toIndex ? rows.subList(fromIndex, toIndex) : ImmutableList.of();
+    }
+
+    /**
+     * The number of bytes taken up by the bounds and row names of this range.
+     */
+    public int size() {
+        int size = startInclusive.length + endExclusive.length;
+        for (byte[] row : rows) {
+            size += row.length;
+        }
+        return size;
+    }
+
+    public static boolean isInRange(byte[] startInclusive, byte[] endExclusive, byte[] row) {
+        return (startInclusive.length == 0 || COMPARATOR.compare(startInclusive, row) <= 0)
+                && (endExclusive.length == 0 || COMPARATOR.compare(row, endExclusive) < 0);
+    }
+
+    private boolean startsNoLaterThan(byte[] otherStartInclusive) {
+        return startInclusive.length == 0
+                || (otherStartInclusive.length != 0 && COMPARATOR.compare(startInclusive, otherStartInclusive) <= 0);
+    }
+
+    private boolean endsNoEarlierThan(byte[] otherEndExclusive) {
+        return endExclusive.length == 0
+                || (otherEndExclusive.length != 0 && COMPARATOR.compare(otherEndExclusive, endExclusive) <= 0);
+    }
+
+    private int indexOfFirstRowNotBefore(byte[] bound) {
+        int index = Collections.binarySearch(rows, bound, COMPARATOR);
+        return index >= 0 ? index : -(index + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheRange{tableRef=" + tableRef + ", startInclusive=" + Arrays.toString(startInclusive)
+                + ", endExclusive=" + Arrays.toString(endExclusive) + ", rows=" + rows.size() + "}";
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.api.cache;
+
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.primitives.UnsignedBytes;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The entire contents of a row, as read by a transaction, mapping each column that has a value to that value. A row
+ * with no columns represents a row that was read and found to have no values at all.
+ */
+public final class CacheRow {
+    private static final CacheRow EMPTY = new CacheRow(ImmutableSortedMap.of());
+
+    private final ImmutableSortedMap<byte[], byte[]> columns;
+
+    private CacheRow(ImmutableSortedMap<byte[], byte[]> columns) {
+        this.columns = columns;
+    }
+
+    public static CacheRow of(SortedMap<byte[], byte[]> columns) {
+        if (columns.isEmpty()) {
+            return EMPTY;
+        }
+        return new CacheRow(ImmutableSortedMap.copyOf(columns, UnsignedBytes.lexicographicalComparator()));
+    }
+
+    public static CacheRow empty() {
+        return EMPTY;
+    }
+
+    public ImmutableSortedMap<byte[], byte[]> columns() {
+        return columns;
+    }
+
+    /**
+     * The number of bytes taken up by the column names and values of this row.
+     */
+    public int size() {
+        int size = 0;
+        for (Map.Entry<byte[], byte[]> column : columns.entrySet()) {
+            size += column.getKey().length + column.getValue().length;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof CacheRow)) {
+            return false;
+        }
+        CacheRow other = (CacheRow) obj;
+        if (columns.size() != other.columns.size()) {
+            return false;
+        }
+        Iterator<Map.Entry<byte[], byte[]>> otherColumns = other.columns.entrySet().iterator();
+        for (Map.Entry<byte[], byte[]> column : columns.entrySet()) {
+            Map.Entry<byte[], byte[]> otherColumn = otherColumns.next();
+            if (!Arrays.equals(column.getKey(), otherColumn.getKey())
+                    || !Arrays.equals(column.getValue(), otherColumn.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (Map.Entry<byte[], byte[]> column : columns.entrySet()) {
+            hash = 31 * hash + Arrays.hashCode(column.getKey());
+            hash = 31 * hash + Arrays.hashCode(column.getValue());
+        }
+        return hash;
+    }
+}
@@ -18,16 +18,21 @@ package com.palantir.atlasdb.keyvalue.api.cache;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.common.base.ClosableIterator;
 import com.palantir.lock.watch.CommitUpdate;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.function.Function;
 
 public final class NoOpTransactionScopedCache implements TransactionScopedCache {
@@ -69,6 +74,23 @@ public final class NoOpTransactionScopedCache implements TransactionScopedCache
         return rowLoader.apply(rows);
     }
 
+    @Override
+    public NavigableMap<byte[], NavigableMap<byte[], byte[]>> getCachedRowsColumnRange(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            Function<Iterable<byte[]>, NavigableMap<byte[], RowResult<byte[]>>> rowLoader) {
+        return new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+    }
+
+    @Override
+    public ClosableIterator<RowResult<byte[]>> getRange(
+            TableReference tableRef,
+            RangeRequest rangeRequest,
+            Function<RangeRequest, ClosableIterator<RowResult<byte[]>>> rangeLoader) {
+        return rangeLoader.apply(rangeRequest);
+    }
+
     @Override
     public void finalise() {}
 
@@ -18,9 +18,12 @@ package com.palantir.atlasdb.keyvalue.api.cache;
 
 import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.common.base.ClosableIterator;
 import com.palantir.lock.watch.CommitUpdate;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -74,6 +77,23 @@ public final class ReadOnlyTransactionScopedCache implements TransactionScopedCa
         return delegate.getRows(tableRef, rows, columnSelection, cellLoader, rowLoader);
     }
 
+    @Override
+    public NavigableMap<byte[], NavigableMap<byte[], byte[]>> getCachedRowsColumnRange(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            Function<Iterable<byte[]>, NavigableMap<byte[], RowResult<byte[]>>> rowLoader) {
+        return delegate.getCachedRowsColumnRange(tableRef, rows, columnRangeSelection, rowLoader);
+    }
+
+    @Override
+    public ClosableIterator<RowResult<byte[]>> getRange(
+            TableReference tableRef,
+            RangeRequest rangeRequest,
+            Function<RangeRequest, ClosableIterator<RowResult<byte[]>>> rangeLoader) {
+        return delegate.getRange(tableRef, rangeRequest, rangeLoader);
+    }
+
     @Override
     public void finalise() {
         throw new UnsupportedOperationException("Cannot finalise the read only transaction cache");
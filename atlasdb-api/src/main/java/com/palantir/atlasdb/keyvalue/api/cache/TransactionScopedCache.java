@@ -19,9 +19,12 @@ package com.palantir.atlasdb.keyvalue.api.cache;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.common.base.ClosableIterator;
 import com.palantir.lock.watch.CommitUpdate;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -82,6 +85,34 @@ public interface TransactionScopedCache {
             Function<Set<Cell>, Map<Cell, byte[]>> cellLoader,
             Function<Iterable<byte[]>, NavigableMap<byte[], RowResult<byte[]>>> rowLoader);
 
+    /**
+     * Serves a column range read from rows whose entire contents are cached, for tables that are watched. Rows that
+     * cannot be served from the cache (because they are not cached, are locked, or have been written to in this
+     * transaction) are absent from the result and should be read remotely; rows that are served but have no columns
+     * in the range map to an empty map. If all columns of a row are read through {@link #getRows}, the entire row is
+     * cached for subsequent reads.
+     *
+     * The rowLoader reads entire rows remotely; implementations may use it to validate the cached rows.
+     */
+    NavigableMap<byte[], NavigableMap<byte[], byte[]>> getCachedRowsColumnRange(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            Function<Iterable<byte[]>, NavigableMap<byte[], RowResult<byte[]>>> rowLoader);
+
+    /**
+     * Serves a range scan from the cache if the request reads all columns in ascending order, the entire range was
+     * previously read by a transaction, and every row in the range is cached and has not been written to in this
+     * transaction. Otherwise, the rangeLoader is used to read the range remotely; if that read is iterated to its end,
+     * the rows that were returned are cached in their entirety, along with the fact that the range has no other rows.
+     *
+     * In both cases, the returned rows are the remote contents of the range and do not include local writes.
+     */
+    ClosableIterator<RowResult<byte[]>> getRange(
+            TableReference tableRef,
+            RangeRequest rangeRequest,
+            Function<RangeRequest, ClosableIterator<RowResult<byte[]>>> rangeLoader);
+
     /**
      * This method should be called before retrieving the value or hit digest, as it guarantees that no more reads or
      * writes will be performed on the cache. This method is idempotent, and may legitimately be called multiple times.
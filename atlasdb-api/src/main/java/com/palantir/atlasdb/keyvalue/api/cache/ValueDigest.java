@@ -17,6 +17,8 @@
 package com.palantir.atlasdb.keyvalue.api.cache;
 
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
+import java.util.List;
 import java.util.Map;
 import org.immutables.value.Value;
 
@@ -24,7 +26,36 @@ import org.immutables.value.Value;
 public interface ValueDigest {
     Map<CellReference, CacheValue> loadedValues();
 
+    /**
+     * Entire rows that were read remotely, keyed by row. These are only cached for rows that were not written to.
+     */
+    Map<RowReference, CacheRow> loadedRows();
+
+    /**
+     * Ranges that were read remotely in their entirety. The rows in these ranges are also present in
+     * {@link #loadedRows()}, and ranges containing rows that were written to are never included.
+     */
+    List<CacheRange> loadedRanges();
+
     static ValueDigest of(Map<CellReference, CacheValue> loadedValues) {
         return ImmutableValueDigest.builder().loadedValues(loadedValues).build();
     }
+
+    static ValueDigest of(Map<CellReference, CacheValue> loadedValues, Map<RowReference, CacheRow> loadedRows) {
+        return ImmutableValueDigest.builder()
+                .loadedValues(loadedValues)
+                .loadedRows(loadedRows)
+                .build();
+    }
+
+    static ValueDigest of(
+            Map<CellReference, CacheValue> loadedValues,
+            Map<RowReference, CacheRow> loadedRows,
+            List<CacheRange> loadedRanges) {
+        return ImmutableValueDigest.builder()
+                .loadedValues(loadedValues)
+                .loadedRows(loadedRows)
+                .loadedRanges(loadedRanges)
+                .build();
+    }
 }
@@ -55,6 +55,20 @@ public class AtlasLockDescriptorUtilsTest {
                 .containsExactly(CellReference.of(TABLE, Cell.create(new byte[] {1, 3, 3, 7}, new byte[] {0})));
     }
 
+    @Test
+    public void candidateRowsIncludeRowsOfCandidateCellsAndWholeRemainder() {
+        LockDescriptor cellDescriptor =
+                AtlasCellLockDescriptor.of(TABLE.getQualifiedName(), ROW_WITH_ZEROS, NO_ZERO_COL);
+        LockDescriptor rowDescriptor = AtlasRowLockDescriptor.of(TABLE.getQualifiedName(), NO_ZERO_ROW);
+
+        assertThat(AtlasLockDescriptorUtils.candidateRows(cellDescriptor))
+                .contains(RowReference.of(TABLE, ROW_WITH_ZEROS))
+                .doesNotHaveDuplicates();
+        assertThat(AtlasLockDescriptorUtils.candidateRows(rowDescriptor))
+                .containsExactly(RowReference.of(TABLE, NO_ZERO_ROW));
+        assertThat(AtlasLockDescriptorUtils.candidateRows(StringLockDescriptor.of("test"))).isEmpty();
+    }
+
     @Test
     public void lockDescriptorWithNoZerosReturnsEmptyForCells() {
         LockDescriptor descriptor = StringLockDescriptor.of("test");
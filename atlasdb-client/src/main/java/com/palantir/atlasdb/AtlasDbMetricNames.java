@@ -96,6 +96,11 @@ public final class AtlasDbMetricNames {
 
     public static final String LEGACY_READ = "legacyRead";
     public static final String LEGACY_WRITE = "legacyWrite";
+    public static final String PAXOS_LOG_TAIL_CACHE_HITS = "paxosLogTailCacheHits";
+    public static final String PAXOS_LOG_TAIL_CACHE_MISSES = "paxosLogTailCacheMisses";
+    public static final String LEADER_LEASE_HITS = "leaderLeaseHits";
+    public static final String LEADER_LEASE_RENEWALS = "leaderLeaseRenewals";
+    public static final String LEADER_LEASE_FALLBACKS = "leaderLeaseFallbacks";
 
     public static final String LW_CACHE_HITS = "lockWatchCacheHits";
     public static final String LW_CACHE_MISSES = "lockWatchCacheMisses";
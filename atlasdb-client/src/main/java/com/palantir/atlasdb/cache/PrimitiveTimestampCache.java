@@ -0,0 +1,484 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.atlasdb.util.AtlasDbMetrics;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link TimestampCache} backed by open-addressing tables of primitive longs, avoiding the boxed keys and values and
+ * the per-entry node objects of {@link DefaultTimestampCache}. Slots may be held on-heap or in direct memory.
+ *
+ * Entries are spread across a fixed number of stripes, each guarded by its own {@link StampedLock}. Reads are
+ * optimistic, and only fall back to the read lock if they race with a write to the same stripe. Each stripe evicts
+ * using the clock (second chance) algorithm once it reaches its share of the maximum size.
+ *
+ * Start timestamps must be positive, as 0 marks an empty slot; puts for other start timestamps are ignored. Note that
+ * the tables for the full maximum size are allocated up front.
+ */
+public final class PrimitiveTimestampCache implements TimestampCache {
+    @VisibleForTesting
+    static final int NUM_STRIPES = 64;
+
+    private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(NUM_STRIPES);
+    private static final long EMPTY = 0L;
+    private static final double LOAD_FACTOR = 0.75;
+    private static final int MAX_TABLE_SIZE = 1 << 26;
+
+    private final LongSupplier size;
+    private final IntFunction<LongSlots> slotsFactory;
+    private final Stripe[] stripes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private volatile long maximumSize;
+
+    private PrimitiveTimestampCache(LongSupplier size, IntFunction<LongSlots> slotsFactory) {
+        this.size = size;
+        this.slotsFactory = slotsFactory;
+        this.maximumSize = size.getAsLong();
+        this.stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < NUM_STRIPES; i++) {
+            stripes[i] = new Stripe(stripeCapacity(maximumSize));
+        }
+    }
+
+    public static TimestampCache createOnHeap(MetricRegistry metricRegistry, LongSupplier size) {
+        return register(metricRegistry, new PrimitiveTimestampCache(size, HeapLongSlots::new));
+    }
+
+    public static TimestampCache createInDirectMemory(MetricRegistry metricRegistry, LongSupplier size) {
+        return register(metricRegistry, new PrimitiveTimestampCache(size, DirectLongSlots::new));
+    }
+
+    @VisibleForTesting
+    static PrimitiveTimestampCache createForTests(LongSupplier size) {
+        return new PrimitiveTimestampCache(size, HeapLongSlots::new);
+    }
+
+    private static TimestampCache register(MetricRegistry metricRegistry, PrimitiveTimestampCache cache) {
+        AtlasDbMetrics.registerCache(
+                metricRegistry,
+                cache::stats,
+                cache::estimatedSize,
+                () -> cache.maximumSize,
+                MetricRegistry.name(TimestampCache.class, "startToCommitTimestamp"));
+        return cache;
+    }
+
+    @Override
+    @Nullable
+    public Long getCommitTimestampIfPresent(Long startTimestamp) {
+        resizeIfNecessary();
+        long key = startTimestamp;
+        if (key <= EMPTY) {
+            misses.increment();
+            return null;
+        }
+        long hash = hash(key);
+        Long result = stripeFor(hash).get(key, hash);
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return result;
+    }
+
+    @Override
+    public void putAlreadyCommittedTransaction(Long startTimestamp, Long commitTimestamp) {
+        long key = startTimestamp;
+        if (key <= EMPTY) {
+            return;
+        }
+        long hash = hash(key);
+        stripeFor(hash).put(key, hash, commitTimestamp);
+    }
+
+    @Override
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    @VisibleForTesting
+    CacheStats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        return CacheStats.of(hitCount, missCount, 0, 0, 0, evictions.sum(), 0);
+    }
+
+    @VisibleForTesting
+    long estimatedSize() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            total += stripe.size;
+        }
+        return total;
+    }
+
+    private void resizeIfNecessary() {
+        long newMaximumSize = size.getAsLong();
+        if (newMaximumSize != maximumSize) {
+            resize(newMaximumSize);
+        }
+    }
+
+    private synchronized void resize(long newMaximumSize) {
+        if (newMaximumSize == maximumSize) {
+            return;
+        }
+        int newCapacity = stripeCapacity(newMaximumSize);
+        for (Stripe stripe : stripes) {
+            stripe.resize(newCapacity);
+        }
+        maximumSize = newMaximumSize;
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> STRIPE_SHIFT)];
+    }
+
+    private static int stripeCapacity(long maximumSize) {
+        Preconditions.checkArgument(
+                maximumSize > 0, "Timestamp cache size must be positive", SafeArg.of("size", maximumSize));
+        long capacity = Math.max(1, (maximumSize + NUM_STRIPES - 1) / NUM_STRIPES);
+        Preconditions.checkArgument(
+                capacity <= MAX_TABLE_SIZE * LOAD_FACTOR,
+                "Timestamp cache size is too large",
+                SafeArg.of("size", maximumSize));
+        return (int) capacity;
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int minimumSize = (int) Math.ceil(capacity / LOAD_FACTOR);
+        return Math.max(2, Integer.highestOneBit(minimumSize - 1) << 1);
+    }
+
+    /**
+     * Finalisation step of MurmurHash3; start timestamps are sequential, so need to be well mixed before we take bits
+     * for the stripe and the slot.
+     */
+    private static long hash(long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * A table of slots, each holding a key followed by its value. Tables are swapped as a whole on resize, so a reader
+     * that has loaded a table always sees slots and reference bits of matching sizes.
+     */
+    private static final class Table {
+        private final LongSlots slots;
+        private final byte[] referenced;
+        private final int mask;
+
+        private Table(LongSlots slots, int tableSize) {
+            this.slots = slots;
+            this.referenced = new byte[tableSize];
+            this.mask = tableSize - 1;
+        }
+
+        private long key(int index) {
+            return slots.get(2 * index);
+        }
+
+        private long value(int index) {
+            return slots.get(2 * index + 1);
+        }
+
+        private void set(int index, long key, long value) {
+            slots.set(2 * index, key);
+            slots.set(2 * index + 1, value);
+        }
+
+        private int homeSlot(long hash) {
+            return (int) hash & mask;
+        }
+
+        /**
+         * Returns the index of the slot holding the given key, or -1 if it is absent. Probes at most once around the
+         * table, so that optimistic readers racing with writers are guaranteed to terminate.
+         */
+        private int find(long key, long hash) {
+            int index = homeSlot(hash);
+            for (int probes = 0; probes <= mask; probes++) {
+                long candidate = key(index);
+                if (candidate == key) {
+                    return index;
+                }
+                if (candidate == EMPTY) {
+                    return -1;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+    }
+
+    private final class Stripe {
+        private final StampedLock lock = new StampedLock();
+
+        private volatile Table table;
+        private int size;
+        private int capacity;
+        private int clockHand;
+
+        private Stripe(int capacity) {
+            this.capacity = capacity;
+            this.table = newTable(capacity);
+        }
+
+        @Nullable
+        private Long get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Table current = table;
+                int index = current.find(key, hash);
+                long value = index >= 0 ? current.value(index) : EMPTY;
+                if (lock.validate(stamp)) {
+                    return toResult(current, index, value);
+                }
+            }
+
+            stamp = lock.readLock();
+            try {
+                Table current = table;
+                int index = current.find(key, hash);
+                return toResult(current, index, index >= 0 ? current.value(index) : EMPTY);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Nullable
+        private Long toResult(Table current, int index, long value) {
+            if (index < 0) {
+                return null;
+            }
+            // Racy, but benign: the worst case is that an entry gets one fewer chance before being evicted.
+            current.referenced[index] = 1;
+            return value;
+        }
+
+        private void put(long key, long hash, long value) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int index = current.find(key, hash);
+                if (index >= 0) {
+                    current.set(index, key, value);
+                    return;
+                }
+                if (size >= capacity) {
+                    evictOne(current);
+                }
+                insert(current, key, hash, value);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void clear() {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                current.slots.clear();
+                Arrays.fill(current.referenced, (byte) 0);
+                size = 0;
+                clockHand = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void resize(int newCapacity) {
+            long stamp = lock.writeLock();
+            try {
+                Table oldTable = table;
+                Table newTable = newTable(newCapacity);
+                int newSize = 0;
+                for (int index = 0; index <= oldTable.mask; index++) {
+                    long key = oldTable.key(index);
+                    if (key == EMPTY) {
+                        continue;
+                    }
+                    if (newSize < newCapacity) {
+                        int newIndex = probeForEmptySlot(newTable, hash(key));
+                        newTable.set(newIndex, key, oldTable.value(index));
+                        newTable.referenced[newIndex] = oldTable.referenced[index];
+                        newSize++;
+                    } else {
+                        evictions.increment();
+                    }
+                }
+                capacity = newCapacity;
+                clockHand = 0;
+                size = newSize;
+                table = newTable;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void insert(Table current, long key, long hash, long value) {
+            int index = probeForEmptySlot(current, hash);
+            current.set(index, key, value);
+            current.referenced[index] = 0;
+            size++;
+        }
+
+        private int probeForEmptySlot(Table current, long hash) {
+            int index = current.homeSlot(hash);
+            while (current.key(index) != EMPTY) {
+                index = (index + 1) & current.mask;
+            }
+            return index;
+        }
+
+        /**
+         * Advances the clock hand, giving each referenced entry a second chance, until an unreferenced entry is found.
+         * Terminates within two revolutions, as the first clears every reference bit.
+         */
+        private void evictOne(Table current) {
+            while (true) {
+                int index = clockHand;
+                clockHand = (clockHand + 1) & current.mask;
+                if (current.key(index) == EMPTY) {
+                    continue;
+                }
+                if (current.referenced[index] != 0) {
+                    current.referenced[index] = 0;
+                    continue;
+                }
+                remove(current, index);
+                evictions.increment();
+                return;
+            }
+        }
+
+        /**
+         * Removes the entry at the given slot using backward shift deletion, so that no tombstones are needed and
+         * probe sequences of the remaining entries stay unbroken.
+         */
+        private void remove(Table current, int index) {
+            int mask = current.mask;
+            int hole = index;
+            int next = (hole + 1) & mask;
+            while (true) {
+                long key = current.key(next);
+                if (key == EMPTY) {
+                    break;
+                }
+                int home = current.homeSlot(hash(key));
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    current.set(hole, key, current.value(next));
+                    current.referenced[hole] = current.referenced[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            current.set(hole, EMPTY, EMPTY);
+            current.referenced[hole] = 0;
+            size--;
+        }
+
+        private Table newTable(int newCapacity) {
+            int tableSize = tableSizeFor(newCapacity);
+            return new Table(slotsFactory.apply(2 * tableSize), tableSize);
+        }
+    }
+
+    private interface LongSlots {
+        long get(int index);
+
+        void set(int index, long value);
+
+        void clear();
+    }
+
+    private static final class HeapLongSlots implements LongSlots {
+        private final long[] slots;
+
+        private HeapLongSlots(int size) {
+            this.slots = new long[size];
+        }
+
+        @Override
+        public long get(int index) {
+            return slots[index];
+        }
+
+        @Override
+        public void set(int index, long value) {
+            slots[index] = value;
+        }
+
+        @Override
+        public void clear() {
+            Arrays.fill(slots, EMPTY);
+        }
+    }
+
+    private static final class DirectLongSlots implements LongSlots {
+        private final LongBuffer slots;
+
+        private DirectLongSlots(int size) {
+            this.slots = ByteBuffer.allocateDirect(Math.multiplyExact(size, Long.BYTES))
+                    .order(ByteOrder.nativeOrder())
+                    .asLongBuffer();
+        }
+
+        @Override
+        public long get(int index) {
+            return slots.get(index);
+        }
+
+        @Override
+        public void set(int index, long value) {
+            slots.put(index, value);
+        }
+
+        @Override
+        public void clear() {
+            for (int index = 0; index < slots.capacity(); index++) {
+                slots.put(index, EMPTY);
+            }
+        }
+    }
+}
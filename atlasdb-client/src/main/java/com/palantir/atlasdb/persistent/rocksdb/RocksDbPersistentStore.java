@@ -22,6 +22,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
 import com.google.protobuf.ByteString;
 import com.palantir.atlasdb.persistent.api.PersistentStore;
+import com.palantir.common.base.Throwables;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.logger.SafeLogger;
@@ -32,6 +33,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -48,6 +50,7 @@ import org.rocksdb.ColumnFamilyDescriptor;
 import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
+import org.rocksdb.RocksIterator;
 
 public final class RocksDbPersistentStore implements PersistentStore {
     private static final SafeLogger log = SafeLoggerFactory.get(RocksDbPersistentStore.class);
@@ -55,10 +58,24 @@ public final class RocksDbPersistentStore implements PersistentStore {
     private final ConcurrentMap<UUID, ColumnFamilyHandle> availableColumnFamilies = new ConcurrentHashMap<>();
     private final RocksDB rocksDB;
     private final File databaseFolder;
+    private final boolean propagateErrors;
 
     public RocksDbPersistentStore(RocksDB rocksDB, File databaseFolder) {
+        this(rocksDB, databaseFolder, false);
+    }
+
+    private RocksDbPersistentStore(RocksDB rocksDB, File databaseFolder, boolean propagateErrors) {
         this.rocksDB = rocksDB;
         this.databaseFolder = databaseFolder;
+        this.propagateErrors = propagateErrors;
+    }
+
+    /**
+     * Creates a store whose gets and puts propagate RocksDB errors, rather than logging them and behaving as if the
+     * key were absent or the write had succeeded. Use this when the store holds data that cannot be recomputed.
+     */
+    public static RocksDbPersistentStore createPropagatingErrors(RocksDB rocksDB, File databaseFolder) {
+        return new RocksDbPersistentStore(rocksDB, databaseFolder, true);
     }
 
     @Override
@@ -83,6 +100,23 @@ public final class RocksDbPersistentStore implements PersistentStore {
                 .collectToMap();
     }
 
+    /**
+     * Gets up to {@code maxEntries} entries whose keys are greater than or equal to {@code startInclusive}, in
+     * unsigned lexicographical order of their keys.
+     *
+     * @param handle         of the store space
+     * @param startInclusive smallest key to return
+     * @param maxEntries     maximum number of entries to return
+     * @return the entries in key order; fewer than {@code maxEntries} only if there are no further entries
+     * @throws com.palantir.logsafe.exceptions.SafeIllegalArgumentException when referencing a non existing store space
+     */
+    public List<Map.Entry<ByteString, ByteString>> getRange(
+            PersistentStore.Handle handle, @Nonnull ByteString startInclusive, int maxEntries) {
+        checkStoreSpaceExists(handle);
+
+        return getEntries(availableColumnFamilies.get(handle.id()), startInclusive, maxEntries);
+    }
+
     @Override
     public void put(PersistentStore.Handle handle, @Nonnull ByteString key, @Nonnull ByteString value) {
         checkStoreSpaceExists(handle);
@@ -142,8 +176,25 @@ public final class RocksDbPersistentStore implements PersistentStore {
             return Optional.ofNullable(rocksDB.get(columnFamilyHandle, key.toByteArray()))
                     .map(ByteString::copyFrom);
         } catch (RocksDBException exception) {
-            log.warn("Rocks db raised an exception", exception);
-            return Optional.empty();
+            return logOrPropagate(exception, Optional.empty());
+        }
+    }
+
+    private List<Map.Entry<ByteString, ByteString>> getEntries(
+            ColumnFamilyHandle columnFamilyHandle, ByteString startInclusive, int maxEntries) {
+        try (RocksIterator iterator = rocksDB.newIterator(columnFamilyHandle)) {
+            List<Map.Entry<ByteString, ByteString>> entries = new ArrayList<>();
+            iterator.seek(startInclusive.toByteArray());
+            while (iterator.isValid() && entries.size() < maxEntries) {
+                entries.add(Maps.immutableEntry(
+                        ByteString.copyFrom(iterator.key()), ByteString.copyFrom(iterator.value())));
+                iterator.next();
+            }
+            callWithExceptionHandling(() -> {
+                iterator.status();
+                return null;
+            });
+            return entries;
         }
     }
 
@@ -160,8 +211,7 @@ public final class RocksDbPersistentStore implements PersistentStore {
         try {
             return rocksDB.multiGetAsList(Collections.nCopies(keys.size(), columnFamilyHandle), keys);
         } catch (RocksDBException exception) {
-            log.warn("Rocks db raised an exception", exception);
-            return ImmutableList.of();
+            return logOrPropagate(exception, ImmutableList.of());
         }
     }
 
@@ -169,8 +219,16 @@ public final class RocksDbPersistentStore implements PersistentStore {
         try {
             rocksDB.put(columnFamilyHandle, key.toByteArray(), value.toByteArray());
         } catch (RocksDBException exception) {
-            log.warn("Rocks db raised an exception", exception);
+            logOrPropagate(exception, null);
+        }
+    }
+
+    private <T> T logOrPropagate(RocksDBException exception, T fallback) {
+        log.warn("Rocks db raised an exception", exception);
+        if (propagateErrors) {
+            throw Throwables.rewrapAndThrowUncheckedException("Rocks db raised an exception", exception);
         }
+        return fallback;
     }
 
     private static <T> T callWithExceptionHandling(ThrowingCallable<T, RocksDBException> throwingCallable) {
@@ -178,7 +236,7 @@ public final class RocksDbPersistentStore implements PersistentStore {
             return throwingCallable.call();
         } catch (RocksDBException exception) {
             log.warn("Rocks db raised an exception", exception);
-            throw new RuntimeException(exception);
+            throw Throwables.rewrapAndThrowUncheckedException("Rocks db raised an exception", exception);
         }
     }
 }
@@ -15,8 +15,10 @@
  */
 package com.palantir.atlasdb.util;
 
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
@@ -31,6 +33,8 @@ import com.palantir.tritium.proxy.Instrumentation;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.slf4j.LoggerFactory;
 
@@ -105,6 +109,40 @@ public final class AtlasDbMetrics {
         }
     }
 
+    /**
+     * Registers the same cache gauges as {@link #registerCache(MetricRegistry, Cache, String)}, for caches that are
+     * not backed by Caffeine but are able to report their statistics as a {@link CacheStats} snapshot.
+     */
+    public static void registerCache(
+            MetricRegistry metricRegistry,
+            Supplier<CacheStats> stats,
+            LongSupplier estimatedSize,
+            LongSupplier maximumSize,
+            String metricsPrefix) {
+        Set<String> existingMetrics = metricRegistry.getMetrics().keySet().stream()
+                .filter(name -> name.startsWith(metricsPrefix))
+                .collect(Collectors.toSet());
+        if (!existingMetrics.isEmpty()) {
+            log.info(
+                    "Not registering cache with prefix '{}' as metric registry already contains metrics: {}",
+                    SafeArg.of("metricsPrefix", metricsPrefix),
+                    SafeArg.of("existingMetrics", existingMetrics));
+            return;
+        }
+        registerGauge(metricRegistry, metricsPrefix + ".estimated.size", estimatedSize::getAsLong);
+        registerGauge(metricRegistry, metricsPrefix + ".maximum.size", maximumSize::getAsLong);
+        registerGauge(metricRegistry, metricsPrefix + ".request.count", () -> stats.get().requestCount());
+        registerGauge(metricRegistry, metricsPrefix + ".hit.count", () -> stats.get().hitCount());
+        registerGauge(metricRegistry, metricsPrefix + ".hit.ratio", () -> stats.get().hitRate());
+        registerGauge(metricRegistry, metricsPrefix + ".miss.count", () -> stats.get().missCount());
+        registerGauge(metricRegistry, metricsPrefix + ".miss.ratio", () -> stats.get().missRate());
+        registerGauge(metricRegistry, metricsPrefix + ".eviction.count", () -> stats.get().evictionCount());
+    }
+
+    private static <T> void registerGauge(MetricRegistry metricRegistry, String name, Gauge<T> gauge) {
+        metricRegistry.register(name, gauge);
+    }
+
     private static <T, U extends T> T instrument(
             MetricRegistry metricRegistry,
             Class<T> serviceInterface,
@@ -0,0 +1,139 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import org.junit.Test;
+
+public final class PrimitiveTimestampCacheTest {
+    private static final long CACHE_SIZE = 10 * PrimitiveTimestampCache.NUM_STRIPES;
+    private static final String METRICS_PREFIX = MetricRegistry.name(TimestampCache.class, "startToCommitTimestamp");
+
+    private final PrimitiveTimestampCache cache = PrimitiveTimestampCache.createForTests(() -> CACHE_SIZE);
+
+    @Test
+    public void cachedEntry() {
+        cache.putAlreadyCommittedTransaction(1L, 3L);
+
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isEqualTo(3L);
+    }
+
+    @Test
+    public void nonCachedEntry() {
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isNull();
+    }
+
+    @Test
+    public void cachesAbortedTransactions() {
+        cache.putAlreadyCommittedTransaction(1L, -1L);
+
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isEqualTo(-1L);
+    }
+
+    @Test
+    public void ignoresNonPositiveStartTimestamps() {
+        cache.putAlreadyCommittedTransaction(0L, 3L);
+        cache.putAlreadyCommittedTransaction(-5L, 3L);
+
+        assertThat(cache.getCommitTimestampIfPresent(0L)).isNull();
+        assertThat(cache.getCommitTimestampIfPresent(-5L)).isNull();
+    }
+
+    @Test
+    public void sizeIsBoundedAndRecentlyReadEntriesSurviveEviction() {
+        cache.putAlreadyCommittedTransaction(1L, 2L);
+        LongStream.range(2, 100 * CACHE_SIZE).forEach(startTs -> {
+            cache.putAlreadyCommittedTransaction(startTs, startTs + 1);
+            assertThat(cache.getCommitTimestampIfPresent(1L)).isEqualTo(2L);
+        });
+
+        assertThat(cache.estimatedSize()).isLessThanOrEqualTo(CACHE_SIZE);
+        assertThat(cache.stats().evictionCount()).isPositive();
+    }
+
+    @Test
+    public void allEntriesRemainReadableAfterEvictions() {
+        LongStream.range(1, 10 * CACHE_SIZE)
+                .forEach(startTs -> cache.putAlreadyCommittedTransaction(startTs, -startTs));
+
+        long present = LongStream.range(1, 10 * CACHE_SIZE)
+                .filter(startTs -> {
+                    Long commitTs = cache.getCommitTimestampIfPresent(startTs);
+                    if (commitTs != null) {
+                        assertThat(commitTs).isEqualTo(-startTs);
+                        return true;
+                    }
+                    return false;
+                })
+                .count();
+        assertThat(present).isEqualTo(cache.estimatedSize());
+    }
+
+    @Test
+    public void clearCache() {
+        cache.putAlreadyCommittedTransaction(1L, 3L);
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isEqualTo(3L);
+
+        cache.clear();
+        assertThat(cache.getCommitTimestampIfPresent(1L)).isNull();
+        assertThat(cache.estimatedSize()).isZero();
+    }
+
+    @Test
+    public void resizesWhenSizeChanges() {
+        AtomicLong size = new AtomicLong(CACHE_SIZE);
+        PrimitiveTimestampCache resizableCache = PrimitiveTimestampCache.createForTests(size::get);
+        LongStream.range(1, CACHE_SIZE).forEach(startTs -> resizableCache.putAlreadyCommittedTransaction(startTs, 5L));
+
+        size.set(PrimitiveTimestampCache.NUM_STRIPES);
+        resizableCache.getCommitTimestampIfPresent(1L);
+
+        assertThat(resizableCache.estimatedSize()).isLessThanOrEqualTo(PrimitiveTimestampCache.NUM_STRIPES);
+    }
+
+    @Test
+    public void directMemoryCacheBehavesLikeHeapCache() {
+        TimestampCache directCache =
+                PrimitiveTimestampCache.createInDirectMemory(new MetricRegistry(), () -> CACHE_SIZE);
+        directCache.putAlreadyCommittedTransaction(1L, 3L);
+
+        assertThat(directCache.getCommitTimestampIfPresent(1L)).isEqualTo(3L);
+        assertThat(directCache.getCommitTimestampIfPresent(2L)).isNull();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void registersCacheMetrics() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        TimestampCache registeredCache = PrimitiveTimestampCache.createOnHeap(metricRegistry, () -> CACHE_SIZE);
+        registeredCache.putAlreadyCommittedTransaction(1L, 3L);
+        registeredCache.getCommitTimestampIfPresent(1L);
+        registeredCache.getCommitTimestampIfPresent(2L);
+
+        assertThat(((Gauge<Long>) metricRegistry.getGauges().get(METRICS_PREFIX + ".hit.count")).getValue())
+                .isEqualTo(1L);
+        assertThat(((Gauge<Long>) metricRegistry.getGauges().get(METRICS_PREFIX + ".miss.count")).getValue())
+                .isEqualTo(1L);
+        assertThat(((Gauge<Long>) metricRegistry.getGauges().get(METRICS_PREFIX + ".estimated.size")).getValue())
+                .isEqualTo(1L);
+    }
+}
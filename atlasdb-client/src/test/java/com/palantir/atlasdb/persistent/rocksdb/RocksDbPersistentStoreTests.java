@@ -18,9 +18,14 @@ package com.palantir.atlasdb.persistent.rocksdb;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.protobuf.ByteString;
 import com.palantir.atlasdb.persistent.api.PersistentStore;
 import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
@@ -30,7 +35,10 @@ import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
 import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
 
 public final class RocksDbPersistentStoreTests {
     @ClassRule
@@ -115,6 +123,25 @@ public final class RocksDbPersistentStoreTests {
         assertThat(persistentStore.get(defaultNamespace, KEY2)).hasValue(VALUE2);
     }
 
+    @Test
+    public void getRangeReturnsEntriesInKeyOrderFromStart() {
+        ByteString key3 = ByteString.copyFromUtf8("key3");
+        persistentStore.put(defaultNamespace, key3, VALUE);
+        persistentStore.put(defaultNamespace, KEY2, VALUE2);
+        persistentStore.put(defaultNamespace, KEY, VALUE);
+
+        assertThat(persistentStore.getRange(defaultNamespace, KEY2, 10))
+                .containsExactly(Maps.immutableEntry(KEY2, VALUE2), Maps.immutableEntry(key3, VALUE));
+        assertThat(persistentStore.getRange(defaultNamespace, ByteString.EMPTY, 2))
+                .containsExactly(Maps.immutableEntry(KEY, VALUE), Maps.immutableEntry(KEY2, VALUE2));
+    }
+
+    @Test
+    public void getRangeOnNonExistingFails() {
+        assertThatThrownBy(() -> persistentStore.getRange(NON_EXISTING_NAMESPACE, KEY, 1))
+                .isInstanceOf(SafeIllegalArgumentException.class);
+    }
+
     @Test
     public void testMultiGet() {
         persistentStore.put(defaultNamespace, KEY, VALUE);
@@ -125,4 +152,36 @@ public final class RocksDbPersistentStoreTests {
                         KEY, VALUE,
                         KEY2, VALUE2));
     }
+
+    @Test
+    public void rocksDbErrorsOnGetAndPutAreDroppedByDefault() throws Exception {
+        RocksDB failingRocksDb = createFailingRocksDb();
+        PersistentStore store = new RocksDbPersistentStore(failingRocksDb, temporaryFolder.newFolder());
+        PersistentStore.Handle handle = store.createSpace();
+
+        store.put(handle, KEY, VALUE);
+        assertThat(store.get(handle, KEY)).isEmpty();
+    }
+
+    @Test
+    public void rocksDbErrorsOnGetAndPutArePropagatedWhenRequested() throws Exception {
+        RocksDB failingRocksDb = createFailingRocksDb();
+        PersistentStore store =
+                RocksDbPersistentStore.createPropagatingErrors(failingRocksDb, temporaryFolder.newFolder());
+        PersistentStore.Handle handle = store.createSpace();
+
+        assertThatThrownBy(() -> store.put(handle, KEY, VALUE)).hasCauseInstanceOf(RocksDBException.class);
+        assertThatThrownBy(() -> store.get(handle, KEY)).hasCauseInstanceOf(RocksDBException.class);
+    }
+
+    private static RocksDB createFailingRocksDb() throws RocksDBException {
+        RocksDB rocksDb = mock(RocksDB.class);
+        when(rocksDb.createColumnFamily(any(ColumnFamilyDescriptor.class))).thenReturn(mock(ColumnFamilyHandle.class));
+        when(rocksDb.get(any(ColumnFamilyHandle.class), any(byte[].class)))
+                .thenThrow(new RocksDBException("get failed"));
+        doThrow(new RocksDBException("put failed"))
+                .when(rocksDb)
+                .put(any(ColumnFamilyHandle.class), any(byte[].class), any(byte[].class));
+        return rocksDb;
+    }
 }
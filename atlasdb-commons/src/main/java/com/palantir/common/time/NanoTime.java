@@ -63,6 +63,14 @@ public abstract class NanoTime implements Comparable<NanoTime> {
         return create(time() + duration.toNanos());
     }
 
+    /**
+     * Returns the number of nanoseconds from this time until the given time, which is negative if the given time is
+     * earlier than this one.
+     */
+    public long nanosUntil(NanoTime other) {
+        return nanosBetween(this, other);
+    }
+
     public boolean isBefore(NanoTime other) {
         return compareTo(other) < 0;
     }
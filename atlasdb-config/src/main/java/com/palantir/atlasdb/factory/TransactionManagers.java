@@ -105,6 +105,7 @@ import com.palantir.atlasdb.transaction.impl.TransactionConstants;
 import com.palantir.atlasdb.transaction.impl.consistency.ImmutableTimestampCorroborationConsistencyCheck;
 import com.palantir.atlasdb.transaction.impl.metrics.DefaultMetricsFilterEvaluationContext;
 import com.palantir.atlasdb.transaction.impl.metrics.MetricsFilterEvaluationContext;
+import com.palantir.atlasdb.transaction.service.ReadBatchingTransactionService;
 import com.palantir.atlasdb.transaction.service.TransactionService;
 import com.palantir.atlasdb.transaction.service.TransactionServices;
 import com.palantir.atlasdb.util.AtlasDbMetrics;
@@ -435,8 +436,12 @@ public abstract class TransactionManagers {
         TransactionManagersInitializer initializer = TransactionManagersInitializer.createInitialTables(
                 keyValueService, schemas(), config().initializeAsync(), allSafeForLogging());
 
+        TimestampCache timestampCache = config().timestampCache()
+                .orElseGet(() -> new DefaultTimestampCache(
+                        metricsManager.getRegistry(), () -> runtime.get().getTimestampCacheSize()));
+
         TransactionComponents components = createTransactionComponents(
-                closeables, metricsManager, lockAndTimestampServices, keyValueService, runtime);
+                closeables, metricsManager, lockAndTimestampServices, keyValueService, timestampCache, runtime);
         TransactionService transactionService = components.transactionService();
         ConflictDetectionManager conflictManager = ConflictDetectionManagers.create(keyValueService);
         SweepStrategyManager sweepStrategyManager = SweepStrategyManagers.createDefault(keyValueService);
@@ -471,10 +476,6 @@ public abstract class TransactionManagers {
         Supplier<TransactionConfig> transactionConfigSupplier =
                 runtime.map(AtlasDbRuntimeConfig::transaction).map(this::withConsolidatedGrabImmutableTsLockFlag);
 
-        TimestampCache timestampCache = config().timestampCache()
-                .orElseGet(() -> new DefaultTimestampCache(
-                        metricsManager.getRegistry(), () -> runtime.get().getTimestampCacheSize()));
-
         ConflictTracer conflictTracer = lockDiagnosticComponents()
                 .map(LockDiagnosticComponents::clientLockDiagnosticCollector)
                 .<ConflictTracer>map(Function.identity())
@@ -680,6 +681,7 @@ public abstract class TransactionManagers {
             MetricsManager metricsManager,
             LockAndTimestampServices lockAndTimestampServices,
             KeyValueService keyValueService,
+            TimestampCache timestampCache,
             Supplier<AtlasDbRuntimeConfig> runtimeConfigSupplier) {
         CoordinationService<InternalSchemaMetadata> coordinationService =
                 getSchemaMetadataCoordinationService(metricsManager, lockAndTimestampServices, keyValueService);
@@ -689,14 +691,21 @@ public abstract class TransactionManagers {
                 () -> AtlasDbMetrics.instrumentTimed(
                         metricsManager.getRegistry(),
                         TransactionService.class,
-                        TransactionServices.createTransactionService(
-                                keyValueService,
-                                transactionSchemaManager,
+                        ReadBatchingTransactionService.create(
+                                TransactionServices.createTransactionService(
+                                        keyValueService,
+                                        transactionSchemaManager,
+                                        metricsManager.getTaggedRegistry(),
+                                        () -> runtimeConfigSupplier
+                                                .get()
+                                                .internalSchema()
+                                                .acceptStagingReadsOnVersionThree()),
+                                timestampCache,
                                 metricsManager.getTaggedRegistry(),
                                 () -> runtimeConfigSupplier
                                         .get()
-                                        .internalSchema()
-                                        .acceptStagingReadsOnVersionThree())),
+                                        .transaction()
+                                        .coalesceCommitTimestampLookups())),
                 closeables);
         Optional<TransactionSchemaInstaller> schemaInstaller = getTransactionSchemaInstallerIfSupported(
                 closeables, keyValueService, runtimeConfigSupplier, transactionSchemaManager);
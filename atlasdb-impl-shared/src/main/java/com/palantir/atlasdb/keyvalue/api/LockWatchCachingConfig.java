@@ -45,6 +45,16 @@ public interface LockWatchCachingConfig {
         return 1.0;
     }
 
+    /**
+     * If true, the bytes of cached values are kept in direct memory outside the Java heap, and only a small index of
+     * them is kept on-heap. This reduces garbage collection pressure for large caches, at the cost of copying a value
+     * every time it is read from the cache.
+     */
+    @Value.Default
+    default boolean useOffHeapValueStore() {
+        return false;
+    }
+
     static ImmutableLockWatchCachingConfig.Builder builder() {
         return ImmutableLockWatchCachingConfig.builder();
     }
@@ -0,0 +1,97 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.api.cache;
+
+import com.palantir.atlasdb.keyvalue.api.RowReference;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.lock.LockDescriptor;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import java.util.Optional;
+
+/**
+ * An immutable view of the rows and ranges held by a {@link CachedRowStore}, along with the rows that currently hold a
+ * lock.
+ */
+final class CachedRowSnapshot {
+    private static final CachedRowSnapshot EMPTY =
+            new CachedRowSnapshot(HashMap.empty(), HashMap.empty(), HashMap.empty());
+
+    private final Map<RowReference, CacheRow> rows;
+    private final Map<RowReference, Set<LockDescriptor>> lockedRows;
+    private final Map<TableReference, List<CacheRange>> ranges;
+
+    private CachedRowSnapshot(
+            Map<RowReference, CacheRow> rows,
+            Map<RowReference, Set<LockDescriptor>> lockedRows,
+            Map<TableReference, List<CacheRange>> ranges) {
+        this.rows = rows;
+        this.lockedRows = lockedRows;
+        this.ranges = ranges;
+    }
+
+    static CachedRowSnapshot of(
+            Map<RowReference, CacheRow> rows,
+            Map<RowReference, Set<LockDescriptor>> lockedRows,
+            Map<TableReference, List<CacheRange>> ranges) {
+        return new CachedRowSnapshot(rows, lockedRows, ranges);
+    }
+
+    static CachedRowSnapshot empty() {
+        return EMPTY;
+    }
+
+    Optional<CacheRow> getRow(RowReference rowReference) {
+        return rows.get(rowReference).toJavaOptional();
+    }
+
+    boolean isUnlocked(RowReference rowReference) {
+        return !lockedRows.containsKey(rowReference);
+    }
+
+    /**
+     * Returns a cached range covering the given bounds. Ranges are only cached while none of their rows are locked.
+     */
+    Optional<CacheRange> getRange(TableReference table, byte[] startInclusive, byte[] endExclusive) {
+        return ranges.get(table)
+                .flatMap(tableRanges -> tableRanges.find(range -> range.covers(table, startInclusive, endExclusive)))
+                .toJavaOptional();
+    }
+
+    /**
+     * Returns true if no row between the given bounds is locked. This is linear in the number of locked rows, which
+     * only remain locked for the duration of a commit.
+     */
+    boolean isRangeUnlocked(TableReference table, byte[] startInclusive, byte[] endExclusive) {
+        return lockedRows.keySet().forAll(row -> !row.tableRef().equals(table)
+                || !CacheRange.isInRange(startInclusive, endExclusive, row.row()));
+    }
+
+    @SuppressWarnings("ReferenceEquality") // explicitly checking identity
+    boolean isBackedBy(
+            Map<RowReference, CacheRow> otherRows,
+            Map<RowReference, Set<LockDescriptor>> otherLockedRows,
+            Map<TableReference, List<CacheRange>> otherRanges) {
+        return rows == otherRows && lockedRows == otherLockedRows && ranges == otherRanges;
+    }
+
+    int size() {
+        return rows.size();
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.api.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.keyvalue.api.AtlasLockDescriptorUtils;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.UnsafeArg;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.collection.Set;
+import javax.annotation.concurrent.NotThreadSafe;
+import org.checkerframework.checker.index.qual.NonNegative;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Holds the entire contents of rows for the central value cache. A row is only cached while none of its cells are
+ * locked, so any lock event touching a row invalidates it, and rows cannot be cached again until the lock is released.
+ * As with cells, rows are evicted based on their weight.
+ *
+ * Ranges that were read in their entirety are held in the same way: a lock on any row within a range invalidates the
+ * range, as the row may be written to or created by the lock holder. Only a bounded number of ranges are kept per
+ * table, as lookups scan the ranges of a table.
+ */
+@NotThreadSafe
+final class CachedRowStore {
+    @VisibleForTesting
+    static final int MAX_RANGES_PER_TABLE = 64;
+
+    private final StructureHolder<Map<RowReference, CacheRow>> rows;
+    private final StructureHolder<Map<RowReference, Set<LockDescriptor>>> lockedRows;
+    private final StructureHolder<Map<TableReference, List<CacheRange>>> ranges;
+    private final Cache<RowReference, Integer> loadedRows;
+    private final Cache<CacheRange, Integer> loadedRanges;
+    private final CacheMetrics metrics;
+    private CachedRowSnapshot latestSnapshot = CachedRowSnapshot.empty();
+
+    CachedRowStore(long maxCacheSize, CacheMetrics metrics) {
+        this.rows = StructureHolder.create(HashMap::empty);
+        this.lockedRows = StructureHolder.create(HashMap::empty);
+        this.ranges = StructureHolder.create(HashMap::empty);
+        this.loadedRows = Caffeine.newBuilder()
+                .maximumWeight(maxCacheSize)
+                .weigher(RowWeigher.INSTANCE)
+                .executor(MoreExecutors.directExecutor())
+                .removalListener((rowReference, size, cause) -> {
+                    if (cause.wasEvicted()) {
+                        rows.with(map -> map.remove(rowReference));
+                    }
+                    metrics.decreaseCacheSize(RowWeigher.INSTANCE.weigh(rowReference, size));
+                })
+                .build();
+        // Ranges have no equality beyond identity, so each cached range is its own key.
+        this.loadedRanges = Caffeine.newBuilder()
+                .maximumWeight(maxCacheSize)
+                .weigher(RangeWeigher.INSTANCE)
+                .executor(MoreExecutors.directExecutor())
+                .removalListener((range, size, cause) -> {
+                    if (cause.wasEvicted()) {
+                        removeRange(range);
+                    }
+                    metrics.decreaseCacheSize(RangeWeigher.INSTANCE.weigh(range, size));
+                })
+                .build();
+        this.metrics = metrics;
+    }
+
+    void reset() {
+        rows.resetToInitialValue();
+        lockedRows.resetToInitialValue();
+        ranges.resetToInitialValue();
+        loadedRows.invalidateAll();
+        loadedRows.cleanUp();
+        loadedRanges.invalidateAll();
+        loadedRanges.cleanUp();
+    }
+
+    void putRow(RowReference rowReference, CacheRow row) {
+        Preconditions.checkState(
+                !lockedRows.apply(map -> map.containsKey(rowReference)),
+                "Trying to cache a row which is locked",
+                UnsafeArg.of("row", rowReference));
+        rows.with(map -> map.put(rowReference, row, (oldRow, newRow) -> {
+            Preconditions.checkState(
+                    oldRow.equals(newRow),
+                    "Trying to cache a row which is not equal to a currently cached row",
+                    UnsafeArg.of("row", rowReference));
+            metrics.decreaseCacheSize(RowWeigher.INSTANCE.weigh(rowReference, oldRow.size()));
+            return newRow;
+        }));
+        loadedRows.put(rowReference, row.size());
+        metrics.increaseCacheSize(RowWeigher.INSTANCE.weigh(rowReference, row.size()));
+    }
+
+    void putRange(CacheRange range) {
+        TableReference table = range.tableRef();
+        Preconditions.checkState(
+                getSnapshot().isRangeUnlocked(table, range.startInclusive(), range.endExclusive()),
+                "Trying to cache a range which contains a locked row",
+                UnsafeArg.of("range", range));
+        List<CacheRange> tableRanges = ranges.apply(map -> map.get(table).getOrElse(List::empty));
+        if (tableRanges.exists(existing -> existing.covers(table, range.startInclusive(), range.endExclusive()))) {
+            return;
+        }
+
+        tableRanges
+                .filter(existing -> range.covers(table, existing.startInclusive(), existing.endExclusive()))
+                .forEach(this::invalidateRange);
+        ranges.with(map -> map.put(table, map.get(table).getOrElse(List::empty).append(range)));
+        loadedRanges.put(range, range.size());
+        metrics.increaseCacheSize(RangeWeigher.INSTANCE.weigh(range, range.size()));
+
+        List<CacheRange> currentTableRanges = ranges.apply(map -> map.get(table).getOrElse(List::empty));
+        if (currentTableRanges.size() > MAX_RANGES_PER_TABLE) {
+            invalidateRange(currentTableRanges.head());
+        }
+    }
+
+    void lock(LockDescriptor descriptor) {
+        for (RowReference rowReference : AtlasLockDescriptorUtils.candidateRows(descriptor)) {
+            if (rows.apply(map -> map.containsKey(rowReference))) {
+                loadedRows.invalidate(rowReference);
+                rows.with(map -> map.remove(rowReference));
+            }
+            ranges.apply(map -> map.get(rowReference.tableRef()).getOrElse(List::empty))
+                    .filter(range -> range.contains(rowReference))
+                    .forEach(this::invalidateRange);
+            lockedRows.with(map -> map.put(
+                    rowReference, map.get(rowReference).getOrElse(HashSet::empty).add(descriptor)));
+        }
+    }
+
+    void unlock(LockDescriptor descriptor) {
+        for (RowReference rowReference : AtlasLockDescriptorUtils.candidateRows(descriptor)) {
+            lockedRows.with(map -> map.get(rowReference)
+                    .map(descriptors -> descriptors.remove(descriptor))
+                    .map(descriptors -> descriptors.isEmpty()
+                            ? map.remove(rowReference)
+                            : map.put(rowReference, descriptors))
+                    .getOrElse(map));
+        }
+    }
+
+    /**
+     * Returns the same snapshot instance for as long as the contents of the store are unchanged.
+     */
+    CachedRowSnapshot getSnapshot() {
+        Map<RowReference, CacheRow> currentRows = rows.getSnapshot();
+        Map<RowReference, Set<LockDescriptor>> currentLockedRows = lockedRows.getSnapshot();
+        Map<TableReference, List<CacheRange>> currentRanges = ranges.getSnapshot();
+        if (!latestSnapshot.isBackedBy(currentRows, currentLockedRows, currentRanges)) {
+            latestSnapshot = CachedRowSnapshot.of(currentRows, currentLockedRows, currentRanges);
+        }
+        return latestSnapshot;
+    }
+
+    private void invalidateRange(CacheRange range) {
+        loadedRanges.invalidate(range);
+        removeRange(range);
+    }
+
+    @SuppressWarnings("ReferenceEquality") // ranges are identified by identity
+    private void removeRange(CacheRange range) {
+        ranges.with(map -> map.get(range.tableRef())
+                .map(tableRanges -> tableRanges.filter(existing -> existing != range))
+                .map(tableRanges -> tableRanges.isEmpty()
+                        ? map.remove(range.tableRef())
+                        : map.put(range.tableRef(), tableRanges))
+                .getOrElse(map));
+    }
+
+    enum RowWeigher implements Weigher<RowReference, Integer> {
+        INSTANCE;
+
+        @Override
+        public @NonNegative int weigh(@NonNull RowReference key, @NonNull Integer value) {
+            return ValueStoreImpl.CACHE_OVERHEAD + value + weighTable(key.tableRef()) + key.row().length;
+        }
+
+        private int weighTable(@NonNull TableReference table) {
+            return table.toString().length();
+        }
+    }
+
+    enum RangeWeigher implements Weigher<CacheRange, Integer> {
+        INSTANCE;
+
+        @Override
+        public @NonNegative int weigh(@NonNull CacheRange key, @NonNull Integer value) {
+            return ValueStoreImpl.CACHE_OVERHEAD + value + key.tableRef().toString().length();
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.palantir.atlasdb.keyvalue.api.cache;
 
 import com.palantir.atlasdb.keyvalue.api.AtlasLockDescriptorUtils;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.lock.watch.CommitUpdate;
@@ -65,6 +66,35 @@ final class FilteringValueCacheSnapshot implements ValueCacheSnapshot {
         return delegate.hasAnyTablesWatched();
     }
 
+    @Override
+    public Optional<CacheRow> getRow(RowReference rowReference) {
+        if (!lockedCells.isRowUnlocked(rowReference)) {
+            return Optional.empty();
+        } else {
+            return delegate.getRow(rowReference);
+        }
+    }
+
+    @Override
+    public boolean isRowUnlocked(RowReference rowReference) {
+        return lockedCells.isRowUnlocked(rowReference) && delegate.isRowUnlocked(rowReference);
+    }
+
+    @Override
+    public Optional<CacheRange> getRange(TableReference tableReference, byte[] startInclusive, byte[] endExclusive) {
+        if (!lockedCells.isRangeUnlocked(tableReference, startInclusive, endExclusive)) {
+            return Optional.empty();
+        } else {
+            return delegate.getRange(tableReference, startInclusive, endExclusive);
+        }
+    }
+
+    @Override
+    public boolean isRangeUnlocked(TableReference tableReference, byte[] startInclusive, byte[] endExclusive) {
+        return lockedCells.isRangeUnlocked(tableReference, startInclusive, endExclusive)
+                && delegate.isRangeUnlocked(tableReference, startInclusive, endExclusive);
+    }
+
     private static LockedCells toLockedCells(CommitUpdate commitUpdate) {
         return commitUpdate.accept(new Visitor<LockedCells>() {
             @Override
@@ -85,6 +115,8 @@ final class FilteringValueCacheSnapshot implements ValueCacheSnapshot {
 
         Set<CellReference> lockedCells();
 
+        Set<RowReference> lockedRows();
+
         static LockedCells invalidateAll() {
             return ImmutableLockedCells.builder().allLocked(true).build();
         }
@@ -96,11 +128,26 @@ final class FilteringValueCacheSnapshot implements ValueCacheSnapshot {
                             .map(AtlasLockDescriptorUtils::candidateCells)
                             .flatMap(List::stream)
                             .collect(Collectors.toSet()))
+                    .lockedRows(descriptors.stream()
+                            .map(AtlasLockDescriptorUtils::candidateRows)
+                            .flatMap(List::stream)
+                            .collect(Collectors.toSet()))
                     .build();
         }
 
         default boolean isUnlocked(CellReference cellReference) {
             return !allLocked() && !lockedCells().contains(cellReference);
         }
+
+        default boolean isRowUnlocked(RowReference rowReference) {
+            return !allLocked() && !lockedRows().contains(rowReference);
+        }
+
+        default boolean isRangeUnlocked(TableReference tableReference, byte[] startInclusive, byte[] endExclusive) {
+            return !allLocked()
+                    && lockedRows().stream()
+                            .noneMatch(row -> row.tableRef().equals(tableReference)
+                                    && CacheRange.isInRange(startInclusive, endExclusive, row.row()));
+        }
     }
 }
@@ -22,6 +22,7 @@ import com.google.common.collect.Multimap;
 import com.palantir.atlasdb.keyvalue.api.AtlasLockDescriptorUtils;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
 import com.palantir.atlasdb.keyvalue.api.ResilientLockWatchProxy;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.watch.Sequence;
 import com.palantir.atlasdb.keyvalue.api.watch.StartTimestamp;
@@ -64,9 +65,25 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
             SnapshotStore snapshotStore,
             Runnable failureCallback,
             CacheMetrics metrics) {
+        this(
+                eventCache,
+                new ValueStoreImpl(watchedTablesFromSchema, maxCacheSize, metrics),
+                validationProbability,
+                snapshotStore,
+                failureCallback,
+                metrics);
+    }
+
+    private LockWatchValueScopingCacheImpl(
+            LockWatchEventCache eventCache,
+            ValueStore valueStore,
+            double validationProbability,
+            SnapshotStore snapshotStore,
+            Runnable failureCallback,
+            CacheMetrics metrics) {
         this.eventCache = eventCache;
         this.snapshotStore = snapshotStore;
-        this.valueStore = new ValueStoreImpl(watchedTablesFromSchema, maxCacheSize, metrics);
+        this.valueStore = valueStore;
         this.cacheStore =
                 new CacheStoreImpl(snapshotStore, validationProbability, failureCallback, metrics, MAX_CACHE_COUNT);
     }
@@ -77,13 +94,25 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
             long maxCacheSize,
             double validationProbability,
             Set<TableReference> watchedTablesFromSchema) {
+        return create(eventCache, metrics, maxCacheSize, validationProbability, watchedTablesFromSchema, false);
+    }
+
+    public static LockWatchValueScopingCache create(
+            LockWatchEventCache eventCache,
+            CacheMetrics metrics,
+            long maxCacheSize,
+            double validationProbability,
+            Set<TableReference> watchedTablesFromSchema,
+            boolean useOffHeapValueStore) {
         ResilientLockWatchProxy<LockWatchValueScopingCache> proxyFactory =
                 ResilientLockWatchProxy.newValueCacheProxyFactory(NoOpLockWatchValueScopingCache.create(), metrics);
+        ValueStore valueStore = useOffHeapValueStore
+                ? new OffHeapValueStore(watchedTablesFromSchema, maxCacheSize, metrics)
+                : new ValueStoreImpl(watchedTablesFromSchema, maxCacheSize, metrics);
         LockWatchValueScopingCache defaultCache = new LockWatchValueScopingCacheImpl(
                 eventCache,
-                maxCacheSize,
+                valueStore,
                 validationProbability,
-                watchedTablesFromSchema,
                 SnapshotStoreImpl.create(metrics),
                 proxyFactory::fallback,
                 metrics);
@@ -122,8 +151,11 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
         TransactionScopedCache cache = cacheStore.getCache(startTs);
         cache.finalise();
 
-        Map<CellReference, CacheValue> cachedValues = cache.getValueDigest().loadedValues();
-        if (!cachedValues.isEmpty()) {
+        ValueDigest valueDigest = cache.getValueDigest();
+        Map<CellReference, CacheValue> cachedValues = valueDigest.loadedValues();
+        Map<RowReference, CacheRow> cachedRows = valueDigest.loadedRows();
+        List<CacheRange> cachedRanges = valueDigest.loadedRanges();
+        if (!cachedValues.isEmpty() || !cachedRows.isEmpty() || !cachedRanges.isEmpty()) {
 
             CommitUpdate commitUpdate = eventCache.getEventUpdate(startTimestamp);
             commitUpdate.accept(new CommitUpdate.Visitor<Void>() {
@@ -144,6 +176,17 @@ public final class LockWatchValueScopingCacheImpl implements LockWatchValueScopi
                     KeyedStream.stream(cachedValues)
                             .filterKeys(cellReference -> !invalidatedCells.contains(cellReference))
                             .forEach(valueStore::putValue);
+
+                    Set<RowReference> invalidatedRows = invalidatedLocks.stream()
+                            .map(AtlasLockDescriptorUtils::candidateRows)
+                            .flatMap(List::stream)
+                            .collect(Collectors.toSet());
+                    KeyedStream.stream(cachedRows)
+                            .filterKeys(rowReference -> !invalidatedRows.contains(rowReference))
+                            .forEach(valueStore::putRow);
+                    cachedRanges.stream()
+                            .filter(range -> invalidatedRows.stream().noneMatch(range::contains))
+                            .forEach(valueStore::putRange);
                     return null;
                 }
             });
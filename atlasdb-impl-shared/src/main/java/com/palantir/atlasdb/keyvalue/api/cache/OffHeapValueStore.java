@@ -0,0 +1,565 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.api.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.keyvalue.api.AtlasLockDescriptorUtils;
+import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.cache.ValueStoreImpl.EntryWeigher;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchCreatedEvent;
+import com.palantir.lock.watch.LockWatchEvent;
+import com.palantir.lock.watch.LockWatchReferences.LockWatchReference;
+import com.palantir.lock.watch.LockWatchReferencesVisitor;
+import com.palantir.lock.watch.UnlockEvent;
+import com.palantir.logsafe.UnsafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import io.vavr.collection.HashSet;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A {@link ValueStore} that keeps the bytes of cached values in direct memory handed out by a {@link SlabAllocator},
+ * so that a large value cache does not add to the live heap that the garbage collector has to trace. The on-heap
+ * index only holds the address and length of each value; snapshots copy value bytes out of direct memory when they
+ * are read.
+ *
+ * Snapshots are versioned reads of a single mutable index rather than structurally shared copies of it. Taking a
+ * snapshot after a change publishes a new version, and every change is tagged with the version that the next snapshot
+ * will have. For each cell, the index holds a chain of entries from newest to oldest, and a snapshot reads the newest
+ * entry that is not newer than the snapshot. A change only adds to the chain if some snapshot may still read the
+ * entry it replaces; otherwise it replaces it outright. A put therefore allocates a constant number of objects,
+ * however large the cache is.
+ *
+ * Eviction is weight-based and done by Caffeine, as in {@link ValueStoreImpl}. Since chunks are rounded up to a power
+ * of two and freed memory can only be reused once no snapshot can read it, the slabs may run out of room before
+ * Caffeine reaches its maximum weight; in that case, the coldest values are evicted until the new value fits, or until
+ * as much memory as it needs has been queued for release. The memory of a replaced entry, and the older entries of its
+ * chain, are released once every snapshot that could still read them has been garbage collected: each snapshot is
+ * tracked through a weak reference, and replaced entries wait in a queue until the oldest live snapshot is newer than
+ * the version at which they were replaced.
+ */
+@NotThreadSafe
+final class OffHeapValueStore implements ValueStore {
+    private final StructureHolder<io.vavr.collection.Set<TableReference>> watchedTables;
+    private final Set<TableReference> allowedTables;
+    private final long maxCacheSize;
+    private final Cache<CellReference, Integer> loadedValues;
+    private final LockWatchVisitor visitor = new LockWatchVisitor();
+    private final CacheMetrics metrics;
+    private final CachedRowStore rows;
+
+    private final ReferenceQueue<Snapshot> collectedSnapshots = new ReferenceQueue<>();
+    private final NavigableMap<Long, SnapshotReference> liveSnapshots = new TreeMap<>();
+    private final Deque<ReplacedEntry> replacedEntries = new ArrayDeque<>();
+
+    private ConcurrentMap<CellReference, VersionedEntry> values = new ConcurrentHashMap<>();
+    private SlabAllocator allocator;
+    private long publishedVersion = 0;
+    private boolean valuesChangedSinceLatestSnapshot = false;
+    private Snapshot latestSnapshot = null;
+
+    OffHeapValueStore(Set<TableReference> allowedTables, long maxCacheSize, CacheMetrics metrics) {
+        this.allowedTables = allowedTables;
+        this.maxCacheSize = maxCacheSize;
+        this.watchedTables = StructureHolder.create(HashSet::empty);
+        this.allocator = new SlabAllocator(maxCacheSize);
+        this.loadedValues = Caffeine.newBuilder()
+                .maximumWeight(maxCacheSize)
+                .weigher(EntryWeigher.INSTANCE)
+                .executor(MoreExecutors.directExecutor())
+                .removalListener((cellReference, value, cause) -> {
+                    if (cause.wasEvicted()) {
+                        removeEntry(cellReference);
+                    }
+                    metrics.decreaseCacheSize(EntryWeigher.INSTANCE.weigh(cellReference, value));
+                })
+                .build();
+        this.metrics = metrics;
+        this.rows = new CachedRowStore(maxCacheSize, metrics);
+        metrics.setMaximumCacheSize(maxCacheSize);
+    }
+
+    @Override
+    public void reset() {
+        watchedTables.resetToInitialValue();
+        loadedValues.invalidateAll();
+        rows.reset();
+
+        // Forcing the cache to run cleanup here guarantees that the metrics are not affected after they have been reset
+        loadedValues.cleanUp();
+        metrics.resetCacheSize();
+
+        // Existing snapshots keep the old index and slabs reachable, so they remain readable until they are collected.
+        values = new ConcurrentHashMap<>();
+        allocator = new SlabAllocator(maxCacheSize);
+        liveSnapshots.clear();
+        replacedEntries.clear();
+        valuesChangedSinceLatestSnapshot = false;
+        latestSnapshot = null;
+    }
+
+    @Override
+    public void applyEvent(LockWatchEvent event) {
+        reclaimReplacedEntries();
+        event.accept(visitor);
+    }
+
+    @Override
+    public void putValue(CellReference cellReference, CacheValue value) {
+        reclaimReplacedEntries();
+        Optional<StoredEntry> existing = currentEntry(cellReference);
+        if (existing.isPresent()) {
+            StoredEntry oldEntry = existing.get();
+            if (!oldEntry.isUnlocked() || !oldEntry.contentEquals(allocator, value)) {
+                throw new SafeIllegalStateException(
+                        "Trying to cache a value which is either locked or is not equal to a currently cached value",
+                        UnsafeArg.of("table", cellReference.tableRef()),
+                        UnsafeArg.of("cell", cellReference.cell()),
+                        UnsafeArg.of("oldValue", oldEntry.toCacheEntry(allocator)),
+                        UnsafeArg.of("newValue", CacheEntry.unlocked(value)));
+            }
+            metrics.decreaseCacheSize(EntryWeigher.INSTANCE.weigh(cellReference, oldEntry.size()));
+        } else {
+            Optional<StoredEntry> entry = store(value);
+            if (entry.isEmpty()) {
+                return;
+            }
+            setEntry(cellReference, entry.get());
+        }
+        loadedValues.put(cellReference, value.size());
+        metrics.increaseCacheSize(EntryWeigher.INSTANCE.weigh(cellReference, value.size()));
+    }
+
+    @Override
+    public void putRow(RowReference rowReference, CacheRow row) {
+        rows.putRow(rowReference, row);
+    }
+
+    @Override
+    public void putRange(CacheRange range) {
+        rows.putRange(range);
+    }
+
+    @Override
+    @SuppressWarnings("ReferenceEquality") // explicitly checking identity
+    public ValueCacheSnapshot getSnapshot() {
+        reclaimReplacedEntries();
+        io.vavr.collection.Set<TableReference> currentTables = watchedTables.getSnapshot();
+        CachedRowSnapshot currentRows = rows.getSnapshot();
+        if (latestSnapshot != null
+                && !valuesChangedSinceLatestSnapshot
+                && latestSnapshot.lockWatchEnabledTables == currentTables
+                && latestSnapshot.cachedRows == currentRows) {
+            return latestSnapshot;
+        }
+        publishedVersion++;
+        valuesChangedSinceLatestSnapshot = false;
+        latestSnapshot =
+                new Snapshot(values, publishedVersion, currentTables, allowedTables, currentRows, allocator);
+        liveSnapshots.put(
+                publishedVersion, new SnapshotReference(latestSnapshot, publishedVersion, collectedSnapshots));
+        return latestSnapshot;
+    }
+
+    private Optional<StoredEntry> store(CacheValue value) {
+        if (value.value().isEmpty()) {
+            return Optional.of(StoredEntry.ABSENT);
+        }
+        byte[] bytes = value.value().get();
+        if (bytes.length == 0) {
+            return Optional.of(new StoredEntry(SlabAllocator.NO_ADDRESS, 0));
+        }
+        long address = allocate(bytes.length);
+        if (address == SlabAllocator.NO_ADDRESS) {
+            return Optional.empty();
+        }
+        allocator.write(address, bytes);
+        return Optional.of(new StoredEntry(address, bytes.length));
+    }
+
+    /**
+     * Evicts the coldest values while the slabs have no room for a chunk of the given length. Evicting stops early
+     * once the evicted values that are still visible to snapshots hold as much memory as is needed, since that memory
+     * only becomes available once those snapshots are collected.
+     */
+    private long allocate(int length) {
+        long address = allocator.allocate(length);
+        long queuedForRelease = 0;
+        while (address == SlabAllocator.NO_ADDRESS && queuedForRelease < length) {
+            Optional<CellReference> coldest = loadedValues.policy().eviction().flatMap(eviction -> eviction
+                    .coldest(1)
+                    .keySet()
+                    .stream()
+                    .findFirst());
+            if (coldest.isEmpty()) {
+                break;
+            }
+            loadedValues.invalidate(coldest.get());
+            queuedForRelease += removeEntry(coldest.get());
+            address = allocator.allocate(length);
+        }
+        return address;
+    }
+
+    private Optional<StoredEntry> currentEntry(CellReference cellReference) {
+        VersionedEntry head = values.get(cellReference);
+        return head == null ? Optional.empty() : Optional.ofNullable(head.entry);
+    }
+
+    /**
+     * Returns the number of bytes of direct memory that were held by the removed entry and have to wait for snapshots
+     * to be collected before they can be reused.
+     */
+    private int removeEntry(CellReference cellReference) {
+        return setEntry(cellReference, null);
+    }
+
+    /**
+     * Makes the given entry, or the absence of an entry, the current one for the cell. If no snapshot can have read
+     * the entry being replaced, it is replaced outright and its memory freed; otherwise it is kept for those snapshots
+     * and queued for release, and the number of bytes it holds is returned.
+     */
+    private int setEntry(CellReference cellReference, @Nullable StoredEntry entry) {
+        VersionedEntry head = values.get(cellReference);
+        if (entry == null && (head == null || head.entry == null)) {
+            return 0;
+        }
+        long version = publishedVersion + 1;
+        valuesChangedSinceLatestSnapshot = true;
+        if (head == null) {
+            values.put(cellReference, new VersionedEntry(entry, version, null));
+            return 0;
+        }
+        if (head.version == version) {
+            if (head.entry != null && head.entry.hasChunk()) {
+                allocator.free(head.entry.address, head.entry.length);
+            }
+            if (entry == null && head.next == null) {
+                values.remove(cellReference);
+            } else {
+                values.put(cellReference, new VersionedEntry(entry, version, head.next));
+            }
+            return 0;
+        }
+        values.put(cellReference, new VersionedEntry(entry, version, head));
+        replacedEntries.addLast(new ReplacedEntry(publishedVersion, cellReference, head.entry));
+        return head.entry == null || !head.entry.hasChunk() ? 0 : head.entry.length;
+    }
+
+    private void reclaimReplacedEntries() {
+        for (Reference<? extends Snapshot> reference = collectedSnapshots.poll();
+                reference != null;
+                reference = collectedSnapshots.poll()) {
+            liveSnapshots.remove(((SnapshotReference) reference).version, reference);
+        }
+        long oldestLiveVersion = liveSnapshots.isEmpty() ? Long.MAX_VALUE : liveSnapshots.firstKey();
+        while (!replacedEntries.isEmpty() && replacedEntries.peekFirst().replacedAtVersion < oldestLiveVersion) {
+            ReplacedEntry replaced = replacedEntries.removeFirst();
+            if (replaced.entry != null && replaced.entry.hasChunk()) {
+                allocator.free(replaced.entry.address, replaced.entry.length);
+            }
+            truncateChain(replaced.cellReference, oldestLiveVersion);
+        }
+    }
+
+    /**
+     * Drops the entries of the cell's chain that no live or future snapshot can read, which are those older than the
+     * newest entry that the oldest live snapshot reads.
+     */
+    private void truncateChain(CellReference cellReference, long oldestLiveVersion) {
+        VersionedEntry head = values.get(cellReference);
+        if (head == null) {
+            return;
+        }
+        VersionedEntry oldestNeeded = head;
+        while (oldestNeeded.version > oldestLiveVersion && oldestNeeded.next != null) {
+            oldestNeeded = oldestNeeded.next;
+        }
+        oldestNeeded.next = null;
+        if (oldestNeeded == head && head.entry == null) {
+            values.remove(cellReference, head);
+        }
+    }
+
+    @VisibleForTesting
+    int pendingReplacedEntries() {
+        return replacedEntries.size();
+    }
+
+    private void putLockedCell(CellReference cellReference) {
+        if (currentEntry(cellReference).filter(StoredEntry::isUnlocked).isPresent()) {
+            loadedValues.invalidate(cellReference);
+        }
+        setEntry(cellReference, StoredEntry.LOCKED);
+    }
+
+    private void clearLockedCell(CellReference cellReference) {
+        if (currentEntry(cellReference).filter(entry -> !entry.isUnlocked()).isPresent()) {
+            removeEntry(cellReference);
+        }
+    }
+
+    private Stream<CellReference> extractCandidateCells(LockDescriptor descriptor) {
+        return AtlasLockDescriptorUtils.candidateCells(descriptor).stream();
+    }
+
+    private void applyLockedDescriptors(Set<LockDescriptor> lockDescriptors) {
+        lockDescriptors.stream().flatMap(this::extractCandidateCells).forEach(this::putLockedCell);
+        lockDescriptors.forEach(rows::lock);
+    }
+
+    private TableReference extractTableReference(LockWatchReference lockWatchReference) {
+        return lockWatchReference.accept(LockWatchReferencesVisitor.INSTANCE);
+    }
+
+    private final class LockWatchVisitor implements LockWatchEvent.Visitor<Void> {
+        @Override
+        public Void visit(LockEvent lockEvent) {
+            applyLockedDescriptors(lockEvent.lockDescriptors());
+            return null;
+        }
+
+        @Override
+        public Void visit(UnlockEvent unlockEvent) {
+            unlockEvent.lockDescriptors().stream()
+                    .flatMap(OffHeapValueStore.this::extractCandidateCells)
+                    .forEach(OffHeapValueStore.this::clearLockedCell);
+            unlockEvent.lockDescriptors().forEach(rows::unlock);
+            return null;
+        }
+
+        @Override
+        public Void visit(LockWatchCreatedEvent lockWatchCreatedEvent) {
+            lockWatchCreatedEvent.references().stream()
+                    .map(OffHeapValueStore.this::extractTableReference)
+                    .forEach(tableReference -> watchedTables.with(tables -> tables.add(tableReference)));
+            applyLockedDescriptors(lockWatchCreatedEvent.lockDescriptors());
+            return null;
+        }
+    }
+
+    /**
+     * An entry of the on-heap index. Values of length zero, absent values and locks take no direct memory.
+     */
+    private static final class StoredEntry {
+        private static final int ABSENT_LENGTH = -1;
+        private static final int LOCKED_LENGTH = -2;
+
+        static final StoredEntry ABSENT = new StoredEntry(SlabAllocator.NO_ADDRESS, ABSENT_LENGTH);
+        static final StoredEntry LOCKED = new StoredEntry(SlabAllocator.NO_ADDRESS, LOCKED_LENGTH);
+
+        private final long address;
+        private final int length;
+
+        private StoredEntry(long address, int length) {
+            this.address = address;
+            this.length = length;
+        }
+
+        boolean isUnlocked() {
+            return length != LOCKED_LENGTH;
+        }
+
+        boolean hasChunk() {
+            return address != SlabAllocator.NO_ADDRESS;
+        }
+
+        int size() {
+            return Math.max(length, 0);
+        }
+
+        boolean contentEquals(SlabAllocator allocator, CacheValue value) {
+            if (length == ABSENT_LENGTH) {
+                return value.value().isEmpty();
+            }
+            return value.value()
+                    .filter(bytes -> hasChunk() ? allocator.contentEquals(address, length, bytes) : bytes.length == 0)
+                    .isPresent();
+        }
+
+        CacheEntry toCacheEntry(SlabAllocator allocator) {
+            if (length == LOCKED_LENGTH) {
+                return CacheEntry.locked();
+            } else if (length == ABSENT_LENGTH) {
+                return CacheEntry.unlocked(CacheValue.empty());
+            }
+            return CacheEntry.unlocked(CacheValue.of(hasChunk() ? allocator.read(address, length) : new byte[0]));
+        }
+    }
+
+    /**
+     * A link in the chain of entries of a cell, from newest to oldest. A null entry records that the cell had no
+     * entry from this version on. Only the link to older entries changes after creation, when they are dropped.
+     */
+    private static final class VersionedEntry {
+        @Nullable
+        private final StoredEntry entry;
+
+        private final long version;
+
+        @Nullable
+        private volatile VersionedEntry next;
+
+        private VersionedEntry(@Nullable StoredEntry entry, long version, @Nullable VersionedEntry next) {
+            this.entry = entry;
+            this.version = version;
+            this.next = next;
+        }
+
+        Optional<StoredEntry> entryAt(long snapshotVersion) {
+            VersionedEntry current = this;
+            while (current != null && current.version > snapshotVersion) {
+                current = current.next;
+            }
+            return current == null ? Optional.empty() : Optional.ofNullable(current.entry);
+        }
+    }
+
+    @VisibleForTesting
+    static final class Snapshot implements ValueCacheSnapshot {
+        private final ConcurrentMap<CellReference, VersionedEntry> values;
+        private final long version;
+        private final io.vavr.collection.Set<TableReference> lockWatchEnabledTables;
+        private final Set<TableReference> enabledTables;
+        private final CachedRowSnapshot cachedRows;
+        private final SlabAllocator allocator;
+
+        private Snapshot(
+                ConcurrentMap<CellReference, VersionedEntry> values,
+                long version,
+                io.vavr.collection.Set<TableReference> lockWatchEnabledTables,
+                Set<TableReference> allowedTablesFromSchema,
+                CachedRowSnapshot cachedRows,
+                SlabAllocator allocator) {
+            this.values = values;
+            this.version = version;
+            this.lockWatchEnabledTables = lockWatchEnabledTables;
+            this.enabledTables = Sets.intersection(lockWatchEnabledTables.toJavaSet(), allowedTablesFromSchema);
+            this.cachedRows = cachedRows;
+            this.allocator = allocator;
+        }
+
+        @Override
+        public Optional<CacheEntry> getValue(CellReference cellReference) {
+            try {
+                return entry(cellReference).map(entry -> entry.toCacheEntry(allocator));
+            } finally {
+                // The chunk being read may only be reused once this snapshot has been collected.
+                Reference.reachabilityFence(this);
+            }
+        }
+
+        @Override
+        public boolean isUnlocked(CellReference cellReference) {
+            return isWatched(cellReference.tableRef())
+                    && entry(cellReference).map(StoredEntry::isUnlocked).orElse(true);
+        }
+
+        @Override
+        public boolean isWatched(TableReference tableReference) {
+            return enabledTables.contains(tableReference);
+        }
+
+        @Override
+        public boolean hasAnyTablesWatched() {
+            return !enabledTables.isEmpty();
+        }
+
+        @Override
+        public Optional<CacheRow> getRow(RowReference rowReference) {
+            if (!isRowUnlocked(rowReference)) {
+                return Optional.empty();
+            }
+            return cachedRows.getRow(rowReference);
+        }
+
+        @Override
+        public boolean isRowUnlocked(RowReference rowReference) {
+            return isWatched(rowReference.tableRef()) && cachedRows.isUnlocked(rowReference);
+        }
+
+        @Override
+        public Optional<CacheRange> getRange(
+                TableReference tableReference, byte[] startInclusive, byte[] endExclusive) {
+            if (!isRangeUnlocked(tableReference, startInclusive, endExclusive)) {
+                return Optional.empty();
+            }
+            return cachedRows.getRange(tableReference, startInclusive, endExclusive);
+        }
+
+        @Override
+        public boolean isRangeUnlocked(TableReference tableReference, byte[] startInclusive, byte[] endExclusive) {
+            return isWatched(tableReference)
+                    && cachedRows.isRangeUnlocked(tableReference, startInclusive, endExclusive);
+        }
+
+        @VisibleForTesting
+        int size() {
+            return Math.toIntExact(values.values().stream()
+                    .filter(head -> head.entryAt(version).isPresent())
+                    .count());
+        }
+
+        private Optional<StoredEntry> entry(CellReference cellReference) {
+            VersionedEntry head = values.get(cellReference);
+            return head == null ? Optional.empty() : head.entryAt(version);
+        }
+    }
+
+    private static final class SnapshotReference extends WeakReference<Snapshot> {
+        private final long version;
+
+        private SnapshotReference(Snapshot snapshot, long version, ReferenceQueue<Snapshot> queue) {
+            super(snapshot, queue);
+            this.version = version;
+        }
+    }
+
+    private static final class ReplacedEntry {
+        private final long replacedAtVersion;
+        private final CellReference cellReference;
+
+        @Nullable
+        private final StoredEntry entry;
+
+        private ReplacedEntry(long replacedAtVersion, CellReference cellReference, @Nullable StoredEntry entry) {
+            this.replacedAtVersion = replacedAtVersion;
+            this.cellReference = cellReference;
+            this.entry = entry;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.api.cache;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Hands out chunks of direct memory from a bounded number of fixed-size slabs, as a buddy allocator. Chunk sizes are
+ * rounded up to a power of two, and a chunk is carved out of a larger free chunk by repeatedly splitting it in halves.
+ * When a chunk is freed and its buddy (the other half of the chunk it was split from) is free as well, the two are
+ * merged again, so that freeing enough small chunks always makes room for larger ones. Slabs are only allocated when
+ * needed, and are never returned until the allocator itself is unreachable.
+ *
+ * Allocating and freeing chunks must be done by a single thread at a time. Reading a chunk is safe from any thread, as
+ * long as the chunk was written before the reader learned of its address and is not freed until the reader is done.
+ */
+@NotThreadSafe
+final class SlabAllocator {
+    static final long NO_ADDRESS = -1L;
+
+    @VisibleForTesting
+    static final int MAX_SLAB_SIZE = 1 << 20;
+
+    private static final int MIN_CHUNK_SHIFT = 4;
+    private static final int MIN_CHUNK_SIZE = 1 << MIN_CHUNK_SHIFT;
+
+    private final int slabSize;
+    private final int maxSizeClass;
+    private final ByteBuffer[] slabs;
+    private final FreeChunks[] freeChunks;
+    private int slabCount = 0;
+
+    SlabAllocator(long capacityInBytes) {
+        this.slabSize = slabSizeFor(capacityInBytes);
+        this.maxSizeClass = sizeClass(slabSize);
+        this.slabs = new ByteBuffer[Math.toIntExact(Math.max(1, (capacityInBytes + slabSize - 1) / slabSize))];
+        this.freeChunks = new FreeChunks[maxSizeClass + 1];
+        for (int sizeClass = 0; sizeClass <= maxSizeClass; sizeClass++) {
+            freeChunks[sizeClass] = new FreeChunks(chunkSize(sizeClass));
+        }
+    }
+
+    /**
+     * Returns the address of a chunk of at least the given length, or {@link #NO_ADDRESS} if the value is too large
+     * or there is no free chunk large enough left.
+     */
+    long allocate(int length) {
+        if (length > slabSize) {
+            return NO_ADDRESS;
+        }
+        int sizeClass = sizeClass(length);
+        int availableSizeClass = sizeClass;
+        long address = NO_ADDRESS;
+        while (availableSizeClass <= maxSizeClass
+                && (address = freeChunks[availableSizeClass].poll()) == NO_ADDRESS) {
+            availableSizeClass++;
+        }
+        if (address == NO_ADDRESS) {
+            if (slabCount == slabs.length) {
+                return NO_ADDRESS;
+            }
+            slabs[slabCount] = ByteBuffer.allocateDirect(slabSize);
+            address = address(slabCount++, 0);
+            availableSizeClass = maxSizeClass;
+        }
+        while (availableSizeClass > sizeClass) {
+            availableSizeClass--;
+            freeChunks[availableSizeClass].add(address + chunkSize(availableSizeClass));
+        }
+        return address;
+    }
+
+    void free(long address, int length) {
+        int sizeClass = sizeClass(length);
+        long chunk = address;
+        while (sizeClass < maxSizeClass) {
+            long buddy = chunk ^ chunkSize(sizeClass);
+            if (!freeChunks[sizeClass].remove(buddy)) {
+                break;
+            }
+            chunk = Math.min(chunk, buddy);
+            sizeClass++;
+        }
+        freeChunks[sizeClass].add(chunk);
+    }
+
+    void write(long address, byte[] value) {
+        ByteBuffer buffer = slabs[slab(address)].duplicate();
+        buffer.position(offset(address));
+        buffer.put(value);
+    }
+
+    byte[] read(long address, int length) {
+        byte[] value = new byte[length];
+        ByteBuffer buffer = slabs[slab(address)].duplicate();
+        buffer.position(offset(address));
+        buffer.get(value);
+        return value;
+    }
+
+    boolean contentEquals(long address, int length, byte[] value) {
+        return length == value.length && Arrays.equals(read(address, length), value);
+    }
+
+    @VisibleForTesting
+    int allocatedSlabs() {
+        return slabCount;
+    }
+
+    private static int slabSizeFor(long capacityInBytes) {
+        long size = MIN_CHUNK_SIZE;
+        while (size < capacityInBytes && size < MAX_SLAB_SIZE) {
+            size <<= 1;
+        }
+        return Math.toIntExact(size);
+    }
+
+    private static int sizeClass(int length) {
+        if (length <= MIN_CHUNK_SIZE) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_CHUNK_SHIFT;
+    }
+
+    private static int chunkSize(int sizeClass) {
+        return MIN_CHUNK_SIZE << sizeClass;
+    }
+
+    private static long address(int slab, int offset) {
+        return ((long) slab << 32) | offset;
+    }
+
+    private static int slab(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    /**
+     * The free chunks of one size. A bit set is the exact record of which chunks are free, so that buddies can be
+     * looked up and removed when merging. A stack of addresses makes finding a free chunk cheap; it may also hold
+     * addresses of chunks that have since been merged away, which are skipped when polled and dropped when the stack
+     * is rebuilt.
+     */
+    private final class FreeChunks {
+        private final int chunkSize;
+        private final BitSet free = new BitSet();
+        private long[] stack = new long[8];
+        private int stackSize = 0;
+        private int freeCount = 0;
+
+        private FreeChunks(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        void add(long address) {
+            if (stackSize == stack.length) {
+                if (stackSize > 2 * freeCount) {
+                    rebuildStack();
+                } else {
+                    stack = Arrays.copyOf(stack, stackSize * 2);
+                }
+            }
+            free.set(index(address));
+            freeCount++;
+            stack[stackSize++] = address;
+        }
+
+        boolean remove(long address) {
+            int index = index(address);
+            if (!free.get(index)) {
+                return false;
+            }
+            free.clear(index);
+            freeCount--;
+            return true;
+        }
+
+        long poll() {
+            while (stackSize > 0) {
+                long address = stack[--stackSize];
+                if (remove(address)) {
+                    return address;
+                }
+            }
+            return NO_ADDRESS;
+        }
+
+        private void rebuildStack() {
+            stackSize = 0;
+            int chunksPerSlab = slabSize / chunkSize;
+            for (int index = free.nextSetBit(0); index >= 0; index = free.nextSetBit(index + 1)) {
+                stack[stackSize++] = address(index / chunksPerSlab, (index % chunksPerSlab) * chunkSize);
+            }
+        }
+
+        private int index(long address) {
+            return slab(address) * (slabSize / chunkSize) + offset(address) / chunkSize;
+        }
+    }
+}
@@ -18,9 +18,14 @@ package com.palantir.atlasdb.keyvalue.api.cache;
 
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.lock.watch.CommitUpdate;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -39,12 +44,51 @@ interface TransactionCacheValueStore {
 
     Map<Cell, CacheValue> getCachedValues(TableReference table, Set<Cell> cells);
 
+    /**
+     * Records the entire contents of rows that were read remotely. Rows that are absent from the remote reads are
+     * cached as having no values.
+     */
+    void cacheRemoteRowReads(
+            TableReference table, Iterable<byte[]> rows, NavigableMap<byte[], RowResult<byte[]>> remoteReads);
+
+    /**
+     * Returns the entire contents of those of the given rows that are known, either from the central cache or from
+     * earlier reads in this transaction. Rows that have been written to in this transaction are never returned.
+     */
+    NavigableMap<byte[], CacheRow> getCachedRows(TableReference table, Iterable<byte[]> rows);
+
+    /**
+     * Records a range that was read remotely in its entirety: every row that was read is cached in its entirety, and
+     * the range is cached as having no other rows. The range is not cached if any row in it is locked or has been
+     * written to in this transaction.
+     */
+    void cacheRemoteRangeRead(
+            TableReference table, byte[] startInclusive, byte[] endExclusive, List<RowResult<byte[]>> remoteReads);
+
+    /**
+     * Returns the rows of a range, in ascending order, if the range is covered by a range read in its entirety, every
+     * row in the range is known, and no row in the range has been written to in this transaction.
+     */
+    Optional<List<RowResult<byte[]>>> getCachedRange(TableReference table, byte[] startInclusive, byte[] endExclusive);
+
     /**
      * Contains a map of all the values that were read remotely and stored locally (filtering out those that were
      * unable to be cached due to values being locked). Also note that writes do not appear in the digest.
      */
     Map<CellReference, CacheValue> getValueDigest();
 
+    /**
+     * Contains all the entire rows that were read remotely and stored locally, excluding rows that were locked or have
+     * since been written to.
+     */
+    Map<RowReference, CacheRow> getRowDigest();
+
+    /**
+     * Contains all the ranges that were read remotely in their entirety, excluding ranges containing rows that were
+     * locked or have since been written to.
+     */
+    List<CacheRange> getRangeDigest();
+
     Set<CellReference> getHitDigest();
 
     TransactionCacheValueStore createWithFilteredSnapshot(CommitUpdate commitUpdate);
@@ -16,21 +16,31 @@
 
 package com.palantir.atlasdb.keyvalue.api.cache;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.UnsignedBytes;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.cache.TransactionCacheValueStoreImpl.LocalCacheEntry.Status;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.lock.watch.CommitUpdate;
 import com.palantir.logsafe.UnsafeArg;
 import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import javax.annotation.concurrent.NotThreadSafe;
 import org.immutables.value.Value;
@@ -39,10 +49,16 @@ import org.immutables.value.Value;
 final class TransactionCacheValueStoreImpl implements TransactionCacheValueStore {
     private final ValueCacheSnapshot snapshot;
     private final Map<CellReference, LocalCacheEntry> localUpdates;
+    private final Map<RowReference, CacheRow> localRowReads;
+    private final Set<RowReference> writtenRows;
+    private final List<CacheRange> localRangeReads;
 
     TransactionCacheValueStoreImpl(ValueCacheSnapshot snapshot) {
         this.snapshot = snapshot;
         this.localUpdates = new HashMap<>();
+        this.localRowReads = new HashMap<>();
+        this.writtenRows = new HashSet<>();
+        this.localRangeReads = new ArrayList<>();
     }
 
     @Override
@@ -54,6 +70,7 @@ final class TransactionCacheValueStoreImpl implements TransactionCacheValueStore
     public void recordRemoteWrite(TableReference table, Cell cell) {
         CellReference cellReference = CellReference.of(table, cell);
         recordRemoteWriteInternal(cellReference);
+        recordRowWrite(RowReference.of(cellReference));
     }
 
     @Override
@@ -93,6 +110,9 @@ final class TransactionCacheValueStoreImpl implements TransactionCacheValueStore
                     // no-op - hits contain the same values as stored in the snapshot
             }
         });
+        writtenRows.forEach(newStore::recordRowWrite);
+        localRowReads.forEach(newStore::cacheRemoteRowReadInternal);
+        localRangeReads.forEach(newStore::cacheRemoteRangeReadInternal);
 
         return newStore;
     }
@@ -117,6 +137,90 @@ final class TransactionCacheValueStoreImpl implements TransactionCacheValueStore
                 .build();
     }
 
+    @Override
+    public void cacheRemoteRowReads(
+            TableReference table, Iterable<byte[]> rows, NavigableMap<byte[], RowResult<byte[]>> remoteReads) {
+        if (snapshot.isWatched(table)) {
+            for (byte[] row : rows) {
+                RowResult<byte[]> rowResult = remoteReads.get(row);
+                cacheRemoteRowReadInternal(
+                        RowReference.of(table, row),
+                        rowResult == null ? CacheRow.empty() : CacheRow.of(rowResult.getColumns()));
+            }
+        }
+    }
+
+    @Override
+    public NavigableMap<byte[], CacheRow> getCachedRows(TableReference table, Iterable<byte[]> rows) {
+        NavigableMap<byte[], CacheRow> cachedRows = new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+        for (byte[] row : rows) {
+            RowReference rowReference = RowReference.of(table, row);
+            if (writtenRows.contains(rowReference)) {
+                continue;
+            }
+            Optional<CacheRow> cachedRow =
+                    Optional.ofNullable(localRowReads.get(rowReference)).or(() -> snapshot.getRow(rowReference));
+            cachedRow.ifPresent(value -> cachedRows.put(row, value));
+        }
+        return cachedRows;
+    }
+
+    @Override
+    public void cacheRemoteRangeRead(
+            TableReference table, byte[] startInclusive, byte[] endExclusive, List<RowResult<byte[]>> remoteReads) {
+        if (snapshot.isWatched(table)) {
+            List<byte[]> rowsWithValues = new ArrayList<>();
+            for (RowResult<byte[]> rowResult : remoteReads) {
+                CacheRow row = CacheRow.of(Maps.filterValues(
+                        rowResult.getColumns(), value -> !com.palantir.atlasdb.keyvalue.api.Value.isTombstone(value)));
+                cacheRemoteRowReadInternal(RowReference.of(table, rowResult.getRowName()), row);
+                if (!row.columns().isEmpty()) {
+                    rowsWithValues.add(rowResult.getRowName());
+                }
+            }
+            cacheRemoteRangeReadInternal(CacheRange.of(table, startInclusive, endExclusive, rowsWithValues));
+        }
+    }
+
+    @Override
+    public Optional<List<RowResult<byte[]>>> getCachedRange(
+            TableReference table, byte[] startInclusive, byte[] endExclusive) {
+        if (isAnyRowWritten(table, startInclusive, endExclusive)) {
+            return Optional.empty();
+        }
+        Optional<CacheRange> cachedRange = localRangeReads.stream()
+                .filter(range -> range.covers(table, startInclusive, endExclusive))
+                .findFirst()
+                .or(() -> snapshot.getRange(table, startInclusive, endExclusive));
+        if (cachedRange.isEmpty()) {
+            return Optional.empty();
+        }
+
+        List<RowResult<byte[]>> rows = new ArrayList<>();
+        for (byte[] row : cachedRange.get().rowsWithin(startInclusive, endExclusive)) {
+            RowReference rowReference = RowReference.of(table, row);
+            Optional<CacheRow> cachedRow =
+                    Optional.ofNullable(localRowReads.get(rowReference)).or(() -> snapshot.getRow(rowReference));
+            if (cachedRow.isEmpty()) {
+                return Optional.empty();
+            }
+            if (!cachedRow.get().columns().isEmpty()) {
+                rows.add(RowResult.create(row, cachedRow.get().columns()));
+            }
+        }
+        return Optional.of(rows);
+    }
+
+    @Override
+    public Map<RowReference, CacheRow> getRowDigest() {
+        return ImmutableMap.copyOf(localRowReads);
+    }
+
+    @Override
+    public List<CacheRange> getRangeDigest() {
+        return ImmutableList.copyOf(localRangeReads);
+    }
+
     @Override
     public Map<CellReference, CacheValue> getValueDigest() {
         return KeyedStream.stream(localUpdates)
@@ -174,6 +278,31 @@ final class TransactionCacheValueStoreImpl implements TransactionCacheValueStore
         }
     }
 
+    private void recordRowWrite(RowReference rowReference) {
+        writtenRows.add(rowReference);
+        localRowReads.remove(rowReference);
+        localRangeReads.removeIf(range -> range.contains(rowReference));
+    }
+
+    private void cacheRemoteRangeReadInternal(CacheRange range) {
+        if (snapshot.isRangeUnlocked(range.tableRef(), range.startInclusive(), range.endExclusive())
+                && !isAnyRowWritten(range.tableRef(), range.startInclusive(), range.endExclusive())) {
+            localRangeReads.add(range);
+        }
+    }
+
+    private boolean isAnyRowWritten(TableReference table, byte[] startInclusive, byte[] endExclusive) {
+        return writtenRows.stream()
+                .anyMatch(row -> row.tableRef().equals(table)
+                        && CacheRange.isInRange(startInclusive, endExclusive, row.row()));
+    }
+
+    private void cacheRemoteRowReadInternal(RowReference rowReference, CacheRow row) {
+        if (snapshot.isRowUnlocked(rowReference) && !writtenRows.contains(rowReference)) {
+            localRowReads.putIfAbsent(rowReference, row);
+        }
+    }
+
     private void cacheRemoteReadInternal(CellReference cell, CacheValue value) {
         if (snapshot.isUnlocked(cell)) {
             localUpdates.putIfAbsent(cell, LocalCacheEntry.read(value));
@@ -16,7 +16,9 @@
 
 package com.palantir.atlasdb.keyvalue.api.cache;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
 import com.google.common.primitives.UnsignedBytes;
@@ -25,12 +27,16 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.impl.Cells;
 import com.palantir.atlasdb.keyvalue.impl.RowResults;
 import com.palantir.atlasdb.transaction.api.TransactionLockWatchFailedException;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.lock.watch.CommitUpdate;
 import java.util.ArrayList;
@@ -38,6 +44,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.function.Function;
@@ -47,6 +54,12 @@ import org.immutables.value.Value;
 
 @ThreadSafe
 final class TransactionScopedCacheImpl implements TransactionScopedCache {
+    /**
+     * Range reads returning more rows than this are not cached, to bound the memory used to record them.
+     */
+    @VisibleForTesting
+    static final int MAX_CACHED_RANGE_ROWS = 1_000;
+
     private final TransactionCacheValueStore valueStore;
     private final CacheMetrics metrics;
     private volatile boolean finalised = false;
@@ -118,6 +131,10 @@ final class TransactionScopedCacheImpl implements TransactionScopedCache {
             return rowLoader.apply(rows);
         }
 
+        if (columnSelection.allColumnsSelected()) {
+            return getEntireRows(tableRef, rows, rowLoader);
+        }
+
         Set<Cell> cells = columnSelection.asCellsForRows(rows);
         CacheLookupResult cached = cacheLookup(tableRef, cells);
 
@@ -153,10 +170,49 @@ final class TransactionScopedCacheImpl implements TransactionScopedCache {
         return rowReads;
     }
 
+    @Override
+    public NavigableMap<byte[], NavigableMap<byte[], byte[]>> getCachedRowsColumnRange(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            Function<Iterable<byte[]>, NavigableMap<byte[], RowResult<byte[]>>> rowLoader) {
+        ensureNotFinalised();
+        NavigableMap<byte[], NavigableMap<byte[], byte[]>> result =
+                new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+        if (!valueStore.isWatched(tableRef)) {
+            return result;
+        }
+
+        NavigableMap<byte[], CacheRow> cachedRows = getCachedRows(tableRef, rows);
+        cachedRows.forEach((row, cachedRow) -> result.put(row, columnsInRange(cachedRow, columnRangeSelection)));
+        metrics.increaseGetRowsHits(cachedRows.size());
+        return result;
+    }
+
+    @Override
+    public ClosableIterator<RowResult<byte[]>> getRange(
+            TableReference tableRef,
+            RangeRequest rangeRequest,
+            Function<RangeRequest, ClosableIterator<RowResult<byte[]>>> rangeLoader) {
+        ensureNotFinalised();
+        if (!valueStore.isWatched(tableRef) || !rangeRequest.getColumnNames().isEmpty() || rangeRequest.isReverse()) {
+            return rangeLoader.apply(rangeRequest);
+        }
+
+        byte[] startInclusive = rangeRequest.getStartInclusive();
+        byte[] endExclusive = rangeRequest.getEndExclusive();
+        Optional<List<RowResult<byte[]>>> cachedRange = getCachedRange(tableRef, startInclusive, endExclusive);
+        if (cachedRange.isPresent()) {
+            metrics.increaseGetRowsHits(cachedRange.get().size());
+            return ClosableIterators.wrap(cachedRange.get().iterator());
+        }
+        return new RangeRecordingIterator(tableRef, startInclusive, endExclusive, rangeLoader.apply(rangeRequest));
+    }
+
     @Override
     public synchronized ValueDigest getValueDigest() {
         ensureFinalised();
-        return ValueDigest.of(valueStore.getValueDigest());
+        return ValueDigest.of(valueStore.getValueDigest(), valueStore.getRowDigest(), valueStore.getRangeDigest());
     }
 
     @Override
@@ -225,6 +281,63 @@ final class TransactionScopedCacheImpl implements TransactionScopedCache {
         return result;
     }
 
+    /**
+     * Serves rows whose entire contents are known from the cache, and reads the remaining rows remotely. As the rows
+     * read remotely are complete, they are cached in their entirety as well as cell by cell.
+     */
+    private NavigableMap<byte[], RowResult<byte[]>> getEntireRows(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            Function<Iterable<byte[]>, NavigableMap<byte[], RowResult<byte[]>>> rowLoader) {
+        NavigableMap<byte[], CacheRow> cachedRows = getCachedRows(tableRef, rows);
+        List<byte[]> missedRows = Streams.stream(rows)
+                .filter(row -> !cachedRows.containsKey(row))
+                .collect(Collectors.toList());
+        metrics.increaseGetRowsHits(cachedRows.size());
+        metrics.increaseGetRowsRowLookups(missedRows.size());
+
+        NavigableMap<byte[], RowResult<byte[]>> uncachedRows = missedRows.isEmpty()
+                ? new TreeMap<>(UnsignedBytes.lexicographicalComparator())
+                : rowLoader.apply(missedRows);
+        NavigableMap<byte[], RowResult<byte[]>> rowReads =
+                processUncachedEntireRows(tableRef, missedRows, uncachedRows);
+
+        cachedRows.forEach((row, cachedRow) -> {
+            if (!cachedRow.columns().isEmpty()) {
+                rowReads.put(row, RowResult.create(row, cachedRow.columns()));
+            }
+        });
+        return rowReads;
+    }
+
+    private synchronized NavigableMap<byte[], CacheRow> getCachedRows(TableReference tableRef, Iterable<byte[]> rows) {
+        return valueStore.getCachedRows(tableRef, rows);
+    }
+
+    private synchronized Optional<List<RowResult<byte[]>>> getCachedRange(
+            TableReference tableRef, byte[] startInclusive, byte[] endExclusive) {
+        return valueStore.getCachedRange(tableRef, startInclusive, endExclusive);
+    }
+
+    /**
+     * Reads that complete after the transaction has started committing are not cached, as the value digest may
+     * already have been taken.
+     */
+    private synchronized void processUncachedRange(
+            TableReference tableRef, byte[] startInclusive, byte[] endExclusive, List<RowResult<byte[]>> remoteReads) {
+        if (!finalised) {
+            valueStore.cacheRemoteRangeRead(tableRef, startInclusive, endExclusive, remoteReads);
+        }
+    }
+
+    private synchronized NavigableMap<byte[], RowResult<byte[]>> processUncachedEntireRows(
+            TableReference tableReference,
+            List<byte[]> missedRows,
+            NavigableMap<byte[], RowResult<byte[]>> remoteReadValues) {
+        valueStore.cacheRemoteRowReads(tableReference, missedRows, remoteReadValues);
+        return processUncachedRows(tableReference, ImmutableSet.of(), remoteReadValues);
+    }
+
     private synchronized CacheLookupResult cacheLookup(TableReference table, Set<Cell> cells) {
         Map<Cell, CacheValue> cachedValues = valueStore.getCachedValues(table, cells);
         Set<Cell> uncachedCells = Sets.difference(cells, cachedValues.keySet());
@@ -240,6 +353,17 @@ final class TransactionScopedCacheImpl implements TransactionScopedCache {
         valueStore.cacheEmptyReads(tableReference, emptyCells);
     }
 
+    private static NavigableMap<byte[], byte[]> columnsInRange(CacheRow row, ColumnRangeSelection columnRange) {
+        NavigableMap<byte[], byte[]> columns = row.columns();
+        if (columnRange.getStartCol().length > 0) {
+            columns = columns.tailMap(columnRange.getStartCol(), true);
+        }
+        if (columnRange.getEndCol().length > 0) {
+            columns = columns.headMap(columnRange.getEndCol(), false);
+        }
+        return columns;
+    }
+
     private static Map<Cell, byte[]> filterEmptyValues(Map<Cell, CacheValue> snapshotCachedValues) {
         return KeyedStream.stream(snapshotCachedValues)
                 .filter(value -> value.value().isPresent())
@@ -247,6 +371,56 @@ final class TransactionScopedCacheImpl implements TransactionScopedCache {
                 .collectToMap();
     }
 
+    /**
+     * Records the rows returned by a remote range read, and caches them once the read has been iterated to its end.
+     */
+    private final class RangeRecordingIterator implements ClosableIterator<RowResult<byte[]>> {
+        private final TableReference tableRef;
+        private final byte[] startInclusive;
+        private final byte[] endExclusive;
+        private final ClosableIterator<RowResult<byte[]>> delegate;
+        private List<RowResult<byte[]>> readRows = new ArrayList<>();
+
+        private RangeRecordingIterator(
+                TableReference tableRef,
+                byte[] startInclusive,
+                byte[] endExclusive,
+                ClosableIterator<RowResult<byte[]>> delegate) {
+            this.tableRef = tableRef;
+            this.startInclusive = startInclusive;
+            this.endExclusive = endExclusive;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = delegate.hasNext();
+            if (!hasNext && readRows != null) {
+                processUncachedRange(tableRef, startInclusive, endExclusive, readRows);
+                readRows = null;
+            }
+            return hasNext;
+        }
+
+        @Override
+        public RowResult<byte[]> next() {
+            RowResult<byte[]> row = delegate.next();
+            if (readRows != null) {
+                if (readRows.size() < MAX_CACHED_RANGE_ROWS) {
+                    readRows.add(row);
+                } else {
+                    readRows = null;
+                }
+            }
+            return row;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+
     @Value.Immutable
     interface CacheLookupResult {
         Map<Cell, CacheValue> cacheHits();
@@ -24,11 +24,15 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.transaction.api.TransactionLockWatchFailedException;
 import com.palantir.atlasdb.util.ByteArrayUtilities;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.lock.watch.CommitUpdate;
 import com.palantir.logsafe.Arg;
@@ -37,7 +41,10 @@ import com.palantir.logsafe.UnsafeArg;
 import com.palantir.logsafe.exceptions.SafeRuntimeException;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
@@ -46,6 +53,7 @@ import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -146,6 +154,57 @@ final class ValidatingTransactionScopedCache implements TransactionScopedCache {
         }
     }
 
+    @Override
+    public NavigableMap<byte[], NavigableMap<byte[], byte[]>> getCachedRowsColumnRange(
+            TableReference tableRef,
+            Iterable<byte[]> rows,
+            ColumnRangeSelection columnRangeSelection,
+            Function<Iterable<byte[]>, NavigableMap<byte[], RowResult<byte[]>>> rowLoader) {
+        NavigableMap<byte[], NavigableMap<byte[], byte[]>> cacheReads =
+                delegate.getCachedRowsColumnRange(tableRef, rows, columnRangeSelection, rowLoader);
+        if (!cacheReads.isEmpty() && shouldValidate()) {
+            NavigableMap<byte[], RowResult<byte[]>> remoteReads = rowLoader.apply(cacheReads.keySet());
+            validateCachedRowsColumnRange(tableRef, columnRangeSelection, remoteReads, cacheReads);
+        }
+        return cacheReads;
+    }
+
+    /**
+     * Only ranges served from the cache are validated, by reading the range remotely. Cached ranges are bounded in
+     * size, so the remote read is stopped as soon as it has more rows than the cached range.
+     */
+    @Override
+    public ClosableIterator<RowResult<byte[]>> getRange(
+            TableReference tableRef,
+            RangeRequest rangeRequest,
+            Function<RangeRequest, ClosableIterator<RowResult<byte[]>>> rangeLoader) {
+        AtomicBoolean readRemotely = new AtomicBoolean(false);
+        ClosableIterator<RowResult<byte[]>> cacheReads = delegate.getRange(tableRef, rangeRequest, request -> {
+            readRemotely.set(true);
+            return rangeLoader.apply(request);
+        });
+        if (readRemotely.get() || !shouldValidate()) {
+            return cacheReads;
+        }
+
+        List<RowResult<byte[]>> cachedRows = new ArrayList<>();
+        cacheReads.forEachRemaining(cachedRows::add);
+        cacheReads.close();
+        List<RowResult<byte[]>> remoteRows = new ArrayList<>();
+        try (ClosableIterator<RowResult<byte[]>> remoteReads = rangeLoader.apply(rangeRequest)) {
+            while (remoteReads.hasNext() && remoteRows.size() <= cachedRows.size()) {
+                RowResult<byte[]> row = remoteReads.next();
+                CacheRow columns = CacheRow.of(Maps.filterValues(
+                        row.getColumns(), value -> !com.palantir.atlasdb.keyvalue.api.Value.isTombstone(value)));
+                if (!columns.columns().isEmpty()) {
+                    remoteRows.add(RowResult.create(row.getRowName(), columns.columns()));
+                }
+            }
+        }
+        validateCachedRange(tableRef, remoteRows, cachedRows);
+        return ClosableIterators.wrap(cachedRows.iterator());
+    }
+
     @Override
     public void finalise() {
         delegate.finalise();
@@ -194,6 +253,46 @@ final class ValidatingTransactionScopedCache implements TransactionScopedCache {
         }
     }
 
+    private void validateCachedRowsColumnRange(
+            TableReference tableReference,
+            ColumnRangeSelection columnRangeSelection,
+            NavigableMap<byte[], RowResult<byte[]>> remoteReads,
+            NavigableMap<byte[], NavigableMap<byte[], byte[]>> cacheReads) {
+        boolean allRowsEqual = cacheReads.entrySet().stream().allMatch(cachedRow -> {
+            CacheRow remoteRow = Optional.ofNullable(remoteReads.get(cachedRow.getKey()))
+                    .map(RowResult::getColumns)
+                    .map(columns -> Maps.filterKeys(columns, column -> isInRange(columnRangeSelection, column)))
+                    .map(CacheRow::of)
+                    .orElseGet(CacheRow::empty);
+            return remoteRow.equals(CacheRow.of(cachedRow.getValue()));
+        });
+        if (!allRowsEqual) {
+            failAndLog(
+                    SafeArg.of("endpoint", "getRowsColumnRange"),
+                    UnsafeArg.of("table", tableReference),
+                    UnsafeArg.of("remoteReads", remoteReads),
+                    UnsafeArg.of("cacheReads", cacheReads));
+        }
+    }
+
+    private void validateCachedRange(
+            TableReference tableReference, List<RowResult<byte[]>> remoteReads, List<RowResult<byte[]>> cacheReads) {
+        boolean allRowsEqual = remoteReads.size() == cacheReads.size();
+        for (int index = 0; allRowsEqual && index < remoteReads.size(); index++) {
+            RowResult<byte[]> remoteRow = remoteReads.get(index);
+            RowResult<byte[]> cachedRow = cacheReads.get(index);
+            allRowsEqual = Arrays.equals(remoteRow.getRowName(), cachedRow.getRowName())
+                    && CacheRow.of(remoteRow.getColumns()).equals(CacheRow.of(cachedRow.getColumns()));
+        }
+        if (!allRowsEqual) {
+            failAndLog(
+                    SafeArg.of("endpoint", "getRange"),
+                    UnsafeArg.of("table", tableReference),
+                    UnsafeArg.of("remoteReads", remoteReads),
+                    UnsafeArg.of("cacheReads", cacheReads));
+        }
+    }
+
     private void failAndLog(Arg<?>... args) {
         SafeRuntimeException runtimeException = new SafeRuntimeException("I exist to show you the stacktrace");
         log.error(
@@ -206,6 +305,14 @@ final class ValidatingTransactionScopedCache implements TransactionScopedCache {
                 "Failed lock watch cache validation - will retry without caching");
     }
 
+    private static boolean isInRange(ColumnRangeSelection columnRangeSelection, byte[] column) {
+        Comparator<byte[]> comparator = UnsignedBytes.lexicographicalComparator();
+        byte[] startCol = columnRangeSelection.getStartCol();
+        byte[] endCol = columnRangeSelection.getEndCol();
+        return (startCol.length == 0 || comparator.compare(column, startCol) >= 0)
+                && (endCol.length == 0 || comparator.compare(column, endCol) < 0);
+    }
+
     private static Map<Cell, byte[]> getCells(Map<Cell, byte[]> remoteReads, Set<Cell> cells) {
         return KeyedStream.of(cells)
                 .map(remoteReads::get)
@@ -17,6 +17,7 @@
 package com.palantir.atlasdb.keyvalue.api.cache;
 
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import java.util.Optional;
 
@@ -28,4 +29,26 @@ public interface ValueCacheSnapshot {
     boolean isWatched(TableReference tableReference);
 
     boolean hasAnyTablesWatched();
+
+    /**
+     * Returns the entire contents of a row, if its table is watched and the row is cached and not locked.
+     */
+    Optional<CacheRow> getRow(RowReference rowReference);
+
+    /**
+     * Returns true if the table of the row is watched and no lock is held on the row or any of its cells, in which
+     * case the entire contents of the row may be cached.
+     */
+    boolean isRowUnlocked(RowReference rowReference);
+
+    /**
+     * Returns a cached range that covers the given bounds, if the table is watched and no row in the range is locked.
+     */
+    Optional<CacheRange> getRange(TableReference tableReference, byte[] startInclusive, byte[] endExclusive);
+
+    /**
+     * Returns true if the table is watched and no lock is held on any row between the given bounds, in which case the
+     * range may be cached.
+     */
+    boolean isRangeUnlocked(TableReference tableReference, byte[] startInclusive, byte[] endExclusive);
 }
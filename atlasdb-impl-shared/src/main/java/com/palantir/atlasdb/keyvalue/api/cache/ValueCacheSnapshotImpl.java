@@ -18,6 +18,7 @@ package com.palantir.atlasdb.keyvalue.api.cache;
 
 import com.google.common.collect.Sets;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import io.vavr.collection.Map;
 import io.vavr.collection.Set;
@@ -32,6 +33,11 @@ public interface ValueCacheSnapshotImpl extends ValueCacheSnapshot {
 
     java.util.Set<TableReference> allowedTablesFromSchema();
 
+    @Value.Default
+    default CachedRowSnapshot cachedRows() {
+        return CachedRowSnapshot.empty();
+    }
+
     @Value.Derived
     default java.util.Set<TableReference> enabledTables() {
         return Sets.intersection(lockWatchEnabledTables().toJavaSet(), allowedTablesFromSchema());
@@ -58,6 +64,32 @@ public interface ValueCacheSnapshotImpl extends ValueCacheSnapshot {
         return !enabledTables().isEmpty();
     }
 
+    @Override
+    default Optional<CacheRow> getRow(RowReference rowReference) {
+        if (!isRowUnlocked(rowReference)) {
+            return Optional.empty();
+        }
+        return cachedRows().getRow(rowReference);
+    }
+
+    @Override
+    default boolean isRowUnlocked(RowReference rowReference) {
+        return isWatched(rowReference.tableRef()) && cachedRows().isUnlocked(rowReference);
+    }
+
+    @Override
+    default Optional<CacheRange> getRange(TableReference tableReference, byte[] startInclusive, byte[] endExclusive) {
+        if (!isRangeUnlocked(tableReference, startInclusive, endExclusive)) {
+            return Optional.empty();
+        }
+        return cachedRows().getRange(tableReference, startInclusive, endExclusive);
+    }
+
+    @Override
+    default boolean isRangeUnlocked(TableReference tableReference, byte[] startInclusive, byte[] endExclusive) {
+        return isWatched(tableReference) && cachedRows().isRangeUnlocked(tableReference, startInclusive, endExclusive);
+    }
+
     static ValueCacheSnapshot of(
             Map<CellReference, CacheEntry> values,
             Set<TableReference> enabledTables,
@@ -68,4 +100,17 @@ public interface ValueCacheSnapshotImpl extends ValueCacheSnapshot {
                 .allowedTablesFromSchema(allowedTables)
                 .build();
     }
+
+    static ValueCacheSnapshot of(
+            Map<CellReference, CacheEntry> values,
+            Set<TableReference> enabledTables,
+            java.util.Set<TableReference> allowedTables,
+            CachedRowSnapshot cachedRows) {
+        return ImmutableValueCacheSnapshotImpl.builder()
+                .values(values)
+                .lockWatchEnabledTables(enabledTables)
+                .allowedTablesFromSchema(allowedTables)
+                .cachedRows(cachedRows)
+                .build();
+    }
 }
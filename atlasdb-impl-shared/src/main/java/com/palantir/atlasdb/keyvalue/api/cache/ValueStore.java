@@ -17,6 +17,7 @@
 package com.palantir.atlasdb.keyvalue.api.cache;
 
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
 import com.palantir.lock.watch.LockWatchEvent;
 
 interface ValueStore {
@@ -30,5 +31,17 @@ interface ValueStore {
      */
     void putValue(CellReference cellReference, CacheValue value);
 
+    /**
+     * Stores the entire contents of a row in the central cache. Note that this will throw if there is currently an
+     * existing entry with different contents, or if the row or any of its cells is locked.
+     */
+    void putRow(RowReference rowReference, CacheRow row);
+
+    /**
+     * Stores a range that was read in its entirety in the central cache. Note that this will throw if any row within
+     * the range is locked.
+     */
+    void putRange(CacheRange range);
+
     ValueCacheSnapshot getSnapshot();
 }
@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.MoreExecutors;
 import com.palantir.atlasdb.keyvalue.api.AtlasLockDescriptorUtils;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.lock.watch.LockEvent;
@@ -55,6 +56,7 @@ final class ValueStoreImpl implements ValueStore {
     private final Cache<CellReference, Integer> loadedValues;
     private final LockWatchVisitor visitor = new LockWatchVisitor();
     private final CacheMetrics metrics;
+    private final CachedRowStore rows;
 
     ValueStoreImpl(Set<TableReference> allowedTables, long maxCacheSize, CacheMetrics metrics) {
         this.allowedTables = allowedTables;
@@ -72,6 +74,7 @@ final class ValueStoreImpl implements ValueStore {
                 })
                 .build();
         this.metrics = metrics;
+        this.rows = new CachedRowStore(maxCacheSize, metrics);
         metrics.setMaximumCacheSize(maxCacheSize);
     }
 
@@ -80,6 +83,7 @@ final class ValueStoreImpl implements ValueStore {
         values.resetToInitialValue();
         watchedTables.resetToInitialValue();
         loadedValues.invalidateAll();
+        rows.reset();
 
         // Forcing the cache to run cleanup here guarantees that the metrics are not affected after they have been reset
         loadedValues.cleanUp();
@@ -109,9 +113,20 @@ final class ValueStoreImpl implements ValueStore {
         metrics.increaseCacheSize(EntryWeigher.INSTANCE.weigh(cellReference, value.size()));
     }
 
+    @Override
+    public void putRow(RowReference rowReference, CacheRow row) {
+        rows.putRow(rowReference, row);
+    }
+
+    @Override
+    public void putRange(CacheRange range) {
+        rows.putRange(range);
+    }
+
     @Override
     public ValueCacheSnapshot getSnapshot() {
-        return ValueCacheSnapshotImpl.of(values.getSnapshot(), watchedTables.getSnapshot(), allowedTables);
+        return ValueCacheSnapshotImpl.of(
+                values.getSnapshot(), watchedTables.getSnapshot(), allowedTables, rows.getSnapshot());
     }
 
     private void putLockedCell(CellReference cellReference) {
@@ -137,6 +152,7 @@ final class ValueStoreImpl implements ValueStore {
 
     private void applyLockedDescriptors(Set<LockDescriptor> lockDescriptors) {
         lockDescriptors.stream().flatMap(this::extractCandidateCells).forEach(this::putLockedCell);
+        lockDescriptors.forEach(rows::lock);
     }
 
     private TableReference extractTableReference(LockWatchReference lockWatchReference) {
@@ -155,6 +171,7 @@ final class ValueStoreImpl implements ValueStore {
             unlockEvent.lockDescriptors().stream()
                     .flatMap(ValueStoreImpl.this::extractCandidateCells)
                     .forEach(ValueStoreImpl.this::clearLockedCell);
+            unlockEvent.lockDescriptors().forEach(rows::unlock);
             return null;
         }
 
@@ -88,7 +88,12 @@ public final class LockWatchManagerImpl extends LockWatchManagerInternal {
         CacheMetrics metrics = CacheMetrics.create(metricsManager);
         LockWatchEventCache eventCache = LockWatchEventCacheImpl.create(metrics);
         LockWatchValueScopingCache valueCache = LockWatchValueScopingCacheImpl.create(
-                eventCache, metrics, config.cacheSize(), config.validationProbability(), watchedTablesFromSchema);
+                eventCache,
+                metrics,
+                config.cacheSize(),
+                config.validationProbability(),
+                watchedTablesFromSchema,
+                config.useOffHeapValueStore());
         return new LockWatchManagerImpl(referencesFromSchema, eventCache, valueCache, lockWatchingService);
     }
 
@@ -21,6 +21,7 @@ import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.atlasdb.transaction.impl.TransactionRetryStrategy;
 import com.palantir.conjure.java.api.config.service.HumanReadableDuration;
+import java.util.Optional;
 import org.immutables.value.Value;
 
 @JsonDeserialize(as = ImmutableTransactionConfig.class)
@@ -62,6 +63,81 @@ public abstract class TransactionConfig {
         return HumanReadableDuration.minutes(15);
     }
 
+    /**
+     * If true, transactions write to the targeted sweep queue in the background while acquiring commit locks and
+     * checking for write-write conflicts, instead of doing so only after those steps have completed. The sweep queue
+     * write is still guaranteed to complete before any values are written to the key value service.
+     */
+    @Value.Default
+    public boolean pipelineCommitWrites() {
+        return false;
+    }
+
+    /**
+     * If true, transactions buffer their local writes in a compact, append-only structure that packs cells and values
+     * into contiguous arrays, instead of a concurrent skip list per table. This reduces allocation for transactions
+     * that write many cells; tables written to concurrently by multiple threads fall back to the skip list.
+     */
+    @Value.Default
+    public boolean useCompactLocalWriteBuffers() {
+        return false;
+    }
+
+    /**
+     * If present, once the local writes of a transaction add up to at least this many bytes, they are moved out of
+     * memory into a temporary RocksDB store in {@link #localWriteSpillDirectory()}, as are all later writes of that
+     * transaction. Intended for large backfill transactions that would otherwise run out of memory. Conflict checks
+     * and writes to the key value service then go in batches, but committing still holds a lock descriptor and a
+     * targeted sweep queue entry for every written cell in memory at once; only the values stay on disk.
+     */
+    public abstract Optional<Long> spillLocalWritesAfterBytes();
+
+    @Value.Default
+    public String localWriteSpillDirectory() {
+        return System.getProperty("java.io.tmpdir");
+    }
+
+    /**
+     * If true, serializable transactions remember a 64-bit hash of each value they read instead of the value itself,
+     * and a single digest per forward range read instead of every cell the range returned. Read-write conflicts are
+     * then detected by comparing hashes at commit time. This bounds the memory held by transactions that read a lot of
+     * data, at the cost of missing a conflict in the unlikely event of a hash collision.
+     */
+    @Value.Default
+    public boolean hashSerializableReads() {
+        return false;
+    }
+
+    /**
+     * The number of read-write conflict checks that a serializable transaction runs at once while committing. All but
+     * one of them run on the get ranges executor, and no further checks are started once a conflict has been found.
+     * Defaults to 1, which runs the checks one at a time on the committing thread.
+     */
+    @Value.Default
+    public int readWriteConflictCheckConcurrency() {
+        return 1;
+    }
+
+    /**
+     * If true, range scans and column range reads that page through the key value service read one page ahead, and
+     * look up the commit timestamps of the values in each page in the background as soon as it is read. This overlaps
+     * transactions table lookups with reading the next page, at the cost of reading a page that may not be needed.
+     */
+    @Value.Default
+    public boolean prefetchCommitTimestamps() {
+        return false;
+    }
+
+    /**
+     * If true, commit timestamp lookups made by concurrent transactions are coalesced, so that the transactions table
+     * is read by one request at a time for all start timestamps looked up in the meantime. Lookups of start timestamps
+     * already in the timestamp cache are answered from it without waiting for a batch.
+     */
+    @Value.Default
+    public boolean coalesceCommitTimestampLookups() {
+        return false;
+    }
+
     /**
      * TODO(fdesouza): Remove this once PDS-95791 is resolved.
      * @deprecated Remove this once PDS-95791 is resolved.
@@ -24,6 +24,8 @@ import com.palantir.logsafe.Preconditions;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import com.palantir.util.AssertUtils;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import javax.annotation.Nullable;
 import org.immutables.value.Value;
@@ -37,7 +39,10 @@ public class BatchSizeIncreasingIterator<T> {
     private ClosableIterator<T> currentResults;
     private byte[] lastToken;
 
+    private final Deque<Integer> batchesAwaitingPostFilter = new ArrayDeque<>();
+
     private long numReturned = 0;
+    private long numPostFiltered = 0;
     private long numNotDeleted = 0;
     private int lastBatchSize;
 
@@ -52,24 +57,34 @@ public class BatchSizeIncreasingIterator<T> {
         }
     }
 
+    /**
+     * Records how many results of the oldest batch that has not yet been post-filtered survived post-filtering.
+     * Batches must be marked in the order they were returned, skipping empty batches.
+     */
     public void markNumResultsNotDeleted(int resultsInBatch) {
+        Integer batchSize = batchesAwaitingPostFilter.poll();
+        numPostFiltered += batchSize == null ? resultsInBatch : batchSize;
         numNotDeleted += resultsInBatch;
         AssertUtils.assertAndLog(
                 log, numNotDeleted <= numReturned, "NotDeleted is bigger than the number of results we returned.");
     }
 
+    /**
+     * Sizes the next batch based on the batches that have been post-filtered so far. Batches that have been returned
+     * but not yet post-filtered, for instance because they were read ahead, are not taken into account.
+     */
     int getBestBatchSize() {
-        if (numReturned == 0) {
+        if (numPostFiltered == 0) {
             return originalBatchSize;
         }
         final long batchSize;
-        long maxNewBatchSize = numReturned * 4;
+        long maxNewBatchSize = numPostFiltered * 4;
         if (numNotDeleted == 0) {
             // If everything we've seen has been deleted, we should be aggressive about getting more rows.
             batchSize = maxNewBatchSize;
         } else {
             batchSize = Math.min(
-                    (long) Math.ceil(originalBatchSize * (numReturned / (double) numNotDeleted)), maxNewBatchSize);
+                    (long) Math.ceil(originalBatchSize * (numPostFiltered / (double) numNotDeleted)), maxNewBatchSize);
         }
         return (int) Math.min(batchSize, AtlasDbPerformanceConstants.MAX_BATCH_SIZE);
     }
@@ -109,6 +124,7 @@ public class BatchSizeIncreasingIterator<T> {
         boolean isLastBatch = list.size() < lastBatchSize || !currentResults.hasNext();
         numReturned += list.size();
         if (!list.isEmpty()) {
+            batchesAwaitingPostFilter.add(list.size());
             lastToken = batchProvider.getLastToken(list);
         }
         return ImmutableBatchResult.of(list, isLastBatch);
@@ -0,0 +1,714 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.logsafe.Preconditions;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.Nullable;
+
+/**
+ * An append-only {@link SortedMap} of a transaction's local writes to a single table. Row and column names are packed
+ * into one contiguous arena instead of retaining a {@link Cell} and skip list nodes per write, while values are kept
+ * as the arrays that were written. Point lookups go through an open-addressing hash index, and the sorted order needed
+ * by range reads is only recomputed when such a read follows writes of new cells.
+ *
+ * While the buffer is being written to, all operations synchronize on it, so it is safe, though not efficient, under
+ * concurrent writers. Callers that detect concurrent writers should call {@link #sealIntoConcurrentMap()}, after which
+ * all operations, including those on views obtained earlier, are forwarded to a {@link ConcurrentSkipListMap} holding
+ * the same writes. The same happens if the arena would outgrow the maximum array size.
+ *
+ * Once writing is done, {@link #freeze()} makes the buffer read-only. Reads of a frozen buffer take no lock, and each
+ * cell is created from the arena at most once, however many times the buffer is iterated over. Before that, cells are
+ * created afresh by every read that returns them. Removal is not supported.
+ */
+final class CompactLocalWriteBuffer extends AbstractMap<Cell, byte[]> implements SortedMap<Cell, byte[]> {
+    private static final int INITIAL_ENTRIES = 16;
+    private static final int INITIAL_ARENA_SIZE = 1024;
+    private static final int MAX_ARENA_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final int ENTRY_STRIDE = 3;
+    private static final int ROW_OFFSET = 0;
+    private static final int ROW_LENGTH = 1;
+    private static final int COLUMN_LENGTH = 2;
+
+    private final View fullView = new View(null, null);
+
+    private byte[] arena = new byte[INITIAL_ARENA_SIZE];
+    private int arenaSize = 0;
+
+    private int[] entries = new int[INITIAL_ENTRIES * ENTRY_STRIDE];
+    private int[] entryHashes = new int[INITIAL_ENTRIES];
+    private byte[][] values = new byte[INITIAL_ENTRIES][];
+    private int numEntries = 0;
+
+    // Each slot holds an entry index plus one, so that zero marks an empty slot.
+    private int[] hashIndex = new int[2 * INITIAL_ENTRIES];
+
+    // Never mutated once assigned, so that iterators can safely keep a reference to it.
+    private int[] sortedEntries = new int[0];
+
+    @Nullable
+    private volatile SortedMap<Cell, byte[]> delegate = null;
+
+    // Assigned once, when the buffer is frozen; cells are filled in as they are first read.
+    @Nullable
+    private Cell[] frozenCells = null;
+
+    private volatile boolean frozen = false;
+
+    @Override
+    public synchronized byte[] put(Cell cell, byte[] value) {
+        Preconditions.checkNotNull(value, "Local writes must not be null");
+        Preconditions.checkState(!frozen, "Cannot write to a frozen local write buffer");
+        if (delegate != null) {
+            return delegate.put(cell, value);
+        }
+
+        int existing = find(cell);
+        if (existing >= 0) {
+            byte[] previous = values[existing];
+            values[existing] = value;
+            return previous;
+        }
+
+        byte[] row = cell.getRowName();
+        byte[] column = cell.getColumnName();
+        long required = (long) arenaSize + row.length + column.length;
+        if (required > MAX_ARENA_SIZE) {
+            return sealIntoConcurrentMap().put(cell, value);
+        }
+        ensureArenaCapacity((int) required);
+        ensureEntryCapacity();
+
+        int entry = numEntries;
+        int base = entry * ENTRY_STRIDE;
+        entries[base + ROW_OFFSET] = append(row);
+        entries[base + ROW_LENGTH] = row.length;
+        entries[base + COLUMN_LENGTH] = column.length;
+        append(column);
+        values[entry] = value;
+        entryHashes[entry] = cell.hashCode();
+        numEntries++;
+        insertIntoHashIndex(entry);
+        return null;
+    }
+
+    @Override
+    public byte[] get(Object key) {
+        if (frozen) {
+            return getUnlocked(key);
+        }
+        synchronized (this) {
+            return getUnlocked(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (frozen) {
+            return containsKeyUnlocked(key);
+        }
+        synchronized (this) {
+            return containsKeyUnlocked(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        if (frozen) {
+            return sizeUnlocked();
+        }
+        synchronized (this) {
+            return sizeUnlocked();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<Cell, byte[]>> entrySet() {
+        return fullView.entrySet();
+    }
+
+    @Override
+    public Set<Cell> keySet() {
+        return fullView.keySet();
+    }
+
+    @Nullable
+    @Override
+    public Comparator<? super Cell> comparator() {
+        return null;
+    }
+
+    @Override
+    public SortedMap<Cell, byte[]> subMap(Cell fromKey, Cell toKey) {
+        return fullView.subMap(fromKey, toKey);
+    }
+
+    @Override
+    public SortedMap<Cell, byte[]> headMap(Cell toKey) {
+        return fullView.headMap(toKey);
+    }
+
+    @Override
+    public SortedMap<Cell, byte[]> tailMap(Cell fromKey) {
+        return fullView.tailMap(fromKey);
+    }
+
+    @Override
+    public Cell firstKey() {
+        return fullView.firstKey();
+    }
+
+    @Override
+    public Cell lastKey() {
+        return fullView.lastKey();
+    }
+
+    /**
+     * Copies the writes in this buffer into a {@link ConcurrentSkipListMap}, to which all further operations on this
+     * buffer and its views are forwarded.
+     */
+    synchronized SortedMap<Cell, byte[]> sealIntoConcurrentMap() {
+        if (delegate == null) {
+            ConcurrentSkipListMap<Cell, byte[]> concurrentWrites = new ConcurrentSkipListMap<>();
+            for (int entry = 0; entry < numEntries; entry++) {
+                concurrentWrites.put(readCell(entry), values[entry]);
+            }
+            delegate = concurrentWrites;
+        }
+        return delegate;
+    }
+
+    /**
+     * Makes this buffer read-only, so that it can be read without locking, for instance by the several passes over
+     * a transaction's writes made while committing it. Must not race with writes to the buffer.
+     */
+    synchronized void freeze() {
+        if (!frozen) {
+            if (delegate == null) {
+                currentSortedOrder();
+                frozenCells = new Cell[numEntries];
+            }
+            frozen = true;
+        }
+    }
+
+    @VisibleForTesting
+    boolean isSealed() {
+        return delegate != null;
+    }
+
+    private byte[] getUnlocked(Object key) {
+        if (delegate != null) {
+            return delegate.get(key);
+        }
+        if (!(key instanceof Cell)) {
+            return null;
+        }
+        int entry = find((Cell) key);
+        return entry >= 0 ? values[entry] : null;
+    }
+
+    private boolean containsKeyUnlocked(Object key) {
+        if (delegate != null) {
+            return delegate.containsKey(key);
+        }
+        return key instanceof Cell && find((Cell) key) >= 0;
+    }
+
+    private int sizeUnlocked() {
+        if (delegate != null) {
+            return delegate.size();
+        }
+        return numEntries;
+    }
+
+    private int find(Cell cell) {
+        int hash = cell.hashCode();
+        int mask = hashIndex.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int candidate = hashIndex[slot] - 1;
+            if (candidate < 0) {
+                return -1;
+            }
+            if (entryHashes[candidate] == hash && matches(candidate, cell)) {
+                return candidate;
+            }
+        }
+    }
+
+    private boolean matches(int entry, Cell cell) {
+        int base = entry * ENTRY_STRIDE;
+        int rowOffset = entries[base + ROW_OFFSET];
+        int rowEnd = rowOffset + entries[base + ROW_LENGTH];
+        int columnEnd = rowEnd + entries[base + COLUMN_LENGTH];
+        byte[] row = cell.getRowName();
+        byte[] column = cell.getColumnName();
+        return Arrays.equals(arena, rowOffset, rowEnd, row, 0, row.length)
+                && Arrays.equals(arena, rowEnd, columnEnd, column, 0, column.length);
+    }
+
+    private void insertIntoHashIndex(int entry) {
+        if (2 * numEntries > hashIndex.length) {
+            hashIndex = new int[2 * hashIndex.length];
+            for (int existing = 0; existing < numEntries; existing++) {
+                placeInHashIndex(existing);
+            }
+        } else {
+            placeInHashIndex(entry);
+        }
+    }
+
+    private void placeInHashIndex(int entry) {
+        int mask = hashIndex.length - 1;
+        int slot = spread(entryHashes[entry]) & mask;
+        while (hashIndex[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        hashIndex[slot] = entry + 1;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int append(byte[] bytes) {
+        int offset = arenaSize;
+        System.arraycopy(bytes, 0, arena, offset, bytes.length);
+        arenaSize += bytes.length;
+        return offset;
+    }
+
+    private void ensureArenaCapacity(int required) {
+        if (required > arena.length) {
+            int newLength = (int) Math.min(MAX_ARENA_SIZE, Math.max(required, 2L * arena.length));
+            arena = Arrays.copyOf(arena, newLength);
+        }
+    }
+
+    private void ensureEntryCapacity() {
+        if (numEntries == entryHashes.length) {
+            entryHashes = Arrays.copyOf(entryHashes, 2 * entryHashes.length);
+            entries = Arrays.copyOf(entries, 2 * entries.length);
+            values = Arrays.copyOf(values, 2 * values.length);
+        }
+    }
+
+    private Cell readCell(int entry) {
+        Cell[] cells = frozenCells;
+        if (cells == null) {
+            return createCell(entry);
+        }
+        // Racing readers may each create the cell, which is harmless, as cells are immutable.
+        Cell cell = cells[entry];
+        if (cell == null) {
+            cell = createCell(entry);
+            cells[entry] = cell;
+        }
+        return cell;
+    }
+
+    private Cell createCell(int entry) {
+        int base = entry * ENTRY_STRIDE;
+        int rowOffset = entries[base + ROW_OFFSET];
+        int rowEnd = rowOffset + entries[base + ROW_LENGTH];
+        int columnEnd = rowEnd + entries[base + COLUMN_LENGTH];
+        return Cell.create(Arrays.copyOfRange(arena, rowOffset, rowEnd), Arrays.copyOfRange(arena, rowEnd, columnEnd));
+    }
+
+    /**
+     * Orders entries in the same way as {@link Cell#compareTo(Cell)}: by row name, then column name, both compared
+     * as unsigned bytes.
+     */
+    private int compareEntries(int left, int right) {
+        int leftBase = left * ENTRY_STRIDE;
+        int rightBase = right * ENTRY_STRIDE;
+        int leftRowEnd = entries[leftBase + ROW_OFFSET] + entries[leftBase + ROW_LENGTH];
+        int rightRowEnd = entries[rightBase + ROW_OFFSET] + entries[rightBase + ROW_LENGTH];
+        int cmp = Arrays.compareUnsigned(
+                arena, entries[leftBase + ROW_OFFSET], leftRowEnd, arena, entries[rightBase + ROW_OFFSET], rightRowEnd);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Arrays.compareUnsigned(
+                arena,
+                leftRowEnd,
+                leftRowEnd + entries[leftBase + COLUMN_LENGTH],
+                arena,
+                rightRowEnd,
+                rightRowEnd + entries[rightBase + COLUMN_LENGTH]);
+    }
+
+    private int compareEntryToCell(int entry, Cell cell) {
+        int base = entry * ENTRY_STRIDE;
+        int rowOffset = entries[base + ROW_OFFSET];
+        int rowEnd = rowOffset + entries[base + ROW_LENGTH];
+        byte[] row = cell.getRowName();
+        int cmp = Arrays.compareUnsigned(arena, rowOffset, rowEnd, row, 0, row.length);
+        if (cmp != 0) {
+            return cmp;
+        }
+        byte[] column = cell.getColumnName();
+        return Arrays.compareUnsigned(
+                arena, rowEnd, rowEnd + entries[base + COLUMN_LENGTH], column, 0, column.length);
+    }
+
+    /**
+     * Brings the sorted order up to date by sorting the entries appended since it was last computed, and merging
+     * them into a fresh copy of the existing order.
+     */
+    private int[] currentSortedOrder() {
+        int numSorted = sortedEntries.length;
+        if (numSorted == numEntries) {
+            return sortedEntries;
+        }
+        int[] appended = new int[numEntries - numSorted];
+        for (int i = 0; i < appended.length; i++) {
+            appended[i] = numSorted + i;
+        }
+        mergeSort(appended, new int[appended.length], 0, appended.length);
+
+        int[] merged = new int[numEntries];
+        int left = 0;
+        int right = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (right == appended.length
+                    || (left < numSorted && compareEntries(sortedEntries[left], appended[right]) < 0)) {
+                merged[i] = sortedEntries[left++];
+            } else {
+                merged[i] = appended[right++];
+            }
+        }
+        sortedEntries = merged;
+        return merged;
+    }
+
+    private void mergeSort(int[] values, int[] scratch, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(values, scratch, from, middle);
+        mergeSort(values, scratch, middle, to);
+        if (compareEntries(values[middle - 1], values[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(values, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right == to || (left < middle && compareEntries(scratch[left], scratch[right]) <= 0)) {
+                values[i] = scratch[left++];
+            } else {
+                values[i] = scratch[right++];
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the first entry in the sorted order that is not less than the given cell, or the
+     * number of entries if there is no such entry. A null cell is treated as an unbounded end.
+     */
+    private int lowerBound(int[] sorted, @Nullable Cell cell, int ifUnbounded) {
+        if (cell == null) {
+            return ifUnbounded;
+        }
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareEntryToCell(sorted[middle], cell) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static SortedMap<Cell, byte[]> restrict(
+            SortedMap<Cell, byte[]> map, @Nullable Cell lowInclusive, @Nullable Cell highExclusive) {
+        if (lowInclusive != null && highExclusive != null) {
+            return map.subMap(lowInclusive, highExclusive);
+        } else if (lowInclusive != null) {
+            return map.tailMap(lowInclusive);
+        } else if (highExclusive != null) {
+            return map.headMap(highExclusive);
+        }
+        return map;
+    }
+
+    /**
+     * A live view of the entries between two (possibly unbounded) cells. Iterators are weakly consistent: they see
+     * the cells present when they were created, with values as of when each entry is reached.
+     */
+    private final class View extends AbstractMap<Cell, byte[]> implements SortedMap<Cell, byte[]> {
+        @Nullable
+        private final Cell lowInclusive;
+
+        @Nullable
+        private final Cell highExclusive;
+
+        private View(@Nullable Cell lowInclusive, @Nullable Cell highExclusive) {
+            this.lowInclusive = lowInclusive;
+            this.highExclusive = highExclusive;
+        }
+
+        @Override
+        public byte[] put(Cell cell, byte[] value) {
+            Preconditions.checkArgument(inRange(cell), "Cell is outside the range of this view");
+            return CompactLocalWriteBuffer.this.put(cell, value);
+        }
+
+        @Override
+        public byte[] get(Object key) {
+            return key instanceof Cell && inRange((Cell) key) ? CompactLocalWriteBuffer.this.get(key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Cell && inRange((Cell) key) && CompactLocalWriteBuffer.this.containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            if (frozen) {
+                return sizeUnlocked();
+            }
+            synchronized (CompactLocalWriteBuffer.this) {
+                return sizeUnlocked();
+            }
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public Set<Map.Entry<Cell, byte[]>> entrySet() {
+            return new AbstractSet<Map.Entry<Cell, byte[]>>() {
+                @Override
+                public Iterator<Map.Entry<Cell, byte[]>> iterator() {
+                    return entryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return View.this.size();
+                }
+            };
+        }
+
+        @Override
+        public Set<Cell> keySet() {
+            return new AbstractSet<Cell>() {
+                @Override
+                public Iterator<Cell> iterator() {
+                    Iterator<Map.Entry<Cell, byte[]>> entryIterator = entryIterator();
+                    return new Iterator<Cell>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entryIterator.hasNext();
+                        }
+
+                        @Override
+                        public Cell next() {
+                            return entryIterator.next().getKey();
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object object) {
+                    return containsKey(object);
+                }
+
+                @Override
+                public int size() {
+                    return View.this.size();
+                }
+            };
+        }
+
+        @Nullable
+        @Override
+        public Comparator<? super Cell> comparator() {
+            return null;
+        }
+
+        @Override
+        public SortedMap<Cell, byte[]> subMap(Cell fromKey, Cell toKey) {
+            Preconditions.checkArgument(fromKey.compareTo(toKey) <= 0, "fromKey must not be greater than toKey");
+            return new View(max(lowInclusive, fromKey), min(highExclusive, toKey));
+        }
+
+        @Override
+        public SortedMap<Cell, byte[]> headMap(Cell toKey) {
+            return new View(lowInclusive, min(highExclusive, toKey));
+        }
+
+        @Override
+        public SortedMap<Cell, byte[]> tailMap(Cell fromKey) {
+            return new View(max(lowInclusive, fromKey), highExclusive);
+        }
+
+        @Override
+        public Cell firstKey() {
+            if (frozen) {
+                return firstKeyUnlocked();
+            }
+            synchronized (CompactLocalWriteBuffer.this) {
+                return firstKeyUnlocked();
+            }
+        }
+
+        @Override
+        public Cell lastKey() {
+            if (frozen) {
+                return lastKeyUnlocked();
+            }
+            synchronized (CompactLocalWriteBuffer.this) {
+                return lastKeyUnlocked();
+            }
+        }
+
+        private Iterator<Map.Entry<Cell, byte[]>> entryIterator() {
+            if (frozen) {
+                return entryIteratorUnlocked();
+            }
+            synchronized (CompactLocalWriteBuffer.this) {
+                return entryIteratorUnlocked();
+            }
+        }
+
+        private int sizeUnlocked() {
+            if (delegate != null) {
+                return delegated().size();
+            }
+            int[] sorted = currentSortedOrder();
+            return endPosition(sorted) - startPosition(sorted);
+        }
+
+        private Cell firstKeyUnlocked() {
+            if (delegate != null) {
+                return delegated().firstKey();
+            }
+            int[] sorted = currentSortedOrder();
+            int start = startPosition(sorted);
+            if (start >= endPosition(sorted)) {
+                throw new NoSuchElementException();
+            }
+            return readCell(sorted[start]);
+        }
+
+        private Cell lastKeyUnlocked() {
+            if (delegate != null) {
+                return delegated().lastKey();
+            }
+            int[] sorted = currentSortedOrder();
+            int end = endPosition(sorted);
+            if (startPosition(sorted) >= end) {
+                throw new NoSuchElementException();
+            }
+            return readCell(sorted[end - 1]);
+        }
+
+        private Iterator<Map.Entry<Cell, byte[]>> entryIteratorUnlocked() {
+            if (delegate != null) {
+                return delegated().entrySet().iterator();
+            }
+            int[] sorted = currentSortedOrder();
+            return new EntryIterator(sorted, startPosition(sorted), endPosition(sorted));
+        }
+
+        private SortedMap<Cell, byte[]> delegated() {
+            return restrict(delegate, lowInclusive, highExclusive);
+        }
+
+        private int startPosition(int[] sorted) {
+            return lowerBound(sorted, lowInclusive, 0);
+        }
+
+        private int endPosition(int[] sorted) {
+            return Math.max(startPosition(sorted), lowerBound(sorted, highExclusive, sorted.length));
+        }
+
+        private boolean inRange(Cell cell) {
+            return (lowInclusive == null || cell.compareTo(lowInclusive) >= 0)
+                    && (highExclusive == null || cell.compareTo(highExclusive) < 0);
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Cell, byte[]>> {
+        private final int[] sorted;
+        private final int end;
+        private int position;
+
+        private EntryIterator(int[] sorted, int start, int end) {
+            this.sorted = sorted;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < end;
+        }
+
+        @Override
+        public Map.Entry<Cell, byte[]> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int entry = sorted[position++];
+            if (frozen) {
+                return Maps.immutableEntry(readCell(entry), values[entry]);
+            }
+            synchronized (CompactLocalWriteBuffer.this) {
+                return Maps.immutableEntry(readCell(entry), values[entry]);
+            }
+        }
+    }
+
+    @Nullable
+    private static Cell max(@Nullable Cell current, Cell bound) {
+        return current == null || bound.compareTo(current) > 0 ? bound : current;
+    }
+
+    @Nullable
+    private static Cell min(@Nullable Cell current, Cell bound) {
+        return current == null || bound.compareTo(current) < 0 ? bound : current;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.impl;
+
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.common.base.Throwables;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the read-write conflict checks of a serializable transaction, which happen while the transaction holds its
+ * commit locks. Checks are grouped into phases, and each phase records in its timer how long it kept the commit locks
+ * held, from the start of its first check to the end of its last one.
+ *
+ * Up to {@code concurrency - 1} helpers run checks on the given executor, alongside the calling thread. No further
+ * checks are started once one of them has failed, and {@link #run()} only returns or throws once no helper is running
+ * a check any more. Helpers still queued on the executor once the calling thread has run out of checks are cancelled
+ * rather than awaited, so that the commit locks are not held while they wait behind unrelated tasks.
+ */
+final class ConflictCheckRunner {
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final List<Runnable> checks = new ArrayList<>();
+
+    ConflictCheckRunner(ExecutorService executor, int concurrency) {
+        this.executor = executor;
+        this.concurrency = concurrency;
+    }
+
+    ConflictCheckRunner addPhase(Timer timer, List<Runnable> phaseChecks) {
+        if (!phaseChecks.isEmpty()) {
+            Phase phase = new Phase(timer, phaseChecks.size());
+            phaseChecks.forEach(check -> checks.add(() -> phase.run(check)));
+        }
+        return this;
+    }
+
+    void run() {
+        int helperCount = Math.min(concurrency, checks.size()) - 1;
+        if (helperCount <= 0) {
+            checks.forEach(Runnable::run);
+            return;
+        }
+
+        Queue<Runnable> remainingChecks = new ConcurrentLinkedQueue<>(checks);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        Runnable worker = () -> {
+            while (!failed.get()) {
+                Runnable check = remainingChecks.poll();
+                if (check == null) {
+                    return;
+                }
+                try {
+                    check.run();
+                } catch (RuntimeException | Error e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }
+        };
+
+        List<Helper> helpers = new ArrayList<>();
+        try {
+            for (int i = 0; i < helperCount; i++) {
+                helpers.add(Helper.submit(executor, worker));
+            }
+        } catch (RejectedExecutionException e) {
+            // The executor is saturated, so the checks are left to the helpers started so far and this thread.
+        }
+        try {
+            worker.run();
+            for (Helper helper : helpers) {
+                if (!helper.cancelIfNotStarted()) {
+                    helper.future.get();
+                }
+            }
+        } catch (ExecutionException e) {
+            // Rethrow conflicts found by other threads as they are, so that they still carry their table.
+            Throwables.throwIfInstance(e.getCause(), RuntimeException.class);
+            throw Throwables.rewrapAndThrowUncheckedException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.rewrapAndThrowUncheckedException(e);
+        } finally {
+            failed.set(true);
+            helpers.forEach(Helper::cancelOrAwait);
+        }
+    }
+
+    private static final class Helper {
+        private final AtomicBoolean claimed;
+        private final Future<?> future;
+
+        private Helper(AtomicBoolean claimed, Future<?> future) {
+            this.claimed = claimed;
+            this.future = future;
+        }
+
+        static Helper submit(ExecutorService executor, Runnable worker) {
+            AtomicBoolean claimed = new AtomicBoolean(false);
+            Future<?> future = executor.submit(() -> {
+                if (claimed.compareAndSet(false, true)) {
+                    worker.run();
+                }
+            });
+            return new Helper(claimed, future);
+        }
+
+        /**
+         * Prevents the helper from starting, unless it already has. Returns whether it was prevented.
+         */
+        boolean cancelIfNotStarted() {
+            if (claimed.compareAndSet(false, true)) {
+                future.cancel(false);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Helpers that have not started yet are prevented from doing so. Helpers that have started are awaited, which
+         * takes at most one check, since they stop once a check has failed.
+         */
+        void cancelOrAwait() {
+            if (cancelIfNotStarted()) {
+                return;
+            }
+            try {
+                Uninterruptibles.getUninterruptibly(future);
+            } catch (ExecutionException | CancellationException e) {
+                // Already rethrown, or secondary to the failure that is being rethrown; or cancelled earlier.
+            }
+        }
+    }
+
+    private static final class Phase {
+        private static final long NOT_STARTED = Long.MIN_VALUE;
+
+        private final Timer timer;
+        private final AtomicInteger remainingChecks;
+        private final AtomicLong startNanos = new AtomicLong(NOT_STARTED);
+
+        private Phase(Timer timer, int checks) {
+            this.timer = timer;
+            this.remainingChecks = new AtomicInteger(checks);
+        }
+
+        void run(Runnable check) {
+            startNanos.compareAndSet(NOT_STARTED, System.nanoTime());
+            check.run();
+            if (remainingChecks.decrementAndGet() == 0) {
+                timer.update(System.nanoTime() - startNanos.get(), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.palantir.common.concurrent.PTExecutors;
 import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -29,6 +30,9 @@ final class DefaultTaskExecutors {
     private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(5);
     private static final int SINGLE_THREAD = 1;
 
+    @VisibleForTesting
+    static final int DEFAULT_COMMIT_THREADS = 16;
+
     @VisibleForTesting
     static final int DEFAULT_QUEUE_CAPACITY = 50_000;
 
@@ -46,4 +50,19 @@ final class DefaultTaskExecutors {
                 new NamedThreadFactory("atlas-delete-executor", true),
                 new ThreadPoolExecutor.AbortPolicy());
     }
+
+    /**
+     * Work handed to this executor is never queued: if all threads are busy, submission fails, and callers do the work
+     * on their own thread instead.
+     */
+    static ExecutorService createDefaultCommitExecutor() {
+        return PTExecutors.newThreadPoolExecutor(
+                0,
+                DEFAULT_COMMIT_THREADS,
+                DEFAULT_IDLE_TIMEOUT.toMillis(),
+                TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                new NamedThreadFactory("atlas-commit-executor", true),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
 }
@@ -68,6 +68,30 @@ final class GetRowsColumnRangeIterator extends AbstractIterator<Iterator<Map.Ent
             PostFilterer postFilterer) {
         BatchSizeIncreasingIterator<Map.Entry<Cell, Value>> batchIterator = new BatchSizeIncreasingIterator<>(
                 batchProvider, columnRangeSelection.getBatchHint(), ClosableIterators.wrap(rawIterator));
+        return iterator(batchIterator, batchValidationStep, postFilterer);
+    }
+
+    /**
+     * As {@link #iterator(BatchProvider, RowColumnRangeIterator, BatchColumnRangeSelection, Runnable, PostFilterer)},
+     * but reads one batch ahead and hands each batch to the {@code prefetcher} as soon as it is read, so that work
+     * needed to post-filter a batch can start while the next batch is being read.
+     */
+    public static Iterator<Map.Entry<Cell, byte[]>> prefetchingIterator(
+            BatchProvider<Map.Entry<Cell, Value>> batchProvider,
+            RowColumnRangeIterator rawIterator,
+            BatchColumnRangeSelection columnRangeSelection,
+            Runnable batchValidationStep,
+            PostFilterer postFilterer,
+            PrefetchingBatchIterator.Prefetcher<Map.Entry<Cell, Value>> prefetcher) {
+        BatchSizeIncreasingIterator<Map.Entry<Cell, Value>> batchIterator = new PrefetchingBatchIterator<>(
+                batchProvider, columnRangeSelection.getBatchHint(), ClosableIterators.wrap(rawIterator), prefetcher);
+        return iterator(batchIterator, batchValidationStep, postFilterer);
+    }
+
+    private static Iterator<Map.Entry<Cell, byte[]>> iterator(
+            BatchSizeIncreasingIterator<Map.Entry<Cell, Value>> batchIterator,
+            Runnable batchValidationStep,
+            PostFilterer postFilterer) {
         GetRowsColumnRangeIterator postFilteredIterator =
                 new GetRowsColumnRangeIterator(batchIterator, batchValidationStep, postFilterer);
         return Iterators.concat(postFilteredIterator);
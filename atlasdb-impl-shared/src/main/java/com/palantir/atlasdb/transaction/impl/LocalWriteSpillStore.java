@@ -0,0 +1,114 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import com.google.protobuf.ByteString;
+import com.palantir.atlasdb.persistent.api.PersistentStore;
+import com.palantir.atlasdb.persistent.rocksdb.RocksDbPersistentStore;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.logsafe.exceptions.SafeRuntimeException;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+/**
+ * A temporary RocksDB store holding the spilled local writes of a single transaction, with one store space per
+ * table. The store and its files are deleted when it is closed. Accessing the store after it has been closed throws,
+ * rather than touching the closed native handles.
+ */
+final class LocalWriteSpillStore implements AutoCloseable {
+    private static final SafeLogger log = SafeLoggerFactory.get(LocalWriteSpillStore.class);
+
+    private final RocksDbPersistentStore persistentStore;
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private boolean closed = false;
+
+    private LocalWriteSpillStore(RocksDbPersistentStore persistentStore) {
+        this.persistentStore = persistentStore;
+    }
+
+    static LocalWriteSpillStore create(Path parentDirectory) {
+        try {
+            Files.createDirectories(parentDirectory);
+            File databaseFolder = Files.createTempDirectory(parentDirectory, "atlasdb-local-writes-").toFile();
+            RocksDB rocksDb = RocksDB.open(databaseFolder.getAbsolutePath());
+            return new LocalWriteSpillStore(RocksDbPersistentStore.createPropagatingErrors(rocksDb, databaseFolder));
+        } catch (IOException | RocksDBException e) {
+            throw new SafeRuntimeException("Failed to create a store to spill local writes to", e);
+        }
+    }
+
+    PersistentStore.Handle createSpace() {
+        return call(RocksDbPersistentStore::createSpace);
+    }
+
+    Optional<ByteString> get(PersistentStore.Handle handle, ByteString key) {
+        return call(store -> store.get(handle, key));
+    }
+
+    List<Map.Entry<ByteString, ByteString>> getRange(
+            PersistentStore.Handle handle, ByteString startInclusive, int maxEntries) {
+        return call(store -> store.getRange(handle, startInclusive, maxEntries));
+    }
+
+    void put(PersistentStore.Handle handle, ByteString key, ByteString value) {
+        call(store -> {
+            store.put(handle, key, value);
+            return null;
+        });
+    }
+
+    private <T> T call(Function<RocksDbPersistentStore, T> operation) {
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new SafeIllegalStateException(
+                        "Spilled local writes are no longer available, as their transaction has finished");
+            }
+            return operation.apply(persistentStore);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            persistentStore.close();
+        } catch (IOException e) {
+            log.warn("Failed to delete the files of a store of spilled local writes", e);
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.atlasdb.futures.AtlasFutures;
+import com.palantir.common.base.ClosableIterator;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link BatchSizeIncreasingIterator} that reads one batch ahead of its caller, and hands every batch to a
+ * {@link Prefetcher} as soon as it has been read. Work started by the prefetcher for a batch thus overlaps with reading
+ * the next batch, and with whatever the caller does with the previous one. A batch is only returned once the work
+ * started for it has completed. Work started for a batch that will not be returned, because the iterator was closed
+ * or failed to read further, is cancelled.
+ */
+final class PrefetchingBatchIterator<T> extends BatchSizeIncreasingIterator<T> {
+    private final Prefetcher<T> prefetcher;
+
+    @Nullable
+    private PrefetchedBatch<T> readAhead;
+
+    PrefetchingBatchIterator(
+            BatchProvider<T> batchProvider,
+            int originalBatchSize,
+            @Nullable ClosableIterator<T> currentResults,
+            Prefetcher<T> prefetcher) {
+        super(batchProvider, originalBatchSize, currentResults);
+        this.prefetcher = prefetcher;
+    }
+
+    @Override
+    public BatchResult<T> getBatch() {
+        PrefetchedBatch<T> current = readAhead == null ? readAndPrefetch() : readAhead;
+        readAhead = null;
+        try {
+            readAhead = current.result().isLastBatch() ? null : readAndPrefetch();
+        } catch (RuntimeException e) {
+            current.prefetch().cancel(false);
+            throw e;
+        }
+        AtlasFutures.getUnchecked(current.prefetch());
+        return current.result();
+    }
+
+    @Override
+    public void close() {
+        if (readAhead != null) {
+            readAhead.prefetch().cancel(false);
+            readAhead = null;
+        }
+        super.close();
+    }
+
+    private PrefetchedBatch<T> readAndPrefetch() {
+        BatchResult<T> result = super.getBatch();
+        return new PrefetchedBatch<>(result, prefetcher.prefetch(result.batch()));
+    }
+
+    private static final class PrefetchedBatch<T> {
+        private final BatchResult<T> result;
+        private final ListenableFuture<?> prefetch;
+
+        private PrefetchedBatch(BatchResult<T> result, ListenableFuture<?> prefetch) {
+            this.result = result;
+            this.prefetch = prefetch;
+        }
+
+        BatchResult<T> result() {
+            return result;
+        }
+
+        ListenableFuture<?> prefetch() {
+            return prefetch;
+        }
+    }
+
+    @FunctionalInterface
+    interface Prefetcher<T> {
+        /**
+         * Starts work for a batch that has just been read, returning a future that must not fail. The future is
+         * cancelled if the batch is not going to be returned.
+         */
+        ListenableFuture<?> prefetch(List<T> batch);
+    }
+}
@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.transaction.impl;
 
+import com.codahale.metrics.Timer;
 import com.google.common.base.Functions;
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
@@ -32,6 +33,9 @@ import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Streams;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
 import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -84,9 +88,11 @@ import com.palantir.logsafe.logger.SafeLoggerFactory;
 import com.palantir.util.Pair;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -94,11 +100,13 @@ import java.util.NavigableMap;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.Queue;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -124,6 +132,7 @@ public class SerializableTransaction extends SnapshotTransaction {
     private static final SafeLogger log = SafeLoggerFactory.get(SerializableTransaction.class);
 
     private static final int BATCH_SIZE = 1000;
+    private static final HashFunction READ_HASH_FUNCTION = Hashing.farmHashFingerprint64();
 
     final ConcurrentMap<TableReference, ConcurrentNavigableMap<Cell, byte[]>> readsByTable = new ConcurrentHashMap<>();
     final ConcurrentMap<TableReference, ConcurrentMap<RangeRequest, byte[]>> rangeEndByTable =
@@ -134,6 +143,10 @@ public class SerializableTransaction extends SnapshotTransaction {
             new ConcurrentHashMap<>();
     final ConcurrentMap<TableReference, Set<Cell>> cellsRead = new ConcurrentHashMap<>();
     final ConcurrentMap<TableReference, Set<RowRead>> rowsRead = new ConcurrentHashMap<>();
+    final ConcurrentMap<TableReference, Queue<RangeReadDigest>> rangeDigestsByTable = new ConcurrentHashMap<>();
+
+    private final boolean hashReads;
+    private final int conflictCheckConcurrency;
 
     public SerializableTransaction(
             MetricsManager metricsManager,
@@ -157,6 +170,7 @@ public class SerializableTransaction extends SnapshotTransaction {
             int defaultGetRangesConcurrency,
             MultiTableSweepQueueWriter sweepQueue,
             ExecutorService deleteExecutor,
+            ExecutorService commitExecutor,
             boolean validateLocksOnReads,
             Supplier<TransactionConfig> transactionConfig,
             ConflictTracer conflictTracer,
@@ -183,10 +197,13 @@ public class SerializableTransaction extends SnapshotTransaction {
                 defaultGetRangesConcurrency,
                 sweepQueue,
                 deleteExecutor,
+                commitExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
                 tableLevelMetricsController);
+        this.hashReads = transactionConfig.get().hashSerializableReads();
+        this.conflictCheckConcurrency = transactionConfig.get().readWriteConflictCheckConcurrency();
     }
 
     @Override
@@ -278,7 +295,7 @@ public class SerializableTransaction extends SnapshotTransaction {
             }
 
             private void markReadUpTo(Cell cell, byte[] value) {
-                readsForTable.put(cell, value);
+                readsForTable.put(cell, valueToCompare(value));
                 updateRangeEnd(Cell.create(cell.getRowName(), cell.getColumnName()));
             }
 
@@ -359,6 +376,9 @@ public class SerializableTransaction extends SnapshotTransaction {
             final TableReference tableRef,
             final RangeRequest rangeRequest,
             final BatchingVisitable<RowResult<byte[]>> ret) {
+        if (shouldDigestRangeReads(tableRef, rangeRequest)) {
+            return wrapRangeWithDigest(tableRef, rangeRequest, ret);
+        }
         return new BatchingVisitable<RowResult<byte[]>>() {
             @Override
             public <K extends Exception> boolean batchAccept(
@@ -378,6 +398,33 @@ public class SerializableTransaction extends SnapshotTransaction {
         };
     }
 
+    private BatchingVisitable<RowResult<byte[]>> wrapRangeWithDigest(
+            TableReference tableRef, RangeRequest rangeRequest, BatchingVisitable<RowResult<byte[]>> ret) {
+        return new BatchingVisitable<RowResult<byte[]>>() {
+            @Override
+            public <K extends Exception> boolean batchAccept(
+                    int batchSize, AbortingVisitor<? super List<RowResult<byte[]>>, K> visitor) throws K {
+                // Each visit reads the range from its start again, so it gets a digest of its own.
+                RangeReadDigest rangeRead = new RangeReadDigest(rangeRequest);
+                rangeDigestsByTable
+                        .computeIfAbsent(tableRef, unused -> new ConcurrentLinkedQueue<>())
+                        .add(rangeRead);
+                boolean hitEnd = ret.batchAccept(batchSize, items -> {
+                    rangeRead.markRead(items, items.size() < batchSize, writesByTable.get(tableRef));
+                    return visitor.visit(items);
+                });
+                if (hitEnd) {
+                    rangeRead.markRead(ImmutableList.of(), true, writesByTable.get(tableRef));
+                }
+                return hitEnd;
+            }
+        };
+    }
+
+    private boolean shouldDigestRangeReads(TableReference table, RangeRequest range) {
+        return hashReads && !range.isReverse() && isSerializableTable(table);
+    }
+
     private ConcurrentNavigableMap<Cell, byte[]> getReadsForTable(TableReference table) {
         return readsByTable.computeIfAbsent(table, unused -> new ConcurrentSkipListMap<>());
     }
@@ -438,11 +485,39 @@ public class SerializableTransaction extends SnapshotTransaction {
         return map;
     }
 
+    private Map<Cell, byte[]> readsToRemember(Map<Cell, byte[]> reads) {
+        return valuesToCompare(transformGetsForTesting(reads));
+    }
+
+    private Map<Cell, byte[]> valuesToCompare(Map<Cell, byte[]> values) {
+        return hashReads ? Maps.transformValues(values, SerializableTransaction::hashValue) : values;
+    }
+
+    private byte[] valueToCompare(byte[] value) {
+        return hashReads ? hashValue(value) : value;
+    }
+
+    private static byte[] hashValue(byte[] value) {
+        return Longs.toByteArray(READ_HASH_FUNCTION.hashBytes(value).asLong());
+    }
+
+    private static long hashEntry(Cell cell, byte[] value) {
+        return READ_HASH_FUNCTION
+                .newHasher()
+                .putInt(cell.getRowName().length)
+                .putBytes(cell.getRowName())
+                .putInt(cell.getColumnName().length)
+                .putBytes(cell.getColumnName())
+                .putBytes(value)
+                .hash()
+                .asLong();
+    }
+
     private void markCellsRead(TableReference table, Set<Cell> searched, Map<Cell, byte[]> result) {
         if (!isSerializableTable(table)) {
             return;
         }
-        getReadsForTable(table).putAll(transformGetsForTesting(result));
+        getReadsForTable(table).putAll(readsToRemember(result));
         Set<Cell> cellsForTable = cellsRead.computeIfAbsent(table, unused -> ConcurrentHashMap.newKeySet());
         cellsForTable.addAll(searched);
     }
@@ -454,8 +529,7 @@ public class SerializableTransaction extends SnapshotTransaction {
         ConcurrentNavigableMap<Cell, byte[]> reads = getReadsForTable(table);
         for (RowResult<byte[]> row : result) {
             Map<Cell, byte[]> map = Maps2.fromEntries(row.getCells());
-            map = transformGetsForTesting(map);
-            reads.putAll(map);
+            reads.putAll(readsToRemember(map));
         }
         setRangeEnd(table, range, Iterables.getLast(result).getRowName());
     }
@@ -467,10 +541,92 @@ public class SerializableTransaction extends SnapshotTransaction {
         }
         ConcurrentNavigableMap<Cell, byte[]> reads = getReadsForTable(table);
         Map<Cell, byte[]> map = Maps2.fromEntries(result);
-        reads.putAll(transformGetsForTesting(map));
+        reads.putAll(readsToRemember(map));
         setColumnRangeEnd(table, row, range, Iterables.getLast(result).getKey().getColumnName());
     }
 
+    /**
+     * An order-independent digest of cells and their values: the sum of the hashes of the entries, and their count.
+     */
+    private static final class ReadDigest {
+        private long sum = 0;
+        private long size = 0;
+
+        void add(Cell cell, byte[] value) {
+            sum += hashEntry(cell, value);
+            size++;
+        }
+
+        boolean matches(ReadDigest other) {
+            return sum == other.sum && size == other.size;
+        }
+    }
+
+    /**
+     * Summarises one visit of a forward range, in place of remembering every cell and value the visit returned. Cells
+     * already written by this transaction when the batch covering them was read are left out of the digest, as the
+     * values returned for them came from the local writes rather than the key value service.
+     */
+    private static final class RangeReadDigest {
+        private final RangeRequest range;
+        private final ReadDigest digest = new ReadDigest();
+        private final Set<Cell> cellsWrittenBeforeRead = new HashSet<>();
+
+        @Nullable
+        private byte[] lastRowRead = null;
+
+        private boolean reachedEnd = false;
+
+        RangeReadDigest(RangeRequest range) {
+            this.range = range;
+        }
+
+        synchronized void markRead(
+                List<RowResult<byte[]>> rows, boolean reachedEndOfRange, @Nullable SortedMap<Cell, byte[]> writes) {
+            if (reachedEnd || (rows.isEmpty() && !reachedEndOfRange)) {
+                return;
+            }
+            byte[] lastRowOfBatch = rows.isEmpty() ? null : Iterables.getLast(rows).getRowName();
+            Set<Cell> writtenCells =
+                    getWrittenCellsInRows(writes, range, lastRowRead, reachedEndOfRange ? null : lastRowOfBatch);
+            cellsWrittenBeforeRead.addAll(writtenCells);
+            for (RowResult<byte[]> row : rows) {
+                for (Map.Entry<Cell, byte[]> cell : row.getCells()) {
+                    if (!writtenCells.contains(cell.getKey())) {
+                        digest.add(cell.getKey(), cell.getValue());
+                    }
+                }
+            }
+            if (lastRowOfBatch != null) {
+                lastRowRead = lastRowOfBatch;
+            }
+            reachedEnd = reachedEndOfRange;
+        }
+
+        synchronized Optional<RangeRequest> getRangeReadSoFar() {
+            if (reachedEnd) {
+                return Optional.of(range);
+            }
+            if (lastRowRead == null) {
+                return Optional.empty();
+            }
+            if (RangeRequests.isLastRowName(lastRowRead)) {
+                return Optional.of(range);
+            }
+            return Optional.of(range.getBuilder()
+                    .endRowExclusive(RangeRequests.nextLexicographicName(lastRowRead))
+                    .build());
+        }
+
+        synchronized Set<Cell> getCellsWrittenBeforeRead() {
+            return ImmutableSet.copyOf(cellsWrittenBeforeRead);
+        }
+
+        synchronized boolean matches(ReadDigest currentDigest) {
+            return digest.matches(currentDigest);
+        }
+    }
+
     private static class RowRead {
         final ImmutableList<byte[]> rows;
         final ColumnSelection cols;
@@ -489,7 +645,7 @@ public class SerializableTransaction extends SnapshotTransaction {
         ConcurrentNavigableMap<Cell, byte[]> reads = getReadsForTable(table);
         for (RowResult<byte[]> row : result) {
             Map<Cell, byte[]> map = Maps2.fromEntries(row.getCells());
-            reads.putAll(transformGetsForTesting(map));
+            reads.putAll(readsToRemember(map));
         }
 
         Set<RowRead> rowReads = rowsRead.computeIfAbsent(table, unused -> ConcurrentHashMap.newKeySet());
@@ -520,14 +676,22 @@ public class SerializableTransaction extends SnapshotTransaction {
     @Override
     protected void throwIfReadWriteConflictForSerializable(long commitTimestamp) {
         Transaction ro = getReadOnlyTransaction(commitTimestamp);
-        verifyRanges(ro);
-        verifyColumnRanges(ro);
-        verifyCells(ro);
-        verifyRows(ro);
-        verifyGetSortedColumns(ro);
+        new ConflictCheckRunner(getRangesExecutor, conflictCheckConcurrency)
+                .addPhase(phaseTimer("readWriteConflictCheckRanges"), getRangeChecks(ro))
+                .addPhase(phaseTimer("readWriteConflictCheckRangeDigests"), getRangeDigestChecks(ro))
+                .addPhase(phaseTimer("readWriteConflictCheckColumnRanges"), getColumnRangeChecks(ro))
+                .addPhase(phaseTimer("readWriteConflictCheckCells"), getCellChecks(ro))
+                .addPhase(phaseTimer("readWriteConflictCheckRows"), getRowChecks(ro))
+                .addPhase(phaseTimer("readWriteConflictCheckSortedColumns"), getSortedColumnsChecks(ro))
+                .run();
     }
 
-    private void verifyRows(Transaction ro) {
+    private Timer phaseTimer(String timerName) {
+        return metricsManager.registerOrGetTimer(SerializableTransaction.class, timerName);
+    }
+
+    private List<Runnable> getRowChecks(Transaction ro) {
+        List<Runnable> checks = new ArrayList<>();
         for (Map.Entry<TableReference, Set<RowRead>> tableAndRowsEntry : rowsRead.entrySet()) {
             TableReference table = tableAndRowsEntry.getKey();
             Set<RowRead> rows = tableAndRowsEntry.getValue();
@@ -539,120 +703,195 @@ public class SerializableTransaction extends SnapshotTransaction {
                 rowsReadByColumns.putAll(r.cols, r.rows);
             }
             for (ColumnSelection cols : rowsReadByColumns.keySet()) {
-                verifyColumns(ro, table, readsForTable, rowsReadByColumns, cols);
+                for (List<byte[]> batch : Iterables.partition(rowsReadByColumns.get(cols), BATCH_SIZE)) {
+                    checks.add(() -> verifyColumns(ro, table, readsForTable, batch, cols));
+                }
             }
         }
+        return checks;
     }
 
     private void verifyColumns(
             Transaction ro,
             TableReference table,
             ConcurrentNavigableMap<Cell, byte[]> readsForTable,
-            Multimap<ColumnSelection, byte[]> rowsReadByColumns,
+            List<byte[]> batch,
             ColumnSelection columns) {
-        for (List<byte[]> batch : Iterables.partition(rowsReadByColumns.get(columns), BATCH_SIZE)) {
-            SortedMap<byte[], RowResult<byte[]>> currentRows = ro.getRows(table, batch, columns);
-            for (byte[] row : batch) {
-                RowResult<byte[]> currentRow = currentRows.get(row);
-                Map<Cell, byte[]> originalReads = readsForTable
-                        .tailMap(Cells.createSmallestCellForRow(row), true)
-                        .headMap(Cells.createLargestCellForRow(row), true);
-
-                // We want to filter out all our reads to just the set that matches our column selection.
-                originalReads = Maps.filterKeys(originalReads, input -> columns.contains(input.getColumnName()));
-
-                if (writesByTable.get(table) != null) {
-                    // We don't want to verify any reads that we wrote to cause
-                    // we will just read our own values.
-                    // NB: We filter our write set out here because our normal SI
-                    // checking handles this case to ensure the value hasn't changed.
-                    originalReads = Maps.filterKeys(
-                            originalReads,
-                            Predicates.not(
-                                    Predicates.in(writesByTable.get(table).keySet())));
-                }
+        SortedMap<byte[], RowResult<byte[]>> currentRows = ro.getRows(table, batch, columns);
+        for (byte[] row : batch) {
+            RowResult<byte[]> currentRow = currentRows.get(row);
+            Map<Cell, byte[]> originalReads = readsForTable
+                    .tailMap(Cells.createSmallestCellForRow(row), true)
+                    .headMap(Cells.createLargestCellForRow(row), true);
+
+            // We want to filter out all our reads to just the set that matches our column selection.
+            originalReads = Maps.filterKeys(originalReads, input -> columns.contains(input.getColumnName()));
+
+            if (writesByTable.get(table) != null) {
+                // We don't want to verify any reads that we wrote to cause
+                // we will just read our own values.
+                // NB: We filter our write set out here because our normal SI
+                // checking handles this case to ensure the value hasn't changed.
+                originalReads = Maps.filterKeys(
+                        originalReads, Predicates.not(Predicates.in(writesByTable.get(table).keySet())));
+            }
 
-                if (currentRow == null && originalReads.isEmpty()) {
-                    continue;
-                }
+            if (currentRow == null && originalReads.isEmpty()) {
+                continue;
+            }
 
-                if (currentRow == null) {
-                    handleTransactionConflict(table);
-                }
+            if (currentRow == null) {
+                handleTransactionConflict(table);
+            }
 
-                Map<Cell, byte[]> currentCells = Maps2.fromEntries(currentRow.getCells());
-                if (writesByTable.get(table) != null) {
-                    // We don't want to verify any reads that we wrote to cause
-                    // we will just read our own values.
-                    // NB: We filter our write set out here because our normal SI
-                    // checking handles this case to ensure the value hasn't changed.
-                    currentCells = Maps.filterKeys(
-                            currentCells,
-                            Predicates.not(
-                                    Predicates.in(writesByTable.get(table).keySet())));
-                }
-                if (!ByteArrayUtilities.areMapsEqual(originalReads, currentCells)) {
-                    handleTransactionConflict(table);
-                }
+            Map<Cell, byte[]> currentCells = valuesToCompare(Maps2.fromEntries(currentRow.getCells()));
+            if (writesByTable.get(table) != null) {
+                // We don't want to verify any reads that we wrote to cause
+                // we will just read our own values.
+                // NB: We filter our write set out here because our normal SI
+                // checking handles this case to ensure the value hasn't changed.
+                currentCells = Maps.filterKeys(
+                        currentCells, Predicates.not(Predicates.in(writesByTable.get(table).keySet())));
+            }
+            if (!ByteArrayUtilities.areMapsEqual(originalReads, currentCells)) {
+                handleTransactionConflict(table);
             }
         }
     }
 
-    private void verifyCells(Transaction readOnlyTransaction) {
-        for (Map.Entry<TableReference, Set<Cell>> tableAndCellsEntry : cellsRead.entrySet()) {
-            TableReference table = tableAndCellsEntry.getKey();
-            Set<Cell> cells = tableAndCellsEntry.getValue();
-
-            final ConcurrentNavigableMap<Cell, byte[]> readsForTable = getReadsForTable(table);
-            for (Iterable<Cell> batch : Iterables.partition(cells, BATCH_SIZE)) {
-                // We don't want to verify any reads that we wrote to cause we will just read our own values.
-                // NB: If the value has changed between read and write, our normal SI checking handles this case
-                Iterable<Cell> batchWithoutWrites = writesByTable.get(table) != null
-                        ? Iterables.filter(
-                                batch,
-                                Predicates.not(
-                                        Predicates.in(writesByTable.get(table).keySet())))
-                        : batch;
-                ImmutableSet<Cell> batchWithoutWritesSet = ImmutableSet.copyOf(batchWithoutWrites);
-                Map<Cell, byte[]> currentBatch = readOnlyTransaction.get(table, batchWithoutWritesSet);
-                ImmutableMap<Cell, byte[]> originalReads = Maps.toMap(
-                        Sets.intersection(batchWithoutWritesSet, readsForTable.keySet()),
-                        Functions.forMap(readsForTable));
-                if (!ByteArrayUtilities.areMapsEqual(currentBatch, originalReads)) {
-                    handleTransactionConflict(table);
-                }
-            }
+    private List<Runnable> getCellChecks(Transaction readOnlyTransaction) {
+        List<Runnable> checks = new ArrayList<>();
+        cellsRead.forEach((table, cells) -> checks.add(() -> verifyCells(readOnlyTransaction, table, cells)));
+        return checks;
+    }
+
+    private void verifyCells(Transaction readOnlyTransaction, TableReference table, Set<Cell> cells) {
+        final ConcurrentNavigableMap<Cell, byte[]> readsForTable = getReadsForTable(table);
+        // We don't want to verify any reads that we wrote to cause we will just read our own values.
+        // NB: If the value has changed between read and write, our normal SI checking handles this case
+        Iterable<Cell> cellsWithoutWrites = writesByTable.get(table) != null
+                ? Iterables.filter(cells, Predicates.not(Predicates.in(writesByTable.get(table).keySet())))
+                : cells;
+        // All cells of a table are re-read in a single call, leaving any batching to the key value service.
+        ImmutableSet<Cell> cellsWithoutWritesSet = ImmutableSet.copyOf(cellsWithoutWrites);
+        Map<Cell, byte[]> currentValues = valuesToCompare(readOnlyTransaction.get(table, cellsWithoutWritesSet));
+        ImmutableMap<Cell, byte[]> originalReads = Maps.toMap(
+                Sets.intersection(cellsWithoutWritesSet, readsForTable.keySet()), Functions.forMap(readsForTable));
+        if (!ByteArrayUtilities.areMapsEqual(currentValues, originalReads)) {
+            handleTransactionConflict(table);
         }
     }
 
-    private void verifyRanges(Transaction readOnlyTransaction) {
+    private List<Runnable> getRangeChecks(Transaction readOnlyTransaction) {
+        List<Runnable> checks = new ArrayList<>();
         // verify each set of reads to ensure they are the same.
-        for (Map.Entry<TableReference, ConcurrentMap<RangeRequest, byte[]>> tableAndRange :
-                rangeEndByTable.entrySet()) {
-            TableReference table = tableAndRange.getKey();
-            Map<RangeRequest, byte[]> rangeEnds = tableAndRange.getValue();
-
-            for (Map.Entry<RangeRequest, byte[]> rangeAndRangeEndEntry : rangeEnds.entrySet()) {
-                RangeRequest range = rangeAndRangeEndEntry.getKey();
-                byte[] rangeEnd = rangeAndRangeEndEntry.getValue();
-
-                if (rangeEnd.length != 0 && !RangeRequests.isTerminalRow(range.isReverse(), rangeEnd)) {
-                    range = range.getBuilder()
-                            .endRowExclusive(RangeRequests.getNextStartRow(range.isReverse(), rangeEnd))
-                            .build();
-                }
+        rangeEndByTable.forEach((table, rangeEnds) -> rangeEnds.forEach(
+                (range, rangeEnd) -> checks.add(() -> verifyRange(readOnlyTransaction, table, range, rangeEnd))));
+        return checks;
+    }
 
-                ConcurrentNavigableMap<Cell, byte[]> writes = writesByTable.get(table);
-                BatchingVisitableView<RowResult<byte[]>> bv =
-                        BatchingVisitableView.of(readOnlyTransaction.getRange(table, range));
-                NavigableMap<Cell, ByteBuffer> readsInRange =
-                        Maps.transformValues(getReadsInRange(table, range), ByteBuffer::wrap);
-                if (!bv.transformBatch(input -> filterWritesFromRows(input, writes))
-                        .isEqual(readsInRange.entrySet())) {
-                    handleTransactionConflict(table);
+    private void verifyRange(
+            Transaction readOnlyTransaction, TableReference table, RangeRequest rangeRead, byte[] rangeEnd) {
+        RangeRequest range = rangeRead;
+        if (rangeEnd.length != 0 && !RangeRequests.isTerminalRow(range.isReverse(), rangeEnd)) {
+            range = range.getBuilder()
+                    .endRowExclusive(RangeRequests.getNextStartRow(range.isReverse(), rangeEnd))
+                    .build();
+        }
+
+        SortedMap<Cell, byte[]> writes = writesByTable.get(table);
+        BatchingVisitableView<RowResult<byte[]>> bv =
+                BatchingVisitableView.of(readOnlyTransaction.getRange(table, range));
+        NavigableMap<Cell, ByteBuffer> readsInRange =
+                Maps.transformValues(getReadsInRange(table, range), ByteBuffer::wrap);
+        if (!bv.transformBatch(input -> filterWritesFromRows(input, writes)).isEqual(readsInRange.entrySet())) {
+            handleTransactionConflict(table);
+        }
+    }
+
+    private List<Runnable> getRangeDigestChecks(Transaction readOnlyTransaction) {
+        List<Runnable> checks = new ArrayList<>();
+        rangeDigestsByTable.forEach((table, rangeReads) -> {
+            for (RangeReadDigest rangeRead : rangeReads) {
+                checks.add(() -> {
+                    if (!isRangeReadUnchanged(readOnlyTransaction, table, rangeRead)) {
+                        handleTransactionConflict(table);
+                    }
+                });
+            }
+        });
+        return checks;
+    }
+
+    private boolean isRangeReadUnchanged(
+            Transaction readOnlyTransaction, TableReference table, RangeReadDigest rangeRead) {
+        Optional<RangeRequest> rangeReadSoFar = rangeRead.getRangeReadSoFar();
+        if (rangeReadSoFar.isEmpty()) {
+            return true;
+        }
+
+        SortedMap<Cell, byte[]> writes = writesByTable.get(table);
+        ReadDigest currentDigest = new ReadDigest();
+        readOnlyTransaction.getRange(table, rangeReadSoFar.get()).batchAccept(BATCH_SIZE, rows -> {
+            for (RowResult<byte[]> row : rows) {
+                for (Map.Entry<Cell, byte[]> cell : row.getCells()) {
+                    // NB: We filter our write set out here because our normal SI
+                    // checking handles this case to ensure the value hasn't changed.
+                    if (writes == null || !writes.containsKey(cell.getKey())) {
+                        currentDigest.add(cell.getKey(), cell.getValue());
+                    }
                 }
             }
+            return true;
+        });
+
+        // Cells we only wrote after reading them are part of the digest we took when reading, so we add back the
+        // values they had at our start timestamp; any change since then is a write-write conflict.
+        Set<Cell> cellsWrittenAfterRead = Sets.difference(
+                getWrittenCellsInRows(writes, rangeReadSoFar.get(), null, null),
+                rangeRead.getCellsWrittenBeforeRead());
+        if (!cellsWrittenAfterRead.isEmpty()) {
+            getIgnoringLocalWrites(table, ImmutableSet.copyOf(cellsWrittenAfterRead))
+                    .forEach(currentDigest::add);
         }
+        return rangeRead.matches(currentDigest);
+    }
+
+    /**
+     * Returns the cells in {@code writes} that {@code range} selects, restricted to the rows after {@code afterRow}
+     * (if present) and up to and including {@code upToRow} (if present).
+     */
+    private static Set<Cell> getWrittenCellsInRows(
+            @Nullable SortedMap<Cell, byte[]> writes,
+            RangeRequest range,
+            @Nullable byte[] afterRow,
+            @Nullable byte[] upToRow) {
+        if (writes == null) {
+            return ImmutableSet.of();
+        }
+        byte[] startRow = afterRow == null
+                ? range.getStartInclusive()
+                : RangeRequests.getNextStartRowUnlessTerminal(false, afterRow);
+        if (startRow == null) {
+            return ImmutableSet.of();
+        }
+        byte[] endRow = upToRow == null
+                ? range.getEndExclusive()
+                : RangeRequests.getNextStartRowUnlessTerminal(false, upToRow);
+
+        SortedMap<Cell, byte[]> writesInRows = writes;
+        if (startRow.length != 0) {
+            writesInRows = writesInRows.tailMap(Cells.createSmallestCellForRow(startRow));
+        }
+        if (endRow != null && endRow.length != 0) {
+            if (startRow.length != 0 && UnsignedBytes.lexicographicalComparator().compare(startRow, endRow) >= 0) {
+                return ImmutableSet.of();
+            }
+            writesInRows = writesInRows.headMap(Cells.createSmallestCellForRow(endRow));
+        }
+        return writesInRows.keySet().stream()
+                .filter(cell -> range.containsColumn(cell.getColumnName()))
+                .collect(Collectors.toSet());
     }
 
     private NavigableMap<Cell, byte[]> getReadsInColumnRangeSkippingWrites(
@@ -670,14 +909,15 @@ public class SerializableTransaction extends SnapshotTransaction {
             Cell endCell = Cells.createSmallestCellForRow(RangeRequests.nextLexicographicName(row));
             reads = reads.headMap(endCell, false);
         }
-        ConcurrentNavigableMap<Cell, byte[]> writes = writesByTable.get(table);
+        SortedMap<Cell, byte[]> writes = writesByTable.get(table);
         if (writes != null) {
             reads = Maps.filterKeys(reads, Predicates.not(Predicates.in(writes.keySet())));
         }
         return reads;
     }
 
-    private void verifyColumnRanges(Transaction readOnlyTransaction) {
+    private List<Runnable> getColumnRangeChecks(Transaction readOnlyTransaction) {
+        List<Runnable> checks = new ArrayList<>();
         // verify each set of reads to ensure they are the same.
         for (Map.Entry<TableReference, ConcurrentMap<ByteBuffer, ConcurrentMap<BatchColumnRangeSelection, byte[]>>>
                 tableAndColumnRangeEnds : columnRangeEndsByTable.entrySet()) {
@@ -698,70 +938,84 @@ public class SerializableTransaction extends SnapshotTransaction {
             }
 
             TableReference table = tableAndColumnRangeEnds.getKey();
-            rangesToRows.asMap().forEach((columnRange, rows) -> {
-                Map<byte[], BatchingVisitable<Map.Entry<Cell, byte[]>>> result =
-                        readOnlyTransaction.getRowsColumnRange(table, rows, columnRange);
-
-                for (Map.Entry<byte[], BatchingVisitable<Map.Entry<Cell, byte[]>>> cellValuesForRow :
-                        result.entrySet()) {
-                    byte[] row = cellValuesForRow.getKey();
-                    BatchingVisitableView<Map.Entry<Cell, byte[]>> visitable =
-                            BatchingVisitableView.of(cellValuesForRow.getValue());
-                    NavigableMap<Cell, ByteBuffer> readsInRange = Maps.transformValues(
-                            getReadsInColumnRangeSkippingWrites(table, row, columnRange), ByteBuffer::wrap);
-                    boolean isEqual = visitable
-                            .transformBatch(cellValues -> filterWritesFromCells(cellValues, table))
-                            .isEqual(readsInRange.entrySet());
-                    if (!isEqual) {
-                        handleTransactionConflict(table);
-                    }
-                }
-            });
+            rangesToRows.asMap().forEach((columnRange, rows) -> checks.add(
+                    () -> verifyColumnRange(readOnlyTransaction, table, columnRange, rows)));
         }
+        return checks;
     }
 
-    private void verifyGetSortedColumns(Transaction readOnlyTransaction) {
-        sortedColumnRangeEnds.forEach((request, endOfRangeReference) -> {
-            Cell endOfRange = endOfRangeReference.get();
-            // no checks required if no data has been read so far
-            if (endOfRange == null) {
-                return;
+    private void verifyColumnRange(
+            Transaction readOnlyTransaction,
+            TableReference table,
+            BatchColumnRangeSelection columnRange,
+            Collection<byte[]> rows) {
+        Map<byte[], BatchingVisitable<Map.Entry<Cell, byte[]>>> result =
+                readOnlyTransaction.getRowsColumnRange(table, rows, columnRange);
+
+        for (Map.Entry<byte[], BatchingVisitable<Map.Entry<Cell, byte[]>>> cellValuesForRow : result.entrySet()) {
+            byte[] row = cellValuesForRow.getKey();
+            BatchingVisitableView<Map.Entry<Cell, byte[]>> visitable =
+                    BatchingVisitableView.of(cellValuesForRow.getValue());
+            NavigableMap<Cell, ByteBuffer> readsInRange = Maps.transformValues(
+                    getReadsInColumnRangeSkippingWrites(table, row, columnRange), ByteBuffer::wrap);
+            boolean isEqual = visitable
+                    .transformBatch(cellValues -> filterWritesFromCells(cellValues, table))
+                    .isEqual(readsInRange.entrySet());
+            if (!isEqual) {
+                handleTransactionConflict(table);
             }
-            BatchColumnRangeSelection range = getBatchColumnRangeSelectionForEntriesReadSoFar(
-                    request.getColumnRangeSelection(), endOfRange.getColumnName());
-            Iterable<byte[]> rows = request.getRows();
-            Comparator<Cell> comparator = columnOrderThenPreserveInputRowOrder(request.getRows());
-            Iterator<Map.Entry<Cell, ByteBuffer>> readValues =
-                    readSortedColumns(request.getTableRef(), rows, range, comparator);
-
-            Iterator<Map.Entry<Cell, byte[]>> storedValues =
-                    readOnlyTransaction.getSortedColumns(request.getTableRef(), rows, range);
-
-            // handles the case where (r1, c), (r2, c) exists and we read only up to (r1, c).
-            Iterator<Map.Entry<Cell, byte[]>> truncatedStoredValues = new AbstractIterator<Map.Entry<Cell, byte[]>>() {
-                @Override
-                protected Map.Entry<Cell, byte[]> computeNext() {
-                    if (!storedValues.hasNext()) {
-                        return endOfData();
-                    }
+        }
+    }
 
-                    Map.Entry<Cell, byte[]> ret = storedValues.next();
-                    if (comparator.compare(ret.getKey(), endOfRange) > 0) {
-                        return endOfData();
-                    }
-                    return ret;
-                }
-            };
+    private List<Runnable> getSortedColumnsChecks(Transaction readOnlyTransaction) {
+        List<Runnable> checks = new ArrayList<>();
+        sortedColumnRangeEnds.forEach((request, endOfRangeReference) ->
+                checks.add(() -> verifyGetSortedColumns(readOnlyTransaction, request, endOfRangeReference)));
+        return checks;
+    }
 
-            List<Map.Entry<Cell, ByteBuffer>> actualReadList =
-                    Streams.stream(readValues).collect(Collectors.toList());
-            List<Map.Entry<Cell, ByteBuffer>> storedValuesWithoutLocalWrites = filterWritesFromCells(
-                    Streams.stream(truncatedStoredValues).collect(Collectors.toList()), request.getTableRef());
+    private void verifyGetSortedColumns(
+            Transaction readOnlyTransaction,
+            GetSortedColumnsRequest request,
+            AtomicReference<Cell> endOfRangeReference) {
+        Cell endOfRange = endOfRangeReference.get();
+        // no checks required if no data has been read so far
+        if (endOfRange == null) {
+            return;
+        }
+        BatchColumnRangeSelection range = getBatchColumnRangeSelectionForEntriesReadSoFar(
+                request.getColumnRangeSelection(), endOfRange.getColumnName());
+        Iterable<byte[]> rows = request.getRows();
+        Comparator<Cell> comparator = columnOrderThenPreserveInputRowOrder(request.getRows());
+        Iterator<Map.Entry<Cell, ByteBuffer>> readValues =
+                readSortedColumns(request.getTableRef(), rows, range, comparator);
+
+        Iterator<Map.Entry<Cell, byte[]>> storedValues =
+                readOnlyTransaction.getSortedColumns(request.getTableRef(), rows, range);
+
+        // handles the case where (r1, c), (r2, c) exists and we read only up to (r1, c).
+        Iterator<Map.Entry<Cell, byte[]>> truncatedStoredValues = new AbstractIterator<Map.Entry<Cell, byte[]>>() {
+            @Override
+            protected Map.Entry<Cell, byte[]> computeNext() {
+                if (!storedValues.hasNext()) {
+                    return endOfData();
+                }
 
-            if (!actualReadList.equals(storedValuesWithoutLocalWrites)) {
-                handleTransactionConflict(request.getTableRef());
+                Map.Entry<Cell, byte[]> ret = storedValues.next();
+                if (comparator.compare(ret.getKey(), endOfRange) > 0) {
+                    return endOfData();
+                }
+                return ret;
             }
-        });
+        };
+
+        List<Map.Entry<Cell, ByteBuffer>> actualReadList = Streams.stream(readValues).collect(Collectors.toList());
+        List<Map.Entry<Cell, ByteBuffer>> storedValuesWithoutLocalWrites = filterWritesFromCells(
+                Streams.stream(truncatedStoredValues).collect(Collectors.toList()), request.getTableRef());
+
+        if (!actualReadList.equals(storedValuesWithoutLocalWrites)) {
+            handleTransactionConflict(request.getTableRef());
+        }
     }
 
     private Iterator<Map.Entry<Cell, ByteBuffer>> readSortedColumns(
@@ -798,20 +1052,21 @@ public class SerializableTransaction extends SnapshotTransaction {
         return filterWritesFromCells(cells, writesByTable.get(table));
     }
 
-    private static List<Map.Entry<Cell, ByteBuffer>> filterWritesFromCells(
+    private List<Map.Entry<Cell, ByteBuffer>> filterWritesFromCells(
             Iterable<Map.Entry<Cell, byte[]>> cells, @Nullable Map<Cell, byte[]> writes) {
         List<Map.Entry<Cell, ByteBuffer>> cellsWithoutWrites = new ArrayList<>();
         for (Map.Entry<Cell, byte[]> cell : cells) {
             // NB: We filter our write set out here because our normal SI
             // checking handles this case to ensure the value hasn't changed.
             if (writes == null || !writes.containsKey(cell.getKey())) {
-                cellsWithoutWrites.add(Maps.immutableEntry(cell.getKey(), ByteBuffer.wrap(cell.getValue())));
+                cellsWithoutWrites.add(
+                        Maps.immutableEntry(cell.getKey(), ByteBuffer.wrap(valueToCompare(cell.getValue()))));
             }
         }
         return cellsWithoutWrites;
     }
 
-    private static List<Map.Entry<Cell, ByteBuffer>> filterWritesFromRows(
+    private List<Map.Entry<Cell, ByteBuffer>> filterWritesFromRows(
             Iterable<RowResult<byte[]>> rows, @Nullable Map<Cell, byte[]> writes) {
         List<Map.Entry<Cell, ByteBuffer>> rowsWithoutWrites = new ArrayList<>();
         for (RowResult<byte[]> row : rows) {
@@ -863,6 +1118,7 @@ public class SerializableTransaction extends SnapshotTransaction {
                 defaultGetRangesConcurrency,
                 sweepQueue,
                 deleteExecutor,
+                commitExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
@@ -565,6 +565,7 @@ public class SerializableTransactionManager extends SnapshotTransactionManager {
                 defaultGetRangesConcurrency,
                 sweepQueueWriter,
                 deleteExecutor,
+                commitExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
@@ -136,9 +136,11 @@ import com.palantir.logsafe.exceptions.SafeRuntimeException;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import com.palantir.tracing.CloseableTracer;
+import com.palantir.tracing.Tracers;
 import com.palantir.util.AssertUtils;
 import com.palantir.util.paging.TokenBackedBasicResultsPage;
 import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
@@ -160,14 +162,18 @@ import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -200,6 +206,9 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     @VisibleForTesting
     static final int MIN_BATCH_SIZE_FOR_DISTRIBUTED_LOAD = 100;
 
+    private static final long SPILLED_WRITES_BATCH_SIZE_BYTES = 16 * 1024 * 1024;
+    private static final int SPILLED_WRITES_CONFLICT_CHECK_BATCH_SIZE = 10_000;
+
     private enum State {
         UNCOMMITTED,
         COMMITTED,
@@ -229,8 +238,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     private final PreCommitCondition preCommitCondition;
     protected final long timeCreated = System.currentTimeMillis();
 
-    protected final ConcurrentMap<TableReference, ConcurrentNavigableMap<Cell, byte[]>> writesByTable =
-            new ConcurrentHashMap<>();
+    protected final ConcurrentMap<TableReference, SortedMap<Cell, byte[]>> writesByTable = new ConcurrentHashMap<>();
     protected final TransactionConflictDetectionManager conflictDetectionManager;
     private final AtomicLong byteCount = new AtomicLong();
 
@@ -250,10 +258,19 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     protected final int defaultGetRangesConcurrency;
     private final Set<TableReference> involvedTables = ConcurrentHashMap.newKeySet();
     protected final ExecutorService deleteExecutor;
+    protected final ExecutorService commitExecutor;
     private final Timer.Context transactionTimerContext;
     protected final TransactionOutcomeMetrics transactionOutcomeMetrics;
     protected final boolean validateLocksOnReads;
     protected final Supplier<TransactionConfig> transactionConfig;
+    private final boolean useCompactLocalWriteBuffers;
+    private final boolean shouldPrefetchCommitTimestamps;
+    private final Optional<Long> spillLocalWritesAfterBytes;
+    private final ReadWriteLock localWriteSpillLock = new ReentrantReadWriteLock();
+
+    @Nullable
+    private volatile LocalWriteSpillStore localWriteSpillStore = null;
+
     protected final TableLevelMetricsController tableLevelMetricsController;
     protected final SuccessCallbackManager successCallbackManager = new SuccessCallbackManager();
 
@@ -286,6 +303,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             int defaultGetRangesConcurrency,
             MultiTableSweepQueueWriter sweepQueue,
             ExecutorService deleteExecutor,
+            ExecutorService commitExecutor,
             boolean validateLocksOnReads,
             Supplier<TransactionConfig> transactionConfig,
             ConflictTracer conflictTracer,
@@ -315,10 +333,14 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         this.defaultGetRangesConcurrency = defaultGetRangesConcurrency;
         this.sweepQueue = sweepQueue;
         this.deleteExecutor = deleteExecutor;
+        this.commitExecutor = commitExecutor;
         this.hasReads = false;
         this.transactionOutcomeMetrics = TransactionOutcomeMetrics.create(metricsManager);
         this.validateLocksOnReads = validateLocksOnReads;
         this.transactionConfig = transactionConfig;
+        this.useCompactLocalWriteBuffers = transactionConfig.get().useCompactLocalWriteBuffers();
+        this.shouldPrefetchCommitTimestamps = transactionConfig.get().prefetchCommitTimestamps();
+        this.spillLocalWritesAfterBytes = transactionConfig.get().spillLocalWritesAfterBytes();
         this.tableLevelMetricsController = tableLevelMetricsController;
     }
 
@@ -365,9 +387,6 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
     @Override
     public NavigableMap<byte[], RowResult<byte[]>> getRows(
             TableReference tableRef, Iterable<byte[]> rows, ColumnSelection columnSelection) {
-        if (columnSelection.allColumnsSelected()) {
-            return getRowsInternal(tableRef, rows, columnSelection);
-        }
         return getCache()
                 .getRows(
                         tableRef,
@@ -389,7 +408,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         ImmutableSortedMap.Builder<Cell, byte[]> result = ImmutableSortedMap.naturalOrder();
         Map<Cell, Value> rawResults =
                 new HashMap<>(keyValueService.getRows(tableRef, rows, columnSelection, getStartTimestamp()));
-        NavigableMap<Cell, byte[]> writes = writesByTable.get(tableRef);
+        SortedMap<Cell, byte[]> writes = writesByTable.get(tableRef);
         if (writes != null) {
             for (byte[] row : rows) {
                 extractLocalWritesForRow(result, writes, row, columnSelection);
@@ -450,10 +469,25 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             return ImmutableMap.of();
         }
         hasReads = true;
-        Map<byte[], RowColumnRangeIterator> rawResults =
-                keyValueService.getRowsColumnRange(tableRef, rows, columnRangeSelection, getStartTimestamp());
+        NavigableMap<byte[], NavigableMap<byte[], byte[]>> cachedRows = getCache()
+                .getCachedRowsColumnRange(
+                        tableRef,
+                        rows,
+                        new ColumnRangeSelection(columnRangeSelection.getStartCol(), columnRangeSelection.getEndCol()),
+                        rowsToValidate -> getRowsInternal(tableRef, rowsToValidate, ColumnSelection.all()));
+        List<byte[]> uncachedRows = Streams.stream(rows)
+                .filter(row -> !cachedRows.containsKey(row))
+                .collect(Collectors.toList());
+        Map<byte[], RowColumnRangeIterator> rawResults = uncachedRows.isEmpty()
+                ? ImmutableMap.of()
+                : keyValueService.getRowsColumnRange(tableRef, uncachedRows, columnRangeSelection, getStartTimestamp());
         ImmutableSortedMap.Builder<byte[], Iterator<Map.Entry<Cell, byte[]>>> postFilteredResultsBuilder =
                 ImmutableSortedMap.orderedBy(PtBytes.BYTES_COMPARATOR);
+        cachedRows.forEach((row, columns) -> postFilteredResultsBuilder.put(
+                row,
+                scopeToTransaction(Iterators.transform(
+                        columns.entrySet().iterator(),
+                        column -> Maps.immutableEntry(Cell.create(row, column.getKey()), column.getValue())))));
         for (Map.Entry<byte[], RowColumnRangeIterator> e : rawResults.entrySet()) {
             byte[] row = e.getKey();
             RowColumnRangeIterator rawIterator = e.getValue();
@@ -642,12 +676,21 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             RowColumnRangeIterator rawIterator) {
         ColumnRangeBatchProvider batchProvider =
                 new ColumnRangeBatchProvider(keyValueService, tableRef, row, columnRangeSelection, getStartTimestamp());
+        Runnable batchValidationStep =
+                () -> validatePreCommitRequirementsOnReadIfNecessary(tableRef, getStartTimestamp());
+        GetRowsColumnRangeIterator.PostFilterer postFilterer =
+                raw -> getWithPostFilteringSync(tableRef, raw, Value.GET_VALUE);
+        if (shouldPrefetchCommitTimestamps) {
+            return GetRowsColumnRangeIterator.prefetchingIterator(
+                    batchProvider,
+                    rawIterator,
+                    columnRangeSelection,
+                    batchValidationStep,
+                    postFilterer,
+                    batch -> prefetchCommitTimestamps(batch.stream().map(Map.Entry::getValue)));
+        }
         return GetRowsColumnRangeIterator.iterator(
-                batchProvider,
-                rawIterator,
-                columnRangeSelection,
-                () -> validatePreCommitRequirementsOnReadIfNecessary(tableRef, getStartTimestamp()),
-                raw -> getWithPostFilteringSync(tableRef, raw, Value.GET_VALUE));
+                batchProvider, rawIterator, columnRangeSelection, batchValidationStep, postFilterer);
     }
 
     private Iterator<Map.Entry<Cell, Value>> getRowColumnRangePostFilteredWithoutSorting(
@@ -1119,8 +1162,11 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             AbortingVisitor<List<RowResult<byte[]>>, K> visitor,
             int preFilterBatchSize)
             throws K {
-        ClosableIterator<RowResult<byte[]>> postFilterIterator =
-                postFilterIterator(tableRef, range, preFilterBatchSize, Value.GET_VALUE);
+        ClosableIterator<RowResult<byte[]>> postFilterIterator = getCache()
+                .getRange(
+                        tableRef,
+                        range,
+                        rangeToRead -> postFilterIterator(tableRef, rangeToRead, preFilterBatchSize, Value.GET_VALUE));
         try {
             Iterator<RowResult<byte[]>> localWritesInRange = Cells.createRowView(
                     getLocalWritesForRange(tableRef, range.getStartInclusive(), range.getEndExclusive())
@@ -1207,8 +1253,14 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             TableReference tableRef, RangeRequest range, int preFilterBatchSize, Function<Value, T> transformer) {
         RowRangeBatchProvider batchProvider =
                 new RowRangeBatchProvider(keyValueService, tableRef, range, getStartTimestamp());
-        BatchSizeIncreasingIterator<RowResult<Value>> results =
-                new BatchSizeIncreasingIterator<>(batchProvider, preFilterBatchSize, null);
+        BatchSizeIncreasingIterator<RowResult<Value>> results = shouldPrefetchCommitTimestamps
+                ? new PrefetchingBatchIterator<>(
+                        batchProvider,
+                        preFilterBatchSize,
+                        null,
+                        batch -> prefetchCommitTimestamps(
+                                batch.stream().flatMap(row -> row.getColumns().values().stream())))
+                : new BatchSizeIncreasingIterator<>(batchProvider, preFilterBatchSize, null);
         Iterator<Iterator<RowResult<T>>> batchedPostFiltered = new AbstractIterator<Iterator<RowResult<T>>>() {
             @Override
             protected Iterator<RowResult<T>> computeNext() {
@@ -1238,8 +1290,36 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         };
     }
 
-    private ConcurrentNavigableMap<Cell, byte[]> getLocalWrites(TableReference tableRef) {
-        return writesByTable.computeIfAbsent(tableRef, unused -> new ConcurrentSkipListMap<>());
+    private SortedMap<Cell, byte[]> getLocalWrites(TableReference tableRef) {
+        return writesByTable.computeIfAbsent(tableRef, unused -> createLocalWrites());
+    }
+
+    private SortedMap<Cell, byte[]> createLocalWrites() {
+        LocalWriteSpillStore spillStore = localWriteSpillStore;
+        if (spillStore != null) {
+            return SpilledLocalWrites.create(spillStore);
+        }
+        return useCompactLocalWriteBuffers ? new CompactLocalWriteBuffer() : new ConcurrentSkipListMap<>();
+    }
+
+    private SortedMap<Cell, byte[]> getLocalWritesForWriters(TableReference tableRef, boolean hasConcurrentWriters) {
+        return hasConcurrentWriters ? getLocalWritesForConcurrentWriters(tableRef) : getLocalWrites(tableRef);
+    }
+
+    /**
+     * Compact local write buffers are only efficient for a single writer, so once we see concurrent writers to a table
+     * we move its writes into a concurrent map. Writers still holding the compact buffer are forwarded to that map.
+     */
+    private SortedMap<Cell, byte[]> getLocalWritesForConcurrentWriters(TableReference tableRef) {
+        return writesByTable.compute(tableRef, (unused, writes) -> {
+            if (writes == null) {
+                return new ConcurrentSkipListMap<>();
+            }
+            if (writes instanceof CompactLocalWriteBuffer) {
+                return ((CompactLocalWriteBuffer) writes).sealIntoConcurrentMap();
+            }
+            return writes;
+        });
     }
 
     /**
@@ -1638,19 +1718,80 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
             return;
         }
 
-        numWriters.incrementAndGet();
+        long concurrentWriters = numWriters.incrementAndGet();
         try {
             // We need to check the status after incrementing writers to ensure that we fail if we are committing.
             ensureUncommitted();
 
-            ConcurrentNavigableMap<Cell, byte[]> writes = getLocalWrites(tableRef);
-
-            putWritesAndLogIfTooLarge(values, writes);
+            if (spillLocalWritesAfterBytes.isPresent()) {
+                putWritesAndSpillIfTooLarge(tableRef, values, concurrentWriters > 1, spillLocalWritesAfterBytes.get());
+            } else {
+                putWritesAndLogIfTooLarge(values, getLocalWritesForWriters(tableRef, concurrentWriters > 1));
+            }
         } finally {
             numWriters.decrementAndGet();
         }
     }
 
+    /**
+     * Writers hold the read lock while putting into the local writes, and spilling holds the write lock, so that no
+     * write can go to an in-memory map after it has been copied to the spill store.
+     */
+    private void putWritesAndSpillIfTooLarge(
+            TableReference tableRef, Map<Cell, byte[]> values, boolean hasConcurrentWriters, long spillThreshold) {
+        localWriteSpillLock.readLock().lock();
+        try {
+            putWritesAndLogIfTooLarge(values, getLocalWritesForWriters(tableRef, hasConcurrentWriters));
+        } finally {
+            localWriteSpillLock.readLock().unlock();
+        }
+        if (localWriteSpillStore == null && byteCount.get() >= spillThreshold) {
+            spillLocalWrites();
+        }
+    }
+
+    /**
+     * Moves the local writes of all tables to a new spill store. Readers holding one of the in-memory maps can keep
+     * using it, as it is left as it is.
+     */
+    private void spillLocalWrites() {
+        localWriteSpillLock.writeLock().lock();
+        try {
+            if (localWriteSpillStore != null) {
+                return;
+            }
+            LocalWriteSpillStore spillStore = LocalWriteSpillStore.create(
+                    Paths.get(transactionConfig.get().localWriteSpillDirectory()));
+            try {
+                Map<TableReference, SortedMap<Cell, byte[]>> spilledWrites = KeyedStream.stream(writesByTable)
+                        .<SortedMap<Cell, byte[]>>map(writes -> SpilledLocalWrites.copyOf(spillStore, writes))
+                        .collectToMap();
+                writesByTable.putAll(spilledWrites);
+            } catch (RuntimeException e) {
+                spillStore.close();
+                throw e;
+            }
+            localWriteSpillStore = spillStore;
+            log.info(
+                    "Spilled the local writes of a transaction to disk",
+                    SafeArg.of("startTimestamp", getStartTimestamp()),
+                    SafeArg.of("numBytes", byteCount.get()));
+        } finally {
+            localWriteSpillLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes any local writes spilled to disk. This must only be called once the transaction has finished, as later
+     * attempts to access them will fail.
+     */
+    void closeLocalWriteSpillStore() {
+        LocalWriteSpillStore spillStore = localWriteSpillStore;
+        if (spillStore != null) {
+            spillStore.close();
+        }
+    }
+
     private void ensureNoEmptyValues(Map<Cell, byte[]> values) {
         for (Map.Entry<Cell, byte[]> cellEntry : values.entrySet()) {
             if ((cellEntry.getValue() == null) || (cellEntry.getValue().length == 0)) {
@@ -1691,8 +1832,12 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         while (true) {
             ensureUncommitted();
             if (state.compareAndSet(State.UNCOMMITTED, State.ABORTED)) {
-                if (hasWrites()) {
-                    throwIfPreCommitRequirementsNotMet(null, getStartTimestamp());
+                try {
+                    if (hasWrites()) {
+                        throwIfPreCommitRequirementsNotMet(null, getStartTimestamp());
+                    }
+                } finally {
+                    closeLocalWriteSpillStore();
                 }
                 transactionOutcomeMetrics.markAbort();
                 return;
@@ -1770,6 +1915,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 // After we set state to committing we need to make sure no one is still writing.
                 throw new SafeIllegalStateException("Cannot commit while other threads are still calling put.");
             }
+            freezeLocalWrites();
 
             checkConstraints();
             commitWrites(transactionService);
@@ -1791,6 +1937,22 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 state.set(State.FAILED);
                 transactionOutcomeMetrics.markFailedCommit();
             }
+            // Aggressive hard delete transactions still need their writes to scrub them after committing.
+            if (!success || getTransactionType() != TransactionType.AGGRESSIVE_HARD_DELETE) {
+                closeLocalWriteSpillStore();
+            }
+        }
+    }
+
+    /**
+     * Compact local write buffers can be read without locking, and without creating their cells again on every pass,
+     * once no more writes can be made to them.
+     */
+    private void freezeLocalWrites() {
+        for (SortedMap<Cell, byte[]> writes : writesByTable.values()) {
+            if (writes instanceof CompactLocalWriteBuffer) {
+                ((CompactLocalWriteBuffer) writes).freeze();
+            }
         }
     }
 
@@ -1828,74 +1990,155 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
 
         timedAndTraced("commitStage", () -> {
-            // Acquire row locks and a lock on the start timestamp row in the transactions table.
-            // This must happen before conflict checking, otherwise we could complete the checks and then have someone
-            // else write underneath us before we proceed (thus missing a write/write conflict).
-            // Timing still useful to distinguish bad lock percentiles from user-generated lock requests.
-            LockToken commitLocksToken = timedAndTraced("commitAcquireLocks", this::acquireLocksForCommit);
+            // In pipelined mode, the sweep queue write does not depend on holding the commit locks or on the outcome
+            // of conflict checking (sweep treats entries of transactions that never commit as aborted writes), so it
+            // can proceed in the background while we wait on TimeLock and the transactions table.
+            AtomicBoolean commitFailed = new AtomicBoolean(false);
+            Optional<Future<?>> pipelinedSweepQueueWrite = transactionConfig.get().pipelineCommitWrites()
+                    ? Optional.of(startSweepQueueWriteInBackground(commitFailed))
+                    : Optional.empty();
             try {
-                // Conflict checking. We can actually do this later without compromising correctness, but there is no
-                // reason to postpone this check - we waste resources writing unnecessarily if these are going to fail.
-                timedAndTraced(
-                        "commitCheckingForConflicts",
-                        () -> throwIfConflictOnCommit(commitLocksToken, transactionService));
+                commitWithLocks(transactionService, pipelinedSweepQueueWrite);
+            } catch (RuntimeException | Error e) {
+                // Do not leave the sweep queue write running past the end of the commit: skip it if it has not
+                // started yet, and otherwise wait for it, so that it does not race with retries of this transaction.
+                commitFailed.set(true);
+                pipelinedSweepQueueWrite.ifPresent(SnapshotTransaction::awaitAbandonedSweepQueueWrite);
+                throw e;
+            }
+        });
+    }
 
-                // Write to the targeted sweep queue. We must do this before writing to the key value service -
-                // otherwise we may have hanging values that targeted sweep won't know about.
+    private void commitWithLocks(TransactionService transactionService, Optional<Future<?>> pipelinedSweepQueueWrite) {
+        // Acquire row locks and a lock on the start timestamp row in the transactions table.
+        // This must happen before conflict checking, otherwise we could complete the checks and then have someone
+        // else write underneath us before we proceed (thus missing a write/write conflict).
+        // Timing still useful to distinguish bad lock percentiles from user-generated lock requests.
+        LockToken commitLocksToken = timedAndTraced("commitAcquireLocks", this::acquireLocksForCommit);
+        try {
+            // Conflict checking. We can actually do this later without compromising correctness, but there is no
+            // reason to postpone this check - we waste resources writing unnecessarily if these are going to fail.
+            timedAndTraced(
+                    "commitCheckingForConflicts",
+                    () -> throwIfConflictOnCommit(commitLocksToken, transactionService));
+
+            // Write to the targeted sweep queue. We must do this before writing to the key value service -
+            // otherwise we may have hanging values that targeted sweep won't know about.
+            if (pipelinedSweepQueueWrite.isPresent()) {
+                timedAndTraced(
+                        "awaitingPipelinedSweepQueueWrite",
+                        () -> AtlasFutures.getUnchecked(pipelinedSweepQueueWrite.get()));
+            } else {
                 timedAndTraced("writingToSweepQueue", () -> sweepQueue.enqueue(writesByTable, getStartTimestamp()));
+            }
 
-                // Write to the key value service. We must do this before getting the commit timestamp - otherwise
-                // we risk another transaction starting at a timestamp after our commit timestamp not seeing our writes.
-                timedAndTraced("commitWrite", () -> keyValueService.multiPut(writesByTable, getStartTimestamp()));
-
-                // Now that all writes are done, get the commit timestamp
-                // We must do this before we check that our locks are still valid to ensure that other transactions that
-                // will hold these locks are sure to have start timestamps after our commit timestamp.
-                // Timing is still useful, as this may perform operations pertaining to lock watches.
-                long commitTimestamp = timedAndTraced(
-                        "getCommitTimestamp",
-                        () -> timelockService.getCommitTimestamp(getStartTimestamp(), commitLocksToken));
-                commitTsForScrubbing = commitTimestamp;
-
-                // Punch on commit so that if hard delete is the only thing happening on a system,
-                // we won't block forever waiting for the unreadable timestamp to advance past the
-                // scrub timestamp (same as the hard delete transaction's start timestamp).
-                // May not need to be here specifically, but this is a very cheap operation - scheduling another thread
-                // might well cost more.
-                // Not timed as this is generally an asynchronous operation.
-                traced("microsForPunch", () -> cleaner.punch(commitTimestamp));
-
-                // Serializable transactions need to check their reads haven't changed, by reading again at
-                // commitTs + 1. This must happen before the lock check for thorough tables, because the lock check
-                // verifies the immutable timestamp hasn't moved forward - thorough sweep might sweep a conflict out
-                // from underneath us.
-                timedAndTraced(
-                        "readWriteConflictCheck", () -> throwIfReadWriteConflictForSerializable(commitTimestamp));
-
-                // Verify that our locks and pre-commit conditions are still valid before we actually commit;
-                // this throwIfPreCommitRequirementsNotMet is required by the transaction protocol for correctness.
-                // We check the pre-commit conditions first since they may operate similarly to read write conflict
-                // handling - we should check lock validity last to ensure that sweep hasn't affected the checks.
-                timedAndTraced("userPreCommitCondition", () -> throwIfPreCommitConditionInvalid(commitTimestamp));
-
-                // Not timed, because this just calls ConjureTimelockServiceBlocking.refreshLockLeases, and that is
-                // timed.
-                traced("preCommitLockCheck", () -> throwIfImmutableTsOrCommitLocksExpired(commitLocksToken));
-
-                // Not timed, because this just calls TransactionService.putUnlessExists, and that is timed.
-                traced(
-                        "commitPutCommitTs",
-                        () -> putCommitTimestamp(commitTimestamp, commitLocksToken, transactionService));
-
-                long microsSinceCreation = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - timeCreated);
-                getTimer("commitTotalTimeSinceTxCreation").update(Duration.of(microsSinceCreation, ChronoUnit.MICROS));
-                getHistogram(AtlasDbMetricNames.SNAPSHOT_TRANSACTION_BYTES_WRITTEN)
-                        .update(byteCount.get());
-            } finally {
-                // Not timed because tryUnlock() is an asynchronous operation.
-                traced("postCommitUnlock", () -> timelockService.tryUnlock(ImmutableSet.of(commitLocksToken)));
+            // Write to the key value service. We must do this before getting the commit timestamp - otherwise
+            // we risk another transaction starting at a timestamp after our commit timestamp not seeing our writes.
+            timedAndTraced("commitWrite", this::putLocalWritesToKeyValueService);
+
+            // Now that all writes are done, get the commit timestamp
+            // We must do this before we check that our locks are still valid to ensure that other transactions that
+            // will hold these locks are sure to have start timestamps after our commit timestamp.
+            // Timing is still useful, as this may perform operations pertaining to lock watches.
+            long commitTimestamp = timedAndTraced(
+                    "getCommitTimestamp",
+                    () -> timelockService.getCommitTimestamp(getStartTimestamp(), commitLocksToken));
+            commitTsForScrubbing = commitTimestamp;
+
+            // Punch on commit so that if hard delete is the only thing happening on a system,
+            // we won't block forever waiting for the unreadable timestamp to advance past the
+            // scrub timestamp (same as the hard delete transaction's start timestamp).
+            // May not need to be here specifically, but this is a very cheap operation - scheduling another thread
+            // might well cost more.
+            // Not timed as this is generally an asynchronous operation.
+            traced("microsForPunch", () -> cleaner.punch(commitTimestamp));
+
+            // Serializable transactions need to check their reads haven't changed, by reading again at
+            // commitTs + 1. This must happen before the lock check for thorough tables, because the lock check
+            // verifies the immutable timestamp hasn't moved forward - thorough sweep might sweep a conflict out
+            // from underneath us.
+            timedAndTraced("readWriteConflictCheck", () -> throwIfReadWriteConflictForSerializable(commitTimestamp));
+
+            // Verify that our locks and pre-commit conditions are still valid before we actually commit;
+            // this throwIfPreCommitRequirementsNotMet is required by the transaction protocol for correctness.
+            // We check the pre-commit conditions first since they may operate similarly to read write conflict
+            // handling - we should check lock validity last to ensure that sweep hasn't affected the checks.
+            timedAndTraced("userPreCommitCondition", () -> throwIfPreCommitConditionInvalid(commitTimestamp));
+
+            // Not timed, because this just calls ConjureTimelockServiceBlocking.refreshLockLeases, and that is
+            // timed.
+            traced("preCommitLockCheck", () -> throwIfImmutableTsOrCommitLocksExpired(commitLocksToken));
+
+            // Not timed, because this just calls TransactionService.putUnlessExists, and that is timed.
+            traced(
+                    "commitPutCommitTs",
+                    () -> putCommitTimestamp(commitTimestamp, commitLocksToken, transactionService));
+
+            long microsSinceCreation = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis() - timeCreated);
+            getTimer("commitTotalTimeSinceTxCreation").update(Duration.of(microsSinceCreation, ChronoUnit.MICROS));
+            getHistogram(AtlasDbMetricNames.SNAPSHOT_TRANSACTION_BYTES_WRITTEN)
+                    .update(byteCount.get());
+        } finally {
+            // Not timed because tryUnlock() is an asynchronous operation.
+            traced("postCommitUnlock", () -> timelockService.tryUnlock(ImmutableSet.of(commitLocksToken)));
+        }
+    }
+
+    /**
+     * Local writes that have been spilled to disk are put in batches, so that they are never all in memory at once.
+     */
+    private void putLocalWritesToKeyValueService() {
+        if (localWriteSpillStore == null) {
+            keyValueService.multiPut(writesByTable, getStartTimestamp());
+            return;
+        }
+        Map<TableReference, Map<Cell, byte[]>> batch = new HashMap<>();
+        long batchBytes = 0;
+        for (Map.Entry<TableReference, SortedMap<Cell, byte[]>> tableWrites : writesByTable.entrySet()) {
+            for (Map.Entry<Cell, byte[]> write : tableWrites.getValue().entrySet()) {
+                batch.computeIfAbsent(tableWrites.getKey(), unused -> new HashMap<>())
+                        .put(write.getKey(), write.getValue());
+                batchBytes += write.getValue().length + Cells.getApproxSizeOfCell(write.getKey());
+                if (batchBytes >= SPILLED_WRITES_BATCH_SIZE_BYTES) {
+                    keyValueService.multiPut(batch, getStartTimestamp());
+                    batch = new HashMap<>();
+                    batchBytes = 0;
+                }
             }
-        });
+        }
+        if (!batch.isEmpty()) {
+            keyValueService.multiPut(batch, getStartTimestamp());
+        }
+    }
+
+    /**
+     * Writes to the targeted sweep queue on the commit executor. The write is timed under the same name as in the
+     * sequential protocol, while the time the committing thread spends waiting for it is timed separately, so that
+     * the overlap with lock acquisition and conflict checking is visible. If the executor has no thread to spare, the
+     * write is done synchronously instead.
+     */
+    private Future<?> startSweepQueueWriteInBackground(AtomicBoolean commitFailed) {
+        try {
+            return commitExecutor.submit(Tracers.wrap("writingToSweepQueue", () -> {
+                if (!commitFailed.get()) {
+                    timedAndTraced("writingToSweepQueue", () -> sweepQueue.enqueue(writesByTable, getStartTimestamp()));
+                }
+            }));
+        } catch (RejectedExecutionException e) {
+            log.debug("Could not schedule the sweep queue write in the background; writing synchronously instead", e);
+            timedAndTraced("writingToSweepQueue", () -> sweepQueue.enqueue(writesByTable, getStartTimestamp()));
+            return Futures.immediateFuture(null);
+        }
+    }
+
+    private static void awaitAbandonedSweepQueueWrite(Future<?> sweepQueueWrite) {
+        try {
+            sweepQueueWrite.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.debug("Sweep queue write of a failed commit also failed", e);
+        }
     }
 
     private void traced(String spanName, Runnable runnable) {
@@ -1995,7 +2238,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
      */
     protected void throwIfConflictOnCommit(LockToken commitLocksToken, TransactionService transactionService)
             throws TransactionConflictException {
-        for (Map.Entry<TableReference, ConcurrentNavigableMap<Cell, byte[]>> write : writesByTable.entrySet()) {
+        for (Map.Entry<TableReference, SortedMap<Cell, byte[]>> write : writesByTable.entrySet()) {
             ConflictHandler conflictHandler = getConflictHandlerForTable(write.getKey());
             throwIfWriteAlreadyCommitted(
                     write.getKey(), write.getValue(), conflictHandler, commitLocksToken, transactionService);
@@ -2014,10 +2257,12 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
         Set<CellConflict> spanningWrites = new HashSet<>();
         Set<CellConflict> dominatingWrites = new HashSet<>();
-        Map<Cell, Long> keysToLoad = Maps.asMap(writes.keySet(), Functions.constant(Long.MAX_VALUE));
-        while (!keysToLoad.isEmpty()) {
-            keysToLoad = detectWriteAlreadyCommittedInternal(
-                    tableRef, keysToLoad, spanningWrites, dominatingWrites, transactionService);
+        for (Set<Cell> cells : cellBatchesForConflictCheck(writes)) {
+            Map<Cell, Long> keysToLoad = Maps.asMap(cells, Functions.constant(Long.MAX_VALUE));
+            while (!keysToLoad.isEmpty()) {
+                keysToLoad = detectWriteAlreadyCommittedInternal(
+                        tableRef, keysToLoad, spanningWrites, dominatingWrites, transactionService);
+            }
         }
 
         if (conflictHandler == ConflictHandler.RETRY_ON_VALUE_CHANGED) {
@@ -2035,6 +2280,18 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         }
     }
 
+    /**
+     * Local writes that have been spilled to disk are checked in batches of cells, so that only the conflicts found
+     * are held in memory rather than all of the written cells.
+     */
+    private static Iterable<Set<Cell>> cellBatchesForConflictCheck(Map<Cell, byte[]> writes) {
+        if (!(writes instanceof SpilledLocalWrites)) {
+            return ImmutableList.of(writes.keySet());
+        }
+        return Iterables.transform(
+                Iterables.partition(writes.keySet(), SPILLED_WRITES_CONFLICT_CHECK_BATCH_SIZE), ImmutableSet::copyOf);
+    }
+
     /**
      * This will throw if we have a value changed conflict.  This means that either we changed the value and anyone did
      * a write after our start timestamp, or we just touched the value (put the same value as before) and a changed
@@ -2290,6 +2547,10 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 stackTraceSnapshot);
     }
 
+    /**
+     * The commit locks are taken in a single request, so the lock descriptors of all written cells or rows are held in
+     * memory at once, even if the local writes themselves have been spilled to disk.
+     */
     protected Set<LockDescriptor> getLocksForWrites() {
         Set<LockDescriptor> result = new HashSet<>();
         for (TableReference tableRef : writesByTable.keySet()) {
@@ -2445,6 +2706,40 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
                 MoreExecutors.directExecutor());
     }
 
+    /**
+     * Starts loading the commit timestamps of values that have just been read into the timestamp cache, so that they
+     * are likely to be cached by the time the values are post-filtered. This does not wait for the committers of the
+     * values to complete: transactions that turn out not to have committed are not cached, and are left to
+     * post-filtering to resolve as usual. The returned future never fails, as post-filtering also covers failures.
+     */
+    private ListenableFuture<?> prefetchCommitTimestamps(Stream<Value> values) {
+        Set<Long> startTimestamps = values.map(Value::getTimestamp)
+                .filter(startTs -> timestampValidationReadCache.getCommitTimestampIfPresent(startTs) == null)
+                .collect(Collectors.toSet());
+        if (startTimestamps.isEmpty()) {
+            return Futures.immediateFuture(null);
+        }
+        ListenableFuture<?> prefetch = Futures.transform(
+                loadCommitTimestamps(defaultTransactionService, startTimestamps),
+                commitTimestamps -> {
+                    commitTimestamps.forEach((startTs, commitTs) -> {
+                        if (commitTs != null) {
+                            timestampValidationReadCache.putAlreadyCommittedTransaction(startTs, commitTs);
+                        }
+                    });
+                    return null;
+                },
+                MoreExecutors.directExecutor());
+        return Futures.catching(
+                prefetch,
+                Exception.class,
+                e -> {
+                    log.debug("Failed to prefetch commit timestamps.", e);
+                    return null;
+                },
+                MoreExecutors.directExecutor());
+    }
+
     private void waitForCommitterToComplete(@Nullable TableReference tableRef, Iterable<Long> startTimestamps) {
         Timer.Context timer = getTimer("waitForCommitTsMillis").time();
         waitForCommitToComplete(startTimestamps);
@@ -2621,7 +2916,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         Multimap<Cell, TableReference> cellToTableName = HashMultimap.create();
         State actualState = state.get();
         if (expectedState == actualState) {
-            for (Map.Entry<TableReference, ConcurrentNavigableMap<Cell, byte[]>> entry : writesByTable.entrySet()) {
+            for (Map.Entry<TableReference, SortedMap<Cell, byte[]>> entry : writesByTable.entrySet()) {
                 TableReference table = entry.getKey();
                 Set<Cell> cells = entry.getValue().keySet();
                 for (Cell c : cells) {
@@ -2638,7 +2933,7 @@ public class SnapshotTransaction extends AbstractTransaction implements Constrai
         Multimap<TableReference, Cell> tableRefToCells = HashMultimap.create();
         State actualState = state.get();
         if (expectedState == actualState) {
-            for (Map.Entry<TableReference, ConcurrentNavigableMap<Cell, byte[]>> entry : writesByTable.entrySet()) {
+            for (Map.Entry<TableReference, SortedMap<Cell, byte[]>> entry : writesByTable.entrySet()) {
                 TableReference table = entry.getKey();
                 Set<Cell> cells = entry.getValue().keySet();
                 tableRefToCells.putAll(table, cells);
@@ -97,6 +97,7 @@ import javax.validation.constraints.NotNull;
     final boolean allowHiddenTableAccess;
     final ExecutorService getRangesExecutor;
     final ExecutorService deleteExecutor;
+    final ExecutorService commitExecutor;
     final int defaultGetRangesConcurrency;
     final MultiTableSweepQueueWriter sweepQueueWriter;
     final boolean validateLocksOnReads;
@@ -151,6 +152,7 @@ import javax.validation.constraints.NotNull;
         this.defaultGetRangesConcurrency = defaultGetRangesConcurrency;
         this.sweepQueueWriter = sweepQueueWriter;
         this.deleteExecutor = deleteExecutor;
+        this.commitExecutor = DefaultTaskExecutors.createDefaultCommitExecutor();
         this.validateLocksOnReads = validateLocksOnReads;
         this.transactionConfig = transactionConfig;
         this.conflictTracer = conflictTracer;
@@ -268,8 +270,13 @@ import javax.validation.constraints.NotNull;
 
     private void scrubForAggressiveHardDelete(SnapshotTransaction tx) {
         if ((tx.getTransactionType() == TransactionType.AGGRESSIVE_HARD_DELETE) && !tx.isAborted()) {
-            // t.getCellsToScrubImmediately() checks that t has been committed
-            cleaner.scrubImmediately(this, tx.getCellsToScrubImmediately(), tx.getTimestamp(), tx.getCommitTimestamp());
+            try {
+                // t.getCellsToScrubImmediately() checks that t has been committed
+                cleaner.scrubImmediately(
+                        this, tx.getCellsToScrubImmediately(), tx.getTimestamp(), tx.getCommitTimestamp());
+            } finally {
+                tx.closeLocalWriteSpillStore();
+            }
         }
     }
 
@@ -312,6 +319,7 @@ import javax.validation.constraints.NotNull;
                 defaultGetRangesConcurrency,
                 sweepQueueWriter,
                 deleteExecutor,
+                commitExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
@@ -354,6 +362,7 @@ import javax.validation.constraints.NotNull;
                 defaultGetRangesConcurrency,
                 sweepQueueWriter,
                 deleteExecutor,
+                commitExecutor,
                 validateLocksOnReads,
                 transactionConfig,
                 conflictTracer,
@@ -395,6 +404,7 @@ import javax.validation.constraints.NotNull;
             shutdownRunner.shutdownSafely(cleaner::close);
             shutdownRunner.shutdownSafely(keyValueService::close);
             shutdownRunner.shutdownSafely(() -> shutdownExecutor(deleteExecutor));
+            shutdownRunner.shutdownSafely(() -> shutdownExecutor(commitExecutor));
             shutdownRunner.shutdownSafely(() -> shutdownExecutor(getRangesExecutor));
             shutdownRunner.shutdownSafely(this::closeLockServiceIfPossible);
 
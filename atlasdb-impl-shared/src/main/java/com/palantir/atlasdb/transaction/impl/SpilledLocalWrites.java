@@ -0,0 +1,437 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.protobuf.ByteString;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.persistent.api.PersistentStore;
+import com.palantir.logsafe.Preconditions;
+import java.io.ByteArrayOutputStream;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link SortedMap} of a transaction's local writes to a single table, kept in a store space of a
+ * {@link LocalWriteSpillStore} rather than in memory. Cells are encoded so that the byte order of the encoded keys
+ * matches the order of the cells, so range reads and iteration are served directly by range scans of the store.
+ *
+ * Iterators read the store in batches, so iterating over the writes never holds more than a batch in memory. They are
+ * weakly consistent: each batch reflects the store at the time it was read. Removal is not supported.
+ *
+ * To keep the size and the previous value returned by {@link #put} without reading the store on every write, a fixed
+ * size bit set records the hashes of the keys written so far. The store is only read when the bit for a key is already
+ * set, which is the case for overwrites and for the occasional collision.
+ */
+final class SpilledLocalWrites extends AbstractMap<Cell, byte[]> implements SortedMap<Cell, byte[]> {
+    private static final int INITIAL_BATCH_SIZE = 16;
+    private static final int MAX_BATCH_SIZE = 1024;
+
+    private static final byte ESCAPE = 0x00;
+    private static final byte ESCAPED_ZERO = 0x01;
+    private static final byte ROW_TERMINATOR = 0x00;
+
+    @VisibleForTesting
+    static final int WRITTEN_KEY_HASH_BITS = 1 << 17;
+    private static final HashFunction KEY_HASH_FUNCTION = Hashing.farmHashFingerprint64();
+
+    private final LocalWriteSpillStore store;
+    private final PersistentStore.Handle handle;
+    private final View fullView = new View(null, null);
+    private final AtomicInteger size = new AtomicInteger();
+    private final BitSet writtenKeyHashes = new BitSet(WRITTEN_KEY_HASH_BITS);
+
+    private SpilledLocalWrites(LocalWriteSpillStore store, PersistentStore.Handle handle) {
+        this.store = store;
+        this.handle = handle;
+    }
+
+    static SpilledLocalWrites create(LocalWriteSpillStore store) {
+        return new SpilledLocalWrites(store, store.createSpace());
+    }
+
+    static SpilledLocalWrites copyOf(LocalWriteSpillStore store, Map<Cell, byte[]> writes) {
+        SpilledLocalWrites spilledWrites = create(store);
+        writes.forEach(spilledWrites::put);
+        return spilledWrites;
+    }
+
+    @Override
+    public synchronized byte[] put(Cell cell, byte[] value) {
+        Preconditions.checkNotNull(value, "Local writes must not be null");
+        ByteString key = encode(cell);
+        byte[] previous = mayHaveBeenWritten(key)
+                ? store.get(handle, key).map(ByteString::toByteArray).orElse(null)
+                : null;
+        store.put(handle, key, ByteString.copyFrom(value));
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    /**
+     * Records the key as written, returning false only if it definitely had not been written before.
+     */
+    private boolean mayHaveBeenWritten(ByteString key) {
+        int bit = Math.floorMod(KEY_HASH_FUNCTION.hashBytes(key.toByteArray()).asLong(), WRITTEN_KEY_HASH_BITS);
+        boolean mayHaveBeenWritten = writtenKeyHashes.get(bit);
+        writtenKeyHashes.set(bit);
+        return mayHaveBeenWritten;
+    }
+
+    @Override
+    public byte[] get(Object key) {
+        if (!(key instanceof Cell)) {
+            return null;
+        }
+        return store.get(handle, encode((Cell) key)).map(ByteString::toByteArray).orElse(null);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Cell && store.get(handle, encode((Cell) key)).isPresent();
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<Cell, byte[]>> entrySet() {
+        return fullView.entrySet();
+    }
+
+    @Override
+    public Set<Cell> keySet() {
+        return fullView.keySet();
+    }
+
+    @Nullable
+    @Override
+    public Comparator<? super Cell> comparator() {
+        return null;
+    }
+
+    @Override
+    public SortedMap<Cell, byte[]> subMap(Cell fromKey, Cell toKey) {
+        return fullView.subMap(fromKey, toKey);
+    }
+
+    @Override
+    public SortedMap<Cell, byte[]> headMap(Cell toKey) {
+        return fullView.headMap(toKey);
+    }
+
+    @Override
+    public SortedMap<Cell, byte[]> tailMap(Cell fromKey) {
+        return fullView.tailMap(fromKey);
+    }
+
+    @Override
+    public Cell firstKey() {
+        return fullView.firstKey();
+    }
+
+    @Override
+    public Cell lastKey() {
+        return fullView.lastKey();
+    }
+
+    /**
+     * Encodes the row name with each zero byte escaped and followed by a terminator that sorts before any escaped or
+     * non-zero byte, then the column name as is. Comparing encoded cells as unsigned bytes is then equivalent to
+     * {@link Cell#compareTo(Cell)}.
+     */
+    @VisibleForTesting
+    static ByteString encode(Cell cell) {
+        byte[] row = cell.getRowName();
+        byte[] column = cell.getColumnName();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(row.length + column.length + 2);
+        for (byte rowByte : row) {
+            output.write(rowByte);
+            if (rowByte == ESCAPE) {
+                output.write(ESCAPED_ZERO);
+            }
+        }
+        output.write(ESCAPE);
+        output.write(ROW_TERMINATOR);
+        output.write(column, 0, column.length);
+        return ByteString.copyFrom(output.toByteArray());
+    }
+
+    @VisibleForTesting
+    static Cell decode(ByteString key) {
+        byte[] bytes = key.toByteArray();
+        ByteArrayOutputStream row = new ByteArrayOutputStream(bytes.length);
+        int position = 0;
+        while (true) {
+            byte current = bytes[position];
+            if (current == ESCAPE) {
+                position++;
+                if (bytes[position] == ROW_TERMINATOR) {
+                    position++;
+                    break;
+                }
+            }
+            row.write(current);
+            position++;
+        }
+        return Cell.create(row.toByteArray(), Arrays.copyOfRange(bytes, position, bytes.length));
+    }
+
+    /**
+     * The smallest key that is greater than the given key, used to resume a range scan after the last key read.
+     */
+    private static ByteString successor(ByteString key) {
+        return key.concat(ByteString.copyFrom(new byte[] {0}));
+    }
+
+    /**
+     * A live view of the entries between two (possibly unbounded) cells.
+     */
+    private final class View extends AbstractMap<Cell, byte[]> implements SortedMap<Cell, byte[]> {
+        @Nullable
+        private final Cell lowInclusive;
+
+        @Nullable
+        private final Cell highExclusive;
+
+        private View(@Nullable Cell lowInclusive, @Nullable Cell highExclusive) {
+            this.lowInclusive = lowInclusive;
+            this.highExclusive = highExclusive;
+        }
+
+        @Override
+        public byte[] put(Cell cell, byte[] value) {
+            Preconditions.checkArgument(inRange(cell), "Cell is outside the range of this view");
+            return SpilledLocalWrites.this.put(cell, value);
+        }
+
+        @Override
+        public byte[] get(Object key) {
+            return key instanceof Cell && inRange((Cell) key) ? SpilledLocalWrites.this.get(key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Cell && inRange((Cell) key) && SpilledLocalWrites.this.containsKey(key);
+        }
+
+        /**
+         * Unless this is a view of the whole map, this scans the range of the view.
+         */
+        @Override
+        public int size() {
+            if (lowInclusive == null && highExclusive == null) {
+                return SpilledLocalWrites.this.size();
+            }
+            int count = 0;
+            for (Iterator<Map.Entry<Cell, byte[]>> iterator = entryIterator(); iterator.hasNext(); iterator.next()) {
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return !entryIterator().hasNext();
+        }
+
+        @Override
+        public Set<Map.Entry<Cell, byte[]>> entrySet() {
+            return new AbstractSet<Map.Entry<Cell, byte[]>>() {
+                @Override
+                public Iterator<Map.Entry<Cell, byte[]>> iterator() {
+                    return entryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return View.this.size();
+                }
+            };
+        }
+
+        @Override
+        public Set<Cell> keySet() {
+            return new AbstractSet<Cell>() {
+                @Override
+                public Iterator<Cell> iterator() {
+                    Iterator<Map.Entry<Cell, byte[]>> entryIterator = entryIterator();
+                    return new Iterator<Cell>() {
+                        @Override
+                        public boolean hasNext() {
+                            return entryIterator.hasNext();
+                        }
+
+                        @Override
+                        public Cell next() {
+                            return entryIterator.next().getKey();
+                        }
+                    };
+                }
+
+                @Override
+                public boolean contains(Object object) {
+                    return containsKey(object);
+                }
+
+                @Override
+                public int size() {
+                    return View.this.size();
+                }
+            };
+        }
+
+        @Nullable
+        @Override
+        public Comparator<? super Cell> comparator() {
+            return null;
+        }
+
+        @Override
+        public SortedMap<Cell, byte[]> subMap(Cell fromKey, Cell toKey) {
+            Preconditions.checkArgument(fromKey.compareTo(toKey) <= 0, "fromKey must not be greater than toKey");
+            return new View(max(lowInclusive, fromKey), min(highExclusive, toKey));
+        }
+
+        @Override
+        public SortedMap<Cell, byte[]> headMap(Cell toKey) {
+            return new View(lowInclusive, min(highExclusive, toKey));
+        }
+
+        @Override
+        public SortedMap<Cell, byte[]> tailMap(Cell fromKey) {
+            return new View(max(lowInclusive, fromKey), highExclusive);
+        }
+
+        @Override
+        public Cell firstKey() {
+            return entryIterator().next().getKey();
+        }
+
+        /**
+         * This scans the whole range of the view.
+         */
+        @Override
+        public Cell lastKey() {
+            Iterator<Map.Entry<Cell, byte[]>> iterator = entryIterator();
+            Cell last = iterator.next().getKey();
+            while (iterator.hasNext()) {
+                last = iterator.next().getKey();
+            }
+            return last;
+        }
+
+        private Iterator<Map.Entry<Cell, byte[]>> entryIterator() {
+            return new EntryIterator(
+                    lowInclusive == null ? ByteString.EMPTY : encode(lowInclusive),
+                    highExclusive == null ? null : encode(highExclusive));
+        }
+
+        private boolean inRange(Cell cell) {
+            return (lowInclusive == null || cell.compareTo(lowInclusive) >= 0)
+                    && (highExclusive == null || cell.compareTo(highExclusive) < 0);
+        }
+    }
+
+    /**
+     * Reads the store in batches that start small, since reads of a single row only need a few entries, and grow up to
+     * a fixed maximum for scans over many entries.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<Cell, byte[]>> {
+        @Nullable
+        private final ByteString endExclusive;
+
+        @Nullable
+        private ByteString nextStart;
+
+        private int batchSize = INITIAL_BATCH_SIZE;
+        private Iterator<Map.Entry<ByteString, ByteString>> batch = Collections.emptyIterator();
+
+        private EntryIterator(ByteString startInclusive, @Nullable ByteString endExclusive) {
+            this.nextStart = startInclusive;
+            this.endExclusive = endExclusive;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!batch.hasNext() && nextStart != null) {
+                readNextBatch();
+            }
+            return batch.hasNext();
+        }
+
+        @Override
+        public Map.Entry<Cell, byte[]> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<ByteString, ByteString> entry = batch.next();
+            return Maps.immutableEntry(decode(entry.getKey()), entry.getValue().toByteArray());
+        }
+
+        private void readNextBatch() {
+            List<Map.Entry<ByteString, ByteString>> entries = store.getRange(handle, nextStart, batchSize);
+            int inRange = 0;
+            while (inRange < entries.size() && isBeforeEnd(entries.get(inRange).getKey())) {
+                inRange++;
+            }
+            boolean exhausted = inRange < batchSize;
+            nextStart = exhausted ? null : successor(entries.get(inRange - 1).getKey());
+            batch = entries.subList(0, inRange).iterator();
+            batchSize = Math.min(MAX_BATCH_SIZE, 2 * batchSize);
+        }
+
+        private boolean isBeforeEnd(ByteString key) {
+            return endExclusive == null
+                    || ByteString.unsignedLexicographicalComparator().compare(key, endExclusive) < 0;
+        }
+    }
+
+    @Nullable
+    private static Cell max(@Nullable Cell current, Cell bound) {
+        return current == null || bound.compareTo(current) > 0 ? bound : current;
+    }
+
+    @Nullable
+    private static Cell min(@Nullable Cell current, Cell bound) {
+        return current == null || bound.compareTo(current) < 0 ? bound : current;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.service;
+
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.autobatch.Autobatchers;
+import com.palantir.atlasdb.autobatch.BatchSizeRecorder;
+import com.palantir.atlasdb.autobatch.DisruptorAutobatcher;
+import com.palantir.atlasdb.cache.TimestampCache;
+import com.palantir.atlasdb.futures.AtlasFutures;
+import com.palantir.atlasdb.keyvalue.api.KeyAlreadyExistsException;
+import com.palantir.common.streams.KeyedStream;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+
+/**
+ * This class coalesces read (that is, get) requests made to an underlying {@link TransactionService} by concurrent
+ * transactions, such that there is at most one read in flight at a given time, and each start timestamp is read at
+ * most once per batch. Start timestamps already known to the {@link TimestampCache} are served from it without being
+ * batched, and the commit timestamps read in each batch are added to it. Writes (put-unless-exists) are not batched.
+ *
+ * Batching can be switched on and off at runtime; while it is off, reads go straight to the delegate.
+ */
+public final class ReadBatchingTransactionService implements TransactionService {
+    private static final String PURPOSE = "read-batching-transaction-service";
+
+    @VisibleForTesting
+    static final String BATCH_READ_TIMER_NAME = ReadBatchingTransactionService.class.getName() + ".batchRead";
+
+    private final TransactionService delegate;
+    private final TimestampCache timestampCache;
+    private final Supplier<Boolean> batchingEnabled;
+    private final DisruptorAutobatcher<Long, Optional<Long>> autobatcher;
+
+    private ReadBatchingTransactionService(
+            TransactionService delegate,
+            TimestampCache timestampCache,
+            Supplier<Boolean> batchingEnabled,
+            DisruptorAutobatcher<Long, Optional<Long>> autobatcher) {
+        this.delegate = delegate;
+        this.timestampCache = timestampCache;
+        this.batchingEnabled = batchingEnabled;
+        this.autobatcher = autobatcher;
+    }
+
+    public static TransactionService create(
+            TransactionService delegate,
+            TimestampCache timestampCache,
+            TaggedMetricRegistry metricRegistry,
+            Supplier<Boolean> batchingEnabled) {
+        Timer batchReadTimer = metricRegistry.timer(MetricName.builder().safeName(BATCH_READ_TIMER_NAME).build());
+        BatchSizeRecorder distinctTimestampsRecorder =
+                BatchSizeRecorder.create(PURPOSE + "-distinct", ImmutableMap.of());
+        DisruptorAutobatcher<Long, Optional<Long>> autobatcher = Autobatchers.<Long, Optional<Long>>coalescing(
+                        startTimestamps -> processBatch(
+                                delegate, timestampCache, batchReadTimer, distinctTimestampsRecorder, startTimestamps))
+                .safeLoggablePurpose(PURPOSE)
+                .batchFunctionTimeout(Duration.ofMinutes(5))
+                .build();
+        return new ReadBatchingTransactionService(delegate, timestampCache, batchingEnabled, autobatcher);
+    }
+
+    @CheckForNull
+    @Override
+    public Long get(long startTimestamp) {
+        return AtlasFutures.getUnchecked(getAsync(startTimestamp));
+    }
+
+    @Override
+    public Map<Long, Long> get(Iterable<Long> startTimestamps) {
+        return AtlasFutures.getUnchecked(getAsync(startTimestamps));
+    }
+
+    @Override
+    public ListenableFuture<Long> getAsync(long startTimestamp) {
+        if (!batchingEnabled.get()) {
+            return delegate.getAsync(startTimestamp);
+        }
+        Long cached = timestampCache.getCommitTimestampIfPresent(startTimestamp);
+        if (cached != null) {
+            return Futures.immediateFuture(cached);
+        }
+        return Futures.transform(
+                autobatcher.apply(startTimestamp),
+                commitTimestamp -> commitTimestamp.orElse(null),
+                MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public ListenableFuture<Map<Long, Long>> getAsync(Iterable<Long> startTimestamps) {
+        if (!batchingEnabled.get()) {
+            return delegate.getAsync(startTimestamps);
+        }
+        Map<Long, Long> result = new HashMap<>();
+        Map<Long, ListenableFuture<Optional<Long>>> pending = new HashMap<>();
+        for (Long startTimestamp : startTimestamps) {
+            Long cached = timestampCache.getCommitTimestampIfPresent(startTimestamp);
+            if (cached != null) {
+                result.put(startTimestamp, cached);
+            } else {
+                pending.computeIfAbsent(startTimestamp, autobatcher::apply);
+            }
+        }
+        if (pending.isEmpty()) {
+            return Futures.immediateFuture(result);
+        }
+        return Futures.whenAllSucceed(pending.values())
+                .call(
+                        () -> {
+                            pending.forEach((startTimestamp, commitTimestamp) -> AtlasFutures.getDone(commitTimestamp)
+                                    .ifPresent(commitTs -> result.put(startTimestamp, commitTs)));
+                            return result;
+                        },
+                        MoreExecutors.directExecutor());
+    }
+
+    @Override
+    public void putUnlessExists(long startTimestamp, long commitTimestamp) throws KeyAlreadyExistsException {
+        delegate.putUnlessExists(startTimestamp, commitTimestamp);
+    }
+
+    @Override
+    public void close() {
+        autobatcher.close();
+        delegate.close();
+    }
+
+    /**
+     * Reads the commit timestamps of a batch of distinct start timestamps with a single request to the delegate.
+     * Start timestamps of transactions that have not committed map to {@link Optional#empty()}.
+     */
+    @VisibleForTesting
+    static Map<Long, Optional<Long>> processBatch(
+            TransactionService delegate,
+            TimestampCache timestampCache,
+            Timer batchReadTimer,
+            BatchSizeRecorder distinctTimestampsRecorder,
+            Set<Long> startTimestamps) {
+        distinctTimestampsRecorder.markBatchProcessed(startTimestamps.size());
+        Map<Long, Long> commitTimestamps;
+        try (Timer.Context timer = batchReadTimer.time()) {
+            commitTimestamps = delegate.get(startTimestamps);
+        }
+        return KeyedStream.of(startTimestamps)
+                .map(startTimestamp -> {
+                    Long commitTimestamp = commitTimestamps.get(startTimestamp);
+                    if (commitTimestamp != null) {
+                        timestampCache.putAlreadyCommittedTransaction(startTimestamp, commitTimestamp);
+                    }
+                    return Optional.ofNullable(commitTimestamp);
+                })
+                .collectToMap();
+    }
+}
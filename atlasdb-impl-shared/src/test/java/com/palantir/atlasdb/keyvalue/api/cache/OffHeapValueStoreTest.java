@@ -0,0 +1,294 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.keyvalue.api.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.cache.ValueStoreImpl.EntryWeigher;
+import com.palantir.lock.AtlasCellLockDescriptor;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchCreatedEvent;
+import com.palantir.lock.watch.LockWatchEvent;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.UnlockEvent;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+
+public final class OffHeapValueStoreTest {
+    private static final TableReference TABLE = TableReference.createFromFullyQualifiedName("t.table");
+    private static final Cell CELL_1 = createCell(1);
+    private static final Cell CELL_2 = createCell(2);
+    private static final Cell CELL_3 = createCell(3);
+    private static final CellReference TABLE_CELL = CellReference.of(TABLE, CELL_1);
+    private static final CacheValue VALUE_1 = createValue(10);
+    private static final CacheValue VALUE_2 = createValue(20);
+    private static final CacheValue VALUE_3 = createValue(30);
+    private static final LockWatchEvent LOCK_EVENT = createLockEvent();
+    private static final LockWatchEvent WATCH_EVENT = createWatchEvent();
+    private static final LockWatchEvent UNLOCK_EVENT = createUnlockEvent();
+    private static final int EXPECTED_SIZE = EntryWeigher.INSTANCE.weigh(TABLE_CELL, 1);
+
+    private final CacheMetrics metrics = mock(CacheMetrics.class);
+
+    private OffHeapValueStore valueStore;
+
+    @Before
+    public void before() {
+        valueStore = new OffHeapValueStore(ImmutableSet.of(TABLE), 1_000, metrics);
+    }
+
+    @Test
+    public void lockEventInvalidatesValue() {
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.putValue(TABLE_CELL, VALUE_1);
+        valueStore.putValue(CellReference.of(TABLE, CELL_2), VALUE_3);
+
+        verify(metrics, times(2)).increaseCacheSize(EXPECTED_SIZE);
+
+        assertExpectedValue(CELL_1, CacheEntry.unlocked(VALUE_1));
+        assertExpectedValue(CELL_2, CacheEntry.unlocked(VALUE_3));
+
+        valueStore.applyEvent(LOCK_EVENT);
+        assertExpectedValue(CELL_1, CacheEntry.locked());
+        assertExpectedValue(CELL_2, CacheEntry.unlocked(VALUE_3));
+
+        verify(metrics).decreaseCacheSize(EXPECTED_SIZE);
+    }
+
+    @Test
+    public void unlockEventsClearLockedEntries() {
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.applyEvent(LOCK_EVENT);
+
+        assertExpectedValue(CELL_1, CacheEntry.locked());
+
+        valueStore.applyEvent(UNLOCK_EVENT);
+        assertThat(valueStore.getSnapshot().getValue(TABLE_CELL)).isEmpty();
+    }
+
+    @Test
+    public void putValueThrowsIfCurrentValueDiffers() {
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.putValue(TABLE_CELL, VALUE_1);
+
+        assertThatCode(() -> valueStore.putValue(TABLE_CELL, VALUE_1)).doesNotThrowAnyException();
+        assertPutThrows(VALUE_2);
+
+        valueStore.applyEvent(LOCK_EVENT);
+        assertPutThrows(VALUE_1);
+    }
+
+    @Test
+    public void watchEventUpdatesWatchableTables() {
+        assertThat(valueStore.getSnapshot().isWatched(TABLE)).isFalse();
+        valueStore.applyEvent(WATCH_EVENT);
+        assertThat(valueStore.getSnapshot().isWatched(TABLE)).isTrue();
+    }
+
+    @Test
+    public void valuesEvictedOnceMaxSizeReached() {
+        // size is in bytes; with overhead, this should keep 2 but not three values
+        valueStore = new OffHeapValueStore(ImmutableSet.of(TABLE), 300, metrics);
+        CellReference tableCell2 = CellReference.of(TABLE, CELL_2);
+
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.putValue(TABLE_CELL, VALUE_1);
+        valueStore.putValue(tableCell2, VALUE_2);
+        verify(metrics, times(2)).increaseCacheSize(EXPECTED_SIZE);
+
+        valueStore.putValue(CellReference.of(TABLE, CELL_3), VALUE_3);
+        verify(metrics, times(3)).increaseCacheSize(anyLong());
+        verify(metrics).decreaseCacheSize(EXPECTED_SIZE);
+
+        // Caffeine explicitly does *not* implement simple LRU, so we cannot reason on the actual entries here.
+        assertThat(((OffHeapValueStore.Snapshot) valueStore.getSnapshot()).size()).isEqualTo(2);
+    }
+
+    @Test
+    public void valuesAreStillCachedOnceSlabsAreFullOfRoundedUpChunks() {
+        // every value takes a 2048 byte chunk, so the slabs fill up well before Caffeine reaches its maximum weight
+        valueStore = new OffHeapValueStore(ImmutableSet.of(TABLE), 16_384, metrics);
+        valueStore.applyEvent(WATCH_EVENT);
+        int[] lengths = {1025, 1537, 1111};
+        List<CellReference> cells = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            CellReference cell = CellReference.of(TABLE, createCell(i));
+            valueStore.putValue(cell, CacheValue.of(new byte[lengths[i % lengths.length]]));
+            cells.add(cell);
+        }
+
+        ValueCacheSnapshot snapshot = valueStore.getSnapshot();
+        assertThat(snapshot.getValue(cells.get(59)))
+                .hasValue(CacheEntry.unlocked(CacheValue.of(new byte[lengths[59 % lengths.length]])));
+        assertThat(((OffHeapValueStore.Snapshot) snapshot).size()).isEqualTo(16_384 / 2048);
+    }
+
+    @Test
+    public void lockedValuesDoNotCountToCacheSize() {
+        valueStore = new OffHeapValueStore(ImmutableSet.of(TABLE), 300, metrics);
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.applyEvent(LOCK_EVENT);
+
+        valueStore.putValue(CellReference.of(TABLE, CELL_2), VALUE_2);
+        valueStore.putValue(CellReference.of(TABLE, CELL_3), VALUE_3);
+        assertExpectedValue(CELL_2, CacheEntry.unlocked(VALUE_2));
+        assertExpectedValue(CELL_3, CacheEntry.unlocked(VALUE_3));
+
+        verify(metrics, times(2)).increaseCacheSize(EXPECTED_SIZE);
+    }
+
+    @Test
+    public void metricsCorrectlyCountOverlappingPuts() {
+        valueStore = new OffHeapValueStore(ImmutableSet.of(TABLE), 300, metrics);
+        valueStore.applyEvent(WATCH_EVENT);
+
+        valueStore.putValue(CellReference.of(TABLE, CELL_2), VALUE_2);
+        valueStore.putValue(CellReference.of(TABLE, CELL_2), VALUE_2);
+        verify(metrics, times(2)).increaseCacheSize(EXPECTED_SIZE);
+        verify(metrics).decreaseCacheSize(EXPECTED_SIZE);
+    }
+
+    @Test
+    public void metricsCalculateSize() {
+        valueStore = new OffHeapValueStore(ImmutableSet.of(TABLE), 300, metrics);
+        valueStore.applyEvent(WATCH_EVENT);
+
+        CellReference cellRef = CellReference.of(TABLE, Cell.create(new byte[] {1, 2}, new byte[] {3, 4, 5}));
+
+        valueStore.putValue(cellRef, CacheValue.of(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+        int expectedSize = ValueStoreImpl.CACHE_OVERHEAD + 7 + 2 + 3 + 8;
+        verify(metrics).increaseCacheSize(expectedSize);
+    }
+
+    @Test
+    public void snapshotsAreUnaffectedByLaterEvents() {
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.putValue(TABLE_CELL, VALUE_1);
+        ValueCacheSnapshot snapshot = valueStore.getSnapshot();
+
+        valueStore.applyEvent(LOCK_EVENT);
+        assertThat(snapshot.getValue(TABLE_CELL)).hasValue(CacheEntry.unlocked(VALUE_1));
+        assertExpectedValue(CELL_1, CacheEntry.locked());
+
+        // the chunk holding the value cannot be reused while the first snapshot may still read it
+        assertThat(valueStore.pendingReplacedEntries()).isEqualTo(1);
+    }
+
+    @Test
+    public void chunksNeverVisibleToSnapshotsAreFreedImmediately() {
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.putValue(TABLE_CELL, VALUE_1);
+        valueStore.applyEvent(LOCK_EVENT);
+
+        assertThat(valueStore.pendingReplacedEntries()).isZero();
+    }
+
+    @Test
+    public void snapshotIsReusedUntilSomethingChanges() {
+        valueStore.applyEvent(WATCH_EVENT);
+        ValueCacheSnapshot snapshot = valueStore.getSnapshot();
+        assertThat(valueStore.getSnapshot()).isSameAs(snapshot);
+
+        valueStore.putValue(TABLE_CELL, VALUE_1);
+        assertThat(valueStore.getSnapshot()).isNotSameAs(snapshot);
+    }
+
+    @Test
+    public void emptyAndAbsentValuesAreDistinguished() {
+        CellReference tableCell2 = CellReference.of(TABLE, CELL_2);
+        CacheValue emptyValue = CacheValue.of(new byte[0]);
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.putValue(TABLE_CELL, CacheValue.empty());
+        valueStore.putValue(tableCell2, emptyValue);
+
+        assertExpectedValue(CELL_1, CacheEntry.unlocked(CacheValue.empty()));
+        assertExpectedValue(CELL_2, CacheEntry.unlocked(emptyValue));
+        assertThatCode(() -> valueStore.putValue(tableCell2, emptyValue)).doesNotThrowAnyException();
+        assertPutThrows(emptyValue);
+    }
+
+    @Test
+    public void resetClearsValuesButKeepsOldSnapshotsReadable() {
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.putValue(TABLE_CELL, VALUE_1);
+        ValueCacheSnapshot snapshot = valueStore.getSnapshot();
+
+        valueStore.reset();
+        assertThat(valueStore.getSnapshot().getValue(TABLE_CELL)).isEmpty();
+        assertThat(valueStore.getSnapshot().isWatched(TABLE)).isFalse();
+        assertThat(snapshot.getValue(TABLE_CELL)).hasValue(CacheEntry.unlocked(VALUE_1));
+    }
+
+    private void assertPutThrows(CacheValue value) {
+        assertThatThrownBy(() -> valueStore.putValue(TABLE_CELL, value))
+                .isExactlyInstanceOf(SafeIllegalStateException.class)
+                .hasMessageContaining(
+                        "Trying to cache a value which is either locked or is not equal to a currently cached value");
+    }
+
+    private void assertExpectedValue(Cell cell, CacheEntry entry) {
+        assertThat(valueStore.getSnapshot().getValue(CellReference.of(TABLE, cell)))
+                .hasValue(entry);
+    }
+
+    private static LockWatchEvent createWatchEvent() {
+        return LockWatchCreatedEvent.builder(
+                        ImmutableSet.of(LockWatchReferences.entireTable(TABLE.getQualifiedName())), ImmutableSet.of())
+                .build(0L);
+    }
+
+    private static LockWatchEvent createLockEvent() {
+        return LockEvent.builder(
+                        ImmutableSet.of(AtlasCellLockDescriptor.of(
+                                TABLE.getQualifiedName(), CELL_1.getRowName(), CELL_1.getColumnName())),
+                        LockToken.of(UUID.randomUUID()))
+                .build(1L);
+    }
+
+    private static LockWatchEvent createUnlockEvent() {
+        return UnlockEvent.builder(ImmutableSet.of(AtlasCellLockDescriptor.of(
+                        TABLE.getQualifiedName(), CELL_1.getRowName(), CELL_1.getColumnName())))
+                .build(1L);
+    }
+
+    private static CacheValue createValue(int value) {
+        return CacheValue.of(createBytes(value));
+    }
+
+    private static Cell createCell(int value) {
+        return Cell.create(createBytes(value), createBytes(value + 100));
+    }
+
+    private static byte[] createBytes(int value) {
+        return new byte[] {(byte) value};
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.keyvalue.api.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.Test;
+
+public final class SlabAllocatorTest {
+    private static final int CAPACITY = 1024;
+
+    private final SlabAllocator allocator = new SlabAllocator(CAPACITY);
+
+    @Test
+    public void freedChunksAreMergedIntoLargerChunks() {
+        List<Long> addresses = new ArrayList<>();
+        for (long address = allocator.allocate(17);
+                address != SlabAllocator.NO_ADDRESS;
+                address = allocator.allocate(17)) {
+            addresses.add(address);
+        }
+        assertThat(addresses).hasSize(CAPACITY / 32);
+        assertThat(allocator.allocate(CAPACITY)).isEqualTo(SlabAllocator.NO_ADDRESS);
+
+        addresses.forEach(address -> allocator.free(address, 17));
+        assertThat(allocator.allocate(CAPACITY)).isNotEqualTo(SlabAllocator.NO_ADDRESS);
+    }
+
+    @Test
+    public void freedChunksAreSplitForSmallerValues() {
+        long address = allocator.allocate(CAPACITY - 1);
+        assertThat(allocator.allocate(1)).isEqualTo(SlabAllocator.NO_ADDRESS);
+
+        allocator.free(address, CAPACITY - 1);
+        assertThat(LongStream.range(0, CAPACITY / 16).map(_unused -> allocator.allocate(16)))
+                .doesNotContain(SlabAllocator.NO_ADDRESS)
+                .doesNotHaveDuplicates();
+        assertThat(allocator.allocatedSlabs()).isEqualTo(1);
+    }
+
+    @Test
+    public void chunksHoldTheirValuesIndependently() {
+        long first = allocator.allocate(3);
+        long second = allocator.allocate(5);
+        allocator.write(first, new byte[] {1, 2, 3});
+        allocator.write(second, new byte[] {4, 5, 6, 7, 8});
+
+        assertThat(allocator.read(first, 3)).containsExactly(1, 2, 3);
+        assertThat(allocator.contentEquals(second, 5, new byte[] {4, 5, 6, 7, 8})).isTrue();
+    }
+}
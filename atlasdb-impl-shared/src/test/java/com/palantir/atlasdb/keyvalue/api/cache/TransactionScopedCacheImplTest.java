@@ -35,21 +35,29 @@ import com.google.common.primitives.UnsignedBytes;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.futures.AtlasFutures;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
+import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowReference;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.ptobject.EncodingUtils;
 import com.palantir.atlasdb.transaction.api.TransactionLockWatchFailedException;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.lock.AtlasCellLockDescriptor;
 import com.palantir.lock.watch.CommitUpdate;
 import io.vavr.Tuple2;
 import io.vavr.collection.HashMap;
 import io.vavr.collection.HashSet;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
@@ -91,6 +99,7 @@ public final class TransactionScopedCacheImplTest {
     private final CacheMetrics metrics = mock(CacheMetrics.class);
     private final Multiset<Cell> directLookups = spy(HashMultiset.create());
     private final NavigableSet<byte[]> rowLookups = spy(new TreeSet<>(UnsignedBytes.lexicographicalComparator()));
+    private final List<RangeRequest> rangeLookups = new ArrayList<>();
 
     @Test
     public void getReadsCachedValuesBeforeReadingFromDb() {
@@ -233,6 +242,107 @@ public final class TransactionScopedCacheImplTest {
         assertThat(lookup).isEmpty();
     }
 
+    @Test
+    public void entireRowsAreCachedAndServedForColumnRanges() {
+        TransactionScopedCache cache = TransactionScopedCacheImpl.create(snapshotWithSingleValue(), metrics);
+        ImmutableList<byte[]> rows = ImmutableList.of(createBytes(1), createBytes(2));
+
+        NavigableMap<byte[], RowResult<byte[]>> lookup = getEntireRowsCall(cache, rows);
+        assertThat(rowLookups).containsExactly(createBytes(1), createBytes(2));
+        assertThat(lookup).containsOnlyKeys(createBytes(1));
+
+        clearInvocations(rowLookups);
+        assertThat(getEntireRowsCall(cache, rows).get(createBytes(1)).getColumns())
+                .containsOnlyKeys(createBytes(1), createBytes(2), createBytes(3));
+        verifyNoInteractions(rowLookups);
+
+        NavigableMap<byte[], NavigableMap<byte[], byte[]>> columnRange = cache.getCachedRowsColumnRange(
+                TABLE, rows, new ColumnRangeSelection(createBytes(2), PtBytes.EMPTY_BYTE_ARRAY), this::loadEntireRows);
+        assertThat(columnRange).containsOnlyKeys(createBytes(1), createBytes(2));
+        assertThat(columnRange.get(createBytes(1))).containsOnlyKeys(createBytes(2), createBytes(3));
+        assertThat(columnRange.get(createBytes(2))).isEmpty();
+        verifyNoInteractions(rowLookups);
+
+        cache.finalise();
+        assertThat(cache.getValueDigest().loadedRows())
+                .containsOnlyKeys(RowReference.of(TABLE, createBytes(1)), RowReference.of(TABLE, createBytes(2)));
+    }
+
+    @Test
+    public void rowsWrittenToAreNotCached() {
+        TransactionScopedCache cache = TransactionScopedCacheImpl.create(snapshotWithSingleValue(), metrics);
+        ImmutableList<byte[]> rows = ImmutableList.of(createBytes(1));
+        cache.write(TABLE, ImmutableMap.of(createCell(1, 5), createBytes(5)));
+
+        getEntireRowsCall(cache, rows);
+        getEntireRowsCall(cache, rows);
+        verify(rowLookups, times(2)).add(any());
+
+        assertThat(cache.getCachedRowsColumnRange(
+                        TABLE, rows, new ColumnRangeSelection(PtBytes.EMPTY_BYTE_ARRAY, PtBytes.EMPTY_BYTE_ARRAY),
+                        this::loadEntireRows))
+                .isEmpty();
+    }
+
+    @Test
+    public void rangesReadToTheirEndAreCachedAndServed() {
+        TransactionScopedCache cache = TransactionScopedCacheImpl.create(snapshotWithSingleValue(), metrics);
+
+        assertThat(readRange(cache, createBytes(1), createBytes(5)))
+                .extracting(RowResult::getRowName)
+                .containsExactly(createBytes(1), createBytes(2), createBytes(3));
+        assertThat(readRange(cache, createBytes(2), createBytes(5)))
+                .extracting(RowResult::getRowName)
+                .containsExactly(createBytes(3));
+        assertThat(readRange(cache, createBytes(1), createBytes(2)).get(0).getColumns())
+                .containsOnlyKeys(createBytes(1), createBytes(2), createBytes(3));
+        assertThat(rangeLookups).hasSize(1);
+
+        readRange(cache, createBytes(0), createBytes(5));
+        assertThat(rangeLookups).hasSize(2);
+
+        cache.finalise();
+        ValueDigest digest = cache.getValueDigest();
+        assertThat(digest.loadedRanges()).hasSize(2);
+        assertThat(digest.loadedRows())
+                .containsOnlyKeys(
+                        RowReference.of(TABLE, createBytes(1)),
+                        RowReference.of(TABLE, createBytes(2)),
+                        RowReference.of(TABLE, createBytes(3)));
+        assertThat(digest.loadedRows().get(RowReference.of(TABLE, createBytes(2))))
+                .isEqualTo(CacheRow.empty());
+    }
+
+    @Test
+    public void rangesNotReadToTheirEndOrContainingWrittenRowsAreNotCached() {
+        TransactionScopedCache cache = TransactionScopedCacheImpl.create(snapshotWithSingleValue(), metrics);
+        RangeRequest range = RangeRequest.builder()
+                .startRowInclusive(createBytes(1))
+                .endRowExclusive(createBytes(5))
+                .build();
+
+        try (ClosableIterator<RowResult<byte[]>> rows = cache.getRange(TABLE, range, this::loadRange)) {
+            rows.next();
+        }
+        readRange(cache, createBytes(1), createBytes(5));
+        assertThat(rangeLookups).hasSize(2);
+
+        cache.write(TABLE, ImmutableMap.of(createCell(4, 1), createBytes(4)));
+        readRange(cache, createBytes(1), createBytes(5));
+        assertThat(rangeLookups).hasSize(3);
+        readRange(cache, createBytes(1), createBytes(5));
+        assertThat(rangeLookups).hasSize(4);
+
+        readRange(cache, createBytes(1), createBytes(4));
+        readRange(cache, createBytes(2), createBytes(4));
+        assertThat(rangeLookups).hasSize(5);
+
+        cache.finalise();
+        assertThat(cache.getValueDigest().loadedRanges())
+                .singleElement()
+                .satisfies(cachedRange -> assertThat(cachedRange.endExclusive()).isEqualTo(createBytes(4)));
+    }
+
     private TransactionScopedCache createCache(boolean emptyCells, Cell... cells) {
         ValueCacheSnapshot snapshot = ValueCacheSnapshotImpl.of(
                 HashMap.ofAll(
@@ -289,6 +399,50 @@ public final class TransactionScopedCacheImplTest {
         return results;
     }
 
+    private NavigableMap<byte[], RowResult<byte[]>> getEntireRowsCall(
+            TransactionScopedCache cache, ImmutableList<byte[]> rows) {
+        return cache.getRows(TABLE, rows, ColumnSelection.all(), this::loadCells, this::loadEntireRows);
+    }
+
+    private NavigableMap<byte[], RowResult<byte[]>> loadEntireRows(Iterable<byte[]> rows) {
+        rows.forEach(rowLookups::add);
+        NavigableMap<byte[], RowResult<byte[]>> results = new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+        for (byte[] row : rows) {
+            if (Arrays.equals(row, createBytes(1))) {
+                NavigableMap<byte[], byte[]> columns = Stream.of(1, 2, 3)
+                        .map(col -> createCell(1, col))
+                        .collect(Collectors.toMap(
+                                Cell::getColumnName,
+                                TransactionScopedCacheImplTest::createBytes,
+                                (first, _second) -> first,
+                                () -> new TreeMap<>(UnsignedBytes.lexicographicalComparator())));
+                results.put(row, RowResult.create(row, columns));
+            }
+        }
+        return results;
+    }
+
+    private List<RowResult<byte[]>> readRange(TransactionScopedCache cache, byte[] start, byte[] end) {
+        RangeRequest range = RangeRequest.builder().startRowInclusive(start).endRowExclusive(end).build();
+        try (ClosableIterator<RowResult<byte[]>> rows = cache.getRange(TABLE, range, this::loadRange)) {
+            return ImmutableList.copyOf(rows);
+        }
+    }
+
+    /**
+     * Row 1 has three columns, row 2 only has a deleted value, and row 3 has a single column.
+     */
+    private ClosableIterator<RowResult<byte[]>> loadRange(RangeRequest range) {
+        rangeLookups.add(range);
+        NavigableMap<byte[], RowResult<byte[]>> rows = loadEntireRows(ImmutableList.of(createBytes(1)));
+        rows.put(createBytes(2), RowResult.of(createCell(2, 1), PtBytes.EMPTY_BYTE_ARRAY));
+        rows.put(createBytes(3), RowResult.of(createCell(3, 1), createBytes(3)));
+        rowLookups.clear();
+        return ClosableIterators.wrap(rows.values().stream()
+                .filter(row -> range.inRange(row.getRowName()))
+                .iterator());
+    }
+
     private NavigableMap<byte[], RowResult<byte[]>> getRowsWithEmptyRowLookups(
             TransactionScopedCache cache, ImmutableList<byte[]> rowsAndCols, ColumnSelection columns) {
         return cache.getRows(TABLE, rowsAndCols, columns, this::loadCells, rows -> {
@@ -24,7 +24,9 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.CellReference;
 import com.palantir.atlasdb.keyvalue.api.TableReference;
@@ -168,6 +170,38 @@ public final class ValueStoreImplTest {
         verify(metrics).increaseCacheSize(expectedSize);
     }
 
+    @Test
+    public void lockEventInvalidatesRangesContainingLockedRow() {
+        CacheRange rangeWithLockedRow =
+                CacheRange.of(TABLE, createBytes(0), createBytes(5), ImmutableList.of(CELL_1.getRowName()));
+        CacheRange rangeWithoutLockedRow =
+                CacheRange.of(TABLE, createBytes(2), createBytes(8), ImmutableList.of(CELL_2.getRowName()));
+        valueStore.applyEvent(WATCH_EVENT);
+        valueStore.putRange(rangeWithLockedRow);
+        valueStore.putRange(rangeWithoutLockedRow);
+
+        assertThat(valueStore.getSnapshot().getRange(TABLE, createBytes(1), createBytes(5)))
+                .hasValue(rangeWithLockedRow);
+        assertThat(valueStore.getSnapshot().getRange(TABLE, createBytes(5), createBytes(8)))
+                .hasValue(rangeWithoutLockedRow);
+
+        valueStore.applyEvent(LOCK_EVENT);
+        assertThat(valueStore.getSnapshot().getRange(TABLE, createBytes(1), createBytes(5)))
+                .isEmpty();
+        assertThat(valueStore.getSnapshot().getRange(TABLE, createBytes(2), createBytes(5)))
+                .hasValue(rangeWithoutLockedRow);
+        assertThatThrownBy(() -> valueStore.putRange(rangeWithLockedRow))
+                .isExactlyInstanceOf(SafeIllegalStateException.class)
+                .hasMessageContaining("Trying to cache a range which contains a locked row");
+
+        valueStore.applyEvent(UNLOCK_EVENT);
+        valueStore.putRange(rangeWithLockedRow);
+        assertThat(valueStore.getSnapshot().getRange(TABLE, PtBytes.EMPTY_BYTE_ARRAY, createBytes(5)))
+                .isEmpty();
+        assertThat(valueStore.getSnapshot().getRange(TABLE, createBytes(0), createBytes(5)))
+                .hasValue(rangeWithLockedRow);
+    }
+
     private void assertPutThrows(CacheValue value) {
         assertThatThrownBy(() -> valueStore.putValue(TABLE_CELL, value))
                 .isExactlyInstanceOf(SafeIllegalStateException.class)
@@ -0,0 +1,157 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.impl.Cells;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.junit.Test;
+
+public class CompactLocalWriteBufferTest {
+    private static final Cell CELL_1 = Cell.create(PtBytes.toBytes("row1"), PtBytes.toBytes("col1"));
+    private static final Cell CELL_2 = Cell.create(PtBytes.toBytes("row1"), PtBytes.toBytes("col2"));
+    private static final Cell CELL_3 = Cell.create(PtBytes.toBytes("row2"), PtBytes.toBytes("col1"));
+    private static final byte[] VALUE_1 = PtBytes.toBytes("value1");
+    private static final byte[] VALUE_2 = PtBytes.toBytes("a much longer value2");
+
+    private final CompactLocalWriteBuffer buffer = new CompactLocalWriteBuffer();
+
+    @Test
+    public void putReturnsPreviousValue() {
+        assertThat(buffer.put(CELL_1, VALUE_1)).isNull();
+        assertThat(buffer.put(CELL_1, VALUE_2)).isEqualTo(VALUE_1);
+        assertThat(buffer.put(CELL_1, PtBytes.EMPTY_BYTE_ARRAY)).isEqualTo(VALUE_2);
+        assertThat(buffer.get(CELL_1)).isEmpty();
+        assertThat(buffer).hasSize(1);
+    }
+
+    @Test
+    public void iteratesInCellOrderRegardlessOfInsertionOrder() {
+        buffer.put(CELL_3, VALUE_1);
+        buffer.put(CELL_1, VALUE_1);
+        buffer.put(CELL_2, VALUE_2);
+
+        assertThat(buffer.keySet()).containsExactly(CELL_1, CELL_2, CELL_3);
+        assertThat(buffer.firstKey()).isEqualTo(CELL_1);
+        assertThat(buffer.lastKey()).isEqualTo(CELL_3);
+    }
+
+    @Test
+    public void viewsAreBoundedAndSeeLaterWrites() {
+        buffer.put(CELL_1, VALUE_1);
+        SortedMap<Cell, byte[]> secondRow = buffer.tailMap(Cells.createSmallestCellForRow(PtBytes.toBytes("row2")));
+        assertThat(secondRow).isEmpty();
+
+        buffer.put(CELL_3, VALUE_2);
+        assertThat(secondRow.keySet()).containsExactly(CELL_3);
+        assertThat(secondRow.containsKey(CELL_1)).isFalse();
+        assertThat(buffer.headMap(CELL_3).keySet()).containsExactly(CELL_1);
+    }
+
+    @Test
+    public void iteratorsReflectTheCellsPresentWhenCreated() {
+        buffer.put(CELL_1, VALUE_1);
+        Iterator<Map.Entry<Cell, byte[]>> iterator = buffer.entrySet().iterator();
+        buffer.put(CELL_2, VALUE_2);
+
+        assertThat(iterator.next().getKey()).isEqualTo(CELL_1);
+        assertThat(iterator.hasNext()).isFalse();
+    }
+
+    @Test
+    public void sealingForwardsAllOperationsToConcurrentMap() {
+        buffer.put(CELL_1, VALUE_1);
+        SortedMap<Cell, byte[]> view = buffer.headMap(CELL_3);
+
+        SortedMap<Cell, byte[]> sealed = buffer.sealIntoConcurrentMap();
+        buffer.put(CELL_2, VALUE_2);
+
+        assertThat(buffer.isSealed()).isTrue();
+        assertThat(sealed).isInstanceOf(ConcurrentSkipListMap.class);
+        assertThat(sealed.keySet()).containsExactly(CELL_1, CELL_2);
+        assertThat(view.keySet()).containsExactly(CELL_1, CELL_2);
+        assertThat(buffer.get(CELL_2)).isEqualTo(VALUE_2);
+    }
+
+    @Test
+    public void returnsValuesWithoutCopying() {
+        buffer.put(CELL_1, VALUE_1);
+
+        assertThat(buffer.get(CELL_1)).isSameAs(VALUE_1);
+        assertThat(buffer.entrySet().iterator().next().getValue()).isSameAs(VALUE_1);
+    }
+
+    @Test
+    public void frozenBufferReusesCellsAndRejectsWrites() {
+        buffer.put(CELL_3, VALUE_1);
+        buffer.put(CELL_1, VALUE_2);
+        buffer.freeze();
+
+        Cell first = buffer.firstKey();
+        assertThat(buffer.keySet()).containsExactly(CELL_1, CELL_3);
+        assertThat(buffer.keySet().iterator().next()).isSameAs(first);
+        assertThat(buffer.tailMap(CELL_2).firstKey()).isSameAs(buffer.lastKey());
+        assertThat(buffer.get(CELL_3)).isSameAs(VALUE_1);
+        assertThatThrownBy(() -> buffer.put(CELL_2, VALUE_1)).isInstanceOf(SafeIllegalStateException.class);
+    }
+
+    @Test
+    public void behavesLikeSkipListUnderRandomWrites() {
+        Random random = new Random(0);
+        SortedMap<Cell, byte[]> expected = new ConcurrentSkipListMap<>();
+        List<Cell> probes = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Cell cell = Cell.create(randomBytes(random, 1 + random.nextInt(3)), randomBytes(random, 1));
+            byte[] value = randomBytes(random, random.nextInt(8));
+            assertThat(buffer.put(cell, value)).isEqualTo(expected.put(cell, value));
+            if (i % 1000 == 0) {
+                probes.add(cell);
+                assertThat(buffer.keySet()).containsExactlyElementsOf(expected.keySet());
+            }
+        }
+
+        assertThat(buffer).hasSameSizeAs(expected);
+        expected.forEach((cell, value) -> assertThat(buffer.get(cell)).isEqualTo(value));
+        for (Cell low : probes) {
+            for (Cell high : probes) {
+                if (low.compareTo(high) <= 0) {
+                    assertThat(buffer.subMap(low, high).keySet())
+                            .containsExactlyElementsOf(expected.subMap(low, high).keySet());
+                }
+            }
+            assertThat(buffer.tailMap(low).keySet()).containsExactlyElementsOf(expected.tailMap(low).keySet());
+            assertThat(buffer.headMap(low)).hasSameSizeAs(expected.headMap(low));
+        }
+    }
+
+    private static byte[] randomBytes(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
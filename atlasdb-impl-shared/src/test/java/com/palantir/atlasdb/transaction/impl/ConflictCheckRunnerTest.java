@@ -0,0 +1,159 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.transaction.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class ConflictCheckRunnerTest {
+    private static final int CONCURRENCY = 4;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+    private final Timer timer = new Timer();
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void runsChecksConcurrently() {
+        CountDownLatch allRunning = new CountDownLatch(CONCURRENCY);
+        AtomicInteger checksThatSawOthersRunning = new AtomicInteger();
+        List<Runnable> checks = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            checks.add(() -> {
+                allRunning.countDown();
+                if (Uninterruptibles.awaitUninterruptibly(allRunning, 10, TimeUnit.SECONDS)) {
+                    checksThatSawOthersRunning.incrementAndGet();
+                }
+            });
+        }
+
+        new ConflictCheckRunner(executor, CONCURRENCY).addPhase(timer, checks).run();
+
+        assertThat(checksThatSawOthersRunning).hasValue(CONCURRENCY);
+    }
+
+    @Test
+    public void runsChecksOnCallingThreadWithoutConcurrency() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        Runnable check = () -> threads.add(Thread.currentThread());
+
+        new ConflictCheckRunner(executor, 1)
+                .addPhase(timer, ImmutableList.of(check, check, check))
+                .run();
+
+        assertThat(threads).containsExactly(Thread.currentThread());
+    }
+
+    @Test
+    public void failureStopsFurtherChecksAndWaitsForRunningChecks() {
+        CountDownLatch slowCheckStarted = new CountDownLatch(1);
+        AtomicBoolean slowCheckFinished = new AtomicBoolean(false);
+        AtomicInteger laterChecksRun = new AtomicInteger();
+        SafeIllegalStateException conflict = new SafeIllegalStateException("conflict");
+
+        List<Runnable> checks = new ArrayList<>();
+        checks.add(() -> {
+            slowCheckStarted.countDown();
+            Uninterruptibles.sleepUninterruptibly(Duration.ofMillis(200));
+            slowCheckFinished.set(true);
+        });
+        checks.add(() -> {
+            Uninterruptibles.awaitUninterruptibly(slowCheckStarted);
+            throw conflict;
+        });
+        for (int i = 0; i < 10; i++) {
+            checks.add(laterChecksRun::incrementAndGet);
+        }
+
+        assertThatThrownBy(() -> new ConflictCheckRunner(executor, 2)
+                        .addPhase(timer, checks)
+                        .run())
+                .isSameAs(conflict);
+        assertThat(slowCheckFinished).isTrue();
+        assertThat(laterChecksRun).hasValue(0);
+    }
+
+    @Test
+    public void doesNotWaitForHelpersQueuedBehindOtherTasks() {
+        ExecutorService busyExecutor = Executors.newSingleThreadExecutor();
+        CountDownLatch releaseOtherTask = new CountDownLatch(1);
+        try {
+            busyExecutor.execute(() -> Uninterruptibles.awaitUninterruptibly(releaseOtherTask));
+            AtomicInteger checksRun = new AtomicInteger();
+            Runnable check = checksRun::incrementAndGet;
+
+            new ConflictCheckRunner(busyExecutor, CONCURRENCY)
+                    .addPhase(timer, ImmutableList.of(check, check, check))
+                    .run();
+
+            assertThat(checksRun).hasValue(3);
+        } finally {
+            releaseOtherTask.countDown();
+            busyExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void runsChecksOnCallingThreadIfExecutorRejectsHelpers() {
+        ExecutorService rejectingExecutor = MoreExecutors.newDirectExecutorService();
+        rejectingExecutor.shutdown();
+        AtomicInteger checksRun = new AtomicInteger();
+        Runnable check = checksRun::incrementAndGet;
+
+        new ConflictCheckRunner(rejectingExecutor, CONCURRENCY)
+                .addPhase(timer, ImmutableList.of(check, check, check))
+                .run();
+
+        assertThat(checksRun).hasValue(3);
+    }
+
+    @Test
+    public void recordsOneDurationPerNonEmptyPhase() {
+        Timer emptyPhaseTimer = new Timer();
+        Runnable check = () -> Uninterruptibles.sleepUninterruptibly(Duration.ofMillis(10));
+
+        new ConflictCheckRunner(executor, CONCURRENCY)
+                .addPhase(timer, ImmutableList.of(check, check, check))
+                .addPhase(emptyPhaseTimer, ImmutableList.of())
+                .run();
+
+        assertThat(timer.getCount()).isEqualTo(1);
+        assertThat(timer.getSnapshot().getMax()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(emptyPhaseTimer.getCount()).isZero();
+    }
+}
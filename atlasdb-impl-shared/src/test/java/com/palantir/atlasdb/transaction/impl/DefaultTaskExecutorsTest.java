@@ -20,6 +20,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.google.common.util.concurrent.Uninterruptibles;
 import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import org.junit.Test;
@@ -38,4 +39,24 @@ public class DefaultTaskExecutorsTest {
                 .isInstanceOf(RejectedExecutionException.class)
                 .hasMessageContaining("rejected from");
     }
+
+    @Test
+    public void commitExecutorRejectsTasksOnceAllThreadsAreBusy() {
+        ExecutorService service = DefaultTaskExecutors.createDefaultCommitExecutor();
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < DefaultTaskExecutors.DEFAULT_COMMIT_THREADS; i++) {
+                service.submit(() -> {
+                    Uninterruptibles.awaitUninterruptibly(latch);
+                    return 1;
+                });
+            }
+            assertThatThrownBy(() -> service.submit(() -> 0))
+                    .isInstanceOf(RejectedExecutionException.class)
+                    .hasMessageContaining("rejected from");
+        } finally {
+            latch.countDown();
+            service.shutdown();
+        }
+    }
 }
@@ -29,6 +29,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Streams;
+import com.google.common.util.concurrent.Futures;
 import com.palantir.atlasdb.keyvalue.api.BatchColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.KeyValueService;
@@ -37,6 +38,7 @@ import com.palantir.atlasdb.keyvalue.api.TableReference;
 import com.palantir.atlasdb.keyvalue.api.Value;
 import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -124,6 +126,34 @@ public class GetRowsColumnRangeIteratorTest {
         verify(validationStep, times(14 - 1)).run();
     }
 
+    @Test
+    public void prefetchingIteratorPrefetchesEachBatchBeforePostFilteringIt() {
+        putColumns(3 * BATCH_SIZE + 4);
+        List<Set<Cell>> prefetchedBatches = new ArrayList<>();
+        List<Set<Cell>> postFilteredBatches = new ArrayList<>();
+
+        Iterator<Map.Entry<Cell, byte[]>> iteratorUnderTest = GetRowsColumnRangeIterator.prefetchingIterator(
+                batchProvider,
+                getInitialIterator(),
+                COLUMN_RANGE_SELECTION,
+                () -> {},
+                results -> {
+                    assertThat(prefetchedBatches).contains(results.keySet());
+                    postFilteredBatches.add(results.keySet());
+                    return Maps.transformValues(results, Value::getContents).entrySet();
+                },
+                batch -> {
+                    prefetchedBatches.add(batch.stream().map(Map.Entry::getKey).collect(Collectors.toSet()));
+                    return Futures.immediateFuture(null);
+                });
+
+        assertThat(ImmutableList.copyOf(iteratorUnderTest)).hasSize(3 * BATCH_SIZE + 4);
+        assertThat(prefetchedBatches)
+                .as("reading ahead does not change the size of the batches read")
+                .hasSize(4)
+                .containsExactlyElementsOf(postFilteredBatches);
+    }
+
     private Set<Cell> putColumns(int numberOfColumns) {
         byte[] value = new byte[1];
         Map<Cell, byte[]> puts = IntStream.range(0, numberOfColumns)
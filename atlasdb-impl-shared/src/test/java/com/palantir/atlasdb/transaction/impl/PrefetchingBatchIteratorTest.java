@@ -0,0 +1,172 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.atlasdb.keyvalue.api.KeyValueService;
+import com.palantir.atlasdb.keyvalue.api.RangeRequest;
+import com.palantir.atlasdb.keyvalue.api.RowResult;
+import com.palantir.atlasdb.keyvalue.api.TableReference;
+import com.palantir.atlasdb.keyvalue.api.Value;
+import com.palantir.atlasdb.keyvalue.impl.InMemoryKeyValueService;
+import com.palantir.atlasdb.transaction.impl.BatchSizeIncreasingIterator.BatchResult;
+import com.palantir.common.base.ClosableIterator;
+import com.palantir.common.base.ClosableIterators;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class PrefetchingBatchIteratorTest {
+    private static final TableReference TABLE_REFERENCE = TableReference.createWithEmptyNamespace("test");
+    private static final byte[] COLUMN = "col".getBytes(StandardCharsets.UTF_8);
+    private static final int BATCH_SIZE = 10;
+
+    private final KeyValueService kvs = new InMemoryKeyValueService(true);
+    private final RowRangeBatchProvider batchProvider =
+            new RowRangeBatchProvider(kvs, TABLE_REFERENCE, RangeRequest.all(), Long.MAX_VALUE);
+    private final List<List<String>> prefetchedBatches = new ArrayList<>();
+
+    @Test
+    public void returnsBatchesInOrderWhilePrefetchingTheNextOne() {
+        List<String> rows = putRows(3 * BATCH_SIZE + 4);
+        PrefetchingBatchIterator<RowResult<Value>> iterator =
+                createIteratorUnderTest(null, batch -> Futures.immediateFuture(null));
+
+        List<List<String>> returnedBatches = new ArrayList<>();
+        BatchResult<RowResult<Value>> result = iterator.getBatch();
+        returnedBatches.add(rowNames(result.batch()));
+        assertThat(prefetchedBatches).as("the second batch is read ahead").hasSize(2);
+
+        while (!result.isLastBatch()) {
+            result = iterator.getBatch();
+            returnedBatches.add(rowNames(result.batch()));
+        }
+
+        assertThat(returnedBatches)
+                .containsExactlyElementsOf(prefetchedBatches)
+                .hasSize(4)
+                .allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(BATCH_SIZE));
+        assertThat(returnedBatches.stream().flatMap(List::stream)).containsExactlyElementsOf(rows);
+    }
+
+    @Test
+    public void closingCancelsPrefetchOfBatchReadAhead() {
+        putRows(3 * BATCH_SIZE);
+        AtomicBoolean underlyingResultsClosed = new AtomicBoolean();
+        ClosableIterator<RowResult<Value>> currentResults = ClosableIterators.wrap(
+                kvs.getRange(TABLE_REFERENCE, RangeRequest.all(), Long.MAX_VALUE),
+                () -> underlyingResultsClosed.set(true));
+        List<SettableFuture<Void>> prefetches = new ArrayList<>();
+        PrefetchingBatchIterator<RowResult<Value>> iterator = createIteratorUnderTest(currentResults, batch -> {
+            SettableFuture<Void> prefetch = SettableFuture.create();
+            if (prefetches.isEmpty()) {
+                prefetch.set(null);
+            }
+            prefetches.add(prefetch);
+            return prefetch;
+        });
+
+        assertThat(rowNames(iterator.getBatch().batch())).containsExactlyElementsOf(prefetchedBatches.get(0));
+        iterator.close();
+
+        assertThat(prefetches).hasSize(2);
+        assertThat(prefetches.get(1).isCancelled()).isTrue();
+        assertThat(underlyingResultsClosed).isTrue();
+    }
+
+    @Test
+    public void failureToReadAheadIsPropagatedAndCancelsPrefetchOfCurrentBatch() {
+        putRows(BATCH_SIZE);
+        Iterator<RowResult<Value>> failingAfterFirstBatch = Iterators.concat(
+                kvs.getRange(TABLE_REFERENCE, RangeRequest.all(), Long.MAX_VALUE), failingIterator());
+        SettableFuture<Void> prefetch = SettableFuture.create();
+        PrefetchingBatchIterator<RowResult<Value>> iterator =
+                createIteratorUnderTest(ClosableIterators.wrap(failingAfterFirstBatch), batch -> prefetch);
+
+        assertThatThrownBy(iterator::getBatch)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Failed to read the next batch");
+        assertThat(prefetch.isCancelled()).isTrue();
+    }
+
+    @Test
+    public void failedPrefetchIsPropagated() {
+        putRows(BATCH_SIZE + 1);
+        PrefetchingBatchIterator<RowResult<Value>> iterator = createIteratorUnderTest(
+                null, batch -> Futures.immediateFailedFuture(new IllegalStateException("Failed to prefetch")));
+
+        assertThatThrownBy(iterator::getBatch)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Failed to prefetch");
+    }
+
+    private PrefetchingBatchIterator<RowResult<Value>> createIteratorUnderTest(
+            ClosableIterator<RowResult<Value>> currentResults,
+            PrefetchingBatchIterator.Prefetcher<RowResult<Value>> prefetcher) {
+        return new PrefetchingBatchIterator<>(batchProvider, BATCH_SIZE, currentResults, batch -> {
+            prefetchedBatches.add(rowNames(batch));
+            return prefetcher.prefetch(batch);
+        });
+    }
+
+    private static Iterator<RowResult<Value>> failingIterator() {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public RowResult<Value> next() {
+                throw new IllegalStateException("Failed to read the next batch");
+            }
+        };
+    }
+
+    private List<String> putRows(int numberOfRows) {
+        List<String> rows = IntStream.range(0, numberOfRows)
+                .mapToObj(i -> String.format("row%02d", i))
+                .collect(Collectors.toList());
+        kvs.put(
+                TABLE_REFERENCE,
+                rows.stream()
+                        .map(row -> Cell.create(row.getBytes(StandardCharsets.UTF_8), COLUMN))
+                        .collect(ImmutableMap.toImmutableMap(Function.identity(), _unused -> new byte[1])),
+                1L);
+        return rows;
+    }
+
+    private static List<String> rowNames(List<RowResult<Value>> batch) {
+        return batch.stream()
+                .map(row -> new String(row.getRowName(), StandardCharsets.UTF_8))
+                .collect(ImmutableList.toImmutableList());
+    }
+}
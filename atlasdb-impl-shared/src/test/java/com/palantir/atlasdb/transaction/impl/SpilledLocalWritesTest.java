@@ -0,0 +1,163 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.ByteString;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.atlasdb.keyvalue.api.Cell;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SpilledLocalWritesTest {
+    private static final Cell CELL_1 = Cell.create(PtBytes.toBytes("row1"), PtBytes.toBytes("col1"));
+    private static final Cell CELL_2 = Cell.create(PtBytes.toBytes("row1"), PtBytes.toBytes("col2"));
+    private static final Cell CELL_3 = Cell.create(PtBytes.toBytes("row2"), PtBytes.toBytes("col1"));
+    private static final byte[] VALUE_1 = PtBytes.toBytes("value1");
+    private static final byte[] VALUE_2 = PtBytes.toBytes("value2");
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private LocalWriteSpillStore store;
+    private SpilledLocalWrites writes;
+
+    @Before
+    public void before() {
+        store = LocalWriteSpillStore.create(temporaryFolder.getRoot().toPath());
+        writes = SpilledLocalWrites.create(store);
+    }
+
+    @After
+    public void after() {
+        store.close();
+    }
+
+    @Test
+    public void putReturnsPreviousValue() {
+        assertThat(writes.put(CELL_1, VALUE_1)).isNull();
+        assertThat(writes.put(CELL_1, PtBytes.EMPTY_BYTE_ARRAY)).isEqualTo(VALUE_1);
+        assertThat(writes.get(CELL_1)).isEmpty();
+        assertThat(writes).hasSize(1);
+    }
+
+    @Test
+    public void copiesExistingWrites() {
+        SpilledLocalWrites copy = SpilledLocalWrites.copyOf(store, ImmutableMap.of(CELL_3, VALUE_1, CELL_1, VALUE_2));
+
+        assertThat(copy.keySet()).containsExactly(CELL_1, CELL_3);
+        assertThat(copy.get(CELL_1)).isEqualTo(VALUE_2);
+        assertThat(copy.containsKey(CELL_2)).isFalse();
+    }
+
+    @Test
+    public void viewsAreBoundedAndSeeLaterWrites() {
+        writes.put(CELL_1, VALUE_1);
+        SortedMap<Cell, byte[]> firstRow = writes.headMap(CELL_3);
+        writes.put(CELL_3, VALUE_1);
+        writes.put(CELL_2, VALUE_2);
+
+        assertThat(firstRow.keySet()).containsExactly(CELL_1, CELL_2);
+        assertThat(firstRow.containsKey(CELL_3)).isFalse();
+        assertThat(writes.tailMap(CELL_2).firstKey()).isEqualTo(CELL_2);
+        assertThat(writes.lastKey()).isEqualTo(CELL_3);
+    }
+
+    @Test
+    public void encodingPreservesCellOrder() {
+        Random random = new Random(0);
+        List<Cell> cells = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            cells.add(Cell.create(randomBytesWithZeros(random), randomBytesWithZeros(random)));
+        }
+        for (Cell left : cells) {
+            assertThat(SpilledLocalWrites.decode(SpilledLocalWrites.encode(left))).isEqualTo(left);
+            for (Cell right : cells.subList(0, 20)) {
+                int encodedComparison = ByteString.unsignedLexicographicalComparator()
+                        .compare(SpilledLocalWrites.encode(left), SpilledLocalWrites.encode(right));
+                assertThat(Integer.signum(encodedComparison)).isEqualTo(Integer.signum(left.compareTo(right)));
+            }
+        }
+    }
+
+    @Test
+    public void behavesLikeSkipListUnderRandomWrites() {
+        Random random = new Random(0);
+        SortedMap<Cell, byte[]> expected = new ConcurrentSkipListMap<>();
+        List<Cell> probes = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Cell cell = Cell.create(randomBytesWithZeros(random), randomBytesWithZeros(random));
+            byte[] value = PtBytes.toBytes(random.nextLong());
+            assertThat(writes.put(cell, value)).isEqualTo(expected.put(cell, value));
+            if (i % 300 == 0) {
+                probes.add(cell);
+            }
+        }
+
+        assertThat(writes).hasSameSizeAs(expected);
+        assertThat(writes.keySet()).containsExactlyElementsOf(expected.keySet());
+        for (Cell low : probes) {
+            for (Cell high : probes) {
+                if (low.compareTo(high) <= 0) {
+                    assertThat(writes.subMap(low, high).keySet())
+                            .containsExactlyElementsOf(expected.subMap(low, high).keySet());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sizeAndPreviousValuesStayExactWhenKeyHashesCollide() {
+        int distinctCells = SpilledLocalWrites.WRITTEN_KEY_HASH_BITS + 1000;
+        for (int i = 0; i < distinctCells; i++) {
+            assertThat(writes.put(Cell.create(PtBytes.toBytes(i), PtBytes.toBytes("col")), VALUE_1))
+                    .isNull();
+        }
+        assertThat(writes.put(Cell.create(PtBytes.toBytes(0), PtBytes.toBytes("col")), VALUE_2))
+                .isEqualTo(VALUE_1);
+
+        assertThat(writes).hasSize(distinctCells);
+    }
+
+    @Test
+    public void accessAfterCloseThrows() {
+        writes.put(CELL_1, VALUE_1);
+        store.close();
+
+        assertThatThrownBy(() -> writes.get(CELL_1)).isInstanceOf(SafeIllegalStateException.class);
+    }
+
+    private static byte[] randomBytesWithZeros(Random random) {
+        byte[] bytes = new byte[1 + random.nextInt(3)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) random.nextInt(3);
+        }
+        return bytes;
+    }
+}
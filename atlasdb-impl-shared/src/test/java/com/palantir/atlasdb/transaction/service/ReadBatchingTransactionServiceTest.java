@@ -0,0 +1,115 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.transaction.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.palantir.atlasdb.autobatch.BatchSizeRecorder;
+import com.palantir.atlasdb.cache.DefaultTimestampCache;
+import com.palantir.atlasdb.cache.TimestampCache;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+
+public class ReadBatchingTransactionServiceTest {
+    private final TransactionService delegate = mock(TransactionService.class);
+    private final TimestampCache timestampCache = DefaultTimestampCache.createForTests();
+    private final AtomicBoolean batchingEnabled = new AtomicBoolean(true);
+    private final TransactionService readBatchingTransactionService = ReadBatchingTransactionService.create(
+            delegate, timestampCache, new DefaultTaggedMetricRegistry(), batchingEnabled::get);
+    private final List<Set<Long>> delegateReads = new ArrayList<>();
+
+    @After
+    public void verifyMocks() {
+        readBatchingTransactionService.close();
+        verify(delegate).close();
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void readsDistinctTimestampsThroughBatchAndCachesCommittedTransactions() {
+        stubDelegateReads(ImmutableMap.of(1L, 10L));
+
+        assertThat(readBatchingTransactionService.get(ImmutableList.of(1L, 2L, 1L)))
+                .containsExactlyInAnyOrderEntriesOf(ImmutableMap.of(1L, 10L));
+        assertThat(timestampCache.getCommitTimestampIfPresent(1L)).isEqualTo(10L);
+        assertThat(timestampCache.getCommitTimestampIfPresent(2L)).isNull();
+
+        assertThat(delegateReads).containsExactly(ImmutableSet.of(1L, 2L));
+        verify(delegate).get(anyIterable());
+    }
+
+    @Test
+    public void servesCachedTimestampsWithoutReading() {
+        timestampCache.putAlreadyCommittedTransaction(3L, 30L);
+
+        assertThat(readBatchingTransactionService.get(3L)).isEqualTo(30L);
+        assertThat(readBatchingTransactionService.get(ImmutableList.of(3L)))
+                .containsExactlyInAnyOrderEntriesOf(ImmutableMap.of(3L, 30L));
+    }
+
+    @Test
+    public void readsFromDelegateDirectlyWhenDisabled() {
+        batchingEnabled.set(false);
+        timestampCache.putAlreadyCommittedTransaction(3L, 30L);
+        when(delegate.getAsync(3L)).thenReturn(Futures.immediateFuture(31L));
+
+        assertThat(readBatchingTransactionService.get(3L)).isEqualTo(31L);
+
+        verify(delegate).getAsync(3L);
+    }
+
+    @Test
+    public void batchMapsTransactionsThatHaveNotCommittedToEmpty() {
+        stubDelegateReads(ImmutableMap.of(5L, 50L));
+
+        Map<Long, Optional<Long>> result = ReadBatchingTransactionService.processBatch(
+                delegate,
+                timestampCache,
+                new Timer(),
+                BatchSizeRecorder.create("test", ImmutableMap.of()),
+                ImmutableSet.of(5L, 6L));
+
+        assertThat(result)
+                .containsExactlyInAnyOrderEntriesOf(ImmutableMap.of(5L, Optional.of(50L), 6L, Optional.empty()));
+        assertThat(delegateReads).containsExactly(ImmutableSet.of(5L, 6L));
+        verify(delegate).get(anyIterable());
+    }
+
+    private void stubDelegateReads(Map<Long, Long> commitTimestamps) {
+        when(delegate.get(anyIterable())).thenAnswer(invocation -> {
+            delegateReads.add(ImmutableSet.copyOf(invocation.<Iterable<Long>>getArgument(0)));
+            return commitTimestamps;
+        });
+    }
+}
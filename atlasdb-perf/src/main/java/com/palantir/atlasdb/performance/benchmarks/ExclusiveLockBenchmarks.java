@@ -0,0 +1,98 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import com.palantir.atlasdb.timelock.lock.AsyncResult;
+import com.palantir.atlasdb.timelock.lock.ExclusiveLock;
+import com.palantir.lock.StringLockDescriptor;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many times per second {@link ExclusiveLock}s can be acquired and released. With a single lock, all
+ * threads contend for it; with many locks, most acquisitions find the lock free, as commit locks usually do.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ExclusiveLockBenchmarks {
+
+    @Param({"1", "1024"})
+    private int numLocks;
+
+    private ExclusiveLock[] locks;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        locks = new ExclusiveLock[numLocks];
+        for (int i = 0; i < numLocks; i++) {
+            locks[i] = new ExclusiveLock(StringLockDescriptor.of("lock-" + i));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void lockAndUnlockWithOneThread(RequestState request) throws InterruptedException {
+        lockAndUnlock(request);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void lockAndUnlockWithEightThreads(RequestState request) throws InterruptedException {
+        lockAndUnlock(request);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void lockAndUnlockWithSixtyFourThreads(RequestState request) throws InterruptedException {
+        lockAndUnlock(request);
+    }
+
+    private void lockAndUnlock(RequestState request) throws InterruptedException {
+        ExclusiveLock lock = locks[ThreadLocalRandom.current().nextInt(numLocks)];
+        AsyncResult<Void> result = lock.lock(request.requestId);
+        if (!result.isComplete()) {
+            CountDownLatch acquired = new CountDownLatch(1);
+            result.onComplete(acquired::countDown);
+            acquired.await();
+        }
+        lock.unlock(request.requestId);
+    }
+
+    @State(Scope.Thread)
+    public static class RequestState {
+        private final UUID requestId = UUID.randomUUID();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.performance.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.palantir.atlasdb.http.RedirectRetryTargeter;
+import com.palantir.atlasdb.timelock.AsyncTimelockServiceImpl;
+import com.palantir.atlasdb.timelock.api.ConjureStartTransactionsRequest;
+import com.palantir.atlasdb.timelock.api.ConjureStartTransactionsResponse;
+import com.palantir.atlasdb.timelock.api.MultiClientConjureTimelockService;
+import com.palantir.atlasdb.timelock.api.Namespace;
+import com.palantir.atlasdb.timelock.batch.MultiClientConjureTimelockResource;
+import com.palantir.atlasdb.timelock.lock.AsyncLockService;
+import com.palantir.atlasdb.timelock.lock.LockLog;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.timestamp.InMemoryTimestampService;
+import com.palantir.tokens.auth.AuthHeader;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many multi-client start transactions requests per second TimeLock can serve, as the number of
+ * namespaces in each request grows. Every namespace is backed by its own in-memory timestamp service and lock service,
+ * so this measures the cost of serving the request rather than of persisting timestamp bounds.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MultiClientStartTransactionsBenchmarks {
+    private static final AuthHeader AUTH_HEADER = AuthHeader.valueOf("Bearer benchmark");
+    private static final int TRANSACTIONS_PER_NAMESPACE = 5;
+
+    @Param({"1", "10", "100", "300"})
+    private int numNamespaces;
+
+    private Map<String, AsyncTimelockServiceImpl> timelockServices;
+    private MultiClientConjureTimelockService resource;
+
+    @Setup(Level.Trial)
+    public void setup() throws MalformedURLException {
+        timelockServices = new HashMap<>();
+        for (int i = 0; i < numNamespaces; i++) {
+            String namespace = "namespace-" + i;
+            LockLog lockLog = new LockLog(new MetricRegistry(), () -> 100L);
+            AsyncLockService lockService = AsyncLockService.createDefault(
+                    lockLog,
+                    PTExecutors.newSingleThreadScheduledExecutor(),
+                    PTExecutors.newSingleThreadScheduledExecutor());
+            timelockServices.put(
+                    namespace, new AsyncTimelockServiceImpl(lockService, new InMemoryTimestampService(), lockLog));
+        }
+        URL localServer = new URL("https://localhost:8421");
+        resource = MultiClientConjureTimelockResource.jersey(
+                RedirectRetryTargeter.create(localServer, ImmutableList.of(localServer)), timelockServices::get);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        timelockServices.values().forEach(AsyncTimelockServiceImpl::close);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Map<Namespace, ConjureStartTransactionsResponse> startTransactionsWithOneThread() {
+        return startTransactionsAndUnlock();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Map<Namespace, ConjureStartTransactionsResponse> startTransactionsWithEightThreads() {
+        return startTransactionsAndUnlock();
+    }
+
+    private Map<Namespace, ConjureStartTransactionsResponse> startTransactionsAndUnlock() {
+        Map<Namespace, ConjureStartTransactionsRequest> requests = new HashMap<>();
+        for (String namespace : timelockServices.keySet()) {
+            requests.put(
+                    Namespace.of(namespace),
+                    ConjureStartTransactionsRequest.builder()
+                            .requestId(UUID.randomUUID())
+                            .requestorId(UUID.randomUUID())
+                            .numTransactions(TRANSACTIONS_PER_NAMESPACE)
+                            .build());
+        }
+
+        Map<Namespace, ConjureStartTransactionsResponse> responses =
+                resource.startTransactionsForClients(AUTH_HEADER, requests);
+
+        responses.forEach((namespace, response) -> timelockServices
+                .get(namespace.get())
+                .unlock(ImmutableSet.of(response.getImmutableTimestamp().getLock())));
+        return responses;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.performance.benchmarks;
+
+import com.google.common.primitives.Longs;
+import com.palantir.paxos.Client;
+import com.palantir.paxos.ImmutableNamespaceAndUseCase;
+import com.palantir.paxos.PaxosRound;
+import com.palantir.paxos.PaxosStateLog;
+import com.palantir.paxos.PaxosStateLogImpl;
+import com.palantir.paxos.PaxosValue;
+import com.palantir.paxos.SegmentedPaxosStateLog;
+import com.palantir.paxos.SqliteConnections;
+import com.palantir.paxos.SqlitePaxosStateLog;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the file based, SQLite and segmented paxos state logs on the operations that paxos acceptors and learners
+ * perform: durably writing rounds, reading back recent rounds, finding the greatest entry, and truncating old rounds.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PaxosStateLogBenchmarks {
+    private static final int PREPOPULATED_ROUNDS = 10_000;
+    private static final int ROUNDS_KEPT_BY_TRUNCATION = 1_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"FILE", "SQLITE", "SEGMENTED"})
+    private Backend backend;
+
+    private Path directory;
+    private HikariDataSource dataSource;
+    private PaxosStateLog<PaxosValue> stateLog;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("paxos-state-log-benchmark");
+        dataSource = SqliteConnections.getDefaultConfiguredPooledDataSource(directory.resolve("sqlite"));
+        stateLog = backend.create(directory.resolve("log"), dataSource);
+        List<PaxosRound<PaxosValue>> rounds = new ArrayList<>();
+        for (long seq = 0; seq < PREPOPULATED_ROUNDS; seq++) {
+            rounds.add(PaxosRound.of(seq, value(seq)));
+        }
+        stateLog.writeBatchOfRounds(rounds);
+        nextSequence.set(PREPOPULATED_ROUNDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (stateLog instanceof Closeable) {
+            ((Closeable) stateLog).close();
+        }
+        dataSource.close();
+        FileUtils.deleteDirectory(directory.toFile());
+    }
+
+    @Benchmark
+    public long writeRound() {
+        long seq = nextSequence.getAndIncrement();
+        stateLog.writeRound(seq, value(seq));
+        return seq;
+    }
+
+    @Benchmark
+    public long writeBatchOfRounds() {
+        long first = nextSequence.getAndAdd(BATCH_SIZE);
+        List<PaxosRound<PaxosValue>> rounds = new ArrayList<>(BATCH_SIZE);
+        for (long seq = first; seq < first + BATCH_SIZE; seq++) {
+            rounds.add(PaxosRound.of(seq, value(seq)));
+        }
+        stateLog.writeBatchOfRounds(rounds);
+        return first;
+    }
+
+    @Benchmark
+    public byte[] readGreatestRound() throws IOException {
+        return stateLog.readRound(stateLog.getGreatestLogEntry());
+    }
+
+    @Benchmark
+    public long getLeastAndGreatestLogEntries() {
+        return stateLog.getGreatestLogEntry() - stateLog.getLeastLogEntry();
+    }
+
+    /**
+     * Writes a round and then truncates everything but the most recent rounds, as a node that has fallen behind would
+     * after catching up.
+     */
+    @Benchmark
+    public long writeRoundAndTruncate() {
+        long seq = writeRound();
+        stateLog.truncate(seq - ROUNDS_KEPT_BY_TRUNCATION);
+        return seq;
+    }
+
+    private static PaxosValue value(long seq) {
+        return new PaxosValue("leader", seq, Longs.toByteArray(seq));
+    }
+
+    public enum Backend {
+        FILE {
+            @Override
+            PaxosStateLog<PaxosValue> create(Path directory, HikariDataSource dataSource) {
+                return new PaxosStateLogImpl<>(directory.toString());
+            }
+        },
+        SQLITE {
+            @Override
+            PaxosStateLog<PaxosValue> create(Path directory, HikariDataSource dataSource) {
+                return SqlitePaxosStateLog.create(
+                        ImmutableNamespaceAndUseCase.of(Client.of("benchmark"), "learner"), dataSource);
+            }
+        },
+        SEGMENTED {
+            @Override
+            PaxosStateLog<PaxosValue> create(Path directory, HikariDataSource dataSource) {
+                return SegmentedPaxosStateLog.create(directory);
+            }
+        };
+
+        abstract PaxosStateLog<PaxosValue> create(Path directory, HikariDataSource dataSource);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.performance.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.palantir.atlasdb.cache.DefaultTimestampCache;
+import com.palantir.atlasdb.cache.OffHeapTimestampCache;
+import com.palantir.atlasdb.cache.PrimitiveTimestampCache;
+import com.palantir.atlasdb.cache.TimestampCache;
+import com.palantir.atlasdb.persistent.api.PersistentStore;
+import com.palantir.atlasdb.persistent.rocksdb.RocksDbPersistentStore;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.rocksdb.RocksDB;
+
+/**
+ * Compares the {@link TimestampCache} implementations on a cache that is kept full, so that puts also measure the
+ * cost of eviction. Reads are uniformly distributed over twice the cache size, so roughly half of them hit.
+ */
+@Measurement(iterations = 5, time = 5)
+@Warmup(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-XX:MaxDirectMemorySize=2g")
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TimestampCacheBenchmarks {
+    private static final long CACHE_SIZE = 2_000_000L;
+
+    @Param({"DEFAULT", "PRIMITIVE_HEAP", "PRIMITIVE_DIRECT", "OFF_HEAP_ROCKSDB"})
+    private CacheType cacheType;
+
+    private TimestampCache cache;
+    private PersistentStore persistentStore;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        cache = createCache();
+        for (long startTs = 1; startTs <= CACHE_SIZE; startTs++) {
+            cache.putAlreadyCommittedTransaction(startTs, startTs + 1);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (persistentStore != null) {
+            persistentStore.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Long getSingleThreaded() {
+        return cache.getCommitTimestampIfPresent(randomStartTimestamp());
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Long getManyThreads() {
+        return cache.getCommitTimestampIfPresent(randomStartTimestamp());
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Long putAndGetManyThreads() {
+        long startTs = randomStartTimestamp();
+        cache.putAlreadyCommittedTransaction(startTs, startTs + 1);
+        return cache.getCommitTimestampIfPresent(randomStartTimestamp());
+    }
+
+    private static long randomStartTimestamp() {
+        return ThreadLocalRandom.current().nextLong(1, 2 * CACHE_SIZE);
+    }
+
+    private TimestampCache createCache() throws Exception {
+        switch (cacheType) {
+            case DEFAULT:
+                return new DefaultTimestampCache(new MetricRegistry(), () -> CACHE_SIZE);
+            case PRIMITIVE_HEAP:
+                return PrimitiveTimestampCache.createOnHeap(new MetricRegistry(), () -> CACHE_SIZE);
+            case PRIMITIVE_DIRECT:
+                return PrimitiveTimestampCache.createInDirectMemory(new MetricRegistry(), () -> CACHE_SIZE);
+            case OFF_HEAP_ROCKSDB:
+                File databaseFolder = Files.createTempDirectory("timestamp-cache-benchmark").toFile();
+                persistentStore = new RocksDbPersistentStore(
+                        RocksDB.open(databaseFolder.getAbsolutePath()), databaseFolder);
+                return OffHeapTimestampCache.create(
+                        persistentStore, MetricsManagers.createForTests().getTaggedRegistry(), () -> CACHE_SIZE);
+            default:
+                throw new SafeIllegalStateException("Unknown cache type", SafeArg.of("cacheType", cacheType));
+        }
+    }
+
+    public enum CacheType {
+        DEFAULT,
+        PRIMITIVE_HEAP,
+        PRIMITIVE_DIRECT,
+        OFF_HEAP_ROCKSDB
+    }
+}
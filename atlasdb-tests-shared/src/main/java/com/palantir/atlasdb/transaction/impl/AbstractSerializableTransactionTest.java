@@ -44,6 +44,7 @@ import com.palantir.atlasdb.encoding.PtBytes;
 import com.palantir.atlasdb.keyvalue.api.BatchColumnRangeSelection;
 import com.palantir.atlasdb.keyvalue.api.Cell;
 import com.palantir.atlasdb.keyvalue.api.ColumnRangeSelection;
+import com.palantir.atlasdb.keyvalue.api.ColumnSelection;
 import com.palantir.atlasdb.keyvalue.api.RangeRequest;
 import com.palantir.atlasdb.keyvalue.api.RangeRequests;
 import com.palantir.atlasdb.keyvalue.api.RowResult;
@@ -85,7 +86,11 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.Test;
@@ -158,12 +163,16 @@ public abstract class AbstractSerializableTransactionTest extends AbstractTransa
                 TransactionReadSentinelBehavior.THROW_EXCEPTION,
                 true,
                 timestampCache,
-                AbstractTransactionTest.GET_RANGES_EXECUTOR,
+                options.getRangesExecutor,
                 AbstractTransactionTest.DEFAULT_GET_RANGES_CONCURRENCY,
                 getSweepQueueWriterInitialized(),
                 MoreExecutors.newDirectExecutorService(),
+                MoreExecutors.newDirectExecutorService(),
                 true,
-                () -> ImmutableTransactionConfig.builder().build(),
+                () -> ImmutableTransactionConfig.builder()
+                        .hashSerializableReads(options.hashReads)
+                        .readWriteConflictCheckConcurrency(options.conflictCheckConcurrency)
+                        .build(),
                 ConflictTracer.NO_OP,
                 new SimpleTableLevelMetricsController(metricsManager)) {
             @Override
@@ -173,9 +182,28 @@ public abstract class AbstractSerializableTransactionTest extends AbstractTransa
         };
     }
 
+    /**
+     * Counts the tasks it has started, so that tests can check that conflict checks were handed to other threads.
+     */
+    private static final class StartCountingThreadPool extends ThreadPoolExecutor {
+        private final AtomicInteger startedTasks = new AtomicInteger();
+
+        private StartCountingThreadPool(int threads) {
+            super(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            startedTasks.incrementAndGet();
+        }
+    }
+
     private static final class TransactionOptions {
         private PreCommitCondition condition = PreCommitConditions.NO_OP;
         private Optional<LockToken> immutableLockToken = Optional.empty();
+        private boolean hashReads = false;
+        private int conflictCheckConcurrency = 1;
+        private ExecutorService getRangesExecutor = AbstractTransactionTest.GET_RANGES_EXECUTOR;
 
         public TransactionOptions withCondition(PreCommitCondition newCondition) {
             this.condition = Preconditions.checkNotNull(newCondition, "newCondition");
@@ -187,6 +215,17 @@ public abstract class AbstractSerializableTransactionTest extends AbstractTransa
                     Optional.of(Preconditions.checkNotNull(newImmutableLockToken, "newImmutableLockToken"));
             return this;
         }
+
+        public TransactionOptions withHashedReads() {
+            this.hashReads = true;
+            return this;
+        }
+
+        public TransactionOptions withConflictCheckConcurrency(int concurrency, ExecutorService executor) {
+            this.conflictCheckConcurrency = concurrency;
+            this.getRangesExecutor = Preconditions.checkNotNull(executor, "executor");
+            return this;
+        }
     }
 
     protected MultiTableSweepQueueWriter getSweepQueueWriterUninitialized() {
@@ -500,6 +539,139 @@ public abstract class AbstractSerializableTransactionTest extends AbstractTransa
                 .isInstanceOf(TransactionSerializableConflictException.class);
     }
 
+    @Test
+    public void testPhantomReadFailWithHashedReads() {
+        String initialValue = "100";
+        Transaction t0 = startTransaction();
+        put(t0, "row1", "col1", initialValue);
+        put(t0, "row2", "col1", initialValue);
+        t0.commit();
+
+        Transaction t1 = startTransactionWithOptions(new TransactionOptions().withHashedReads());
+        BatchingVisitables.copyToList(t1.getRange(TEST_TABLE, RangeRequest.builder().build()));
+        put(t1, "row22", "col1", initialValue);
+
+        Transaction t2 = startTransaction();
+        put(t2, "row3", "col1", initialValue);
+        t2.commit();
+
+        assertThatThrownBy(t1::commit).isInstanceOf(TransactionSerializableConflictException.class);
+    }
+
+    @Test
+    public void testNonPhantomReadWithHashedReads() {
+        String initialValue = "100";
+        Transaction t0 = startTransaction();
+        put(t0, "row1", "col1", initialValue);
+        put(t0, "row2", "col1", initialValue);
+        t0.commit();
+
+        Transaction t1 = startTransactionWithOptions(new TransactionOptions().withHashedReads());
+        BatchingVisitables.getFirst(t1.getRange(TEST_TABLE, RangeRequest.builder().build()));
+        put(t1, "row22", "col1", initialValue);
+
+        Transaction t2 = startTransaction();
+        put(t2, "row11", "col1", initialValue);
+        t2.commit();
+
+        assertThatCode(t1::commit).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void testOwnWritesInRangeDoNotConflictWithHashedReads() {
+        String initialValue = "100";
+        Transaction t0 = startTransaction();
+        put(t0, "row1", "col1", initialValue);
+        put(t0, "row2", "col1", initialValue);
+        put(t0, "row3", "col1", initialValue);
+        t0.commit();
+
+        Transaction t1 = startTransactionWithOptions(new TransactionOptions().withHashedReads());
+        put(t1, "row15", "col1", "101");
+        delete(t1, "row2", "col1");
+        BatchingVisitables.copyToList(t1.getRange(TEST_TABLE, RangeRequest.builder().build()));
+        put(t1, "row1", "col1", "102");
+        delete(t1, "row3", "col1");
+        put(t1, "row25", "col1", "103");
+
+        assertThatCode(t1::commit).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void testCellReadWriteFailureWithHashedReads() {
+        String initialValue = "100";
+        Transaction t0 = startTransaction();
+        put(t0, "row1", "col1", initialValue);
+        t0.commit();
+
+        Transaction t1 = startTransactionWithOptions(new TransactionOptions().withHashedReads());
+        assertThat(get(t1, "row1", "col1")).isEqualTo(initialValue);
+        put(t1, "row2", "col1", initialValue);
+
+        Transaction t2 = startTransaction();
+        put(t2, "row1", "col1", "101");
+        t2.commit();
+
+        assertThatThrownBy(t1::commit).isInstanceOf(TransactionSerializableConflictException.class);
+    }
+
+    @Test
+    public void testParallelConflictChecksFindConflict() {
+        StartCountingThreadPool executor = new StartCountingThreadPool(4);
+        try {
+            Transaction t1 = readRangeCellAndRowWithParallelConflictChecks(executor);
+
+            Transaction t2 = startTransaction();
+            put(t2, "row3", "col1", "101");
+            t2.commit();
+
+            assertThatThrownBy(t1::commit).isInstanceOf(TransactionSerializableConflictException.class);
+            assertThat(executor.startedTasks).hasPositiveValue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelConflictChecksPassWithoutConflict() {
+        StartCountingThreadPool executor = new StartCountingThreadPool(4);
+        try {
+            Transaction t1 = readRangeCellAndRowWithParallelConflictChecks(executor);
+
+            Transaction t2 = startTransaction();
+            put(t2, "row4", "col1", "101");
+            t2.commit();
+
+            assertThatCode(t1::commit).doesNotThrowAnyException();
+            assertThat(executor.startedTasks).hasPositiveValue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Transaction readRangeCellAndRowWithParallelConflictChecks(ExecutorService executor) {
+        String initialValue = "100";
+        Transaction t0 = startTransaction();
+        put(t0, "row1", "col1", initialValue);
+        put(t0, "row2", "col1", initialValue);
+        put(t0, "row3", "col1", initialValue);
+        put(t0, "row4", "col1", initialValue);
+        t0.commit();
+
+        Transaction t1 =
+                startTransactionWithOptions(new TransactionOptions().withConflictCheckConcurrency(4, executor));
+        BatchingVisitables.copyToList(t1.getRange(
+                TEST_TABLE,
+                RangeRequest.builder()
+                        .startRowInclusive(PtBytes.toBytes("row1"))
+                        .endRowExclusive(PtBytes.toBytes("row2"))
+                        .build()));
+        get(t1, "row2", "col1");
+        t1.getRows(TEST_TABLE, ImmutableList.of(PtBytes.toBytes("row3")), ColumnSelection.all());
+        put(t1, "row9", "col1", initialValue);
+        return t1;
+    }
+
     @Test
     public void testCellReadWriteFailure() {
         String initialValue = "100";
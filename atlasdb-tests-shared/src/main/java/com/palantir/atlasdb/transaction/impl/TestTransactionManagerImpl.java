@@ -213,6 +213,7 @@ public class TestTransactionManagerImpl extends SerializableTransactionManager i
                         defaultGetRangesConcurrency,
                         sweepQueueWriter,
                         deleteExecutor,
+                        commitExecutor,
                         validateLocksOnReads,
                         transactionConfig,
                         ConflictTracer.NO_OP,
@@ -437,6 +437,7 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                         defaultGetRangesConcurrency,
                         MultiTableSweepQueueWriter.NO_OP,
                         MoreExecutors.newDirectExecutorService(),
+                        MoreExecutors.newDirectExecutorService(),
                         true,
                         () -> transactionConfig,
                         ConflictTracer.NO_OP,
@@ -1385,6 +1386,85 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
         spiedTimeLockService.unlock(ImmutableSet.of(res.getLock()));
     }
 
+    @Test
+    public void pipelinedCommitWritesAreVisibleToLaterTransactions() {
+        setTransactionConfig(
+                ImmutableTransactionConfig.builder().pipelineCommitWrites(true).build());
+        long transactionTs = timelockService.getFreshTimestamp();
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        Transaction transaction =
+                getSnapshotTransactionWith(timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP);
+
+        transaction.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("value")));
+        transaction.commit();
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+
+        Transaction readTransaction = txManager.createNewTransaction();
+        assertThat(readTransaction.get(TABLE, ImmutableSet.of(TEST_CELL)))
+                .containsOnlyKeys(TEST_CELL)
+                .hasEntrySatisfying(TEST_CELL, value -> assertThat(value).isEqualTo(PtBytes.toBytes("value")));
+    }
+
+    @Test
+    public void pipelinedCommitDoesNotWriteToKeyValueServiceOnWriteWriteConflict() {
+        setTransactionConfig(
+                ImmutableTransactionConfig.builder().pipelineCommitWrites(true).build());
+        long transactionTs = timelockService.getFreshTimestamp();
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        Transaction transaction =
+                getSnapshotTransactionWith(timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP);
+        transaction.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("mine")));
+
+        writeCells(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("theirs")));
+
+        assertThatThrownBy(transaction::commit).isInstanceOf(TransactionConflictException.class);
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+        assertThat(keyValueService.get(TABLE, ImmutableMap.of(TEST_CELL, transactionTs + 1)))
+                .isEmpty();
+    }
+
+    @Test
+    public void spilledLocalWritesAreReadableAndCommitted() {
+        setTransactionConfig(
+                ImmutableTransactionConfig.builder().spillLocalWritesAfterBytes(1L).build());
+        Cell otherCell = Cell.create(PtBytes.toBytes("row2"), PtBytes.toBytes("column"));
+        long transactionTs = timelockService.getFreshTimestamp();
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        Transaction transaction =
+                getSnapshotTransactionWith(timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP);
+        transaction.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("first")));
+        transaction.put(TABLE, ImmutableMap.of(otherCell, PtBytes.toBytes("second")));
+
+        assertThat(transaction.get(TABLE, ImmutableSet.of(TEST_CELL)).get(TEST_CELL))
+                .isEqualTo(PtBytes.toBytes("first"));
+        assertThat(BatchingVisitables.copyToList(transaction.getRange(TABLE, RangeRequest.all())))
+                .extracting(RowResult::getRowName)
+                .containsExactly(TEST_CELL.getRowName(), otherCell.getRowName());
+        transaction.commit();
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+
+        Transaction readTransaction = txManager.createNewTransaction();
+        assertThat(readTransaction.get(TABLE, ImmutableSet.of(TEST_CELL, otherCell)))
+                .containsOnlyKeys(TEST_CELL, otherCell)
+                .hasEntrySatisfying(otherCell, value -> assertThat(value).isEqualTo(PtBytes.toBytes("second")));
+    }
+
+    @Test
+    public void spilledLocalWritesAreCheckedForWriteWriteConflicts() {
+        setTransactionConfig(
+                ImmutableTransactionConfig.builder().spillLocalWritesAfterBytes(1L).build());
+        long transactionTs = timelockService.getFreshTimestamp();
+        LockImmutableTimestampResponse res = timelockService.lockImmutableTimestamp();
+        Transaction transaction =
+                getSnapshotTransactionWith(timelockService, () -> transactionTs, res, PreCommitConditions.NO_OP);
+        transaction.put(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("mine")));
+
+        writeCells(TABLE, ImmutableMap.of(TEST_CELL, PtBytes.toBytes("theirs")));
+
+        assertThatThrownBy(transaction::commit).isInstanceOf(TransactionConflictException.class);
+        timelockService.unlock(ImmutableSet.of(res.getLock()));
+    }
+
     @Test
     public void getOrphanedSweepSentinelDoesNotThrow() {
         Transaction t1 = txManager.createNewTransaction();
@@ -2149,6 +2229,7 @@ public class SnapshotTransactionTest extends AtlasDbTestCase {
                 defaultGetRangesConcurrency,
                 MultiTableSweepQueueWriter.NO_OP,
                 MoreExecutors.newDirectExecutorService(),
+                MoreExecutors.newDirectExecutorService(),
                 validateLocksOnReads,
                 () -> transactionConfig,
                 ConflictTracer.NO_OP,
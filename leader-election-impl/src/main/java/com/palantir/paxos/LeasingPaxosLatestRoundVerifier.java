@@ -0,0 +1,144 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.common.time.NanoTime;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.immutables.value.Value;
+
+/**
+ * A verifier that, once a quorum has agreed that a round is still the latest, treats that round as the latest for the
+ * duration of a lease without asking the quorum again. The lease is measured on the local monotonic clock from the
+ * moment the verification that granted it was started, and is shortened by the maximum rate at which clocks of
+ * different nodes are assumed to drift apart. Checks made in the last quarter of the lease fall back to the delegate,
+ * so that a leader under steady load renews its lease before it expires.
+ *
+ * This relies on no other node being able to become leader within the lease duration of this node last having been
+ * verified as leader, so the acceptors must be created with the same lease duration; see {@link PaxosAcceptorImpl}.
+ */
+public final class LeasingPaxosLatestRoundVerifier implements PaxosLatestRoundVerifier {
+    private final PaxosLatestRoundVerifier delegate;
+    private final Duration effectiveLeaseDuration;
+    private final Duration renewalMargin;
+    private final LeaseMarkers markers;
+    private final Supplier<NanoTime> clock;
+    private final AtomicReference<Lease> lease = new AtomicReference<>();
+
+    @VisibleForTesting
+    LeasingPaxosLatestRoundVerifier(
+            PaxosLatestRoundVerifier delegate,
+            Duration leaseDuration,
+            double maxClockDriftRate,
+            LeaseMarkers markers,
+            Supplier<NanoTime> clock) {
+        Preconditions.checkArgument(
+                !leaseDuration.isNegative() && !leaseDuration.isZero(),
+                "Lease duration must be positive",
+                SafeArg.of("leaseDuration", leaseDuration));
+        Preconditions.checkArgument(
+                maxClockDriftRate >= 0 && maxClockDriftRate < 1,
+                "Maximum clock drift rate must be in [0, 1)",
+                SafeArg.of("maxClockDriftRate", maxClockDriftRate));
+        this.delegate = delegate;
+        this.effectiveLeaseDuration = Duration.ofNanos((long) (leaseDuration.toNanos() * (1 - maxClockDriftRate)));
+        this.renewalMargin = effectiveLeaseDuration.dividedBy(4);
+        this.markers = markers;
+        this.clock = clock;
+    }
+
+    public static LeasingPaxosLatestRoundVerifier create(
+            PaxosLatestRoundVerifier delegate, Duration leaseDuration, double maxClockDriftRate, LeaseMarkers markers) {
+        return new LeasingPaxosLatestRoundVerifier(delegate, leaseDuration, maxClockDriftRate, markers, NanoTime::now);
+    }
+
+    @Override
+    public PaxosQuorumStatus isLatestRound(long round) {
+        NanoTime now = clock.get();
+        if (hasLeaseFor(round, now)) {
+            markers.markHit().run();
+            return PaxosQuorumStatus.QUORUM_AGREED;
+        }
+        markers.markFallback().run();
+        return renewIfAgreed(round, now, delegate.isLatestRound(round));
+    }
+
+    @Override
+    public ListenableFuture<PaxosQuorumStatus> isLatestRoundAsync(long round) {
+        NanoTime now = clock.get();
+        if (hasLeaseFor(round, now)) {
+            markers.markHit().run();
+            return Futures.immediateFuture(PaxosQuorumStatus.QUORUM_AGREED);
+        }
+        markers.markFallback().run();
+        return Futures.transform(
+                delegate.isLatestRoundAsync(round),
+                status -> renewIfAgreed(round, now, status),
+                MoreExecutors.directExecutor());
+    }
+
+    private boolean hasLeaseFor(long round, NanoTime now) {
+        Lease current = lease.get();
+        return current != null && current.round == round && now.isBefore(current.renewAfter);
+    }
+
+    private PaxosQuorumStatus renewIfAgreed(long round, NanoTime verificationStart, PaxosQuorumStatus status) {
+        if (status == PaxosQuorumStatus.QUORUM_AGREED) {
+            Lease renewed = new Lease(
+                    round,
+                    verificationStart.plus(effectiveLeaseDuration.minus(renewalMargin)),
+                    verificationStart.plus(effectiveLeaseDuration));
+            lease.accumulateAndGet(renewed, (current, update) -> current == null ? update : current.later(update));
+            markers.markRenewal().run();
+        }
+        return status;
+    }
+
+    private static final class Lease {
+        private final long round;
+        private final NanoTime renewAfter;
+        private final NanoTime expiry;
+
+        private Lease(long round, NanoTime renewAfter, NanoTime expiry) {
+            this.round = round;
+            this.renewAfter = renewAfter;
+            this.expiry = expiry;
+        }
+
+        private Lease later(Lease other) {
+            if (round != other.round) {
+                return round > other.round ? this : other;
+            }
+            return expiry.isBefore(other.expiry) ? other : this;
+        }
+    }
+
+    @Value.Immutable
+    public interface LeaseMarkers {
+        Runnable markHit();
+
+        Runnable markRenewal();
+
+        Runnable markFallback();
+    }
+}
@@ -15,45 +15,97 @@
  */
 package com.palantir.paxos;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.common.time.NanoTime;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.ConcurrentSkipListMap;
-
+import java.util.function.Supplier;
+
+/**
+ * If a leader lease is set, this acceptor backs the leases of leaders that use {@link LeasingPaxosLatestRoundVerifier}.
+ * Such a leader holds its lease for at most the lease duration from when a quorum last reported its round as the
+ * latest one. This acceptor therefore refuses to promise any round beyond the latest one it knows of until
+ * the lease duration has passed since a proposer first tried to prepare that round. It reports that round as its
+ * latest from the first attempt on, so that leaders stop renewing their leases on older rounds; by the time any
+ * proposer can win the round, every lease that was granted before the attempt has expired.
+ *
+ * Attempted rounds whose wait is over are forgotten whenever a different round is prepared, and at most
+ * {@link #MAX_ATTEMPTED_ROUNDS} are tracked, the highest being forgotten first. Forgetting a round is always safe, as
+ * a round that is prepared again has to wait for the lease duration again.
+ */
 public final class PaxosAcceptorImpl implements PaxosAcceptor {
     private static final SafeLogger log = SafeLoggerFactory.get(PaxosAcceptorImpl.class);
 
+    @VisibleForTesting
+    static final int MAX_ATTEMPTED_ROUNDS = 1024;
+
     public static PaxosAcceptor newAcceptor(String logDir) {
         PaxosStateLog<PaxosAcceptorState> stateLog = new PaxosStateLogImpl<>(logDir);
-        return new PaxosAcceptorImpl(new ConcurrentSkipListMap<>(), stateLog, stateLog.getGreatestLogEntry());
+        return new PaxosAcceptorImpl(
+                new ConcurrentSkipListMap<>(),
+                stateLog,
+                stateLog.getGreatestLogEntry(),
+                Duration.ZERO,
+                NanoTime::now);
     }
 
     public static PaxosAcceptor newSplittingAcceptor(
             PaxosStorageParameters params,
             SplittingPaxosStateLog.LegacyOperationMarkers legacyOperationMarkers,
+            TailCachingPaxosStateLog.TailCacheMarkers tailCacheMarkers,
             Optional<Long> migrateFrom) {
-        PaxosStateLog<PaxosAcceptorState> stateLog = SplittingPaxosStateLog.createWithMigration(
-                params,
-                PaxosAcceptorState.BYTES_HYDRATOR,
-                legacyOperationMarkers,
-                migrateFrom.map(OptionalLong::of).orElseGet(OptionalLong::empty));
-        return new PaxosAcceptorImpl(new ConcurrentSkipListMap<>(), stateLog, stateLog.getGreatestLogEntry());
+        return newSplittingAcceptor(params, legacyOperationMarkers, tailCacheMarkers, migrateFrom, Duration.ZERO);
+    }
+
+    public static PaxosAcceptor newSplittingAcceptor(
+            PaxosStorageParameters params,
+            SplittingPaxosStateLog.LegacyOperationMarkers legacyOperationMarkers,
+            TailCachingPaxosStateLog.TailCacheMarkers tailCacheMarkers,
+            Optional<Long> migrateFrom,
+            Duration leaderLeaseDuration) {
+        PaxosStateLog<PaxosAcceptorState> stateLog = TailCachingPaxosStateLog.create(
+                SplittingPaxosStateLog.createWithMigration(
+                        params,
+                        PaxosAcceptorState.BYTES_HYDRATOR,
+                        legacyOperationMarkers,
+                        migrateFrom.map(OptionalLong::of).orElseGet(OptionalLong::empty)),
+                params.tailCacheSize(),
+                tailCacheMarkers);
+        return new PaxosAcceptorImpl(
+                new ConcurrentSkipListMap<>(),
+                stateLog,
+                stateLog.getGreatestLogEntry(),
+                leaderLeaseDuration,
+                NanoTime::now);
     }
 
     private final ConcurrentSkipListMap<Long, PaxosAcceptorState> state;
     private final PaxosStateLog<PaxosAcceptorState> acceptorStateLog;
     private final long greatestInLogAtStartup;
+    private final Duration leaderLeaseDuration;
+    private final Supplier<NanoTime> clock;
 
-    private PaxosAcceptorImpl(
+    // rounds beyond the latest one in the state that proposers have tried to prepare, and when each was first tried
+    private final ConcurrentSkipListMap<Long, NanoTime> attemptedRounds = new ConcurrentSkipListMap<>();
+
+    @VisibleForTesting
+    PaxosAcceptorImpl(
             ConcurrentSkipListMap<Long, PaxosAcceptorState> state,
             PaxosStateLog<PaxosAcceptorState> acceptorStateLog,
-            long greatestInLogAtStartup) {
+            long greatestInLogAtStartup,
+            Duration leaderLeaseDuration,
+            Supplier<NanoTime> clock) {
         this.state = state;
         this.acceptorStateLog = acceptorStateLog;
         this.greatestInLogAtStartup = greatestInLogAtStartup;
+        this.leaderLeaseDuration = leaderLeaseDuration;
+        this.clock = clock;
     }
 
     @Override
@@ -65,6 +117,10 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
             return PaxosPromise.reject(pid);
         }
 
+        if (isWithinLeaderLease(seq)) {
+            return PaxosPromise.reject(pid);
+        }
+
         for (; ; ) {
             PaxosAcceptorState oldState = state.get(seq);
 
@@ -120,6 +176,12 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
 
     @Override
     public long getLatestSequencePreparedOrAccepted() {
+        long latestSequence = latestSequenceInState();
+        Long latestAttemptedRound = attemptedRounds.isEmpty() ? null : attemptedRounds.lastKey();
+        return latestAttemptedRound == null ? latestSequence : Math.max(latestSequence, latestAttemptedRound);
+    }
+
+    private long latestSequenceInState() {
         if (state.isEmpty()) {
             return greatestInLogAtStartup;
         } else {
@@ -127,6 +189,38 @@ public final class PaxosAcceptorImpl implements PaxosAcceptor {
         }
     }
 
+    /**
+     * Returns whether the given round is beyond the latest one in the state, and a leader lease may still be live on
+     * an earlier round. Accepts need no such check, as a round can only be accepted once a quorum promised it.
+     */
+    private boolean isWithinLeaderLease(long seq) {
+        if (leaderLeaseDuration.isZero()) {
+            return false;
+        }
+        long latestSequence = latestSequenceInState();
+        attemptedRounds.headMap(latestSequence, true).clear();
+        if (seq <= latestSequence) {
+            return false;
+        }
+        NanoTime now = clock.get();
+        // the round being prepared is kept even if its wait is over, so that its proposer can win it when retrying
+        attemptedRounds.entrySet().removeIf(attempt -> attempt.getKey() != seq && isWaitOver(attempt.getValue(), now));
+        NanoTime firstAttempt = attemptedRounds.computeIfAbsent(seq, _unused -> now);
+        while (attemptedRounds.size() > MAX_ATTEMPTED_ROUNDS) {
+            attemptedRounds.pollLastEntry();
+        }
+        return !isWaitOver(firstAttempt, now);
+    }
+
+    private boolean isWaitOver(NanoTime firstAttempt, NanoTime now) {
+        return !now.isBefore(firstAttempt.plus(leaderLeaseDuration));
+    }
+
+    @VisibleForTesting
+    int attemptedRoundsTracked() {
+        return attemptedRounds.size();
+    }
+
     private void checkLogIfNeeded(long seq) throws TruncatedStateLogException, IOException {
         if (state.containsKey(seq)) {
             return;
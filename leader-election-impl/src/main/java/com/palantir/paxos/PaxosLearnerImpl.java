@@ -52,10 +52,11 @@ public final class PaxosLearnerImpl implements PaxosLearner {
     public static PaxosLearner newSplittingLearner(
             PaxosStorageParameters params,
             SplittingPaxosStateLog.LegacyOperationMarkers legacyOperationMarkers,
+            TailCachingPaxosStateLog.TailCacheMarkers tailCacheMarkers,
             PaxosKnowledgeEventRecorder event) {
         PaxosStateLog<PaxosValue> stateLog = SplittingPaxosStateLog.createWithMigration(
                 params, PaxosValue.BYTES_HYDRATOR, legacyOperationMarkers, OptionalLong.empty());
-        return newLearner(stateLog, event);
+        return newLearner(TailCachingPaxosStateLog.create(stateLog, params.tailCacheSize(), tailCacheMarkers), event);
     }
 
     final SortedMap<Long, PaxosValue> state;
@@ -33,4 +33,12 @@ public interface PaxosStorageParameters {
     default boolean skipConsistencyCheckAndTruncateOldPaxosLog() {
         return false;
     }
+
+    /**
+     * The number of most recent sequences of the log that are kept in memory, see {@link TailCachingPaxosStateLog}.
+     */
+    @Default
+    default int tailCacheSize() {
+        return 256;
+    }
 }
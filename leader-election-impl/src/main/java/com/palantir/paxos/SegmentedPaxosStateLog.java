@@ -0,0 +1,602 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.palantir.common.base.Throwables;
+import com.palantir.common.persist.Persistable;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.UnsafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * A {@link PaxosStateLog} that appends rounds to preallocated segment files in a directory. Each record carries a
+ * checksum, and is synced to disk before the write returns; as segments are preallocated, this does not need to
+ * update file metadata. Rewriting a round appends a new record, and truncating the log appends a truncation record,
+ * so that replaying the segments in order on startup rebuilds the state of the log.
+ *
+ * The location of every live round is held in memory, as are the least and greatest entries of the log. Segments are
+ * deleted once truncation has covered every round that was ever written to them, and all earlier segments have been
+ * deleted too; this keeps replay of the remaining segments correct without rewriting them.
+ */
+public final class SegmentedPaxosStateLog<V extends Persistable & Versionable> implements PaxosStateLog<V>, Closeable {
+    private static final SafeLogger log = SafeLoggerFactory.get(SegmentedPaxosStateLog.class);
+
+    @VisibleForTesting
+    static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024;
+
+    @VisibleForTesting
+    static final String SEGMENT_SUFFIX = ".segment";
+
+    /**
+     * Rounds are migrated from SQLite with their own migration state, so that this does not interfere with the state
+     * of the migration from the file based log to SQLite.
+     */
+    private static final String MIGRATION_USE_CASE_SUFFIX = "-segmented";
+
+    // checksum, type, sequence and payload length
+    @VisibleForTesting
+    static final int HEADER_SIZE = Integer.BYTES + 1 + Long.BYTES + Integer.BYTES;
+    private static final int CHECKSUMMED_OFFSET = Integer.BYTES;
+    private static final byte END_OF_SEGMENT = 0;
+    private static final byte ROUND = 1;
+    private static final byte TRUNCATION = 2;
+    private static final byte[] NO_PAYLOAD = new byte[0];
+    private static final int PREALLOCATION_CHUNK_SIZE = 64 * 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Path directory;
+    private final int segmentSize;
+
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final NavigableMap<Long, Long> locationsBySequence = new TreeMap<>();
+    private Segment activeSegment;
+    private int writePosition;
+
+    private volatile long leastLogEntry = PaxosAcceptor.NO_LOG_ENTRY;
+    private volatile long greatestLogEntry = PaxosAcceptor.NO_LOG_ENTRY;
+
+    private SegmentedPaxosStateLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    public static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> create(Path directory) {
+        return create(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    @VisibleForTesting
+    static <V extends Persistable & Versionable> SegmentedPaxosStateLog<V> create(Path directory, int segmentSize) {
+        SegmentedPaxosStateLog<V> stateLog = new SegmentedPaxosStateLog<>(directory, segmentSize);
+        try {
+            stateLog.recover();
+        } catch (IOException | RuntimeException e) {
+            stateLog.close();
+            throw Throwables.rewrapAndThrowUncheckedException("Failed to open segmented paxos state log", e);
+        }
+        return stateLog;
+    }
+
+    /**
+     * Creates a segmented log in the given directory, after copying the rounds of the SQLite log for the same
+     * namespace and use case into it. Rounds before the migration cutoff are still read from and written to the SQLite
+     * log.
+     */
+    public static <V extends Persistable & Versionable> PaxosStateLog<V> createWithMigrationFromSqlite(
+            PaxosStorageParameters params,
+            Path directory,
+            Persistable.Hydrator<V> hydrator,
+            SplittingPaxosStateLog.LegacyOperationMarkers legacyOperationMarkers) {
+        NamespaceAndUseCase namespaceAndUseCase = params.namespaceAndUseCase();
+        NamespaceAndUseCase migrationStateKey = ImmutableNamespaceAndUseCase.of(
+                namespaceAndUseCase.namespace(), namespaceAndUseCase.useCase() + MIGRATION_USE_CASE_SUFFIX);
+
+        PaxosStateLogMigrator.MigrationContext<V> migrationContext = ImmutableMigrationContext.<V>builder()
+                .sourceLog(SqlitePaxosStateLog.create(namespaceAndUseCase, params.sqliteDataSource()))
+                .destinationLog(create(directory))
+                .hydrator(hydrator)
+                .migrationState(SqlitePaxosStateLogMigrationState.create(migrationStateKey, params.sqliteDataSource()))
+                .migrateFrom(OptionalLong.empty())
+                .namespaceAndUseCase(namespaceAndUseCase)
+                .skipValidationAndTruncateSourceIfMigrated(params.skipConsistencyCheckAndTruncateOldPaxosLog())
+                .build();
+
+        long cutoff = PaxosStateLogMigrator.migrateAndReturnCutoff(migrationContext);
+
+        if (params.skipConsistencyCheckAndTruncateOldPaxosLog()) {
+            return migrationContext.destinationLog();
+        }
+
+        return SplittingPaxosStateLog.create(ImmutableSplittingParameters.<V>builder()
+                .legacyLog(migrationContext.sourceLog())
+                .currentLog(migrationContext.destinationLog())
+                .cutoffInclusive(cutoff)
+                .legacyOperationMarkers(legacyOperationMarkers)
+                .build());
+    }
+
+    @Override
+    public void writeRound(long seq, V round) {
+        byte[] payload = round.persistToBytes();
+        lock.writeLock().lock();
+        try {
+            appendAndSync(List.of(new PendingRecord(ROUND, seq, payload)));
+        } catch (IOException e) {
+            log.error("problem writing paxos state", e);
+            throw Throwables.throwUncheckedException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends all of the given rounds before syncing, so that a batch costs one sync per segment that it touches.
+     */
+    @Override
+    public void writeBatchOfRounds(Iterable<PaxosRound<V>> rounds) {
+        List<PendingRecord> records = new ArrayList<>();
+        for (PaxosRound<V> round : rounds) {
+            records.add(new PendingRecord(ROUND, round.sequence(), round.valueBytes()));
+        }
+        lock.writeLock().lock();
+        try {
+            appendAndSync(records);
+        } catch (IOException e) {
+            log.error("problem writing paxos state", e);
+            throw Throwables.throwUncheckedException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public byte[] readRound(long seq) throws IOException {
+        lock.readLock().lock();
+        try {
+            Long location = locationsBySequence.get(seq);
+            if (location == null) {
+                return null;
+            }
+            Segment segment = segments.get(segmentId(location));
+            ByteBuffer record = segment.readRecord(offset(location));
+            if (record == null || record.get(Integer.BYTES) != ROUND || record.getLong(Integer.BYTES + 1) != seq) {
+                log.error(
+                        "Paxos state log record failed its checksum",
+                        SafeArg.of("sequence", seq),
+                        SafeArg.of("segment", segment.id),
+                        SafeArg.of("offset", offset(location)),
+                        UnsafeArg.of("directory", directory));
+                throw new CorruptLogFileException();
+            }
+            byte[] payload = new byte[record.remaining() - HEADER_SIZE];
+            record.position(HEADER_SIZE);
+            record.get(payload);
+            return payload;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getLeastLogEntry() {
+        return leastLogEntry;
+    }
+
+    @Override
+    public long getGreatestLogEntry() {
+        return greatestLogEntry;
+    }
+
+    @Override
+    public void truncate(long toDeleteInclusive) {
+        lock.writeLock().lock();
+        try {
+            if (!locationsBySequence.headMap(toDeleteInclusive, true).isEmpty()) {
+                appendAndSync(List.of(new PendingRecord(TRUNCATION, toDeleteInclusive, NO_PAYLOAD)));
+            }
+            deleteTruncatedSegments(toDeleteInclusive);
+        } catch (IOException e) {
+            log.error("problem truncating paxos state", e);
+            throw Throwables.throwUncheckedException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void truncateAllRounds() {
+        lock.writeLock().lock();
+        try {
+            if (!locationsBySequence.isEmpty()) {
+                truncate(locationsBySequence.lastKey());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            segments.values().forEach(Segment::close);
+            segments.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @VisibleForTesting
+    int numberOfSegments() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        lock.writeLock().lock();
+        try {
+            Files.createDirectories(directory);
+            List<Long> segmentIds = listSegmentIds();
+            for (int i = 0; i < segmentIds.size(); i++) {
+                long segmentId = segmentIds.get(i);
+                activeSegment = Segment.open(segmentPath(segmentId), segmentId);
+                segments.put(segmentId, activeSegment);
+                writePosition = replay(activeSegment, i == segmentIds.size() - 1);
+            }
+            if (activeSegment == null) {
+                startSegment(0, segmentSize);
+            }
+            updateExtremes();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Long> listSegmentIds() throws IOException {
+        List<Long> segmentIds = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(segmentIds::add);
+        }
+        return segmentIds;
+    }
+
+    /**
+     * Applies the records of the given segment, and returns the offset just after its last record. Only the latest
+     * segment may end in a record that was not completely written, in which case the rest of the segment is cleared so
+     * that later records are not followed by what is left of it.
+     */
+    private int replay(Segment segment, boolean isLatestSegment) throws IOException {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= segment.capacity) {
+            ByteBuffer record = segment.readRecord(offset);
+            if (record == null) {
+                if (!isLatestSegment) {
+                    throw new SafeIllegalStateException(
+                            "Paxos state log segment contains a corrupt record",
+                            SafeArg.of("segment", segment.id),
+                            SafeArg.of("offset", offset),
+                            UnsafeArg.of("directory", directory));
+                }
+                log.warn(
+                        "Discarding an incomplete record at the end of the paxos state log",
+                        SafeArg.of("segment", segment.id),
+                        SafeArg.of("offset", offset),
+                        UnsafeArg.of("directory", directory));
+                segment.clearFrom(offset);
+                return offset;
+            }
+            byte type = record.get(Integer.BYTES);
+            if (type == END_OF_SEGMENT) {
+                return offset;
+            }
+            apply(segment, type, record.getLong(Integer.BYTES + 1), location(segment.id, offset));
+            offset += record.remaining();
+        }
+        return offset;
+    }
+
+    /**
+     * Appends the given records and syncs them to disk. Records only take effect in memory once they have been synced,
+     * so if writing or syncing fails, the unsynced records are cleared from the active segment and the log is left as
+     * it was before them; otherwise, later records would follow a partly written one, and be discarded with it on
+     * replay.
+     */
+    private void appendAndSync(List<PendingRecord> records) throws IOException {
+        List<PendingRecord> unsyncedRecords = new ArrayList<>();
+        int syncedPosition = writePosition;
+        try {
+            for (PendingRecord pendingRecord : records) {
+                ByteBuffer record = encode(pendingRecord.type, pendingRecord.seq, pendingRecord.payload);
+                if (writePosition + record.remaining() > activeSegment.capacity) {
+                    activeSegment.channel.force(false);
+                    applyAll(unsyncedRecords);
+                    syncedPosition = writePosition;
+                    startSegment(activeSegment.id + 1, Math.max(segmentSize, record.remaining()));
+                    syncedPosition = 0;
+                }
+                pendingRecord.location = location(activeSegment.id, writePosition);
+                unsyncedRecords.add(pendingRecord);
+                while (record.hasRemaining()) {
+                    writePosition += activeSegment.channel.write(record, writePosition);
+                }
+            }
+            activeSegment.channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            discardFrom(syncedPosition, e);
+            throw e;
+        }
+        applyAll(unsyncedRecords);
+    }
+
+    private void discardFrom(int offset, Exception cause) {
+        log.warn(
+                "Discarding unsynced records at the end of the paxos state log",
+                SafeArg.of("segment", activeSegment.id),
+                SafeArg.of("offset", offset),
+                SafeArg.of("writePosition", writePosition),
+                UnsafeArg.of("directory", directory));
+        writePosition = offset;
+        try {
+            activeSegment.clearFrom(offset);
+        } catch (IOException | RuntimeException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void applyAll(List<PendingRecord> records) {
+        for (PendingRecord record : records) {
+            apply(segments.get(segmentId(record.location)), record.type, record.seq, record.location);
+        }
+        records.clear();
+        updateExtremes();
+    }
+
+    private void apply(Segment segment, byte type, long seq, long location) {
+        segment.include(seq);
+        if (type == ROUND) {
+            locationsBySequence.put(seq, location);
+        } else {
+            locationsBySequence.headMap(seq, true).clear();
+        }
+    }
+
+    private void startSegment(long segmentId, int capacity) throws IOException {
+        Segment segment = Segment.create(segmentPath(segmentId), segmentId, capacity);
+        try {
+            syncDirectory();
+        } catch (IOException | RuntimeException e) {
+            segment.deleteAfterFailure(e);
+            throw e;
+        }
+        activeSegment = segment;
+        segments.put(segmentId, segment);
+        writePosition = 0;
+    }
+
+    private void deleteTruncatedSegments(long toDeleteInclusive) throws IOException {
+        boolean deletedAny = false;
+        while (segments.size() > 1 && segments.firstEntry().getValue().greatestSequence <= toDeleteInclusive) {
+            Segment oldest = segments.firstEntry().getValue();
+            oldest.delete();
+            segments.remove(oldest.id);
+            deletedAny = true;
+        }
+        if (deletedAny) {
+            syncDirectory();
+        }
+    }
+
+    /**
+     * Syncs the directory itself, so that segments that were created or deleted stay so after a crash. Syncing the
+     * segment files only covers their contents, not their entries in the directory.
+     */
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    private void updateExtremes() {
+        if (locationsBySequence.isEmpty()) {
+            leastLogEntry = PaxosAcceptor.NO_LOG_ENTRY;
+            greatestLogEntry = PaxosAcceptor.NO_LOG_ENTRY;
+        } else {
+            leastLogEntry = locationsBySequence.firstKey();
+            greatestLogEntry = locationsBySequence.lastKey();
+        }
+    }
+
+    private Path segmentPath(long segmentId) {
+        return directory.resolve(segmentId + SEGMENT_SUFFIX);
+    }
+
+    private static ByteBuffer encode(byte type, long seq, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+        record.position(CHECKSUMMED_OFFSET);
+        record.put(type).putLong(seq).putInt(payload.length).put(payload);
+        record.putInt(0, checksum(record.array(), record.capacity()));
+        record.flip();
+        return record;
+    }
+
+    private static int checksum(byte[] record, int length) {
+        CRC32C checksum = new CRC32C();
+        checksum.update(record, CHECKSUMMED_OFFSET, length - CHECKSUMMED_OFFSET);
+        return (int) checksum.getValue();
+    }
+
+    private static long location(long segmentId, int offset) {
+        return (segmentId << Integer.SIZE) | offset;
+    }
+
+    private static long segmentId(long location) {
+        return location >>> Integer.SIZE;
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    private static final class PendingRecord {
+        private final byte type;
+        private final long seq;
+        private final byte[] payload;
+        private long location;
+
+        private PendingRecord(byte type, long seq, byte[] payload) {
+            this.type = type;
+            this.seq = seq;
+            this.payload = payload;
+        }
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final int capacity;
+
+        // the greatest sequence of any round or truncation ever appended to this segment
+        private long greatestSequence = Long.MIN_VALUE;
+
+        private Segment(long id, Path path, FileChannel channel, int capacity) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.capacity = capacity;
+        }
+
+        static Segment open(Path path, long id) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, path, channel, Math.toIntExact(channel.size()));
+        }
+
+        static Segment create(Path path, long id, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(
+                    path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(id, path, channel, capacity);
+            try {
+                segment.clearFrom(0);
+            } catch (IOException | RuntimeException e) {
+                // otherwise the next attempt to start this segment would fail as the file already exists
+                segment.deleteAfterFailure(e);
+                throw e;
+            }
+            return segment;
+        }
+
+        void include(long seq) {
+            greatestSequence = Math.max(greatestSequence, seq);
+        }
+
+        /**
+         * Returns the record at the given offset, positioned at its start, or null if it is not intact. The end of the
+         * segment is returned as a record holding just a header of zeros.
+         */
+        ByteBuffer readRecord(int offset) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(header, offset);
+            if (header.get(Integer.BYTES) == END_OF_SEGMENT && header.getInt(0) == 0) {
+                return header.flip();
+            }
+            int payloadLength = header.getInt(Integer.BYTES + 1 + Long.BYTES);
+            if (payloadLength < 0 || payloadLength > capacity - offset - HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payloadLength);
+            record.put(header.flip());
+            readFully(record, offset + HEADER_SIZE);
+            if (record.getInt(0) != checksum(record.array(), record.capacity())) {
+                return null;
+            }
+            return record.flip();
+        }
+
+        /**
+         * Overwrites the rest of the segment with zeros, which both marks the end of the segment and allocates its
+         * blocks up front.
+         */
+        void clearFrom(int offset) throws IOException {
+            ByteBuffer zeros = ByteBuffer.allocate(PREALLOCATION_CHUNK_SIZE);
+            int position = offset;
+            while (position < capacity) {
+                zeros.clear().limit(Math.min(zeros.capacity(), capacity - position));
+                while (zeros.hasRemaining()) {
+                    position += channel.write(zeros, position);
+                }
+            }
+            channel.force(true);
+        }
+
+        void delete() throws IOException {
+            close();
+            Files.deleteIfExists(path);
+        }
+
+        void deleteAfterFailure(Exception cause) {
+            try {
+                delete();
+            } catch (IOException | RuntimeException e) {
+                cause.addSuppressed(e);
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close paxos state log segment", SafeArg.of("segment", id), e);
+            }
+        }
+
+        private void readFully(ByteBuffer buffer, int offset) throws IOException {
+            int position = offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    return;
+                }
+                position += read;
+            }
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
+import com.google.common.collect.MapMaker;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.exceptions.SafeIllegalStateException;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.GuardedBy;
+import javax.sql.DataSource;
+import org.jdbi.v3.core.Jdbi;
+
+/**
+ * Commits the rounds written by all {@link SqlitePaxosStateLog}s on a data source together, so that concurrent writes
+ * from many namespaces and use cases share one SQLite transaction and sync instead of paying for one each.
+ *
+ * A write made while no commit is in progress is committed straight away by the writing thread, together with every
+ * other round that has been written in the meantime. A write made while a commit is in progress waits for it to
+ * finish, and is then either included in the next commit or makes it. Writes only return once their round has been
+ * committed, and a single write on an otherwise idle data source is committed without any added delay.
+ */
+public final class SqliteGroupCommitWriter {
+    private static final SafeLogger log = SafeLoggerFactory.get(SqliteGroupCommitWriter.class);
+
+    private static final ConcurrentMap<DataSource, SqliteGroupCommitWriter> writers =
+            new MapMaker().weakKeys().makeMap();
+
+    private final Histogram roundsPerCommit = new Histogram(new SlidingTimeWindowArrayReservoir(1, TimeUnit.MINUTES));
+
+    @GuardedBy("this")
+    private List<PendingRound> pendingRounds = new ArrayList<>();
+
+    @GuardedBy("this")
+    private boolean committing = false;
+
+    private SqliteGroupCommitWriter() {}
+
+    public static SqliteGroupCommitWriter forDataSource(DataSource dataSource) {
+        return writers.computeIfAbsent(dataSource, _unused -> new SqliteGroupCommitWriter());
+    }
+
+    /**
+     * The number of rounds written by each SQLite transaction, and therefore by each sync of the write-ahead log.
+     */
+    public Histogram roundsPerCommit() {
+        return roundsPerCommit;
+    }
+
+    /**
+     * Writes the given round, returning once it has been committed. Any {@link Jdbi} on this writer's data source may
+     * be used to commit the rounds of other writers.
+     */
+    void write(Jdbi jdbi, NamespaceAndUseCase namespaceAndUseCase, PaxosRound<?> round) {
+        PendingRound pendingRound = new PendingRound(namespaceAndUseCase, round);
+        List<PendingRound> batch = null;
+        boolean interrupted = false;
+        synchronized (this) {
+            pendingRounds.add(pendingRound);
+            while (committing && !pendingRound.done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (!pendingRound.done) {
+                committing = true;
+                batch = pendingRounds;
+                pendingRounds = new ArrayList<>();
+            }
+        }
+
+        if (batch != null) {
+            commit(jdbi, batch);
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        pendingRound.throwIfFailed();
+    }
+
+    private void commit(Jdbi jdbi, List<PendingRound> batch) {
+        try {
+            commitOrThrow(jdbi, batch);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).failure = e;
+            } else {
+                log.info(
+                        "Failed to commit a batch of paxos rounds, so committing them one at a time instead",
+                        SafeArg.of("numRounds", batch.size()),
+                        e);
+                batch.forEach(pendingRound -> commitIndividually(jdbi, pendingRound));
+            }
+        } finally {
+            synchronized (this) {
+                for (PendingRound pendingRound : batch) {
+                    pendingRound.done = true;
+                }
+                committing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    private void commitIndividually(Jdbi jdbi, PendingRound pendingRound) {
+        try {
+            commitOrThrow(jdbi, List.of(pendingRound));
+        } catch (RuntimeException e) {
+            pendingRound.failure = e;
+        }
+    }
+
+    private void commitOrThrow(Jdbi jdbi, List<PendingRound> batch) {
+        Map<NamespaceAndUseCase, List<PaxosRound<?>>> roundsByLog = new LinkedHashMap<>();
+        for (PendingRound pendingRound : batch) {
+            roundsByLog
+                    .computeIfAbsent(pendingRound.namespaceAndUseCase, _unused -> new ArrayList<>())
+                    .add(pendingRound.round);
+        }
+        jdbi.useTransaction(handle -> {
+            SqlitePaxosStateLog.Queries dao = handle.attach(SqlitePaxosStateLog.Queries.class);
+            roundsByLog.forEach((namespaceAndUseCase, rounds) -> writeBatch(dao, namespaceAndUseCase, rounds));
+        });
+        for (PendingRound pendingRound : batch) {
+            pendingRound.committed = true;
+        }
+        roundsPerCommit.update(batch.size());
+    }
+
+    // the rounds of one namespace and use case all hold the same type of value, and are only bound through their bytes
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static void writeBatch(
+            SqlitePaxosStateLog.Queries dao, NamespaceAndUseCase namespaceAndUseCase, List<PaxosRound<?>> rounds) {
+        dao.writeBatchOfRounds(namespaceAndUseCase.namespace(), namespaceAndUseCase.useCase(), (List) rounds);
+    }
+
+    private static final class PendingRound {
+        private final NamespaceAndUseCase namespaceAndUseCase;
+        private final PaxosRound<?> round;
+
+        // written by the committing thread before done is set, and read by the writing thread after seeing done
+        private RuntimeException failure;
+        private boolean committed = false;
+        private boolean done = false;
+
+        private PendingRound(NamespaceAndUseCase namespaceAndUseCase, PaxosRound<?> round) {
+            this.namespaceAndUseCase = namespaceAndUseCase;
+            this.round = round;
+        }
+
+        private void throwIfFailed() {
+            if (failure != null) {
+                throw failure;
+            }
+            if (!committed) {
+                throw new SafeIllegalStateException(
+                        "Paxos round was not committed",
+                        SafeArg.of("namespaceAndUseCase", namespaceAndUseCase),
+                        SafeArg.of("sequence", round.sequence()));
+            }
+        }
+    }
+}
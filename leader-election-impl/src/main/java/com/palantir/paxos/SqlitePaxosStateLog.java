@@ -33,21 +33,26 @@ import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 
 @SuppressWarnings("checkstyle:FinalClass") // non-final for mocking
 public class SqlitePaxosStateLog<V extends Persistable & Versionable> implements PaxosStateLog<V> {
+    private final NamespaceAndUseCase namespaceAndUseCase;
     private final Client namespace;
     private final String useCase;
     private final Jdbi jdbi;
+    private final SqliteGroupCommitWriter writer;
 
-    private SqlitePaxosStateLog(NamespaceAndUseCase namespaceAndUseCase, Jdbi jdbi) {
+    private SqlitePaxosStateLog(NamespaceAndUseCase namespaceAndUseCase, Jdbi jdbi, SqliteGroupCommitWriter writer) {
+        this.namespaceAndUseCase = namespaceAndUseCase;
         this.namespace = namespaceAndUseCase.namespace();
         this.useCase = namespaceAndUseCase.useCase();
         this.jdbi = jdbi;
+        this.writer = writer;
     }
 
     public static <V extends Persistable & Versionable> PaxosStateLog<V> create(
             NamespaceAndUseCase namespaceAndUseCase, DataSource dataSource) {
         Jdbi jdbi = Jdbi.create(dataSource).installPlugin(new SqlObjectPlugin());
         jdbi.getConfig(JdbiImmutables.class).registerImmutable(Client.class, PaxosRound.class);
-        SqlitePaxosStateLog<V> log = new SqlitePaxosStateLog<>(namespaceAndUseCase, jdbi);
+        SqlitePaxosStateLog<V> log = new SqlitePaxosStateLog<>(
+                namespaceAndUseCase, jdbi, SqliteGroupCommitWriter.forDataSource(dataSource));
         log.initialize();
         return log;
     }
@@ -56,9 +61,13 @@ public class SqlitePaxosStateLog<V extends Persistable & Versionable> implements
         execute(Queries::createTable);
     }
 
+    /**
+     * Rounds written concurrently by logs on the same data source are committed together, see
+     * {@link SqliteGroupCommitWriter}.
+     */
     @Override
     public void writeRound(long seq, V round) {
-        execute(dao -> dao.writeRound(namespace, useCase, seq, round.persistToBytes()));
+        writer.write(jdbi, namespaceAndUseCase, PaxosRound.of(seq, round));
     }
 
     @Override
@@ -0,0 +1,167 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import com.palantir.common.persist.Persistable;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.immutables.value.Value;
+
+/**
+ * Keeps the serialized values of the greatest {@code tailSize} sequences of a {@link PaxosStateLog} in memory, so that
+ * reading recent rounds, for example while a learner catches up, does not need to go to disk. The tail is kept up to
+ * date by writes through this log, which must therefore be the only writer of its delegate.
+ *
+ * Sequences written since this log was created are answered entirely from memory, including sequences that have never
+ * been written. The rounds of the tail that were already in the delegate are not loaded up front, which would hold up
+ * whoever creates the log; instead, each of them is cached the first time it is read. Evicting a round, whether
+ * because the tail has grown or because the log was truncated, moves the start of the tail past it, so that later
+ * reads of it go to the delegate.
+ */
+public final class TailCachingPaxosStateLog<V extends Persistable & Versionable> implements PaxosStateLog<V> {
+    private final PaxosStateLog<V> delegate;
+    private final int tailSize;
+    private final Runnable markHit;
+    private final Runnable markMiss;
+    private final ConcurrentSkipListMap<Long, byte[]> tail = new ConcurrentSkipListMap<>();
+    private int cachedRounds = 0;
+
+    // sequences at or above this are cached if and only if they are present in the delegate
+    private volatile long tailStart;
+
+    // sequences at or above this, but below the tail start, are cached once they are read or written
+    private volatile long fillStart;
+
+    private TailCachingPaxosStateLog(
+            PaxosStateLog<V> delegate, int tailSize, TailCacheMarkers markers, long tailStart, long fillStart) {
+        this.delegate = delegate;
+        this.tailSize = tailSize;
+        this.markHit = markers.markHit();
+        this.markMiss = markers.markMiss();
+        this.tailStart = tailStart;
+        this.fillStart = fillStart;
+    }
+
+    public static <V extends Persistable & Versionable> PaxosStateLog<V> create(
+            PaxosStateLog<V> delegate, int tailSize, TailCacheMarkers markers) {
+        Preconditions.checkArgument(tailSize > 0, "Tail size must be positive", SafeArg.of("tailSize", tailSize));
+        long greatestLogEntry = delegate.getGreatestLogEntry();
+        long fillStart = greatestLogEntry == PaxosAcceptor.NO_LOG_ENTRY
+                ? greatestLogEntry + 1
+                : Math.max(delegate.getLeastLogEntry(), greatestLogEntry - tailSize + 1);
+        return new TailCachingPaxosStateLog<>(delegate, tailSize, markers, greatestLogEntry + 1, fillStart);
+    }
+
+    /**
+     * Writes to the delegate and the cached tail are made under the same lock, so that the cache never holds an older
+     * value of a round than the delegate does.
+     */
+    @Override
+    public synchronized void writeRound(long seq, V round) {
+        delegate.writeRound(seq, round);
+        cache(seq, round.persistToBytes());
+    }
+
+    @Override
+    public synchronized void writeBatchOfRounds(Iterable<PaxosRound<V>> rounds) {
+        delegate.writeBatchOfRounds(rounds);
+        rounds.forEach(round -> cache(round.sequence(), round.valueBytes()));
+    }
+
+    @Override
+    public byte[] readRound(long seq) throws IOException {
+        byte[] cached = tail.get(seq);
+        if (cached != null || seq >= tailStart) {
+            markHit.run();
+            return cached;
+        }
+        markMiss.run();
+        if (seq >= fillStart) {
+            return fill(seq);
+        }
+        return delegate.readRound(seq);
+    }
+
+    @Override
+    public long getLeastLogEntry() {
+        return delegate.getLeastLogEntry();
+    }
+
+    @Override
+    public long getGreatestLogEntry() {
+        return delegate.getGreatestLogEntry();
+    }
+
+    @Override
+    public synchronized void truncate(long toDeleteInclusive) {
+        delegate.truncate(toDeleteInclusive);
+        evictUpTo(toDeleteInclusive);
+    }
+
+    @Override
+    public synchronized void truncateAllRounds() {
+        delegate.truncateAllRounds();
+        if (!tail.isEmpty()) {
+            evictUpTo(tail.lastKey());
+        }
+    }
+
+    /**
+     * Reads under the same lock as writes, so that a round read from the delegate is not cached over a newer value
+     * written in the meantime.
+     */
+    private synchronized byte[] fill(long seq) throws IOException {
+        byte[] bytes = delegate.readRound(seq);
+        if (bytes != null) {
+            cache(seq, bytes);
+        }
+        return bytes;
+    }
+
+    private void cache(long seq, byte[] bytes) {
+        if (seq < fillStart) {
+            return;
+        }
+        if (tail.put(seq, bytes) == null) {
+            cachedRounds++;
+        }
+        if (cachedRounds > tailSize) {
+            evictUpTo(tail.firstKey());
+        }
+    }
+
+    /**
+     * The start of the tail is moved before rounds are removed, so that a concurrent read that misses a removed round
+     * goes on to read it from the delegate.
+     */
+    private void evictUpTo(long seqInclusive) {
+        tailStart = Math.max(tailStart, seqInclusive + 1);
+        fillStart = Math.max(fillStart, seqInclusive + 1);
+        while (!tail.isEmpty() && tail.firstKey() <= seqInclusive) {
+            tail.pollFirstEntry();
+            cachedRounds--;
+        }
+    }
+
+    @Value.Immutable
+    public interface TailCacheMarkers {
+        Runnable markHit();
+
+        Runnable markMiss();
+    }
+}
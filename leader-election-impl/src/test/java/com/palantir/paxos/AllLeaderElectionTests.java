@@ -21,5 +21,10 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ProtobufTest.class, PaxosConsensusFastTest.class, PaxosConsensusSlowTest.class})
+@SuiteClasses({
+    ProtobufTest.class,
+    PaxosConsensusFastTest.class,
+    PaxosConsensusSlowTest.class,
+    PaxosLeaderLeaseTest.class
+})
 public class AllLeaderElectionTests {}
@@ -0,0 +1,128 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.common.time.NanoTime;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+public class LeasingPaxosLatestRoundVerifierTest {
+    private static final long ROUND_ONE = 1L;
+    private static final long ROUND_TWO = 2L;
+    private static final Duration LEASE_DURATION = Duration.ofMillis(1000);
+
+    private final PaxosLatestRoundVerifier delegate = mock(PaxosLatestRoundVerifier.class);
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger renewals = new AtomicInteger();
+    private final AtomicInteger fallbacks = new AtomicInteger();
+    private final LeasingPaxosLatestRoundVerifier verifier = new LeasingPaxosLatestRoundVerifier(
+            delegate,
+            LEASE_DURATION,
+            0.1,
+            ImmutableLeaseMarkers.builder()
+                    .markHit(hits::incrementAndGet)
+                    .markRenewal(renewals::incrementAndGet)
+                    .markFallback(fallbacks::incrementAndGet)
+                    .build(),
+            () -> NanoTime.createForTests(nanos.get()));
+
+    @Test
+    public void servesFromLeaseAfterQuorumAgreed() {
+        when(delegate.isLatestRound(ROUND_ONE)).thenReturn(PaxosQuorumStatus.QUORUM_AGREED);
+
+        assertThat(verifier.isLatestRound(ROUND_ONE)).isEqualTo(PaxosQuorumStatus.QUORUM_AGREED);
+        advance(Duration.ofMillis(500));
+        assertThat(verifier.isLatestRound(ROUND_ONE)).isEqualTo(PaxosQuorumStatus.QUORUM_AGREED);
+        assertThat(verifier.isLatestRound(ROUND_ONE)).isEqualTo(PaxosQuorumStatus.QUORUM_AGREED);
+
+        verify(delegate, times(1)).isLatestRound(ROUND_ONE);
+        assertThat(hits).hasValue(2);
+        assertThat(renewals).hasValue(1);
+        assertThat(fallbacks).hasValue(1);
+    }
+
+    @Test
+    public void fallsBackToDelegateNearExpiryAccountingForClockDrift() {
+        when(delegate.isLatestRound(ROUND_ONE)).thenReturn(PaxosQuorumStatus.QUORUM_AGREED);
+        verifier.isLatestRound(ROUND_ONE);
+
+        // the lease is shortened to 900 ms by the drift rate, and renewed in its last quarter
+        advance(Duration.ofMillis(674));
+        verifier.isLatestRound(ROUND_ONE);
+        verify(delegate, times(1)).isLatestRound(ROUND_ONE);
+
+        advance(Duration.ofMillis(1));
+        verifier.isLatestRound(ROUND_ONE);
+        verify(delegate, times(2)).isLatestRound(ROUND_ONE);
+        assertThat(renewals).hasValue(2);
+    }
+
+    @Test
+    public void doesNotGrantLeaseWithoutQuorumAgreement() {
+        when(delegate.isLatestRound(ROUND_ONE))
+                .thenReturn(PaxosQuorumStatus.NO_QUORUM)
+                .thenReturn(PaxosQuorumStatus.SOME_DISAGREED);
+
+        assertThat(verifier.isLatestRound(ROUND_ONE)).isEqualTo(PaxosQuorumStatus.NO_QUORUM);
+        assertThat(verifier.isLatestRound(ROUND_ONE)).isEqualTo(PaxosQuorumStatus.SOME_DISAGREED);
+
+        assertThat(hits).hasValue(0);
+        assertThat(renewals).hasValue(0);
+        assertThat(fallbacks).hasValue(2);
+    }
+
+    @Test
+    public void leaseOnlyAppliesToVerifiedRound() {
+        when(delegate.isLatestRound(ROUND_ONE)).thenReturn(PaxosQuorumStatus.QUORUM_AGREED);
+        when(delegate.isLatestRound(ROUND_TWO)).thenReturn(PaxosQuorumStatus.SOME_DISAGREED);
+        verifier.isLatestRound(ROUND_ONE);
+
+        assertThat(verifier.isLatestRound(ROUND_TWO)).isEqualTo(PaxosQuorumStatus.SOME_DISAGREED);
+        verify(delegate).isLatestRound(ROUND_TWO);
+    }
+
+    @Test
+    public void leaseIsMeasuredFromStartOfVerification() {
+        SettableFuture<PaxosQuorumStatus> status = SettableFuture.create();
+        when(delegate.isLatestRoundAsync(ROUND_ONE)).thenReturn(status);
+
+        verifier.isLatestRoundAsync(ROUND_ONE);
+        advance(Duration.ofMillis(800));
+        status.set(PaxosQuorumStatus.QUORUM_AGREED);
+        when(delegate.isLatestRoundAsync(ROUND_ONE))
+                .thenReturn(Futures.immediateFuture(PaxosQuorumStatus.QUORUM_AGREED));
+
+        assertThat(Futures.getUnchecked(verifier.isLatestRoundAsync(ROUND_ONE)))
+                .isEqualTo(PaxosQuorumStatus.QUORUM_AGREED);
+        verify(delegate, times(2)).isLatestRoundAsync(ROUND_ONE);
+        assertThat(hits).hasValue(0);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.palantir.common.time.NanoTime;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PaxosAcceptorImplTest {
+    private static final Duration LEASE_DURATION = Duration.ofSeconds(2);
+    private static final PaxosProposalId PROPOSAL_ID = new PaxosProposalId(1, "proposer");
+
+    private final PaxosStateLog<PaxosAcceptorState> stateLog = mock(PaxosStateLog.class);
+    private NanoTime now = NanoTime.createForTests(0);
+    private PaxosAcceptorImpl acceptor;
+
+    @Before
+    public void setup() {
+        when(stateLog.getLeastLogEntry()).thenReturn(PaxosAcceptor.NO_LOG_ENTRY);
+        when(stateLog.getGreatestLogEntry()).thenReturn(PaxosAcceptor.NO_LOG_ENTRY);
+        acceptor = new PaxosAcceptorImpl(
+                new ConcurrentSkipListMap<>(), stateLog, PaxosAcceptor.NO_LOG_ENTRY, LEASE_DURATION, () -> now);
+    }
+
+    @Test
+    public void refusesToPromiseNewRoundUntilLeaseHasPassedSinceFirstAttempt() {
+        assertThat(acceptor.prepare(0, PROPOSAL_ID).isSuccessful()).isFalse();
+        assertThat(acceptor.getLatestSequencePreparedOrAccepted()).isEqualTo(0);
+
+        advance(LEASE_DURATION.minusNanos(1));
+        assertThat(acceptor.prepare(0, PROPOSAL_ID).isSuccessful()).isFalse();
+
+        advance(Duration.ofNanos(1));
+        assertThat(acceptor.prepare(0, PROPOSAL_ID).isSuccessful()).isTrue();
+    }
+
+    @Test
+    public void forgetsAbandonedRoundsOnceTheirWaitIsOver() {
+        acceptor.prepare(100, PROPOSAL_ID);
+        advance(LEASE_DURATION);
+
+        assertThat(acceptor.prepare(0, PROPOSAL_ID).isSuccessful()).isFalse();
+        assertThat(acceptor.attemptedRoundsTracked()).isEqualTo(1);
+        assertThat(acceptor.getLatestSequencePreparedOrAccepted()).isEqualTo(0);
+    }
+
+    @Test
+    public void keepsRoundBeingPreparedEvenIfItsWaitIsLongOver() {
+        acceptor.prepare(0, PROPOSAL_ID);
+        advance(LEASE_DURATION.multipliedBy(10));
+
+        assertThat(acceptor.prepare(0, PROPOSAL_ID).isSuccessful()).isTrue();
+    }
+
+    @Test
+    public void tracksBoundedNumberOfRounds() {
+        for (int seq = 0; seq < 2 * PaxosAcceptorImpl.MAX_ATTEMPTED_ROUNDS; seq++) {
+            acceptor.prepare(seq, PROPOSAL_ID);
+        }
+
+        assertThat(acceptor.attemptedRoundsTracked()).isEqualTo(PaxosAcceptorImpl.MAX_ATTEMPTED_ROUNDS);
+        assertThat(acceptor.getLatestSequencePreparedOrAccepted())
+                .isEqualTo(PaxosAcceptorImpl.MAX_ATTEMPTED_ROUNDS - 1);
+    }
+
+    private void advance(Duration duration) {
+        now = now.plus(duration);
+    }
+}
@@ -50,6 +50,10 @@ public final class PaxosConsensusTestUtils {
     private static final String ACCEPTOR_DIR_PREFIX = LOG_DIR + "acceptor/";
 
     public static PaxosTestState setup(int numLeaders, int quorumSize) {
+        return setup(numLeaders, quorumSize, Duration.ZERO);
+    }
+
+    public static PaxosTestState setup(int numLeaders, int quorumSize, Duration leaderLeaseDuration) {
         List<LeaderElectionService> leaders = new ArrayList<>();
         List<PaxosAcceptor> acceptors = new ArrayList<>();
         List<PaxosLearner> learners = new ArrayList<>();
@@ -63,16 +67,27 @@ public final class PaxosConsensusTestUtils {
                 .markLegacyRead(() -> {})
                 .markLegacyWrite(() -> {})
                 .build();
+        TailCachingPaxosStateLog.TailCacheMarkers noopTailCacheMarkers = ImmutableTailCacheMarkers.builder()
+                .markHit(() -> {})
+                .markMiss(() -> {})
+                .build();
         for (int i = 0; i < numLeaders; i++) {
             failureToggles.add(new AtomicBoolean(false));
 
             PaxosLearner learner = PaxosLearnerImpl.newSplittingLearner(
-                    getLearnerStorageParameters(i, sqliteDataSource), noop, PaxosKnowledgeEventRecorder.NO_OP);
+                    getLearnerStorageParameters(i, sqliteDataSource),
+                    noop,
+                    noopTailCacheMarkers,
+                    PaxosKnowledgeEventRecorder.NO_OP);
             learners.add(ToggleableExceptionProxy.newProxyInstance(
                     PaxosLearner.class, learner, failureToggles.get(i), exception));
 
             PaxosAcceptor acceptor = PaxosAcceptorImpl.newSplittingAcceptor(
-                    getAcceptorStorageParameters(i, sqliteDataSource), noop, Optional.empty());
+                    getAcceptorStorageParameters(i, sqliteDataSource),
+                    noop,
+                    noopTailCacheMarkers,
+                    Optional.empty(),
+                    leaderLeaseDuration);
             acceptors.add(ToggleableExceptionProxy.newProxyInstance(
                     PaxosAcceptor.class, acceptor, failureToggles.get(i), exception));
         }
@@ -94,7 +109,7 @@ public final class PaxosConsensusTestUtils {
                     Maps.toMap(learners, $ -> executor),
                     PaxosConstants.CANCEL_REMAINING_CALLS);
 
-            LeaderElectionService leader = new LeaderElectionServiceBuilder()
+            LeaderElectionServiceBuilder leaderBuilder = new LeaderElectionServiceBuilder()
                     .leaderUuid(leaderUuid)
                     .pingRate(Duration.ZERO)
                     .randomWaitBeforeProposingLeadership(Duration.ZERO)
@@ -103,8 +118,19 @@ public final class PaxosConsensusTestUtils {
                     .acceptorClient(acceptorNetworkClient)
                     .learnerClient(learnerNetworkClient)
                     .leaderPinger(SingleLeaderPinger.createForTests(
-                            ImmutableMap.of(), Duration.ZERO, leaderUuid, true, Optional.empty()))
-                    .build();
+                            ImmutableMap.of(), Duration.ZERO, leaderUuid, true, Optional.empty()));
+            if (!leaderLeaseDuration.isZero()) {
+                leaderBuilder.latestRoundVerifier(LeasingPaxosLatestRoundVerifier.create(
+                        new CoalescingPaxosLatestRoundVerifier(new PaxosLatestRoundVerifierImpl(acceptorNetworkClient)),
+                        leaderLeaseDuration,
+                        0.05,
+                        ImmutableLeaseMarkers.builder()
+                                .markHit(() -> {})
+                                .markRenewal(() -> {})
+                                .markFallback(() -> {})
+                                .build()));
+            }
+            LeaderElectionService leader = leaderBuilder.build();
             leaders.add(SimulatingFailingServerProxy.newProxyInstance(
                     LeaderElectionService.class, leader, SERVER_DELAY_TIME_MS, failureToggles.get(i)));
         }
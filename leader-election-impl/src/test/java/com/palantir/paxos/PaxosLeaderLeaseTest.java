@@ -0,0 +1,76 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.util.concurrent.Futures;
+import com.palantir.common.time.NanoTime;
+import com.palantir.leader.LeaderElectionService.LeadershipToken;
+import com.palantir.leader.LeaderElectionService.StillLeadingStatus;
+import java.time.Duration;
+import org.awaitility.Awaitility;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PaxosLeaderLeaseTest {
+    private PaxosTestState state;
+
+    private static final int NUM_POTENTIAL_LEADERS = 3;
+    private static final int QUORUM_SIZE = 2;
+    private static final Duration LEASE_DURATION = Duration.ofSeconds(2);
+
+    @Before
+    public void setup() {
+        state = PaxosConsensusTestUtils.setup(NUM_POTENTIAL_LEADERS, QUORUM_SIZE, LEASE_DURATION);
+    }
+
+    @After
+    public void teardown() throws Exception {
+        PaxosConsensusTestUtils.teardown(state);
+    }
+
+    @Test
+    public void cannotTakeOverLeadershipWhileLeaseIsLive() {
+        LeadershipToken token = state.gainLeadership(0);
+
+        NanoTime firstAttempt = NanoTime.now();
+        assertThat(state.leader(1).hostileTakeover()).isFalse();
+        assertThat(Futures.getUnchecked(state.leader(0).isStillLeading(token)))
+                .isEqualTo(StillLeadingStatus.LEADING);
+
+        Awaitility.await()
+                .atMost(LEASE_DURATION.multipliedBy(5))
+                .pollInterval(Duration.ofMillis(100))
+                .until(() -> state.leader(1).hostileTakeover());
+        assertThat(firstAttempt.plus(LEASE_DURATION).isBefore(NanoTime.now())).isTrue();
+        assertThat(Futures.getUnchecked(state.leader(0).isStillLeading(token)))
+                .isEqualTo(StillLeadingStatus.NOT_LEADING);
+    }
+
+    @Test
+    public void leaderLosesLeaseOnceTakeoverIsAttempted() {
+        LeadershipToken token = state.gainLeadership(0);
+        assertThat(state.leader(1).hostileTakeover()).isFalse();
+
+        Awaitility.await()
+                .atMost(LEASE_DURATION.multipliedBy(2))
+                .pollInterval(Duration.ofMillis(100))
+                .until(() -> Futures.getUnchecked(state.leader(0).isStillLeading(token))
+                        == StillLeadingStatus.NOT_LEADING);
+    }
+}
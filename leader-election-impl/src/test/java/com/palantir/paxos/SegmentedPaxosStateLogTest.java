@@ -0,0 +1,208 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static com.palantir.paxos.PaxosStateLogTestUtils.NAMESPACE;
+import static com.palantir.paxos.PaxosStateLogTestUtils.generateRounds;
+import static com.palantir.paxos.PaxosStateLogTestUtils.getPaxosValue;
+import static com.palantir.paxos.PaxosStateLogTestUtils.longToBytes;
+import static com.palantir.paxos.PaxosStateLogTestUtils.readRoundUnchecked;
+import static com.palantir.paxos.PaxosStateLogTestUtils.valueForRound;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentedPaxosStateLogTest {
+    private static final int SMALL_SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path directory;
+    private SegmentedPaxosStateLog<PaxosValue> stateLog;
+
+    @Before
+    public void setup() {
+        directory = tempFolder.getRoot().toPath().resolve("log");
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        stateLog.close();
+    }
+
+    @Test
+    public void emptyLogHasNoEntries() throws IOException {
+        assertThat(stateLog.readRound(0L)).isNull();
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+    }
+
+    @Test
+    public void canWriteOverwriteAndReadRounds() {
+        stateLog.writeRound(5L, valueForRound(5L));
+        stateLog.writeRound(3L, valueForRound(3L));
+        PaxosValue overwritten = new PaxosValue("otherLeader", 5L, longToBytes(42L));
+        stateLog.writeRound(5L, overwritten);
+
+        assertThat(getPaxosValue(stateLog, 3L)).isEqualTo(valueForRound(3L));
+        assertThat(getPaxosValue(stateLog, 5L)).isEqualTo(overwritten);
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(3L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(5L);
+    }
+
+    @Test
+    public void rollsOverToNewSegmentsAndRecoversThemOnRestart() {
+        stateLog.writeBatchOfRounds(generateRounds(LongStream.rangeClosed(0, 99)));
+        assertThat(stateLog.numberOfSegments()).isGreaterThan(1);
+
+        reopen();
+
+        LongStream.rangeClosed(0, 99)
+                .forEach(seq -> assertThat(getPaxosValue(stateLog, seq)).isEqualTo(valueForRound(seq)));
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(0L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(99L);
+    }
+
+    @Test
+    public void truncationDeletesWholeSegmentsAndSurvivesRestart() {
+        stateLog.writeBatchOfRounds(generateRounds(LongStream.rangeClosed(0, 99)));
+        int segmentsBeforeTruncation = stateLog.numberOfSegments();
+
+        stateLog.truncate(59L);
+        assertThat(stateLog.numberOfSegments()).isLessThan(segmentsBeforeTruncation);
+        reopen();
+
+        assertThat(readRoundUnchecked(stateLog, 59L)).isNull();
+        assertThat(getPaxosValue(stateLog, 60L)).isEqualTo(valueForRound(60L));
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(60L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(99L);
+    }
+
+    @Test
+    public void roundsWrittenAfterTruncationSurviveRestart() {
+        stateLog.writeBatchOfRounds(generateRounds(LongStream.rangeClosed(0, 9)));
+        stateLog.truncate(9L);
+        stateLog.writeRound(4L, valueForRound(4L));
+
+        reopen();
+
+        assertThat(getPaxosValue(stateLog, 4L)).isEqualTo(valueForRound(4L));
+        assertThat(readRoundUnchecked(stateLog, 3L)).isNull();
+        assertThat(stateLog.getLeastLogEntry()).isEqualTo(4L);
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(4L);
+    }
+
+    @Test
+    public void truncateAllRoundsEmptiesTheLog() {
+        stateLog.writeBatchOfRounds(generateRounds(LongStream.rangeClosed(0, 99)));
+        stateLog.truncateAllRounds();
+        reopen();
+
+        assertThat(stateLog.numberOfSegments()).isEqualTo(1);
+        assertThat(readRoundUnchecked(stateLog, 99L)).isNull();
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(PaxosAcceptor.NO_LOG_ENTRY);
+    }
+
+    @Test
+    public void incompleteRecordAtEndOfLogIsDiscarded() throws IOException {
+        stateLog.writeRound(1L, valueForRound(1L));
+        stateLog.writeRound(2L, valueForRound(2L));
+        corruptByteOfLatestSegment(lengthOfSegmentContents() - 1);
+
+        reopen();
+        assertThat(getPaxosValue(stateLog, 1L)).isEqualTo(valueForRound(1L));
+        assertThat(readRoundUnchecked(stateLog, 2L)).isNull();
+        assertThat(stateLog.getGreatestLogEntry()).isEqualTo(1L);
+
+        stateLog.writeRound(3L, valueForRound(3L));
+        reopen();
+        assertThat(getPaxosValue(stateLog, 3L)).isEqualTo(valueForRound(3L));
+    }
+
+    @Test
+    public void readingCorruptRecordThrows() throws IOException {
+        stateLog.writeRound(1L, valueForRound(1L));
+        stateLog.writeRound(2L, valueForRound(2L));
+        corruptByteOfLatestSegment(20);
+
+        assertThatThrownBy(() -> stateLog.readRound(1L)).isInstanceOf(PaxosStateLog.CorruptLogFileException.class);
+        assertThat(getPaxosValue(stateLog, 2L)).isEqualTo(valueForRound(2L));
+    }
+
+    @Test
+    public void migratesRoundsFromSqlite() throws IOException {
+        DataSource dataSource = SqliteConnections.getDefaultConfiguredPooledDataSource(
+                tempFolder.newFolder("sqlite").toPath());
+        PaxosStateLog<PaxosValue> sqliteLog = SqlitePaxosStateLog.create(NAMESPACE, dataSource);
+        sqliteLog.writeBatchOfRounds(generateRounds(LongStream.rangeClosed(0, 99)));
+        AtomicInteger legacyWrites = new AtomicInteger();
+        PaxosStorageParameters params = ImmutablePaxosStorageParameters.builder()
+                .namespaceAndUseCase(NAMESPACE)
+                .sqliteDataSource(dataSource)
+                .build();
+
+        PaxosStateLog<PaxosValue> migratedLog = SegmentedPaxosStateLog.createWithMigrationFromSqlite(
+                params,
+                tempFolder.newFolder("segmented").toPath(),
+                PaxosValue.BYTES_HYDRATOR,
+                ImmutableLegacyOperationMarkers.builder()
+                        .markLegacyWrite(legacyWrites::incrementAndGet)
+                        .markLegacyRead(() -> {})
+                        .build());
+
+        assertThat(migratedLog.getGreatestLogEntry()).isEqualTo(99L);
+        long cutoff = 99L - PaxosStateLogMigrator.SAFETY_BUFFER;
+        LongStream.rangeClosed(0, 99)
+                .forEach(seq -> assertThat(getPaxosValue(migratedLog, seq)).isEqualTo(valueForRound(seq)));
+        migratedLog.writeRound(100L, valueForRound(100L));
+        migratedLog.writeRound(cutoff - 1, valueForRound(cutoff - 1));
+        assertThat(legacyWrites).hasValue(1);
+        assertThat(readRoundUnchecked(sqliteLog, 100L)).isNull();
+    }
+
+    private void reopen() {
+        stateLog.close();
+        stateLog = SegmentedPaxosStateLog.create(directory, SMALL_SEGMENT_SIZE);
+    }
+
+    private int lengthOfSegmentContents() {
+        // every record here holds a round of the same size, and the log has not rolled over
+        return 2 * (SegmentedPaxosStateLog.HEADER_SIZE + valueForRound(1L).persistToBytes().length);
+    }
+
+    private void corruptByteOfLatestSegment(int offset) throws IOException {
+        try (RandomAccessFile segment = new RandomAccessFile(
+                directory.resolve("0" + SegmentedPaxosStateLog.SEGMENT_SUFFIX).toFile(), "rw")) {
+            segment.seek(offset);
+            int original = segment.read();
+            segment.seek(offset);
+            segment.write(original ^ 0xFF);
+        }
+    }
+}
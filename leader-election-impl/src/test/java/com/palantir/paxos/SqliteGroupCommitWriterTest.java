@@ -0,0 +1,131 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static com.palantir.paxos.PaxosStateLogTestUtils.getPaxosValue;
+import static com.palantir.paxos.PaxosStateLogTestUtils.readRoundUnchecked;
+import static com.palantir.paxos.PaxosStateLogTestUtils.valueForRound;
+import static com.palantir.paxos.PaxosStateLogTestUtils.wrap;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.Futures;
+import com.palantir.common.concurrent.PTExecutors;
+import com.palantir.logsafe.exceptions.SafeIllegalArgumentException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SqliteGroupCommitWriterTest {
+    private static final int NUM_NAMESPACES = 50;
+    private static final int ROUNDS_PER_NAMESPACE = 20;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final ExecutorService executor = PTExecutors.newFixedThreadPool(NUM_NAMESPACES);
+
+    private DataSource dataSource;
+
+    @Before
+    public void setup() {
+        dataSource = SqliteConnections.getDefaultConfiguredPooledDataSource(
+                tempFolder.getRoot().toPath());
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentWritesFromManyNamespacesAreAllCommitted() {
+        List<PaxosStateLog<PaxosValue>> logs = IntStream.range(0, NUM_NAMESPACES)
+                .mapToObj(namespace -> SqlitePaxosStateLog.<PaxosValue>create(
+                        wrap(Client.of("client" + namespace), "useCase"), dataSource))
+                .collect(Collectors.toList());
+        CyclicBarrier barrier = new CyclicBarrier(NUM_NAMESPACES);
+
+        List<Future<?>> futures = logs.stream()
+                .map(log -> executor.submit(() -> {
+                    barrier.await();
+                    for (int seq = 0; seq < ROUNDS_PER_NAMESPACE; seq++) {
+                        log.writeRound(seq, valueForRound(seq));
+                    }
+                    return null;
+                }))
+                .collect(Collectors.toList());
+        futures.forEach(future -> assertThatCode(() -> Futures.getUnchecked(future))
+                .doesNotThrowAnyException());
+
+        for (PaxosStateLog<PaxosValue> log : logs) {
+            for (int seq = 0; seq < ROUNDS_PER_NAMESPACE; seq++) {
+                assertThat(getPaxosValue(log, seq)).isEqualTo(valueForRound(seq));
+            }
+        }
+        long[] roundsPerCommit = SqliteGroupCommitWriter.forDataSource(dataSource)
+                .roundsPerCommit()
+                .getSnapshot()
+                .getValues();
+        assertThat(Arrays.stream(roundsPerCommit).sum()).isEqualTo(NUM_NAMESPACES * ROUNDS_PER_NAMESPACE);
+    }
+
+    @Test
+    public void failedWriteDoesNotFailConcurrentWrites() {
+        PaxosStateLog<PaxosValue> failingLog =
+                SqlitePaxosStateLog.create(wrap(Client.of("failing"), "useCase"), dataSource);
+        PaxosValue unserializableValue = mock(PaxosValue.class);
+        when(unserializableValue.persistToBytes()).thenThrow(new SafeIllegalArgumentException("cannot serialize"));
+        List<PaxosStateLog<PaxosValue>> logs = IntStream.range(0, NUM_NAMESPACES - 1)
+                .mapToObj(namespace -> SqlitePaxosStateLog.<PaxosValue>create(
+                        wrap(Client.of("client" + namespace), "useCase"), dataSource))
+                .collect(Collectors.toList());
+        CyclicBarrier barrier = new CyclicBarrier(NUM_NAMESPACES);
+
+        Future<?> failingWrite = executor.submit(() -> {
+            barrier.await();
+            failingLog.writeRound(1L, unserializableValue);
+            return null;
+        });
+        List<Future<?>> futures = logs.stream()
+                .map(log -> executor.submit(() -> {
+                    barrier.await();
+                    log.writeRound(1L, valueForRound(1L));
+                    return null;
+                }))
+                .collect(Collectors.toList());
+
+        assertThatThrownBy(() -> Futures.getUnchecked(failingWrite))
+                .hasRootCauseInstanceOf(SafeIllegalArgumentException.class);
+        futures.forEach(future -> assertThatCode(() -> Futures.getUnchecked(future))
+                .doesNotThrowAnyException());
+        assertThat(readRoundUnchecked(failingLog, 1L)).isNull();
+        logs.forEach(log -> assertThat(getPaxosValue(log, 1L)).isEqualTo(valueForRound(1L)));
+    }
+}
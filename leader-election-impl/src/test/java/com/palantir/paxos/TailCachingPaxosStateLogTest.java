@@ -0,0 +1,160 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.paxos;
+
+import static com.palantir.paxos.PaxosStateLogTestUtils.NAMESPACE;
+import static com.palantir.paxos.PaxosStateLogTestUtils.generateRounds;
+import static com.palantir.paxos.PaxosStateLogTestUtils.getPaxosValue;
+import static com.palantir.paxos.PaxosStateLogTestUtils.longToBytes;
+import static com.palantir.paxos.PaxosStateLogTestUtils.readRoundUnchecked;
+import static com.palantir.paxos.PaxosStateLogTestUtils.valueForRound;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TailCachingPaxosStateLogTest {
+    private static final int TAIL_SIZE = 5;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final TailCachingPaxosStateLog.TailCacheMarkers markers = ImmutableTailCacheMarkers.builder()
+            .markHit(hits::incrementAndGet)
+            .markMiss(misses::incrementAndGet)
+            .build();
+
+    private PaxosStateLog<PaxosValue> delegate;
+
+    @Before
+    public void setup() {
+        delegate = spy(SqlitePaxosStateLog.<PaxosValue>create(
+                NAMESPACE,
+                SqliteConnections.getDefaultConfiguredPooledDataSource(
+                        tempFolder.getRoot().toPath())));
+    }
+
+    @Test
+    public void readsOfRecentRoundsAreServedFromMemory() throws IOException {
+        PaxosStateLog<PaxosValue> stateLog = TailCachingPaxosStateLog.create(delegate, TAIL_SIZE, markers);
+        LongStream.rangeClosed(0, 9).forEach(seq -> stateLog.writeRound(seq, valueForRound(seq)));
+
+        LongStream.rangeClosed(5, 9)
+                .forEach(seq -> assertThat(getPaxosValue(stateLog, seq)).isEqualTo(valueForRound(seq)));
+        assertThat(stateLog.readRound(10L)).isNull();
+        verify(delegate, never()).readRound(anyLong());
+        assertThat(hits).hasValue(6);
+
+        assertThat(getPaxosValue(stateLog, 4L)).isEqualTo(valueForRound(4L));
+        verify(delegate).readRound(4L);
+        assertThat(misses).hasValue(1);
+    }
+
+    @Test
+    public void cachesTailOfExistingLogWhenFirstRead() throws IOException {
+        delegate.writeBatchOfRounds(generateRounds(LongStream.rangeClosed(0, 9)));
+        clearInvocations(delegate);
+        PaxosStateLog<PaxosValue> stateLog = TailCachingPaxosStateLog.create(delegate, TAIL_SIZE, markers);
+        verify(delegate, never()).readRound(anyLong());
+
+        for (int i = 0; i < 2; i++) {
+            LongStream.rangeClosed(4, 9)
+                    .forEach(seq -> assertThat(getPaxosValue(stateLog, seq)).isEqualTo(valueForRound(seq)));
+        }
+        for (long seq = 5; seq <= 9; seq++) {
+            verify(delegate).readRound(seq);
+        }
+        verify(delegate, times(2)).readRound(4L);
+        assertThat(hits).hasValue(5);
+        assertThat(misses).hasValue(7);
+    }
+
+    @Test
+    public void writesToTailOfExistingLogAreCached() throws IOException {
+        delegate.writeBatchOfRounds(generateRounds(LongStream.rangeClosed(0, 9)));
+        PaxosStateLog<PaxosValue> stateLog = TailCachingPaxosStateLog.create(delegate, TAIL_SIZE, markers);
+        PaxosValue rewritten = new PaxosValue("otherLeader", 7L, longToBytes(42L));
+        stateLog.writeRound(7L, rewritten);
+        clearInvocations(delegate);
+
+        assertThat(getPaxosValue(stateLog, 7L)).isEqualTo(rewritten);
+        verify(delegate, never()).readRound(anyLong());
+    }
+
+    @Test
+    public void cacheHoldsLatestValueOfRewrittenRound() {
+        PaxosStateLog<PaxosValue> stateLog = TailCachingPaxosStateLog.create(delegate, TAIL_SIZE, markers);
+        PaxosValue rewritten = new PaxosValue("otherLeader", 3L, longToBytes(42L));
+        stateLog.writeRound(3L, valueForRound(3L));
+        stateLog.writeRound(3L, rewritten);
+
+        assertThat(getPaxosValue(stateLog, 3L)).isEqualTo(rewritten);
+    }
+
+    @Test
+    public void truncatedRoundsAreReadFromDelegate() throws IOException {
+        doNothing().when(delegate).truncate(anyLong());
+        PaxosStateLog<PaxosValue> stateLog = TailCachingPaxosStateLog.create(delegate, TAIL_SIZE, markers);
+        LongStream.rangeClosed(0, 4).forEach(seq -> stateLog.writeRound(seq, valueForRound(seq)));
+
+        stateLog.truncate(2L);
+
+        assertThat(getPaxosValue(stateLog, 2L)).isEqualTo(valueForRound(2L));
+        verify(delegate).readRound(2L);
+        assertThat(getPaxosValue(stateLog, 3L)).isEqualTo(valueForRound(3L));
+        verify(delegate, never()).readRound(3L);
+    }
+
+    @Test
+    public void truncatedRoundsOfExistingLogAreNotCached() throws IOException {
+        delegate.writeBatchOfRounds(generateRounds(LongStream.rangeClosed(0, 9)));
+        doNothing().when(delegate).truncate(anyLong());
+        PaxosStateLog<PaxosValue> stateLog = TailCachingPaxosStateLog.create(delegate, TAIL_SIZE, markers);
+
+        stateLog.truncate(6L);
+        getPaxosValue(stateLog, 6L);
+        getPaxosValue(stateLog, 6L);
+
+        verify(delegate, times(2)).readRound(6L);
+    }
+
+    @Test
+    public void truncateAllRoundsEvictsEverything() {
+        PaxosStateLog<PaxosValue> stateLog = TailCachingPaxosStateLog.create(delegate, TAIL_SIZE, markers);
+        LongStream.rangeClosed(0, 4).forEach(seq -> stateLog.writeRound(seq, valueForRound(seq)));
+
+        stateLog.truncateAllRounds();
+
+        assertThat(readRoundUnchecked(stateLog, 4L)).isNull();
+        assertThat(misses).hasValue(1);
+        stateLog.writeRound(5L, valueForRound(5L));
+        assertThat(getPaxosValue(stateLog, 5L)).isEqualTo(valueForRound(5L));
+    }
+}
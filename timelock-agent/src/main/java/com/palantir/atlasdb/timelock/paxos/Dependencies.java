@@ -84,6 +84,8 @@ public interface Dependencies {
         AutobatchingLeadershipObserverFactory leadershipObserverFactory();
 
         Factories.PaxosLatestRoundVerifierFactory latestRoundVerifierFactory();
+
+        Duration leaderLeaseDuration();
     }
 
     interface LeaderElectionService {
@@ -104,6 +106,8 @@ public interface Dependencies {
         com.palantir.atlasdb.timelock.paxos.NetworkClientFactories networkClientFactories();
 
         Factories.PaxosLatestRoundVerifierFactory latestRoundVerifierFactory();
+
+        Duration leaderLeaseDuration();
     }
 
     interface HealthCheckPinger {
@@ -16,10 +16,15 @@
 
 package com.palantir.atlasdb.timelock.paxos;
 
+import com.codahale.metrics.Counter;
+import com.palantir.atlasdb.AtlasDbMetricNames;
 import com.palantir.leader.BatchingLeaderElectionService;
 import com.palantir.leader.LeaderElectionServiceBuilder;
 import com.palantir.paxos.Client;
+import com.palantir.paxos.ImmutableLeaseMarkers;
+import com.palantir.paxos.LeasingPaxosLatestRoundVerifier;
 import com.palantir.paxos.PaxosAcceptorNetworkClient;
+import com.palantir.paxos.PaxosLatestRoundVerifier;
 import com.palantir.paxos.PaxosProposer;
 import java.time.Duration;
 import java.util.Map;
@@ -48,13 +53,39 @@ public class LeaderElectionServiceFactory {
                 .knowledge(dependencies.localLearner())
                 .acceptorClient(acceptorClient)
                 .learnerClient(dependencies.networkClientFactories().learner().create(dependencies.paxosClient()))
-                .latestRoundVerifier(dependencies.latestRoundVerifierFactory().create(acceptorClient))
+                .latestRoundVerifier(withLeaderLeaseIfEnabled(
+                        dependencies, dependencies.latestRoundVerifierFactory().create(acceptorClient)))
                 .decorateProposer(uninstrumentedPaxosProposer -> instrumentProposer(
                         dependencies.paxosClient(), dependencies.metrics(), uninstrumentedPaxosProposer))
                 .leaderAddressCacheTtl(Duration.ofSeconds(1))
                 .build());
     }
 
+    private static PaxosLatestRoundVerifier withLeaderLeaseIfEnabled(
+            Dependencies.LeaderElectionService dependencies, PaxosLatestRoundVerifier latestRoundVerifier) {
+        // the lease must be the one the local paxos components were created with, which acceptors enforce
+        if (dependencies.leaderLeaseDuration().isZero()) {
+            return latestRoundVerifier;
+        }
+        return LeasingPaxosLatestRoundVerifier.create(
+                latestRoundVerifier,
+                dependencies.leaderLeaseDuration(),
+                dependencies.runtime().get().leaderLeaseMaxClockDriftRate(),
+                createLeaseMetrics(dependencies.metrics()));
+    }
+
+    private static LeasingPaxosLatestRoundVerifier.LeaseMarkers createLeaseMetrics(TimelockPaxosMetrics metrics) {
+        return ImmutableLeaseMarkers.builder()
+                .markHit(getLeaseCounter(metrics, AtlasDbMetricNames.LEADER_LEASE_HITS)::inc)
+                .markRenewal(getLeaseCounter(metrics, AtlasDbMetricNames.LEADER_LEASE_RENEWALS)::inc)
+                .markFallback(getLeaseCounter(metrics, AtlasDbMetricNames.LEADER_LEASE_FALLBACKS)::inc)
+                .build();
+    }
+
+    private static Counter getLeaseCounter(TimelockPaxosMetrics metrics, String name) {
+        return metrics.asMetricsManager().registerOrGetCounter(LeasingPaxosLatestRoundVerifier.class, name);
+    }
+
     private static PaxosProposer instrumentProposer(
             Client paxosClient, TimelockPaxosMetrics metrics, PaxosProposer uninstrumentedPaxosProposer) {
         return metrics.instrument(PaxosProposer.class, uninstrumentedPaxosProposer, paxosClient);
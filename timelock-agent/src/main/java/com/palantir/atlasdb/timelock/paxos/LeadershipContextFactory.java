@@ -69,7 +69,14 @@ public abstract class LeadershipContextFactory
                 install().timeLockVersion(),
                 install()
                         .install()
-                        .iAmOnThePersistenceTeamAndKnowWhatImDoingSkipSqliteConsistencyCheckAndTruncateFileBasedLog());
+                        .iAmOnThePersistenceTeamAndKnowWhatImDoingSkipSqliteConsistencyCheckAndTruncateFileBasedLog(),
+                leaderLeaseDuration());
+    }
+
+    @Override
+    @Value.Derived
+    public Duration leaderLeaseDuration() {
+        return runtime().get().leaderLeaseDuration();
     }
 
     @Override
@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.timestamp.ManagedTimestampService;
+import java.io.Closeable;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +41,11 @@ public abstract class PaxosResources {
 
     public abstract TimeLockCorruptionComponents timeLockCorruptionComponents();
 
+    /**
+     * Resources that are not tied to a single client, which are closed along with the leadership components.
+     */
+    abstract List<Closeable> closeables();
+
     @Value.Derived
     Map<PaxosUseCase, BatchPaxosResources> leadershipBatchResources() {
         return KeyedStream.stream(leadershipBatchComponents())
@@ -68,7 +74,7 @@ public abstract class PaxosResources {
     @Value.Derived
     public LeadershipComponents leadershipComponents() {
         return new LeadershipComponents(
-                leadershipContextFactory(), leadershipContextFactory().healthCheckPingers());
+                leadershipContextFactory(), leadershipContextFactory().healthCheckPingers(), closeables());
     }
 
     private static BatchPaxosResources batchResourcesFromComponents(LocalPaxosComponents components) {
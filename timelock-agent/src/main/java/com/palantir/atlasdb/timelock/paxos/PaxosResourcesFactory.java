@@ -19,6 +19,7 @@ package com.palantir.atlasdb.timelock.paxos;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
 import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.proxy.PredicateSwitchedProxy;
 import com.palantir.conjure.java.api.config.service.UserAgent;
 import com.palantir.conjure.java.config.ssl.SslSocketFactories;
@@ -31,6 +32,7 @@ import com.palantir.paxos.PaxosLearnerNetworkClient;
 import com.palantir.paxos.PaxosProposer;
 import com.palantir.paxos.PaxosProposerImpl;
 import com.palantir.paxos.SqliteConnections;
+import com.palantir.paxos.SqliteGroupCommitWriter;
 import com.palantir.sls.versions.OrderableSlsVersion;
 import com.palantir.timelock.config.ClusterConfiguration;
 import com.palantir.timelock.config.PaxosInstallConfiguration.PaxosLeaderMode;
@@ -53,12 +55,18 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import org.immutables.value.Value;
 
 public final class PaxosResourcesFactory {
+    /**
+     * Background extensions are at most one at a time per client, and fall back to being done synchronously if they
+     * are rejected, so a small pool suffices.
+     */
+    private static final int MAX_BOUND_EXTENSION_THREADS = 8;
 
     private PaxosResourcesFactory() {}
 
@@ -67,6 +75,10 @@ public final class PaxosResourcesFactory {
             MetricsManager metrics,
             Supplier<PaxosRuntimeConfiguration> paxosRuntime) {
         PaxosRemoteClients remoteClients = ImmutablePaxosRemoteClients.of(install, metrics);
+        metrics.registerOrGetHistogram(
+                SqliteGroupCommitWriter.class,
+                "roundsPerCommit",
+                SqliteGroupCommitWriter.forDataSource(install.sqliteDataSource())::roundsPerCommit);
 
         ImmutablePaxosResources.Builder resourcesBuilder =
                 setupTimestampResources(install, metrics, paxosRuntime, remoteClients);
@@ -220,6 +232,8 @@ public final class PaxosResourcesFactory {
         NetworkClientFactories.Factory<PaxosProposer> proposerFactory =
                 getPaxosProposerFactory(timelockMetrics, combinedNetworkClientFactories);
 
+        ExecutorService boundExtensionExecutor = PTExecutors.newCachedThreadPoolWithMaxThreads(
+                MAX_BOUND_EXTENSION_THREADS, "timestamp-bound-extension");
         NetworkClientFactories.Factory<ManagedTimestampService> timestampFactory = client -> {
             // TODO (jkong): live reload ping
             TimestampBoundStore boundStore = timelockMetrics.instrument(
@@ -231,13 +245,20 @@ public final class PaxosResourcesFactory {
                             combinedNetworkClientFactories.learner().create(client),
                             paxosRuntime.get().maximumWaitBeforeProposalMs()),
                     client);
+            if (paxosRuntime.get().timestampPaxos().extendBoundInBackground()) {
+                return PersistentTimestampServiceImpl.createWithBackgroundUpperLimitExtension(
+                        boundStore,
+                        boundExtensionExecutor,
+                        timelockMetrics.clientScopedMetrics().metricRegistryForClient(client));
+            }
             return PersistentTimestampServiceImpl.create(boundStore);
         };
 
         return ImmutablePaxosResources.builder()
                 .addAdhocResources(new TimestampPaxosResource(paxosComponents))
                 .timestampPaxosComponents(paxosComponents)
-                .timestampServiceFactory(timestampFactory);
+                .timestampServiceFactory(timestampFactory)
+                .addCloseables(boundExtensionExecutor::shutdown);
     }
 
     @VisibleForTesting
@@ -66,6 +66,36 @@ public interface PaxosRuntimeConfiguration {
         return Duration.ofMillis(leaderPingResponseWaitMs());
     }
 
+    /**
+     * If positive, once a quorum has agreed that this node is still the leader, leadership checks made within this
+     * many milliseconds of the start of that verification are answered without asking the quorum again. To keep this
+     * safe, acceptors refuse to promise a leadership round until this long after a proposer first tried it, so no
+     * election, failover or step down completes sooner than this. Must be the same on every node, and less than the
+     * leader ping response wait. Read when the leadership components are created.
+     */
+    @JsonProperty("leader-lease-duration-in-ms")
+    @Value.Default
+    default long leaderLeaseDurationMs() {
+        return 0L;
+    }
+
+    @JsonIgnore
+    @Value.Derived
+    @Value.Auxiliary
+    default Duration leaderLeaseDuration() {
+        return Duration.ofMillis(leaderLeaseDurationMs());
+    }
+
+    /**
+     * The maximum rate at which the clocks of different nodes are assumed to drift apart. Leader leases are shortened
+     * by this fraction of their duration.
+     */
+    @JsonProperty("leader-lease-max-clock-drift-rate")
+    @Value.Default
+    default double leaderLeaseMaxClockDriftRate() {
+        return 0.05;
+    }
+
     @JsonProperty("green-node-leadership-backoff-ms")
     @Value.Default
     default long greenNodeLeadershipBackoffMs() {
@@ -108,6 +138,16 @@ public interface PaxosRuntimeConfiguration {
             return false;
         }
 
+        /**
+         * If true, the timestamp bound of each client is extended in the background before it is exhausted, instead of
+         * by the timestamp request that exhausts it. Read when the timestamp service of a client is created.
+         */
+        @Value.Default
+        @JsonProperty("extend-bound-in-background")
+        default boolean extendBoundInBackground() {
+            return false;
+        }
+
         static TimestampPaxosConfig defaultConfig() {
             return ImmutableTimestampPaxosConfig.builder().build();
         }
@@ -124,5 +164,13 @@ public interface PaxosRuntimeConfiguration {
                 leaderPingResponseWaitMs() > 0,
                 "Leader ping response wait interval must be positive; found '%s'.",
                 leaderPingResponseWaitMs());
+        Preconditions.checkArgument(
+                leaderLeaseDurationMs() >= 0 && leaderLeaseDurationMs() < leaderPingResponseWaitMs(),
+                "Leader lease duration must be non-negative and less than the leader ping response wait; found '%s'.",
+                leaderLeaseDurationMs());
+        Preconditions.checkArgument(
+                leaderLeaseMaxClockDriftRate() >= 0 && leaderLeaseMaxClockDriftRate() < 1,
+                "Leader lease maximum clock drift rate must be at least 0 and less than 1; found '%s'.",
+                leaderLeaseMaxClockDriftRate());
     }
 }
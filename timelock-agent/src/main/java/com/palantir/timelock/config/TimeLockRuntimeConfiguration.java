@@ -20,6 +20,8 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.google.common.base.Preconditions;
+import com.palantir.atlasdb.timelock.config.AdmissionControlConfiguration;
+import com.palantir.atlasdb.timelock.config.ImmutableAdmissionControlConfiguration;
 import com.palantir.tokens.auth.BearerToken;
 import java.util.Optional;
 import org.immutables.value.Value;
@@ -80,6 +82,12 @@ public abstract class TimeLockRuntimeConfiguration {
         return ImmutableTimeLockAdjudicationConfiguration.builder().build();
     }
 
+    @JsonProperty("admission-control")
+    @Value.Default
+    public AdmissionControlConfiguration admissionControl() {
+        return ImmutableAdmissionControlConfiguration.builder().build();
+    }
+
     @JsonProperty("timestamp-bound-persistence")
     public abstract Optional<TsBoundPersisterRuntimeConfiguration> timestampBoundPersistence();
 
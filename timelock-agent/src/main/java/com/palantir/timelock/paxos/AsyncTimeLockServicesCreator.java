@@ -22,6 +22,9 @@ import com.palantir.atlasdb.timelock.AsyncTimelockResource;
 import com.palantir.atlasdb.timelock.AsyncTimelockService;
 import com.palantir.atlasdb.timelock.AsyncTimelockServiceImpl;
 import com.palantir.atlasdb.timelock.TimeLockServices;
+import com.palantir.atlasdb.timelock.admission.AdmissionControlledAsyncTimelockService;
+import com.palantir.atlasdb.timelock.admission.AdmissionController;
+import com.palantir.atlasdb.timelock.config.AdmissionControlConfiguration;
 import com.palantir.atlasdb.timelock.lock.AsyncLockService;
 import com.palantir.atlasdb.timelock.lock.LockLog;
 import com.palantir.atlasdb.timelock.lock.NonTransactionalLockService;
@@ -47,17 +50,20 @@ public class AsyncTimeLockServicesCreator implements TimeLockServicesCreator {
     private final LockLog lockLog;
     private final LeadershipComponents leadershipComponents;
     private final Map<Client, LockDiagnosticConfig> lockDiagnosticConfig;
+    private final Supplier<AdmissionControlConfiguration> admissionControlConfig;
 
     AsyncTimeLockServicesCreator(
             MetricsManager metricsManager,
             LockLog lockLog,
             LeadershipComponents leadershipComponents,
             // TODO(fdesouza): Remove this once PDS-95791 is resolved.
-            Map<Client, LockDiagnosticConfig> lockDiagnosticConfig) {
+            Map<Client, LockDiagnosticConfig> lockDiagnosticConfig,
+            Supplier<AdmissionControlConfiguration> admissionControlConfig) {
         this.metricsManager = metricsManager;
         this.lockLog = lockLog;
         this.leadershipComponents = leadershipComponents;
         this.lockDiagnosticConfig = lockDiagnosticConfig;
+        this.admissionControlConfig = admissionControlConfig;
     }
 
     @Override
@@ -68,10 +74,13 @@ public class AsyncTimeLockServicesCreator implements TimeLockServicesCreator {
         log.info("Creating async timelock services for client {}", SafeArg.of("client", client));
         LockLog maybeEnhancedLockLog = maybeEnhancedLockLog(client);
 
-        AsyncTimelockService asyncTimelockService = leadershipComponents.wrapInLeadershipProxy(
+        AsyncTimelockService leadershipGuardedTimelockService = leadershipComponents.wrapInLeadershipProxy(
                 client,
                 AsyncTimelockService.class,
                 () -> createRawAsyncTimelockService(client, rawTimestampServiceSupplier, maybeEnhancedLockLog));
+        AsyncTimelockService asyncTimelockService = new AdmissionControlledAsyncTimelockService(
+                leadershipGuardedTimelockService,
+                AdmissionController.create(client.value(), admissionControlConfig, metricsManager));
 
         AsyncTimelockResource asyncTimelockResource =
                 new AsyncTimelockResource(maybeEnhancedLockLog, asyncTimelockService);
@@ -266,7 +266,11 @@ public class TimeLockAgent {
                 Suppliers.compose(TimeLockRuntimeConfiguration::slowLockLogTriggerMillis, runtime::get));
 
         this.timelockCreator = new AsyncTimeLockServicesCreator(
-                metricsManager, lockLog, paxosResources.leadershipComponents(), install.lockDiagnosticConfig());
+                metricsManager,
+                lockLog,
+                paxosResources.leadershipComponents(),
+                install.lockDiagnosticConfig(),
+                runtime.map(TimeLockRuntimeConfiguration::admissionControl));
 
         this.noSimultaneousServiceCheck = NoSimultaneousServiceCheck.create(
                 new TimeLockActivityCheckerFactory(cluster, metricsManager, userAgent).getTimeLockActivityCheckers());
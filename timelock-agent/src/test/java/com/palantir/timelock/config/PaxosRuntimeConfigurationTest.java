@@ -61,4 +61,20 @@ public class PaxosRuntimeConfigurationTest {
         assertThatThrownBy(ImmutablePaxosRuntimeConfiguration.builder().leaderPingResponseWaitMs(NEGATIVE_LONG)::build)
                 .isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    public void canSpecifyLeaderLeaseShorterThanLeaderPingResponseWait() {
+        ImmutablePaxosRuntimeConfiguration.builder()
+                .leaderPingResponseWaitMs(2000L)
+                .leaderLeaseDurationMs(500L)
+                .build();
+    }
+
+    @Test
+    public void throwOnLeaderLeaseNotShorterThanLeaderPingResponseWait() {
+        assertThatThrownBy(ImmutablePaxosRuntimeConfiguration.builder()
+                        .leaderPingResponseWaitMs(2000L)
+                        .leaderLeaseDurationMs(2000L)::build)
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
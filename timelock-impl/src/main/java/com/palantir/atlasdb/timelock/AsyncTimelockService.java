@@ -32,11 +32,13 @@ import com.palantir.lock.v2.StartTransactionResponseV4;
 import com.palantir.lock.v2.WaitForLocksRequest;
 import com.palantir.lock.v2.WaitForLocksResponse;
 import com.palantir.lock.watch.LockWatchVersion;
+import com.palantir.processors.AutoDelegate;
 import com.palantir.timestamp.ManagedTimestampService;
 import com.palantir.timestamp.TimestampRange;
 import java.io.Closeable;
 import java.util.Optional;
 
+@AutoDelegate
 public interface AsyncTimelockService
         extends BackupTimeLockServiceView, ManagedTimestampService, LockWatchingService, Closeable {
 
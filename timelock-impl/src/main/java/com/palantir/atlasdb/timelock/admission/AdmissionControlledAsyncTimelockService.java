@@ -0,0 +1,125 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.admission;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.palantir.atlasdb.timelock.AsyncTimelockService;
+import com.palantir.atlasdb.timelock.AutoDelegate_AsyncTimelockService;
+import com.palantir.atlasdb.timelock.api.ConjureStartTransactionsRequest;
+import com.palantir.atlasdb.timelock.api.ConjureStartTransactionsResponse;
+import com.palantir.atlasdb.timelock.api.GetCommitTimestampsResponse;
+import com.palantir.lock.client.IdentifiedLockRequest;
+import com.palantir.lock.v2.IdentifiedTimeLockRequest;
+import com.palantir.lock.v2.LockImmutableTimestampResponse;
+import com.palantir.lock.v2.LockResponseV2;
+import com.palantir.lock.v2.StartAtlasDbTransactionResponse;
+import com.palantir.lock.v2.StartAtlasDbTransactionResponseV3;
+import com.palantir.lock.v2.StartIdentifiedAtlasDbTransactionRequest;
+import com.palantir.lock.v2.StartTransactionRequestV4;
+import com.palantir.lock.v2.StartTransactionResponseV4;
+import com.palantir.lock.v2.WaitForLocksRequest;
+import com.palantir.lock.v2.WaitForLocksResponse;
+import com.palantir.lock.watch.LockWatchVersion;
+import com.palantir.timestamp.TimestampRange;
+import java.util.Optional;
+
+/**
+ * Admits the requests made to the {@link AsyncTimelockService} of a namespace through its {@link AdmissionController}.
+ * Requests that neither take nor release locks and timestamps, such as those for the leader time or lock watch state,
+ * are passed straight through. So are requests that unlock or refresh locks that are already held: rejecting them
+ * would keep locks held for longer or let their leases expire, which only adds to the load.
+ */
+public final class AdmissionControlledAsyncTimelockService implements AutoDelegate_AsyncTimelockService {
+    private final AsyncTimelockService delegate;
+    private final AdmissionController admissionController;
+
+    public AdmissionControlledAsyncTimelockService(
+            AsyncTimelockService delegate, AdmissionController admissionController) {
+        this.delegate = delegate;
+        this.admissionController = admissionController;
+    }
+
+    @Override
+    public AsyncTimelockService delegate() {
+        return delegate;
+    }
+
+    @Override
+    public ListenableFuture<LockResponseV2> lock(IdentifiedLockRequest request) {
+        return admissionController.runAsync(RequestLane.LOCK, () -> delegate.lock(request));
+    }
+
+    @Override
+    public ListenableFuture<WaitForLocksResponse> waitForLocks(WaitForLocksRequest request) {
+        return admissionController.runAsync(RequestLane.LOCK, () -> delegate.waitForLocks(request));
+    }
+
+    @Override
+    public long getFreshTimestamp() {
+        return admissionController.run(RequestLane.TIMESTAMP, delegate::getFreshTimestamp);
+    }
+
+    @Override
+    public TimestampRange getFreshTimestamps(int numTimestampsRequested) {
+        return admissionController.run(
+                RequestLane.TIMESTAMP, () -> delegate.getFreshTimestamps(numTimestampsRequested));
+    }
+
+    @Override
+    public ListenableFuture<TimestampRange> getFreshTimestampsAsync(int timestampsToRequest) {
+        return admissionController.runAsync(
+                RequestLane.TIMESTAMP, () -> delegate.getFreshTimestampsAsync(timestampsToRequest));
+    }
+
+    @Override
+    public long getImmutableTimestamp() {
+        return admissionController.run(RequestLane.TIMESTAMP, delegate::getImmutableTimestamp);
+    }
+
+    @Override
+    public LockImmutableTimestampResponse lockImmutableTimestamp(IdentifiedTimeLockRequest request) {
+        return admissionController.run(RequestLane.TIMESTAMP, () -> delegate.lockImmutableTimestamp(request));
+    }
+
+    @Override
+    public StartAtlasDbTransactionResponse deprecatedStartTransaction(IdentifiedTimeLockRequest request) {
+        return admissionController.run(RequestLane.TIMESTAMP, () -> delegate.deprecatedStartTransaction(request));
+    }
+
+    @Override
+    public StartAtlasDbTransactionResponseV3 startTransaction(StartIdentifiedAtlasDbTransactionRequest request) {
+        return admissionController.run(RequestLane.TIMESTAMP, () -> delegate.startTransaction(request));
+    }
+
+    @Override
+    public StartTransactionResponseV4 startTransactions(StartTransactionRequestV4 request) {
+        return admissionController.run(RequestLane.TIMESTAMP, () -> delegate.startTransactions(request));
+    }
+
+    @Override
+    public ListenableFuture<ConjureStartTransactionsResponse> startTransactionsWithWatches(
+            ConjureStartTransactionsRequest request) {
+        return admissionController.runAsync(
+                RequestLane.TIMESTAMP, () -> delegate.startTransactionsWithWatches(request));
+    }
+
+    @Override
+    public ListenableFuture<GetCommitTimestampsResponse> getCommitTimestamps(
+            int numTimestamps, Optional<LockWatchVersion> lastKnownVersion) {
+        return admissionController.runAsync(
+                RequestLane.COMMIT, () -> delegate.getCommitTimestamps(numTimestamps, lastKnownVersion));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.admission;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.palantir.atlasdb.timelock.config.AdmissionControlConfiguration;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.lock.impl.TooManyRequestsException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many requests in each {@link RequestLane} a single namespace may have in flight at once. Requests over
+ * the limit of their lane are rejected straight away with a {@link TooManyRequestsException}, which clients back off
+ * from and retry, rather than queued behind the requests already in flight.
+ *
+ * The number of requests in flight and the number of rejections are reported per namespace and lane. Limits are read
+ * from the configuration on every request, so they may be changed at runtime.
+ */
+public final class AdmissionController {
+    private final Supplier<AdmissionControlConfiguration> config;
+    private final Map<RequestLane, Lane> lanes;
+
+    private AdmissionController(Supplier<AdmissionControlConfiguration> config, Map<RequestLane, Lane> lanes) {
+        this.config = config;
+        this.lanes = lanes;
+    }
+
+    public static AdmissionController create(
+            String namespace, Supplier<AdmissionControlConfiguration> config, MetricsManager metricsManager) {
+        Map<RequestLane, Lane> lanes = new EnumMap<>(RequestLane.class);
+        for (RequestLane lane : RequestLane.values()) {
+            Map<String, String> tags = ImmutableMap.of("namespace", namespace, "lane", lane.name());
+            lanes.put(
+                    lane,
+                    new Lane(
+                            metricsManager.registerOrGetTaggedCounter(
+                                    AdmissionController.class, "requestsInFlight", tags),
+                            metricsManager.registerOrGetTaggedMeter(
+                                    AdmissionController.class, "requestsRejected", tags)));
+        }
+        return new AdmissionController(config, lanes);
+    }
+
+    public <T> T run(RequestLane lane, Supplier<T> request) {
+        AdmissionControlConfiguration currentConfig = config.get();
+        if (!currentConfig.enabled()) {
+            return request.get();
+        }
+        Lane admittedLane = admit(lane, currentConfig);
+        try {
+            return request.get();
+        } finally {
+            admittedLane.release();
+        }
+    }
+
+    /**
+     * Like {@link #run}, except that the request stays in flight until the future it returns is done.
+     */
+    public <T> ListenableFuture<T> runAsync(RequestLane lane, Supplier<ListenableFuture<T>> request) {
+        AdmissionControlConfiguration currentConfig = config.get();
+        if (!currentConfig.enabled()) {
+            return request.get();
+        }
+        Lane admittedLane = admit(lane, currentConfig);
+        ListenableFuture<T> result;
+        try {
+            result = request.get();
+        } catch (RuntimeException | Error e) {
+            admittedLane.release();
+            throw e;
+        }
+        result.addListener(admittedLane::release, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    private Lane admit(RequestLane lane, AdmissionControlConfiguration currentConfig) {
+        Lane admittedLane = lanes.get(lane);
+        if (!admittedLane.tryAcquire(lane.limit(currentConfig))) {
+            throw new TooManyRequestsException(
+                    "TimeLock has too many " + lane + " requests in flight for this namespace.");
+        }
+        return admittedLane;
+    }
+
+    private static final class Lane {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final Counter inFlightCounter;
+        private final Meter rejections;
+
+        private Lane(Counter inFlightCounter, Meter rejections) {
+            this.inFlightCounter = inFlightCounter;
+            this.rejections = rejections;
+        }
+
+        private boolean tryAcquire(int limit) {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= limit) {
+                    rejections.mark();
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    inFlightCounter.inc();
+                    return true;
+                }
+            }
+        }
+
+        private void release() {
+            inFlight.decrementAndGet();
+            inFlightCounter.dec();
+        }
+    }
+}
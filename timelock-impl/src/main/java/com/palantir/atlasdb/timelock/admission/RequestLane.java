@@ -0,0 +1,39 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.admission;
+
+import com.palantir.atlasdb.timelock.config.AdmissionControlConfiguration;
+import java.util.function.ToIntFunction;
+
+/**
+ * The kinds of request that are admitted separately, so that requests of one kind never wait for permits held by
+ * requests of another. In particular, fetching commit timestamps is never held up by blocked lock requests.
+ */
+public enum RequestLane {
+    LOCK(AdmissionControlConfiguration::maxConcurrentLockRequests),
+    TIMESTAMP(AdmissionControlConfiguration::maxConcurrentTimestampRequests),
+    COMMIT(AdmissionControlConfiguration::maxConcurrentCommitRequests);
+
+    private final ToIntFunction<AdmissionControlConfiguration> limit;
+
+    RequestLane(ToIntFunction<AdmissionControlConfiguration> limit) {
+        this.limit = limit;
+    }
+
+    int limit(AdmissionControlConfiguration config) {
+        return limit.applyAsInt(config);
+    }
+}
@@ -100,54 +100,42 @@ public final class MultiClientConjureTimelockResource implements UndertowMultiCl
     @Override
     public ListenableFuture<Map<Namespace, ConjureStartTransactionsResponse>> startTransactionsForClients(
             AuthHeader authHeader, Map<Namespace, ConjureStartTransactionsRequest> requests) {
-        return handleExceptions(() -> {
-            List<ListenableFuture<Map.Entry<Namespace, ConjureStartTransactionsResponse>>> futures = KeyedStream.stream(
-                            requests)
-                    .map(this::startTransactionsForSingleNamespace)
-                    .values()
-                    .collect(Collectors.toList());
-            return Futures.transform(Futures.allAsList(futures), ImmutableMap::copyOf, MoreExecutors.directExecutor());
-        });
+        return handleExceptions(() -> collectResponses(KeyedStream.stream(requests)
+                .map((namespace, request) -> getServiceForNamespace(namespace).startTransactionsWithWatches(request))
+                .collectToMap()));
     }
 
     @Override
     public ListenableFuture<Map<Namespace, GetCommitTimestampsResponse>> getCommitTimestampsForClients(
             AuthHeader authHeader, Map<Namespace, GetCommitTimestampsRequest> requests) {
-        return handleExceptions(() -> {
-            List<ListenableFuture<Map.Entry<Namespace, GetCommitTimestampsResponse>>> futures = KeyedStream.stream(
-                            requests)
-                    .map(this::getCommitTimestampsForSingleNamespace)
-                    .values()
-                    .collect(Collectors.toList());
-            return Futures.transform(Futures.allAsList(futures), ImmutableMap::copyOf, MoreExecutors.directExecutor());
-        });
+        return handleExceptions(() -> collectResponses(KeyedStream.stream(requests)
+                .map(this::getCommitTimestampsForSingleNamespace)
+                .collectToMap()));
     }
 
-    private ListenableFuture<Map.Entry<Namespace, GetCommitTimestampsResponse>> getCommitTimestampsForSingleNamespace(
+    private ListenableFuture<GetCommitTimestampsResponse> getCommitTimestampsForSingleNamespace(
             Namespace namespace, GetCommitTimestampsRequest request) {
-        ListenableFuture<GetCommitTimestampsResponse> commitTimestampsResponseListenableFuture = getServiceForNamespace(
-                        namespace)
+        return getServiceForNamespace(namespace)
                 .getCommitTimestamps(
                         request.getNumTimestamps(),
                         request.getLastKnownVersion().map(this::toIdentifiedVersion));
-        return Futures.transform(
-                commitTimestampsResponseListenableFuture,
-                response -> Maps.immutableEntry(namespace, response),
-                MoreExecutors.directExecutor());
     }
 
-    private LockWatchVersion toIdentifiedVersion(ConjureIdentifiedVersion conjureIdentifiedVersion) {
-        return LockWatchVersion.of(conjureIdentifiedVersion.getId(), conjureIdentifiedVersion.getVersion());
+    /**
+     * Combines the responses for each namespace into a single map once all of them are done. Responses are usually
+     * already done when they are passed in, in which case the map is built straight away rather than through a chain of
+     * futures per namespace.
+     */
+    private static <T> ListenableFuture<Map<Namespace, T>> collectResponses(
+            Map<Namespace, ListenableFuture<T>> responses) {
+        return Futures.whenAllSucceed(responses.values())
+                .call(
+                        () -> ImmutableMap.copyOf(Maps.transformValues(responses, AtlasFutures::getDone)),
+                        MoreExecutors.directExecutor());
     }
 
-    private ListenableFuture<Map.Entry<Namespace, ConjureStartTransactionsResponse>>
-            startTransactionsForSingleNamespace(Namespace namespace, ConjureStartTransactionsRequest request) {
-        ListenableFuture<ConjureStartTransactionsResponse> conjureStartTransactionsResponseListenableFuture =
-                getServiceForNamespace(namespace).startTransactionsWithWatches(request);
-        return Futures.transform(
-                conjureStartTransactionsResponseListenableFuture,
-                startTransactionsResponse -> Maps.immutableEntry(namespace, startTransactionsResponse),
-                MoreExecutors.directExecutor());
+    private LockWatchVersion toIdentifiedVersion(ConjureIdentifiedVersion conjureIdentifiedVersion) {
+        return LockWatchVersion.of(conjureIdentifiedVersion.getId(), conjureIdentifiedVersion.getVersion());
     }
 
     private ListenableFuture<Map.Entry<Namespace, LeaderTime>> getNamespacedLeaderTimes(Namespace namespace) {
@@ -0,0 +1,76 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.base.Preconditions;
+import org.immutables.value.Value;
+
+/**
+ * Limits on how many requests of each kind a single namespace may have in flight at once. Requests over a limit are
+ * rejected with a throttling error rather than queued, so that one namespace cannot tie up TimeLock at the expense of
+ * the others.
+ */
+@JsonSerialize(as = ImmutableAdmissionControlConfiguration.class)
+@JsonDeserialize(as = ImmutableAdmissionControlConfiguration.class)
+@Value.Immutable
+public abstract class AdmissionControlConfiguration {
+
+    @Value.Default
+    public boolean enabled() {
+        return false;
+    }
+
+    /**
+     * Applies to lock and wait for locks requests, which stay in flight for as long as they are blocked on a lock.
+     */
+    @JsonProperty("max-concurrent-lock-requests")
+    @Value.Default
+    public int maxConcurrentLockRequests() {
+        return 5000;
+    }
+
+    /**
+     * Applies to requests for fresh timestamps, including those for starting transactions, and to requests for the
+     * immutable timestamp.
+     */
+    @JsonProperty("max-concurrent-timestamp-requests")
+    @Value.Default
+    public int maxConcurrentTimestampRequests() {
+        return 1000;
+    }
+
+    /**
+     * Applies to requests for commit timestamps. Requests that unlock or refresh locks that are already held are never
+     * limited.
+     */
+    @JsonProperty("max-concurrent-commit-requests")
+    @Value.Default
+    public int maxConcurrentCommitRequests() {
+        return 1000;
+    }
+
+    @Value.Check
+    protected void check() {
+        Preconditions.checkState(
+                maxConcurrentLockRequests() > 0
+                        && maxConcurrentTimestampRequests() > 0
+                        && maxConcurrentCommitRequests() > 0,
+                "Admission control limits must be positive");
+    }
+}
@@ -16,6 +16,7 @@
 package com.palantir.atlasdb.timelock.lock;
 
 import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.LockMode;
 import java.util.UUID;
 
 public interface AsyncLock {
@@ -29,4 +30,12 @@ public interface AsyncLock {
     void timeout(UUID requestId);
 
     LockDescriptor getDescriptor();
+
+    /**
+     * Locks acquired in {@link LockMode#READ} mode may be held by several requests at once, and only exclude requests
+     * that acquire the same lock in {@link LockMode#WRITE} mode.
+     */
+    default LockMode getMode() {
+        return LockMode.WRITE;
+    }
 }
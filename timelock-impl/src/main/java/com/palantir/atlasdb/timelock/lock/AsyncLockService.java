@@ -20,12 +20,14 @@ import com.google.common.collect.ImmutableSet;
 import com.palantir.atlasdb.timelock.lock.watch.LockWatchingService;
 import com.palantir.atlasdb.timelock.lock.watch.LockWatchingServiceImpl;
 import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.LockMode;
 import com.palantir.lock.v2.LeaderTime;
 import com.palantir.lock.v2.LockToken;
 import com.palantir.lock.v2.RefreshLockResponseV2;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
 import java.io.Closeable;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -112,7 +114,7 @@ public class AsyncLockService implements Closeable {
                     }
                 },
                 0,
-                LockLeaseContract.SERVER_LEASE_TIMEOUT.toMillis() / 2,
+                HeldLocksCollection.REAPER_TICK.toMillis(),
                 TimeUnit.MILLISECONDS);
     }
 
@@ -120,6 +122,16 @@ public class AsyncLockService implements Closeable {
         return heldLocks.getExistingOrAcquire(requestId, () -> acquireLocks(requestId, lockDescriptors, timeout));
     }
 
+    /**
+     * Acquires each lock in the given mode. Locks acquired in {@link LockMode#READ} mode may be held by other requests
+     * in the same mode at the same time, and are not published to lock watches.
+     */
+    public AsyncResult<Leased<LockToken>> lock(
+            UUID requestId, Map<LockDescriptor, LockMode> lockDescriptorsToModes, TimeLimit timeout) {
+        return heldLocks.getExistingOrAcquire(
+                requestId, () -> acquireLocks(requestId, locks.getAllInModes(lockDescriptorsToModes), timeout));
+    }
+
     public AsyncResult<Leased<LockToken>> lockImmutableTimestamp(UUID requestId, long timestamp) {
         AsyncResult<Leased<LockToken>> immutableTimestampLockResult =
                 heldLocks.getExistingOrAcquire(requestId, () -> acquireImmutableTimestampLock(requestId, timestamp));
@@ -132,13 +144,23 @@ public class AsyncLockService implements Closeable {
         return awaitedLocks.getExistingOrAwait(requestId, () -> awaitLocks(requestId, lockDescriptors, timeout));
     }
 
+    public AsyncResult<Void> waitForLocks(
+            UUID requestId, Map<LockDescriptor, LockMode> lockDescriptorsToModes, TimeLimit timeout) {
+        return awaitedLocks.getExistingOrAwait(
+                requestId,
+                () -> lockAcquirer.waitForLocks(requestId, locks.getAllInModes(lockDescriptorsToModes), timeout));
+    }
+
     public Optional<Long> getImmutableTimestamp() {
         return immutableTsTracker.getImmutableTimestamp();
     }
 
     private AsyncResult<HeldLocks> acquireLocks(
             UUID requestId, Set<LockDescriptor> lockDescriptors, TimeLimit timeout) {
-        OrderedLocks orderedLocks = locks.getAll(lockDescriptors);
+        return acquireLocks(requestId, locks.getAll(lockDescriptors), timeout);
+    }
+
+    private AsyncResult<HeldLocks> acquireLocks(UUID requestId, OrderedLocks orderedLocks, TimeLimit timeout) {
         return lockAcquirer.acquireLocks(requestId, orderedLocks, timeout);
     }
 
@@ -19,12 +19,26 @@ import com.google.common.annotations.VisibleForTesting;
 import com.palantir.atlasdb.timelock.util.LoggableIllegalStateException;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.logsafe.SafeArg;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.NotThreadSafe;
 
+/**
+ * A lock that is either held exclusively by a single request, or shared by any number of requests that acquired it
+ * through a {@link SharedLock}. Requests are granted in the order they were made, so a request for exclusive access
+ * is not starved by a stream of shared requests; all shared requests at the head of the queue are granted together.
+ *
+ * Most locks are free when they are requested, so exclusive requests first try to install themselves as the holder
+ * with a compare-and-set, and only take the monitor and join the queue if that fails or requests are already queued.
+ * Releasing an exclusive lock likewise only takes the monitor if there are queued requests to hand it over to. Every
+ * queued request is handed the lock by whoever releases it, because releasing clears the holder before checking for
+ * queued requests, while queueing publishes the request before checking for a holder.
+ */
 public class ExclusiveLock implements AsyncLock {
 
     private final LockDescriptor descriptor;
@@ -32,34 +46,63 @@ public class ExclusiveLock implements AsyncLock {
     @GuardedBy("this")
     private final LockRequestQueue queue = new LockRequestQueue();
 
+    /**
+     * Marks the lock as held by {@link #sharedHolders} in {@link #currentHolder}.
+     */
+    private static final Object SHARED = new Object();
+
+    private final AtomicReference<Object> currentHolder = new AtomicReference<>();
+
+    private volatile int queuedRequests = 0;
+
     @GuardedBy("this")
-    private UUID currentHolder = null;
+    private final Set<UUID> sharedHolders = new HashSet<>();
 
     public ExclusiveLock(LockDescriptor descriptor) {
         this.descriptor = descriptor;
     }
 
     @Override
-    public synchronized AsyncResult<Void> lock(UUID requestId) {
-        return submit(new LockRequest(requestId, false));
+    public AsyncResult<Void> lock(UUID requestId) {
+        if (queuedRequests == 0 && currentHolder.compareAndSet(null, requestId)) {
+            return AsyncResult.completedResult();
+        }
+        return submitSynchronized(new LockRequest(requestId, false, false));
     }
 
     @Override
-    public synchronized AsyncResult<Void> waitUntilAvailable(UUID requestId) {
-        return submit(new LockRequest(requestId, true));
+    public AsyncResult<Void> waitUntilAvailable(UUID requestId) {
+        if (queuedRequests == 0 && currentHolder.get() == null) {
+            return AsyncResult.completedResult();
+        }
+        return submitSynchronized(new LockRequest(requestId, true, false));
+    }
+
+    synchronized AsyncResult<Void> lockShared(UUID requestId) {
+        return submit(new LockRequest(requestId, false, true));
+    }
+
+    synchronized AsyncResult<Void> waitUntilSharedAvailable(UUID requestId) {
+        return submit(new LockRequest(requestId, true, true));
     }
 
     @Override
-    public synchronized void unlock(UUID requestId) {
-        if (Objects.equals(requestId, currentHolder)) {
-            currentHolder = null;
-            processQueue();
+    public void unlock(UUID requestId) {
+        Object holder = currentHolder.get();
+        if (holder == SHARED) {
+            unlockShared(requestId);
+        } else if (Objects.equals(requestId, holder) && currentHolder.compareAndSet(holder, null)) {
+            if (queuedRequests > 0) {
+                processQueueSynchronized();
+            }
         }
     }
 
     @Override
-    public synchronized void timeout(UUID requestId) {
-        queue.timeoutAndRemoveIfStillQueued(requestId);
+    public void timeout(UUID requestId) {
+        if (queuedRequests > 0) {
+            timeoutSynchronized(requestId);
+        }
     }
 
     @Override
@@ -68,13 +111,40 @@ public class ExclusiveLock implements AsyncLock {
     }
 
     @VisibleForTesting
-    synchronized UUID getCurrentHolder() {
-        return currentHolder;
+    UUID getCurrentHolder() {
+        Object holder = currentHolder.get();
+        return holder == SHARED ? null : (UUID) holder;
+    }
+
+    @VisibleForTesting
+    synchronized Set<UUID> getSharedHolders() {
+        return Set.copyOf(sharedHolders);
+    }
+
+    private synchronized AsyncResult<Void> submitSynchronized(LockRequest request) {
+        return submit(request);
+    }
+
+    private synchronized void unlockShared(UUID requestId) {
+        if (sharedHolders.remove(requestId) && sharedHolders.isEmpty()) {
+            currentHolder.set(null);
+            processQueue();
+        }
+    }
+
+    private synchronized void timeoutSynchronized(UUID requestId) {
+        queue.timeoutAndRemoveIfStillQueued(requestId);
+        queuedRequests = queue.size();
+    }
+
+    private synchronized void processQueueSynchronized() {
+        processQueue();
     }
 
     @GuardedBy("this")
     private AsyncResult<Void> submit(LockRequest request) {
         queue.enqueue(request);
+        queuedRequests = queue.size();
         processQueue();
 
         return request.result;
@@ -82,25 +152,47 @@ public class ExclusiveLock implements AsyncLock {
 
     @GuardedBy("this")
     private void processQueue() {
-        while (!queue.isEmpty() && currentHolder == null) {
+        while (!queue.isEmpty() && tryGrant(queue.peek())) {
             LockRequest head = queue.dequeue();
-
-            if (!head.releaseImmediately) {
-                currentHolder = head.requestId;
-            }
+            queuedRequests = queue.size();
 
             head.result.complete(null);
         }
     }
 
+    /**
+     * Exclusive requests can be overtaken by a concurrent request on the fast path, in which case they stay queued
+     * until that request releases the lock.
+     */
+    @GuardedBy("this")
+    private boolean tryGrant(LockRequest request) {
+        Object holder = currentHolder.get();
+        if (request.shared) {
+            if (request.releaseImmediately) {
+                return holder == null || holder == SHARED;
+            }
+            if (holder == SHARED || currentHolder.compareAndSet(null, SHARED)) {
+                sharedHolders.add(request.requestId);
+                return true;
+            }
+            return false;
+        }
+        if (request.releaseImmediately) {
+            return holder == null;
+        }
+        return currentHolder.compareAndSet(null, request.requestId);
+    }
+
     private static class LockRequest {
         private final AsyncResult<Void> result = new AsyncResult<>();
         private final UUID requestId;
         private final boolean releaseImmediately;
+        private final boolean shared;
 
-        LockRequest(UUID requestId, boolean releaseImmediately) {
+        LockRequest(UUID requestId, boolean releaseImmediately, boolean shared) {
             this.requestId = requestId;
             this.releaseImmediately = releaseImmediately;
+            this.shared = shared;
         }
     }
 
@@ -123,6 +215,14 @@ public class ExclusiveLock implements AsyncLock {
             return queue.isEmpty();
         }
 
+        public int size() {
+            return queue.size();
+        }
+
+        public LockRequest peek() {
+            return queue.values().iterator().next();
+        }
+
         public LockRequest dequeue() {
             return queue.remove(queue.keySet().iterator().next());
         }
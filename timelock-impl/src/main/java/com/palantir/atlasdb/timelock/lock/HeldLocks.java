@@ -20,6 +20,7 @@ import com.google.common.base.Suppliers;
 import com.palantir.atlasdb.timelock.lock.watch.LockWatchingService;
 import com.palantir.common.time.NanoTime;
 import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.LockMode;
 import com.palantir.lock.v2.LockToken;
 import java.util.Collection;
 import java.util.Set;
@@ -36,6 +37,8 @@ public class HeldLocks {
     private final LeaseExpirationTimer expirationTimer;
     private final LockWatchingService lockWatchingService;
     private final Supplier<Set<LockDescriptor>> descriptors = Suppliers.memoize(this::getLockDescriptors);
+    private final Supplier<Set<LockDescriptor>> exclusiveDescriptors =
+            Suppliers.memoize(this::getExclusiveLockDescriptors);
 
     @GuardedBy("this")
     private boolean isUnlocked = false;
@@ -71,7 +74,7 @@ public class HeldLocks {
     }
 
     private void registerLock() {
-        lockWatchingService.registerLock(descriptors.get(), token);
+        lockWatchingService.registerLock(exclusiveDescriptors.get(), token);
     }
 
     /**
@@ -81,7 +84,7 @@ public class HeldLocks {
     public synchronized boolean unlockIfExpired() {
         if (expirationTimer.isExpired()) {
             if (unlockInternal()) {
-                lockLog.lockExpired(token.getRequestId(), descriptors.get());
+                lockLog.lockExpired(token.getRequestId(), descriptors.get(), expirationTimer.nanosSinceExpiry());
             }
         }
         return isUnlocked;
@@ -109,7 +112,7 @@ public class HeldLocks {
             return false;
         }
         isUnlocked = true;
-        lockWatchingService.registerUnlock(descriptors.get());
+        lockWatchingService.registerUnlock(exclusiveDescriptors.get());
 
         for (AsyncLock lock : acquiredLocks) {
             lock.unlock(token.getRequestId());
@@ -137,4 +140,14 @@ public class HeldLocks {
     private Set<LockDescriptor> getLockDescriptors() {
         return acquiredLocks.stream().map(AsyncLock::getDescriptor).collect(Collectors.toSet());
     }
+
+    /**
+     * Shared locks do not guard writes, so only locks held exclusively are published to lock watches.
+     */
+    private Set<LockDescriptor> getExclusiveLockDescriptors() {
+        return acquiredLocks.stream()
+                .filter(lock -> lock.getMode() == LockMode.WRITE)
+                .map(AsyncLock::getDescriptor)
+                .collect(Collectors.toSet());
+    }
 }
@@ -22,23 +22,38 @@ import com.palantir.leader.NotCurrentLeaderException;
 import com.palantir.lock.v2.LeaderTime;
 import com.palantir.lock.v2.Lease;
 import com.palantir.lock.v2.LockToken;
+import java.time.Duration;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+/**
+ * Requests are put on a {@link TimingWheel} once they complete, at the expiry of their lease if they hold locks, or
+ * straight away if they failed or timed out. Reaping therefore only looks at the requests whose lease may have expired.
+ * Refreshing a lease does not move its request on the wheel; a request found to have been refreshed when its tick
+ * comes round is put back at its new expiry instead. The wheel only holds request ids, which are looked up again when
+ * their tick comes round, so that unlocked requests are not kept reachable until their lease would have expired.
+ */
 public class HeldLocksCollection {
+    static final Duration REAPER_TICK = Duration.ofSeconds(1);
+    private static final int REAPER_BUCKETS = 32;
+
     @VisibleForTesting
     final ConcurrentMap<UUID, AsyncResult<HeldLocks>> heldLocksById = new ConcurrentHashMap<>();
 
     private final LeaderClock leaderClock;
+    private final TimingWheel<UUID> expiryWheel;
 
     @VisibleForTesting
     HeldLocksCollection(LeaderClock leaderClock) {
         this.leaderClock = leaderClock;
+        this.expiryWheel = new TimingWheel<>(leaderClock.time().currentTime(), REAPER_TICK, REAPER_BUCKETS);
     }
 
     public static HeldLocksCollection create(LeaderClock leaderClock) {
@@ -47,9 +62,16 @@ public class HeldLocksCollection {
 
     public AsyncResult<Leased<LockToken>> getExistingOrAcquire(
             UUID requestId, Supplier<AsyncResult<HeldLocks>> lockAcquirer) {
-        return heldLocksById
-                .computeIfAbsent(requestId, ignored -> lockAcquirer.get())
-                .map(this::createLeasableLockToken);
+        AtomicReference<AsyncResult<HeldLocks>> acquired = new AtomicReference<>();
+        AsyncResult<HeldLocks> lockResult = heldLocksById.computeIfAbsent(requestId, ignored -> {
+            acquired.set(lockAcquirer.get());
+            return acquired.get();
+        });
+        if (lockResult == acquired.get()) {
+            // only once the request is in the map, as the wheel looks requests up by id
+            trackExpiry(requestId, lockResult);
+        }
+        return lockResult.map(this::createLeasableLockToken);
     }
 
     public Set<LockToken> unlock(Set<LockToken> tokens) {
@@ -66,7 +88,7 @@ public class HeldLocksCollection {
     }
 
     public void removeExpired() {
-        heldLocksById.values().removeIf(this::shouldRemove);
+        expiryWheel.advance(leaderClock.time().currentTime(), this::removeIfExpired);
     }
 
     public void failAllOutstandingRequestsWithNotCurrentLeaderException() {
@@ -93,6 +115,33 @@ public class HeldLocksCollection {
         return Lease.of(leaderTime, LockLeaseContract.CLIENT_LEASE_TIMEOUT);
     }
 
+    private void trackExpiry(UUID requestId, AsyncResult<HeldLocks> lockResult) {
+        lockResult.onComplete(() -> expiryWheel.schedule(requestId, expiry(lockResult)));
+    }
+
+    /**
+     * Returns the new lease expiry of a request that still holds its locks, or empty once it has been removed or
+     * unlocked.
+     */
+    private Optional<NanoTime> removeIfExpired(UUID requestId) {
+        AsyncResult<HeldLocks> lockResult = heldLocksById.get(requestId);
+        if (lockResult == null) {
+            return Optional.empty();
+        }
+        if (!shouldRemove(lockResult)) {
+            return Optional.of(expiry(lockResult));
+        }
+        heldLocksById.remove(requestId, lockResult);
+        return Optional.empty();
+    }
+
+    private NanoTime expiry(AsyncResult<HeldLocks> lockResult) {
+        if (lockResult.isCompletedSuccessfully()) {
+            return lockResult.get().lastRefreshTime().plus(LockLeaseContract.SERVER_LEASE_TIMEOUT);
+        }
+        return leaderClock.time().currentTime();
+    }
+
     private boolean shouldRemove(AsyncResult<HeldLocks> lockResult) {
         return lockResult.isFailed() || lockResult.isTimedOut() || lockResult.test(HeldLocks::unlockIfExpired);
     }
@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.timelock.lock;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.palantir.atlasdb.timelock.util.LoggableIllegalStateException;
 import com.palantir.logsafe.SafeArg;
 import java.util.Optional;
@@ -23,42 +24,93 @@ import java.util.TreeMap;
 import java.util.UUID;
 import javax.annotation.concurrent.GuardedBy;
 
+/**
+ * Tracks the timestamps locked by transactions that have started, and so the immutable timestamp, which is the
+ * earliest of them.
+ *
+ * Timestamps are spread across shards by their value, so that concurrent requests usually lock and unlock through
+ * different shards. Each shard publishes its earliest timestamp after every change, so reading the immutable timestamp
+ * does not block: a timestamp is accounted for by its shard from the moment {@link #lock} returns until {@link
+ * #unlock} is called.
+ */
 public class ImmutableTimestampTracker {
 
-    @GuardedBy("this")
-    private final SortedMap<Long, UUID> holdersByTimestamp = new TreeMap<>();
-
-    public synchronized void lock(long timestamp, UUID requestId) {
-        boolean wasAdded = holdersByTimestamp.putIfAbsent(timestamp, requestId) == null;
-        if (!wasAdded) {
-            throw new LoggableIllegalStateException(
-                    "A request attempted to lock a timestamp that was already locked",
-                    SafeArg.of("timestamp", timestamp),
-                    SafeArg.of("requestId", requestId),
-                    SafeArg.of("currentHolder", holdersByTimestamp.get(timestamp)));
-        }
+    private static final long NO_TIMESTAMP = Long.MAX_VALUE;
+
+    private final Shard[] shards;
+
+    public ImmutableTimestampTracker() {
+        this(Runtime.getRuntime().availableProcessors());
     }
 
-    public synchronized void unlock(long timestamp, UUID requestId) {
-        boolean wasRemoved = holdersByTimestamp.remove(timestamp, requestId);
-        if (!wasRemoved) {
-            throw new LoggableIllegalStateException(
-                    "A request attempted to unlock a timestamp that was not locked or was locked by another request",
-                    SafeArg.of("timestamp", timestamp),
-                    SafeArg.of("requestId", requestId),
-                    SafeArg.of("currentHolder", holdersByTimestamp.get(timestamp)));
+    @VisibleForTesting
+    ImmutableTimestampTracker(int numShards) {
+        this.shards = new Shard[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new Shard();
         }
     }
 
-    public synchronized Optional<Long> getImmutableTimestamp() {
-        if (holdersByTimestamp.isEmpty()) {
+    public void lock(long timestamp, UUID requestId) {
+        shardFor(timestamp).lock(timestamp, requestId);
+    }
+
+    public void unlock(long timestamp, UUID requestId) {
+        shardFor(timestamp).unlock(timestamp, requestId);
+    }
+
+    public Optional<Long> getImmutableTimestamp() {
+        long earliestTimestamp = NO_TIMESTAMP;
+        for (Shard shard : shards) {
+            earliestTimestamp = Math.min(earliestTimestamp, shard.earliestTimestamp);
+        }
+        if (earliestTimestamp == NO_TIMESTAMP) {
             return Optional.empty();
         }
-        return Optional.of(holdersByTimestamp.firstKey());
+        return Optional.of(earliestTimestamp);
     }
 
     // TODO(nziebart): should these locks should be created by LockCollection for consistency?
     public AsyncLock getLockFor(long timestamp) {
         return new ImmutableTimestampLock(timestamp, this);
     }
+
+    private Shard shardFor(long timestamp) {
+        return shards[Math.floorMod(timestamp, shards.length)];
+    }
+
+    private static final class Shard {
+
+        @GuardedBy("this")
+        private final SortedMap<Long, UUID> holdersByTimestamp = new TreeMap<>();
+
+        private volatile long earliestTimestamp = NO_TIMESTAMP;
+
+        synchronized void lock(long timestamp, UUID requestId) {
+            boolean wasAdded = holdersByTimestamp.putIfAbsent(timestamp, requestId) == null;
+            if (!wasAdded) {
+                throw new LoggableIllegalStateException(
+                        "A request attempted to lock a timestamp that was already locked",
+                        SafeArg.of("timestamp", timestamp),
+                        SafeArg.of("requestId", requestId),
+                        SafeArg.of("currentHolder", holdersByTimestamp.get(timestamp)));
+            }
+            if (timestamp < earliestTimestamp) {
+                earliestTimestamp = timestamp;
+            }
+        }
+
+        synchronized void unlock(long timestamp, UUID requestId) {
+            boolean wasRemoved = holdersByTimestamp.remove(timestamp, requestId);
+            if (!wasRemoved) {
+                throw new LoggableIllegalStateException(
+                        "A request attempted to unlock a timestamp that was not locked or was locked by another"
+                                + " request",
+                        SafeArg.of("timestamp", timestamp),
+                        SafeArg.of("requestId", requestId),
+                        SafeArg.of("currentHolder", holdersByTimestamp.get(timestamp)));
+            }
+            earliestTimestamp = holdersByTimestamp.isEmpty() ? NO_TIMESTAMP : holdersByTimestamp.firstKey();
+        }
+    }
 }
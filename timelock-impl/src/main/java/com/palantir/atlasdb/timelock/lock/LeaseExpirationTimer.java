@@ -36,6 +36,13 @@ public class LeaseExpirationTimer {
         return expiry().isBefore(clock.get());
     }
 
+    /**
+     * Returns how long ago the lease expired, which is negative if it has not expired yet.
+     */
+    public long nanosSinceExpiry() {
+        return expiry().nanosUntil(clock.get());
+    }
+
     public NanoTime lastRefreshTime() {
         return lastRefreshTime;
     }
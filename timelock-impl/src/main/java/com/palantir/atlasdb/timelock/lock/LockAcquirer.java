@@ -20,6 +20,7 @@ import com.palantir.atlasdb.timelock.lock.watch.LockWatchingService;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -46,15 +47,27 @@ public class LockAcquirer implements AutoCloseable {
     }
 
     public AsyncResult<HeldLocks> acquireLocks(UUID requestId, OrderedLocks locks, TimeLimit timeout) {
-        return new Acquisition(requestId, locks, timeout, lock -> lock.lock(requestId))
-                .execute()
-                .map(ignored -> HeldLocks.create(lockLog, locks.get(), requestId, leaderClock, lockWatcher));
+        long startNanos = System.nanoTime();
+        AsyncResult<Void> acquisition =
+                new Acquisition(requestId, locks, timeout, lock -> lock.lock(requestId)).execute();
+        if (acquisition.isComplete()) {
+            recordIfAcquired(acquisition, locks, startNanos);
+        } else {
+            acquisition.onComplete(() -> recordIfAcquired(acquisition, locks, startNanos));
+        }
+        return acquisition.map(ignored -> HeldLocks.create(lockLog, locks.get(), requestId, leaderClock, lockWatcher));
     }
 
     public AsyncResult<Void> waitForLocks(UUID requestId, OrderedLocks locks, TimeLimit timeout) {
         return new Acquisition(requestId, locks, timeout, lock -> lock.waitUntilAvailable(requestId)).execute();
     }
 
+    private void recordIfAcquired(AsyncResult<Void> acquisition, OrderedLocks locks, long startNanos) {
+        if (acquisition.isCompletedSuccessfully()) {
+            lockLog.locksAcquired(locks.get().size(), System.nanoTime() - startNanos);
+        }
+    }
+
     @Override
     public void close() {
         log.info("Shutting down, logging lock diagnostic info");
@@ -90,10 +103,23 @@ public class LockAcquirer implements AutoCloseable {
             return result;
         }
 
+        /**
+         * Locks are claimed directly for as long as they are granted immediately, so only the locks from the first
+         * one that is not are chained behind each other.
+         */
         private void acquireLocks() {
             try {
+                List<AsyncLock> orderedLocks = locks.get();
                 AsyncResult<Void> lockResult = AsyncResult.completedResult();
-                for (AsyncLock lock : locks.get()) {
+                int nextLock = 0;
+                while (nextLock < orderedLocks.size()) {
+                    AsyncResult<Void> nextResult = lockFunction.apply(orderedLocks.get(nextLock++));
+                    if (!nextResult.isCompletedSuccessfully()) {
+                        lockResult = nextResult;
+                        break;
+                    }
+                }
+                for (AsyncLock lock : orderedLocks.subList(nextLock, orderedLocks.size())) {
                     lockResult = lockResult.concatWith(() -> lockFunction.apply(lock));
                 }
                 this.result = lockResult;
@@ -19,14 +19,16 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.common.collect.Lists;
 import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.LockMode;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class LockCollection {
 
-    private final LoadingCache<LockDescriptor, AsyncLock> locksById;
+    private final LoadingCache<LockDescriptor, ExclusiveLock> locksById;
 
     public LockCollection() {
         locksById = Caffeine.newBuilder().weakValues().build(ExclusiveLock::new);
@@ -43,13 +45,29 @@ public class LockCollection {
         return OrderedLocks.fromOrderedList(locks);
     }
 
+    /**
+     * Returns the locks for the given descriptors, in the same order as {@link #getAll(Set)}. Descriptors requested
+     * in {@link LockMode#READ} mode are returned as {@link SharedLock}s.
+     */
+    public OrderedLocks getAllInModes(Map<LockDescriptor, LockMode> descriptorsToModes) {
+        List<LockDescriptor> orderedDescriptors = sort(descriptorsToModes.keySet());
+
+        List<AsyncLock> locks = Lists.newArrayListWithExpectedSize(descriptorsToModes.size());
+        for (LockDescriptor descriptor : orderedDescriptors) {
+            ExclusiveLock lock = getLock(descriptor);
+            locks.add(descriptorsToModes.get(descriptor) == LockMode.READ ? new SharedLock(lock) : lock);
+        }
+
+        return OrderedLocks.fromOrderedList(locks);
+    }
+
     private static List<LockDescriptor> sort(Set<LockDescriptor> descriptors) {
         List<LockDescriptor> orderedDescriptors = new ArrayList<>(descriptors);
         orderedDescriptors.sort(Comparator.naturalOrder());
         return orderedDescriptors;
     }
 
-    private AsyncLock getLock(LockDescriptor descriptor) {
+    private ExclusiveLock getLock(LockDescriptor descriptor) {
         return locksById.get(descriptor);
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.palantir.atlasdb.timelock.lock;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -29,20 +30,23 @@ import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
 public class LockLog {
 
     private final LockEvents events;
     private final Optional<LockDiagnosticCollector> lockDiagnosticInfoCollector;
+    private final Histograms histograms;
 
     public LockLog(MetricRegistry metricRegistry, Supplier<Long> thresholdMillis) {
-        this(new LoggingLockEvents(metricRegistry, thresholdMillis));
+        this(new LoggingLockEvents(metricRegistry, thresholdMillis), new Histograms(metricRegistry));
     }
 
-    private LockLog(LockEvents events) {
+    private LockLog(LockEvents events, Histograms histograms) {
         this.events = events;
         this.lockDiagnosticInfoCollector = Optional.empty();
+        this.histograms = histograms;
     }
 
     /**
@@ -50,9 +54,13 @@ public class LockLog {
      * @deprecated Remove this once PDS-95791 is resolved.
      */
     @Deprecated
-    private LockLog(LockEvents loggingLockEvents, LockDiagnosticCollector lockDiagnosticInfoCollector) {
+    private LockLog(
+            LockEvents loggingLockEvents,
+            LockDiagnosticCollector lockDiagnosticInfoCollector,
+            Histograms histograms) {
         this.events = new CombinedLockEvents(ImmutableList.of(loggingLockEvents, lockDiagnosticInfoCollector));
         this.lockDiagnosticInfoCollector = Optional.of(lockDiagnosticInfoCollector);
+        this.histograms = histograms;
     }
 
     /**
@@ -62,7 +70,7 @@ public class LockLog {
     @Deprecated
     public LockLog withLockRequestDiagnosticCollection(LockDiagnosticConfig lockDiagnosticConfig) {
         Preconditions.checkState(!lockDiagnosticInfoCollector.isPresent(), "diagnostics are already being collected");
-        return new LockLog(events, new LockDiagnosticCollector(lockDiagnosticConfig));
+        return new LockLog(events, new LockDiagnosticCollector(lockDiagnosticConfig), histograms);
     }
 
     public void registerRequest(IdentifiedLockRequest request, AsyncResult<?> result) {
@@ -104,8 +112,21 @@ public class LockLog {
         }
     }
 
-    void lockExpired(UUID requestId, Collection<LockDescriptor> lockDescriptors) {
+    /**
+     * Records how many locks a request acquired, and how long it took from starting to acquire them until the last
+     * one was held.
+     */
+    void locksAcquired(int numLocks, long acquisitionTimeNanos) {
+        histograms.locksPerRequest.update(numLocks);
+        histograms.acquisitionTimeMicros.update(TimeUnit.NANOSECONDS.toMicros(acquisitionTimeNanos));
+    }
+
+    /**
+     * Records that a lease expired, along with how long after its expiry it was reaped.
+     */
+    void lockExpired(UUID requestId, Collection<LockDescriptor> lockDescriptors, long reapingLagNanos) {
         events.lockExpired(requestId, lockDescriptors);
+        histograms.reapingLagMillis.update(TimeUnit.NANOSECONDS.toMillis(Math.max(0, reapingLagNanos)));
     }
 
     void lockUnlocked(UUID requestId) {
@@ -130,4 +151,16 @@ public class LockLog {
     void logLockDiagnosticInfo() {
         lockDiagnosticInfoCollector.ifPresent(LockDiagnosticCollector::logCurrentState);
     }
+
+    private static final class Histograms {
+        private final Histogram locksPerRequest;
+        private final Histogram acquisitionTimeMicros;
+        private final Histogram reapingLagMillis;
+
+        private Histograms(MetricRegistry metricRegistry) {
+            this.locksPerRequest = metricRegistry.histogram("lock.locks-per-request");
+            this.acquisitionTimeMicros = metricRegistry.histogram("lock.acquisition-time-micros");
+            this.reapingLagMillis = metricRegistry.histogram("lock.lease-reaping-lag-millis");
+        }
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.atlasdb.timelock.lock;
+
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.LockMode;
+import java.util.UUID;
+
+/**
+ * Shared access to an {@link ExclusiveLock}. Any number of requests may hold the same lock through a shared lock at
+ * once, as long as no request holds it exclusively.
+ */
+public class SharedLock implements AsyncLock {
+
+    private final ExclusiveLock lock;
+
+    public SharedLock(ExclusiveLock lock) {
+        this.lock = lock;
+    }
+
+    @Override
+    public AsyncResult<Void> lock(UUID requestId) {
+        return lock.lockShared(requestId);
+    }
+
+    @Override
+    public AsyncResult<Void> waitUntilAvailable(UUID requestId) {
+        return lock.waitUntilSharedAvailable(requestId);
+    }
+
+    @Override
+    public void unlock(UUID requestId) {
+        lock.unlock(requestId);
+    }
+
+    @Override
+    public void timeout(UUID requestId) {
+        lock.timeout(requestId);
+    }
+
+    @Override
+    public LockDescriptor getDescriptor() {
+        return lock.getDescriptor();
+    }
+
+    @Override
+    public LockMode getMode() {
+        return LockMode.READ;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.lock;
+
+import com.palantir.common.time.NanoTime;
+import com.palantir.logsafe.Preconditions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+
+/**
+ * A ring of buckets, one per tick, holding entries that are due at some deadline. Scheduling an entry takes constant
+ * time, and advancing the wheel only looks at the buckets of the ticks that have passed since it was last advanced, so
+ * finding due entries costs time proportional to the number of entries that are due rather than the number scheduled.
+ *
+ * Entries are looked at in the first advance that reaches the tick of their deadline, which may be slightly before the
+ * deadline itself; an entry that is not yet due can be rescheduled. Deadlines further than one revolution away are
+ * looked at once per revolution. Entries may be scheduled from any thread, but the wheel must only be advanced by one
+ * thread at a time.
+ */
+final class TimingWheel<T> {
+    private final NanoTime origin;
+    private final long tickNanos;
+    private final List<Queue<T>> buckets;
+
+    private volatile long currentTick = 0;
+
+    TimingWheel(NanoTime origin, Duration tick, int numBuckets) {
+        Preconditions.checkArgument(numBuckets >= 2, "A timing wheel needs at least two buckets");
+        this.origin = origin;
+        this.tickNanos = tick.toNanos();
+        this.buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    void schedule(T entry, NanoTime deadline) {
+        bucketFor(deadline, currentTick).add(entry);
+    }
+
+    /**
+     * Passes every entry whose tick has been reached by the given time to the given function, which returns the new
+     * deadline of entries that should stay on the wheel, or empty for entries that should be dropped.
+     */
+    void advance(NanoTime now, Function<T, Optional<NanoTime>> nextDeadline) {
+        long firstTick = currentTick;
+        long nowTick = tickOf(now);
+        long lastTick = Math.min(nowTick, firstTick + buckets.size() - 1);
+        for (long tick = firstTick; tick <= lastTick; tick++) {
+            currentTick = tick;
+            Queue<T> bucket = bucket(tick);
+            for (T entry = bucket.poll(); entry != null; entry = bucket.poll()) {
+                Optional<NanoTime> deadline = nextDeadline.apply(entry);
+                if (deadline.isPresent()) {
+                    bucketFor(deadline.get(), tick + 1).add(entry);
+                }
+            }
+        }
+        currentTick = Math.max(firstTick, nowTick);
+    }
+
+    /**
+     * Deadlines before the earliest tick go in its bucket, and deadlines beyond what the wheel covers are pulled in
+     * so that they never wrap around onto the bucket of the tick before the earliest one. Entries rescheduled while a
+     * bucket is being drained therefore never land back in it.
+     */
+    private Queue<T> bucketFor(NanoTime deadline, long earliestTick) {
+        long tick = Math.max(tickOf(deadline), earliestTick);
+        return bucket(Math.min(tick, earliestTick + buckets.size() - 2));
+    }
+
+    private Queue<T> bucket(long tick) {
+        return buckets.get(Math.floorMod(tick, buckets.size()));
+    }
+
+    private long tickOf(NanoTime time) {
+        return Math.floorDiv(origin.nanosUntil(time), tickNanos);
+    }
+}
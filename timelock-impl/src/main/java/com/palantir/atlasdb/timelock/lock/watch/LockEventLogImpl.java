@@ -20,13 +20,11 @@ import com.google.common.collect.RangeSet;
 import com.palantir.atlasdb.timelock.lock.AsyncLock;
 import com.palantir.atlasdb.timelock.lock.HeldLocksCollection;
 import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.LockMode;
 import com.palantir.lock.v2.LockToken;
-import com.palantir.lock.watch.LockEvent;
-import com.palantir.lock.watch.LockWatchCreatedEvent;
 import com.palantir.lock.watch.LockWatchReferences.LockWatchReference;
 import com.palantir.lock.watch.LockWatchStateUpdate;
 import com.palantir.lock.watch.LockWatchVersion;
-import com.palantir.lock.watch.UnlockEvent;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
@@ -35,8 +33,12 @@ import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class LockEventLogImpl implements LockEventLog {
+    private static final int WINDOW_SIZE = 10_000;
+    private static final int MAX_MATERIALIZED_EVENTS = 1_000;
+
     private final UUID logId;
-    private final ArrayLockEventSlidingWindow slidingWindow = new ArrayLockEventSlidingWindow(1000);
+    private final PrimitiveLockEventSlidingWindow slidingWindow =
+            new PrimitiveLockEventSlidingWindow(WINDOW_SIZE, MAX_MATERIALIZED_EVENTS);
     private final Supplier<LockWatches> watchesSupplier;
     private final HeldLocksCollection heldLocksCollection;
 
@@ -61,18 +63,18 @@ public class LockEventLogImpl implements LockEventLog {
 
     @Override
     public synchronized void logLock(Set<LockDescriptor> locksTakenOut, LockToken lockToken) {
-        slidingWindow.add(LockEvent.builder(locksTakenOut, lockToken));
+        slidingWindow.addLock(locksTakenOut, lockToken);
     }
 
     @Override
     public synchronized void logUnlock(Set<LockDescriptor> locksUnlocked) {
-        slidingWindow.add(UnlockEvent.builder(locksUnlocked));
+        slidingWindow.addUnlock(locksUnlocked);
     }
 
     @Override
     public synchronized void logLockWatchCreated(LockWatches newWatches) {
         Set<LockDescriptor> openLocks = calculateOpenLocks(newWatches.ranges());
-        slidingWindow.add(LockWatchCreatedEvent.builder(newWatches.references(), openLocks));
+        slidingWindow.addLockWatchCreated(newWatches.references(), openLocks);
     }
 
     private Optional<LockWatchStateUpdate> tryGetNextEvents(Optional<LockWatchVersion> fromVersion) {
@@ -94,14 +96,17 @@ public class LockEventLogImpl implements LockEventLog {
     }
 
     /**
-     * Iterates through all currently held locks and returns the set of all locks matching the watched ranges.
+     * Iterates through all currently held locks and returns the set of all locks matching the watched ranges. Shared
+     * locks are not included, as they are not published as lock events either.
      * <p>
      * Note that the set of held locks can be modified during the execution of this method. Therefore, this method is
      * NOT guaranteed to return a consistent snapshot of the world.
      */
     private Set<LockDescriptor> calculateOpenLocks(RangeSet<LockDescriptor> watchedRanges) {
         return heldLocksCollection.locksHeld().stream()
-                .flatMap(locksHeld -> locksHeld.getLocks().stream().map(AsyncLock::getDescriptor))
+                .flatMap(locksHeld -> locksHeld.getLocks().stream()
+                        .filter(lock -> lock.getMode() == LockMode.WRITE)
+                        .map(AsyncLock::getDescriptor))
                 .filter(watchedRanges::contains)
                 .collect(Collectors.toSet());
     }
@@ -0,0 +1,166 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.lock.watch;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.palantir.lock.LockDescriptor;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An immutable index over watched lock descriptor ranges, answering whether a descriptor is watched in time
+ * proportional to its length rather than to the number of watched ranges.
+ *
+ * Every lock watch reference other than a row range is either a single descriptor or all descriptors with a given
+ * prefix. Single descriptors are kept in a hash set, and prefixes in a byte trie; any other range is looked up in a
+ * range set.
+ */
+@SuppressWarnings("UnstableApiUsage")
+final class LockWatchIndex {
+    private final Set<LockDescriptor> exactDescriptors;
+    private final TrieNode prefixes;
+    private final RangeSet<LockDescriptor> otherRanges;
+
+    private LockWatchIndex(
+            Set<LockDescriptor> exactDescriptors, TrieNode prefixes, RangeSet<LockDescriptor> otherRanges) {
+        this.exactDescriptors = exactDescriptors;
+        this.prefixes = prefixes;
+        this.otherRanges = otherRanges;
+    }
+
+    static LockWatchIndex create(RangeSet<LockDescriptor> ranges) {
+        ImmutableSet.Builder<LockDescriptor> exactDescriptors = ImmutableSet.builder();
+        TrieNodeBuilder prefixes = new TrieNodeBuilder();
+        ImmutableRangeSet.Builder<LockDescriptor> otherRanges = ImmutableRangeSet.builder();
+        for (Range<LockDescriptor> range : ranges.asRanges()) {
+            if (isSingleDescriptor(range)) {
+                exactDescriptors.add(range.lowerEndpoint());
+            } else if (isPrefixRange(range)) {
+                prefixes.add(range.lowerEndpoint().getBytes());
+            } else {
+                otherRanges.add(range);
+            }
+        }
+        return new LockWatchIndex(exactDescriptors.build(), prefixes.build(), otherRanges.build());
+    }
+
+    boolean contains(LockDescriptor descriptor) {
+        return exactDescriptors.contains(descriptor)
+                || prefixes.containsPrefixOf(descriptor.getBytes())
+                || (!otherRanges.isEmpty() && otherRanges.contains(descriptor));
+    }
+
+    private static boolean isSingleDescriptor(Range<LockDescriptor> range) {
+        return range.hasLowerBound()
+                && range.hasUpperBound()
+                && range.lowerBoundType() == BoundType.CLOSED
+                && range.upperBoundType() == BoundType.CLOSED
+                && range.lowerEndpoint().equals(range.upperEndpoint());
+    }
+
+    /**
+     * Whether the range is [prefix, end), where end is the first byte string after all strings starting with prefix.
+     */
+    private static boolean isPrefixRange(Range<LockDescriptor> range) {
+        if (!range.hasLowerBound()
+                || !range.hasUpperBound()
+                || range.lowerBoundType() != BoundType.CLOSED
+                || range.upperBoundType() != BoundType.OPEN) {
+            return false;
+        }
+        byte[] prefix = range.lowerEndpoint().getBytes();
+        byte[] end = range.upperEndpoint().getBytes();
+        int lastIncremented = end.length - 1;
+        if (lastIncremented < 0 || lastIncremented >= prefix.length) {
+            return false;
+        }
+        for (int i = lastIncremented + 1; i < prefix.length; i++) {
+            if ((prefix[i] & 0xff) != 0xff) {
+                return false;
+            }
+        }
+        return Arrays.equals(prefix, 0, lastIncremented, end, 0, lastIncremented)
+                && (prefix[lastIncremented] & 0xff) != 0xff
+                && end[lastIncremented] == (byte) (prefix[lastIncremented] + 1);
+    }
+
+    private static final class TrieNode {
+        private static final TrieNode EMPTY = new TrieNode(false, new byte[0], new TrieNode[0]);
+
+        private final boolean terminal;
+        private final byte[] keys;
+        private final TrieNode[] children;
+
+        private TrieNode(boolean terminal, byte[] keys, TrieNode[] children) {
+            this.terminal = terminal;
+            this.keys = keys;
+            this.children = children;
+        }
+
+        boolean containsPrefixOf(byte[] bytes) {
+            TrieNode node = this;
+            for (int i = 0; !node.terminal; i++) {
+                if (i == bytes.length) {
+                    return false;
+                }
+                node = node.child(bytes[i]);
+                if (node == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private TrieNode child(byte key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class TrieNodeBuilder {
+        private final Map<Byte, TrieNodeBuilder> children = new TreeMap<>();
+        private boolean terminal = false;
+
+        void add(byte[] prefix) {
+            TrieNodeBuilder node = this;
+            for (byte key : prefix) {
+                node = node.children.computeIfAbsent(key, unused -> new TrieNodeBuilder());
+            }
+            node.terminal = true;
+        }
+
+        TrieNode build() {
+            if (!terminal && children.isEmpty()) {
+                return TrieNode.EMPTY;
+            }
+            byte[] keys = new byte[children.size()];
+            TrieNode[] builtChildren = new TrieNode[children.size()];
+            int index = 0;
+            for (Map.Entry<Byte, TrieNodeBuilder> child : children.entrySet()) {
+                keys[index] = child.getKey();
+                builtChildren[index] = child.getValue().build();
+                index++;
+            }
+            return new TrieNode(terminal, keys, builtChildren);
+        }
+    }
+}
@@ -33,6 +33,11 @@ interface LockWatches {
     @Value.Parameter
     RangeSet<LockDescriptor> ranges();
 
+    @Value.Lazy
+    default LockWatchIndex index() {
+        return LockWatchIndex.create(ranges());
+    }
+
     static LockWatches create() {
         return ImmutableLockWatches.of(new HashSet<>(), TreeRangeSet.create());
     }
@@ -38,25 +38,20 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
 /**
- * Note on concurrency: We use a fair read write lock mechanism and synchronisation as follows:
+ * Note on concurrency: watches are replaced copy-on-write, and synchronisation is as follows:
  *
  * <ol>
- *     <li>Registering locks and unlocks requires a read lock.</li>
- *     <li>Updating watches requires a write lock to swap the actual reference. This ensures that, as soon as an update
- *     is made, any registered locks and unlocks onwards will use updated ranges for filtering. This is necessary to
- *     guarantee that the log will contain any locks/unlocks of newly watched locks; see
- *     {@link LockEventLogImpl#calculateOpenLocks} for more details.</li>
- *     <li>Updating in {@link #addToWatches(LockWatchRequest)} is synchronised to minimise the scope of holding
- *     the write lock above while still preventing concurrent updates.</li>
- *     <li>Fairness of the lock ensures that updates are eventually granted, even in the presence of constant locks and
- *     unlocks.</li>
+ *     <li>Registering locks and unlocks reads the current watches without locking, and filters descriptors through
+ *     their {@link LockWatchIndex}. If the watches were replaced while filtering, filtering is repeated with the new
+ *     ones. This ensures that, as soon as an update is made, any registered locks and unlocks onwards will use updated
+ *     ranges for filtering. This is necessary to guarantee that the log will contain any locks/unlocks of newly
+ *     watched locks; see {@link LockEventLogImpl#calculateOpenLocks} for more details.</li>
+ *     <li>Updating in {@link #addToWatches(LockWatchRequest)} is synchronised to prevent concurrent updates, and
+ *     builds the index of the new watches before publishing them.</li>
  * </ol>
  */
 @SuppressWarnings("UnstableApiUsage")
@@ -65,7 +60,6 @@ public class LockWatchingServiceImpl implements LockWatchingService {
 
     private final LockEventLog lockEventLog;
     private final AtomicReference<LockWatches> watches = new AtomicReference<>(LockWatches.create());
-    private final ReadWriteLock watchesLock = new ReentrantReadWriteLock(true);
 
     public LockWatchingServiceImpl(HeldLocksCollection heldLocksCollection, LeadershipId leadershipId) {
         this(leadershipId.id(), heldLocksCollection);
@@ -116,12 +110,8 @@ public class LockWatchingServiceImpl implements LockWatchingService {
         Optional<LockWatches> newWatches = filterNewWatches(request, oldWatches);
         if (newWatches.isPresent()) {
             LockWatches updatedWatches = LockWatches.merge(oldWatches, newWatches.get());
-            watchesLock.writeLock().lock();
-            try {
-                watches.set(updatedWatches);
-            } finally {
-                watchesLock.writeLock().unlock();
-            }
+            updatedWatches.index();
+            watches.set(updatedWatches);
         }
         return newWatches;
     }
@@ -143,18 +133,28 @@ public class LockWatchingServiceImpl implements LockWatchingService {
         lockEventLog.logLockWatchCreated(newWatches);
     }
 
+    @SuppressWarnings("ReferenceEquality") // watches are replaced rather than modified
     private void runIfDescriptorsMatchLockWatches(
             Set<LockDescriptor> unfiltered, Consumer<Set<LockDescriptor>> consumer) {
-        watchesLock.readLock().lock();
-        try {
-            RangeSet<LockDescriptor> ranges = watches.get().ranges();
-            Set<LockDescriptor> filtered =
-                    unfiltered.stream().filter(ranges::contains).collect(Collectors.toSet());
-            if (!filtered.isEmpty()) {
-                consumer.accept(filtered);
+        LockWatches currentWatches = watches.get();
+        Set<LockDescriptor> filtered = filter(unfiltered, currentWatches);
+        while (watches.get() != currentWatches) {
+            currentWatches = watches.get();
+            filtered = filter(unfiltered, currentWatches);
+        }
+        if (!filtered.isEmpty()) {
+            consumer.accept(filtered);
+        }
+    }
+
+    private static Set<LockDescriptor> filter(Set<LockDescriptor> unfiltered, LockWatches currentWatches) {
+        LockWatchIndex index = currentWatches.index();
+        Set<LockDescriptor> filtered = new HashSet<>();
+        for (LockDescriptor descriptor : unfiltered) {
+            if (index.contains(descriptor)) {
+                filtered.add(descriptor);
             }
-        } finally {
-            watchesLock.readLock().unlock();
         }
+        return filtered;
     }
 }
@@ -0,0 +1,291 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.lock.watch;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.math.LongMath;
+import com.google.common.primitives.Ints;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchCreatedEvent;
+import com.palantir.lock.watch.LockWatchEvent;
+import com.palantir.lock.watch.LockWatchReferences.LockWatchReference;
+import com.palantir.lock.watch.UnlockEvent;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * A sliding window of lock watch events that keeps each event as a compact record rather than as a {@link
+ * LockWatchEvent}. Lock descriptors are interned for as long as an event in the window refers to them, and each event
+ * keeps the ids of its descriptors in ascending order as variable-length deltas. Descriptors locked and then unlocked
+ * are therefore only held once, and descriptors first seen together, such as those of a single lock request, take
+ * about a byte each. Events are only turned back into {@link LockWatchEvent}s when they are read.
+ * <p>
+ * Clients that keep up with the log ask for the same recent events over and over, so the materialized events of the
+ * most recent records are cached and handed out again. Older records are materialized on every read, which only
+ * clients that fell far behind pay for.
+ */
+@NotThreadSafe
+final class PrimitiveLockEventSlidingWindow {
+    private static final byte LOCK = 0;
+    private static final byte UNLOCK = 1;
+    private static final byte WATCH_CREATED = 2;
+
+    private final int maxSize;
+    private final int maxMaterializedEvents;
+    private final byte[] types;
+    private final long[] tokenMostSignificantBits;
+    private final long[] tokenLeastSignificantBits;
+    private final byte[][] encodedDescriptorIds;
+    private final List<Set<LockWatchReference>> watchReferences;
+    private final LockWatchEvent[] materializedEvents;
+    private final DescriptorTable descriptorTable = new DescriptorTable();
+    private long nextSequence = 0;
+
+    PrimitiveLockEventSlidingWindow(int maxSize, int maxMaterializedEvents) {
+        Preconditions.checkArgument(
+                maxMaterializedEvents <= maxSize,
+                "Cannot cache more materialized events than the window holds",
+                SafeArg.of("maxSize", maxSize),
+                SafeArg.of("maxMaterializedEvents", maxMaterializedEvents));
+        this.maxSize = maxSize;
+        this.maxMaterializedEvents = maxMaterializedEvents;
+        this.materializedEvents = new LockWatchEvent[maxMaterializedEvents];
+        this.types = new byte[maxSize];
+        this.tokenMostSignificantBits = new long[maxSize];
+        this.tokenLeastSignificantBits = new long[maxSize];
+        this.encodedDescriptorIds = new byte[maxSize][];
+        this.watchReferences = new ArrayList<>(maxSize);
+        for (int i = 0; i < maxSize; i++) {
+            watchReferences.add(null);
+        }
+    }
+
+    long lastVersion() {
+        return nextSequence - 1;
+    }
+
+    void addLock(Set<LockDescriptor> lockDescriptors, LockToken lockToken) {
+        int index = nextIndex(LOCK, lockDescriptors);
+        UUID requestId = lockToken.getRequestId();
+        tokenMostSignificantBits[index] = requestId.getMostSignificantBits();
+        tokenLeastSignificantBits[index] = requestId.getLeastSignificantBits();
+    }
+
+    void addUnlock(Set<LockDescriptor> lockDescriptors) {
+        nextIndex(UNLOCK, lockDescriptors);
+    }
+
+    void addLockWatchCreated(Set<LockWatchReference> references, Set<LockDescriptor> lockDescriptors) {
+        int index = nextIndex(WATCH_CREATED, lockDescriptors);
+        watchReferences.set(index, ImmutableSet.copyOf(references));
+    }
+
+    Optional<List<LockWatchEvent>> getNextEvents(long version) {
+        if (version > lastVersion() || lastVersion() - version > maxSize) {
+            return Optional.empty();
+        }
+        int windowSize = Ints.saturatedCast(lastVersion() - version);
+        List<LockWatchEvent> events = new ArrayList<>(windowSize);
+        for (long sequence = version + 1; sequence <= lastVersion(); sequence++) {
+            events.add(materializedEventAt(sequence));
+        }
+        return Optional.of(events);
+    }
+
+    @VisibleForTesting
+    boolean isMaterialized(long sequence) {
+        LockWatchEvent cached = materializedEvents[LongMath.mod(sequence, maxMaterializedEvents)];
+        return cached != null && cached.sequence() == sequence;
+    }
+
+    @VisibleForTesting
+    int internedDescriptors() {
+        return descriptorTable.size();
+    }
+
+    private int nextIndex(byte type, Set<LockDescriptor> lockDescriptors) {
+        int index = LongMath.mod(nextSequence, maxSize);
+        if (nextSequence >= maxSize) {
+            evict(index);
+        }
+        types[index] = type;
+        encodedDescriptorIds[index] = encode(lockDescriptors);
+        nextSequence++;
+        return index;
+    }
+
+    private void evict(int index) {
+        for (int id : decode(encodedDescriptorIds[index])) {
+            descriptorTable.release(id);
+        }
+        encodedDescriptorIds[index] = null;
+        watchReferences.set(index, null);
+    }
+
+    private LockWatchEvent materializedEventAt(long sequence) {
+        if (isMaterialized(sequence)) {
+            return materializedEvents[LongMath.mod(sequence, maxMaterializedEvents)];
+        }
+        LockWatchEvent event = eventAt(sequence);
+        if (lastVersion() - sequence < maxMaterializedEvents) {
+            materializedEvents[LongMath.mod(sequence, maxMaterializedEvents)] = event;
+        }
+        return event;
+    }
+
+    private LockWatchEvent eventAt(long sequence) {
+        int index = LongMath.mod(sequence, maxSize);
+        Set<LockDescriptor> lockDescriptors = descriptorsAt(index);
+        switch (types[index]) {
+            case LOCK:
+                UUID requestId = new UUID(tokenMostSignificantBits[index], tokenLeastSignificantBits[index]);
+                return LockEvent.builder(lockDescriptors, LockToken.of(requestId)).build(sequence);
+            case UNLOCK:
+                return UnlockEvent.builder(lockDescriptors).build(sequence);
+            default:
+                return LockWatchCreatedEvent.builder(watchReferences.get(index), lockDescriptors).build(sequence);
+        }
+    }
+
+    private Set<LockDescriptor> descriptorsAt(int index) {
+        int[] ids = decode(encodedDescriptorIds[index]);
+        ImmutableSet.Builder<LockDescriptor> descriptors = ImmutableSet.builderWithExpectedSize(ids.length);
+        for (int id : ids) {
+            descriptors.add(descriptorTable.get(id));
+        }
+        return descriptors.build();
+    }
+
+    private byte[] encode(Set<LockDescriptor> lockDescriptors) {
+        int[] ids = new int[lockDescriptors.size()];
+        int numIds = 0;
+        for (LockDescriptor descriptor : lockDescriptors) {
+            ids[numIds++] = descriptorTable.acquire(descriptor);
+        }
+        Arrays.sort(ids);
+
+        byte[] encoded = new byte[5 * (ids.length + 1)];
+        int position = writeVarInt(encoded, 0, ids.length);
+        int previousId = 0;
+        for (int id : ids) {
+            position = writeVarInt(encoded, position, id - previousId);
+            previousId = id;
+        }
+        return Arrays.copyOf(encoded, position);
+    }
+
+    private static int[] decode(byte[] encoded) {
+        int[] position = {0};
+        int[] ids = new int[readVarInt(encoded, position)];
+        int previousId = 0;
+        for (int i = 0; i < ids.length; i++) {
+            previousId += readVarInt(encoded, position);
+            ids[i] = previousId;
+        }
+        return ids;
+    }
+
+    private static int writeVarInt(byte[] buffer, int position, int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        buffer[position++] = (byte) remaining;
+        return position;
+    }
+
+    private static int readVarInt(byte[] buffer, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = buffer[position[0]++];
+            value |= (next & 0x7F) << shift;
+            shift += 7;
+        } while ((next & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * Assigns each descriptor an id for as long as events in the window refer to it. Ids of descriptors that are no
+     * longer referred to are reused.
+     */
+    @NotThreadSafe
+    private static final class DescriptorTable {
+        private final Map<LockDescriptor, Integer> idsByDescriptor = new HashMap<>();
+        private LockDescriptor[] descriptorsById = new LockDescriptor[16];
+        private int[] referenceCounts = new int[16];
+        private int[] freeIds = new int[16];
+        private int numFreeIds = 0;
+        private int nextUnusedId = 0;
+
+        int acquire(LockDescriptor descriptor) {
+            Integer existingId = idsByDescriptor.get(descriptor);
+            int id = existingId != null ? existingId : assignId(descriptor);
+            referenceCounts[id]++;
+            return id;
+        }
+
+        void release(int id) {
+            referenceCounts[id]--;
+            if (referenceCounts[id] == 0) {
+                idsByDescriptor.remove(descriptorsById[id]);
+                descriptorsById[id] = null;
+                if (numFreeIds == freeIds.length) {
+                    freeIds = Arrays.copyOf(freeIds, numFreeIds * 2);
+                }
+                freeIds[numFreeIds++] = id;
+            }
+        }
+
+        LockDescriptor get(int id) {
+            return descriptorsById[id];
+        }
+
+        int size() {
+            return idsByDescriptor.size();
+        }
+
+        private int assignId(LockDescriptor descriptor) {
+            int id;
+            if (numFreeIds > 0) {
+                id = freeIds[--numFreeIds];
+            } else {
+                id = nextUnusedId++;
+                if (id == descriptorsById.length) {
+                    descriptorsById = Arrays.copyOf(descriptorsById, id * 2);
+                    referenceCounts = Arrays.copyOf(referenceCounts, id * 2);
+                }
+            }
+            idsByDescriptor.put(descriptor, id);
+            descriptorsById[id] = descriptor;
+            return id;
+        }
+    }
+}
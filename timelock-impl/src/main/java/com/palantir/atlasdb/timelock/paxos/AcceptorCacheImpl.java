@@ -13,39 +13,48 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-
 package com.palantir.atlasdb.timelock.paxos;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.google.common.collect.TreeMultimap;
+import com.google.common.annotations.VisibleForTesting;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.paxos.Client;
 import java.time.Duration;
-import java.util.Collection;
-import java.util.Comparator;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import javax.annotation.Nonnull;
-import javax.annotation.concurrent.GuardedBy;
 
+/**
+ * Readers of this cache never take a lock. Updates are made one at a time, and each update that changes the cache
+ * appends the sequence numbers it changed to an update log at the position of its cache timestamp, before publishing
+ * the new cache key through a volatile write. A reader that has seen a cache key can therefore read the log up to its
+ * timestamp, and the latest sequence number of each client, without synchronization.
+ * <p>
+ * The update log only retains the most recent {@link #RETAINED_TIMESTAMPS} cache timestamps. Updates since older
+ * cache keys, or since keys so old that the log holds more updates than there are clients, are instead found by
+ * scanning the latest sequence number of every client.
+ */
 public class AcceptorCacheImpl implements AcceptorCache {
+    @VisibleForTesting
+    static final int CHUNK_SIZE = 1024;
+
+    private static final int RETAINED_CHUNKS = 64;
+
+    @VisibleForTesting
+    static final int RETAINED_TIMESTAMPS = CHUNK_SIZE * RETAINED_CHUNKS;
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private final Cache<AcceptorCacheKey, TimestampedAcceptorCacheKey> cacheKeyToTimestamp;
-    private final Map<Client, WithSeq<Long>> clientToTimeAndSeq = new HashMap<>();
-    private final TreeMultimap<Long, WithSeq<Client>> clientsByLatestTimestamp = TreeMultimap.create(
-            Comparator.naturalOrder(),
-            Comparator.comparing(clientWithSeq -> clientWithSeq.value().value(), Comparator.naturalOrder()));
+    private final Map<Client, WithSeq<Long>> clientToTimeAndSeq = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<UpdateLogChunk> updateLog = new AtomicReferenceArray<>(RETAINED_CHUNKS);
 
-    @GuardedBy("lock")
-    private TimestampedAcceptorCacheKey latestTimestampedAcceptorCacheKey =
+    private volatile TimestampedAcceptorCacheKey latestTimestampedAcceptorCacheKey =
             TimestampedAcceptorCacheKey.of(AcceptorCacheKey.newCacheKey(), 0);
 
     public AcceptorCacheImpl() {
@@ -56,89 +65,121 @@ public class AcceptorCacheImpl implements AcceptorCache {
     }
 
     @Override
-    public void updateSequenceNumbers(Set<WithSeq<Client>> clientsAndSeqs) {
+    public synchronized void updateSequenceNumbers(Set<WithSeq<Client>> clientsAndSeqs) {
         if (clientsAndSeqs.isEmpty()) {
             return;
         }
 
-        lock.writeLock().lock();
-        try {
-            long nextTimestamp = latestTimestampedAcceptorCacheKey.timestamp() + 1;
-            AtomicBoolean updated = new AtomicBoolean(false);
-
-            clientsAndSeqs.forEach(clientAndSeq -> {
-                Client client = clientAndSeq.value();
-                long incomingSequenceNumber = clientAndSeq.seq();
-                WithSeq<Long> clientLatestWithTs = clientToTimeAndSeq.get(client);
-
-                if (clientLatestWithTs == null) {
-                    clientToTimeAndSeq.put(client, WithSeq.of(nextTimestamp, incomingSequenceNumber));
-                    clientsByLatestTimestamp.put(nextTimestamp, clientAndSeq);
-                    updated.set(true);
-                } else if (incomingSequenceNumber > clientLatestWithTs.seq()) {
-                    clientToTimeAndSeq.put(client, WithSeq.of(nextTimestamp, incomingSequenceNumber));
-                    clientsByLatestTimestamp.put(nextTimestamp, clientAndSeq);
-                    clientsByLatestTimestamp.remove(
-                            clientLatestWithTs.value(), WithSeq.of(client, clientLatestWithTs.seq()));
-                    updated.set(true);
-                }
-            });
-
-            if (!updated.get()) {
-                return;
+        long nextTimestamp = latestTimestampedAcceptorCacheKey.timestamp() + 1;
+        List<WithSeq<Client>> updates = new ArrayList<>();
+
+        clientsAndSeqs.forEach(clientAndSeq -> {
+            WithSeq<Long> clientLatestWithTs = clientToTimeAndSeq.get(clientAndSeq.value());
+            if (clientLatestWithTs == null || clientAndSeq.seq() > clientLatestWithTs.seq()) {
+                updates.add(clientAndSeq);
             }
+        });
 
-            AcceptorCacheKey nextCacheKey = AcceptorCacheKey.newCacheKey();
-            TimestampedAcceptorCacheKey newTimestampedCacheKey =
-                    TimestampedAcceptorCacheKey.of(nextCacheKey, nextTimestamp);
-            cacheKeyToTimestamp.put(nextCacheKey, newTimestampedCacheKey);
-            latestTimestampedAcceptorCacheKey = newTimestampedCacheKey;
-        } finally {
-            lock.writeLock().unlock();
+        if (updates.isEmpty()) {
+            return;
         }
+
+        appendToUpdateLog(nextTimestamp, updates);
+        updates.forEach(update -> clientToTimeAndSeq.put(update.value(), WithSeq.of(nextTimestamp, update.seq())));
+
+        AcceptorCacheKey nextCacheKey = AcceptorCacheKey.newCacheKey();
+        TimestampedAcceptorCacheKey newTimestampedCacheKey =
+                TimestampedAcceptorCacheKey.of(nextCacheKey, nextTimestamp);
+        cacheKeyToTimestamp.put(nextCacheKey, newTimestampedCacheKey);
+        latestTimestampedAcceptorCacheKey = newTimestampedCacheKey;
     }
 
+    /**
+     * The updates returned may include some made after the returned cache key was issued, if they are made
+     * concurrently. As sequence numbers only increase, this is no different to those updates being returned by the
+     * next call to {@link #updatesSinceCacheKey}, which they will be.
+     */
     @Override
     public AcceptorCacheDigest getAllUpdates() {
-        lock.readLock().lock();
-        try {
-            Map<Client, Long> clientsToLatest =
-                    KeyedStream.stream(clientToTimeAndSeq).map(WithSeq::seq).collectToMap();
-            return ImmutableAcceptorCacheDigest.builder()
-                    .newCacheKey(latestTimestampedAcceptorCacheKey.cacheKey())
-                    .cacheTimestamp(latestTimestampedAcceptorCacheKey.timestamp())
-                    .updates(clientsToLatest)
-                    .build();
-        } finally {
-            lock.readLock().unlock();
-        }
+        TimestampedAcceptorCacheKey latest = latestTimestampedAcceptorCacheKey;
+        Map<Client, Long> clientsToLatest =
+                KeyedStream.stream(clientToTimeAndSeq).map(WithSeq::seq).collectToMap();
+        return ImmutableAcceptorCacheDigest.builder()
+                .newCacheKey(latest.cacheKey())
+                .cacheTimestamp(latest.timestamp())
+                .updates(clientsToLatest)
+                .build();
     }
 
     @Override
     public Optional<AcceptorCacheDigest> updatesSinceCacheKey(@Nonnull AcceptorCacheKey cacheKey)
             throws InvalidAcceptorCacheKeyException {
-        lock.readLock().lock();
-        try {
-            if (cacheKey.equals(latestTimestampedAcceptorCacheKey.cacheKey())) {
+        TimestampedAcceptorCacheKey latest = latestTimestampedAcceptorCacheKey;
+        if (cacheKey.equals(latest.cacheKey())) {
+            return Optional.empty();
+        }
+
+        long cacheKeyTimestamp = Optional.ofNullable(cacheKeyToTimestamp.getIfPresent(cacheKey))
+                .map(TimestampedAcceptorCacheKey::timestamp)
+                .orElseThrow(() -> new InvalidAcceptorCacheKeyException(cacheKey));
+
+        Map<Client, Long> diff = readUpdateLog(cacheKeyTimestamp, latest.timestamp())
+                .orElseGet(() -> scanUpdatesSince(cacheKeyTimestamp));
+
+        return Optional.of(ImmutableAcceptorCacheDigest.builder()
+                .newCacheKey(latest.cacheKey())
+                .cacheTimestamp(latest.timestamp())
+                .updates(diff)
+                .build());
+    }
+
+    private void appendToUpdateLog(long timestamp, List<WithSeq<Client>> updates) {
+        long chunkStart = timestamp - timestamp % CHUNK_SIZE;
+        int chunkIndex = chunkIndex(timestamp);
+        UpdateLogChunk chunk = updateLog.get(chunkIndex);
+        if (chunk == null || chunk.firstTimestamp != chunkStart) {
+            chunk = new UpdateLogChunk(chunkStart);
+            updateLog.set(chunkIndex, chunk);
+        }
+        chunk.updates.set((int) (timestamp - chunkStart), updates);
+    }
+
+    /**
+     * Returns the latest sequence number of each client updated after the first timestamp, up to and including the
+     * second, or empty if the log no longer holds all of those updates or reading it would cost more than a scan.
+     */
+    private Optional<Map<Client, Long>> readUpdateLog(long afterTimestamp, long upToTimestamp) {
+        if (upToTimestamp - afterTimestamp > Math.min(RETAINED_TIMESTAMPS - CHUNK_SIZE, clientToTimeAndSeq.size())) {
+            return Optional.empty();
+        }
+        Map<Client, Long> diff = new HashMap<>();
+        for (long timestamp = afterTimestamp + 1; timestamp <= upToTimestamp; timestamp++) {
+            UpdateLogChunk chunk = updateLog.get(chunkIndex(timestamp));
+            if (chunk == null || chunk.firstTimestamp != timestamp - timestamp % CHUNK_SIZE) {
                 return Optional.empty();
             }
+            chunk.updates.get((int) (timestamp % CHUNK_SIZE)).forEach(update -> diff.put(update.value(), update.seq()));
+        }
+        return Optional.of(diff);
+    }
+
+    private Map<Client, Long> scanUpdatesSince(long afterTimestamp) {
+        return KeyedStream.stream(clientToTimeAndSeq)
+                .filter(timeAndSeq -> timeAndSeq.value() > afterTimestamp)
+                .map(WithSeq::seq)
+                .collectToMap();
+    }
+
+    private static int chunkIndex(long timestamp) {
+        return (int) ((timestamp / CHUNK_SIZE) % RETAINED_CHUNKS);
+    }
+
+    private static final class UpdateLogChunk {
+        private final long firstTimestamp;
+        private final AtomicReferenceArray<List<WithSeq<Client>>> updates = new AtomicReferenceArray<>(CHUNK_SIZE);
 
-            long cacheKeyTimestamp = Optional.ofNullable(cacheKeyToTimestamp.getIfPresent(cacheKey))
-                    .map(TimestampedAcceptorCacheKey::timestamp)
-                    .orElseThrow(() -> new InvalidAcceptorCacheKeyException(cacheKey));
-
-            Map<Client, Long> diff =
-                    clientsByLatestTimestamp.asMap().tailMap(cacheKeyTimestamp, false).values().stream()
-                            .flatMap(Collection::stream)
-                            .collect(Collectors.toMap(WithSeq::value, WithSeq::seq));
-
-            return Optional.of(ImmutableAcceptorCacheDigest.builder()
-                    .newCacheKey(latestTimestampedAcceptorCacheKey.cacheKey())
-                    .cacheTimestamp(latestTimestampedAcceptorCacheKey.timestamp())
-                    .updates(diff)
-                    .build());
-        } finally {
-            lock.readLock().unlock();
+        private UpdateLogChunk(long firstTimestamp) {
+            this.firstTimestamp = firstTimestamp;
         }
     }
 }
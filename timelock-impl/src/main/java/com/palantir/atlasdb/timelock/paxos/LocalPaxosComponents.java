@@ -33,6 +33,7 @@ import com.palantir.paxos.Client;
 import com.palantir.paxos.ImmutableLegacyOperationMarkers;
 import com.palantir.paxos.ImmutableNamespaceAndUseCase;
 import com.palantir.paxos.ImmutablePaxosStorageParameters;
+import com.palantir.paxos.ImmutableTailCacheMarkers;
 import com.palantir.paxos.PaxosAcceptor;
 import com.palantir.paxos.PaxosAcceptorImpl;
 import com.palantir.paxos.PaxosLearner;
@@ -40,6 +41,7 @@ import com.palantir.paxos.PaxosLearnerImpl;
 import com.palantir.paxos.PaxosStorageParameters;
 import com.palantir.paxos.PaxosValue;
 import com.palantir.paxos.SplittingPaxosStateLog;
+import com.palantir.paxos.TailCachingPaxosStateLog;
 import com.palantir.sls.versions.OrderableSlsVersion;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -70,6 +72,7 @@ public class LocalPaxosComponents {
     private final boolean canCreateNewClients;
     private final OrderableSlsVersion timeLockVersion;
     private final boolean skipConsistencyCheckAndTruncateOldPaxosLog;
+    private final Duration leaderLeaseDuration;
 
     private LocalPaxosComponents(
             TimelockPaxosMetrics metrics,
@@ -79,7 +82,8 @@ public class LocalPaxosComponents {
             UUID leaderUuid,
             boolean canCreateNewClients,
             OrderableSlsVersion timeLockVersion,
-            boolean skipConsistencyCheckAndTruncateOldPaxosLog) {
+            boolean skipConsistencyCheckAndTruncateOldPaxosLog,
+            Duration leaderLeaseDuration) {
         this.metrics = metrics;
         this.paxosUseCase = paxosUseCase;
         this.baseLogDirectory = legacyLogDirectory;
@@ -91,6 +95,7 @@ public class LocalPaxosComponents {
         this.canCreateNewClients = canCreateNewClients;
         this.timeLockVersion = timeLockVersion;
         this.skipConsistencyCheckAndTruncateOldPaxosLog = skipConsistencyCheckAndTruncateOldPaxosLog;
+        this.leaderLeaseDuration = leaderLeaseDuration;
     }
 
     public static LocalPaxosComponents createWithAsyncMigration(
@@ -102,6 +107,31 @@ public class LocalPaxosComponents {
             boolean canCreateNewClients,
             OrderableSlsVersion timeLockVersion,
             boolean skipConsistencyCheckAndTruncateOldPaxosLog) {
+        return createWithAsyncMigration(
+                metrics,
+                paxosUseCase,
+                legacyLogDirectory,
+                sqliteDataSource,
+                leaderUuid,
+                canCreateNewClients,
+                timeLockVersion,
+                skipConsistencyCheckAndTruncateOldPaxosLog,
+                Duration.ZERO);
+    }
+
+    /**
+     * As above, but with acceptors that back leader leases of the given duration; see {@link PaxosAcceptorImpl}.
+     */
+    public static LocalPaxosComponents createWithAsyncMigration(
+            TimelockPaxosMetrics metrics,
+            PaxosUseCase paxosUseCase,
+            Path legacyLogDirectory,
+            DataSource sqliteDataSource,
+            UUID leaderUuid,
+            boolean canCreateNewClients,
+            OrderableSlsVersion timeLockVersion,
+            boolean skipConsistencyCheckAndTruncateOldPaxosLog,
+            Duration leaderLeaseDuration) {
         ExecutorService sqliteAsyncExecutor = PTExecutors.newSingleThreadExecutor(true);
         try {
             return createWithAsyncMigration(
@@ -113,6 +143,7 @@ public class LocalPaxosComponents {
                     canCreateNewClients,
                     timeLockVersion,
                     skipConsistencyCheckAndTruncateOldPaxosLog,
+                    leaderLeaseDuration,
                     sqliteAsyncExecutor);
         } finally {
             sqliteAsyncExecutor.shutdown();
@@ -129,6 +160,30 @@ public class LocalPaxosComponents {
             OrderableSlsVersion timeLockVersion,
             boolean skipConsistencyCheckAndTruncateOldPaxosLog,
             ExecutorService sqliteAsyncExecutor) {
+        return createWithAsyncMigration(
+                metrics,
+                paxosUseCase,
+                legacyLogDirectory,
+                sqliteDataSource,
+                leaderUuid,
+                canCreateNewClients,
+                timeLockVersion,
+                skipConsistencyCheckAndTruncateOldPaxosLog,
+                Duration.ZERO,
+                sqliteAsyncExecutor);
+    }
+
+    private static LocalPaxosComponents createWithAsyncMigration(
+            TimelockPaxosMetrics metrics,
+            PaxosUseCase paxosUseCase,
+            Path legacyLogDirectory,
+            DataSource sqliteDataSource,
+            UUID leaderUuid,
+            boolean canCreateNewClients,
+            OrderableSlsVersion timeLockVersion,
+            boolean skipConsistencyCheckAndTruncateOldPaxosLog,
+            Duration leaderLeaseDuration,
+            ExecutorService sqliteAsyncExecutor) {
         LocalPaxosComponents components = new LocalPaxosComponents(
                 metrics,
                 paxosUseCase,
@@ -137,7 +192,8 @@ public class LocalPaxosComponents {
                 leaderUuid,
                 canCreateNewClients,
                 timeLockVersion,
-                skipConsistencyCheckAndTruncateOldPaxosLog);
+                skipConsistencyCheckAndTruncateOldPaxosLog,
+                leaderLeaseDuration);
 
         Path legacyClientDir = paxosUseCase.logDirectoryRelativeToDataDirectory(legacyLogDirectory);
         PersistentNamespaceLoader namespaceLoader = new DiskNamespaceLoader(legacyClientDir);
@@ -199,12 +255,17 @@ public class LocalPaxosComponents {
         }
 
         PaxosLearner learner = PaxosLearnerImpl.newSplittingLearner(
-                getLearnerParameters(client), createMetrics(PaxosLearner.class), PaxosKnowledgeEventRecorder.NO_OP);
+                getLearnerParameters(client),
+                createMetrics(PaxosLearner.class),
+                createTailCacheMetrics(PaxosLearner.class),
+                PaxosKnowledgeEventRecorder.NO_OP);
 
         PaxosAcceptor acceptor = PaxosAcceptorImpl.newSplittingAcceptor(
                 getAcceptorParameters(client),
                 createMetrics(PaxosAcceptor.class),
-                learner.getGreatestLearnedValue().map(PaxosValue::getRound));
+                createTailCacheMetrics(PaxosAcceptor.class),
+                learner.getGreatestLearnedValue().map(PaxosValue::getRound),
+                leaderLeaseDuration);
         PingableLeader localPingableLeader = new LocalPingableLeader(learner, leaderUuid, timeLockVersion);
 
         return ImmutableComponents.builder()
@@ -221,6 +282,15 @@ public class LocalPaxosComponents {
                 .build();
     }
 
+    private TailCachingPaxosStateLog.TailCacheMarkers createTailCacheMetrics(Class<?> forClass) {
+        return ImmutableTailCacheMarkers.builder()
+                .markHit(metrics.asMetricsManager()
+                        .registerOrGetCounter(forClass, AtlasDbMetricNames.PAXOS_LOG_TAIL_CACHE_HITS)::inc)
+                .markMiss(metrics.asMetricsManager()
+                        .registerOrGetCounter(forClass, AtlasDbMetricNames.PAXOS_LOG_TAIL_CACHE_MISSES)::inc)
+                .build();
+    }
+
     @VisibleForTesting
     Counter getReadCounter(Class<?> forClass) {
         return metrics.asMetricsManager().registerOrGetCounter(forClass, AtlasDbMetricNames.LEGACY_READ);
@@ -0,0 +1,109 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+import com.palantir.atlasdb.timelock.config.AdmissionControlConfiguration;
+import com.palantir.atlasdb.timelock.config.ImmutableAdmissionControlConfiguration;
+import com.palantir.atlasdb.util.MetricsManager;
+import com.palantir.atlasdb.util.MetricsManagers;
+import com.palantir.lock.impl.TooManyRequestsException;
+import org.junit.Test;
+
+public class AdmissionControllerTest {
+    private static final String NAMESPACE = "namespace";
+
+    private final MetricsManager metricsManager = MetricsManagers.createForTests();
+    private AdmissionControlConfiguration config = ImmutableAdmissionControlConfiguration.builder()
+            .enabled(true)
+            .maxConcurrentLockRequests(1)
+            .maxConcurrentTimestampRequests(1)
+            .maxConcurrentCommitRequests(1)
+            .build();
+    private final AdmissionController controller = AdmissionController.create(NAMESPACE, () -> config, metricsManager);
+
+    @Test
+    public void rejectsRequestsOverTheLimitOfTheirLane() {
+        SettableFuture<Void> blockedLock = SettableFuture.create();
+        assertThat(controller.runAsync(RequestLane.LOCK, () -> blockedLock)).isNotDone();
+
+        assertThatThrownBy(() -> controller.runAsync(RequestLane.LOCK, () -> Futures.immediateFuture(null)))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(metricsManager
+                        .registerOrGetTaggedMeter(AdmissionController.class, "requestsRejected", tags(RequestLane.LOCK))
+                        .getCount())
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void lanesAreAdmittedIndependently() {
+        assertThat(controller.runAsync(RequestLane.LOCK, SettableFuture::create)).isNotDone();
+
+        assertThat(controller.run(RequestLane.COMMIT, () -> 1)).isEqualTo(1);
+        assertThat(controller.run(RequestLane.TIMESTAMP, () -> 2)).isEqualTo(2);
+    }
+
+    @Test
+    public void asyncRequestsStayInFlightUntilDone() {
+        SettableFuture<Void> blockedLock = SettableFuture.create();
+        assertThat(controller.runAsync(RequestLane.LOCK, () -> blockedLock)).isNotDone();
+        assertThat(inFlight(RequestLane.LOCK)).isEqualTo(1);
+
+        blockedLock.set(null);
+
+        assertThat(inFlight(RequestLane.LOCK)).isZero();
+        assertThat(controller.run(RequestLane.LOCK, () -> 1)).isEqualTo(1);
+    }
+
+    @Test
+    public void releasesPermitsOfFailedRequests() {
+        assertThatThrownBy(() -> controller.run(RequestLane.TIMESTAMP, () -> {
+                    throw new IllegalStateException();
+                }))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> controller.runAsync(RequestLane.COMMIT, () -> {
+                    throw new IllegalStateException();
+                }))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(inFlight(RequestLane.TIMESTAMP)).isZero();
+        assertThat(inFlight(RequestLane.COMMIT)).isZero();
+    }
+
+    @Test
+    public void admitsEverythingWhenDisabled() {
+        config = ImmutableAdmissionControlConfiguration.copyOf(config).withEnabled(false);
+        assertThat(controller.runAsync(RequestLane.LOCK, SettableFuture::create)).isNotDone();
+
+        assertThat(Futures.getUnchecked(controller.runAsync(RequestLane.LOCK, () -> Futures.immediateFuture(1))))
+                .isEqualTo(1);
+    }
+
+    private long inFlight(RequestLane lane) {
+        return metricsManager
+                .registerOrGetTaggedCounter(AdmissionController.class, "requestsInFlight", tags(lane))
+                .getCount();
+    }
+
+    private static ImmutableMap<String, String> tags(RequestLane lane) {
+        return ImmutableMap.of("namespace", NAMESPACE, "lane", lane.name());
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.lock.watch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
+import com.palantir.atlasdb.encoding.PtBytes;
+import com.palantir.lock.AtlasCellLockDescriptor;
+import com.palantir.lock.AtlasRowLockDescriptor;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchReferences.LockWatchReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+@SuppressWarnings("UnstableApiUsage")
+public class LockWatchIndexTest {
+    private static final String TABLE = "test.table";
+    private static final String OTHER_TABLE = "test.other";
+    private static final String THIRD_TABLE = "test.third";
+
+    @Test
+    public void matchesEveryKindOfReference() {
+        LockWatchIndex index = indexOf(
+                LockWatchReferences.entireTable(OTHER_TABLE),
+                LockWatchReferences.rowPrefix(TABLE, PtBytes.toBytes("pre")),
+                LockWatchReferences.rowRange(TABLE, PtBytes.toBytes("m"), PtBytes.toBytes("n")),
+                LockWatchReferences.exactRow(TABLE, PtBytes.toBytes("row")),
+                LockWatchReferences.exactCell(TABLE, PtBytes.toBytes("cellRow"), PtBytes.toBytes("col")));
+
+        assertThat(index.contains(row(OTHER_TABLE, "anything"))).isTrue();
+        assertThat(index.contains(row(TABLE, "prefixed"))).isTrue();
+        assertThat(index.contains(row(TABLE, "middle"))).isTrue();
+        assertThat(index.contains(row(TABLE, "row"))).isTrue();
+        assertThat(index.contains(cell(TABLE, "cellRow", "col"))).isTrue();
+
+        assertThat(index.contains(row(TABLE, "pr"))).isFalse();
+        assertThat(index.contains(row(TABLE, "n"))).isFalse();
+        assertThat(index.contains(row(TABLE, "rows"))).isFalse();
+        assertThat(index.contains(cell(TABLE, "cellRow", "other"))).isFalse();
+        assertThat(index.contains(row(THIRD_TABLE, "anything"))).isFalse();
+    }
+
+    @Test
+    public void emptyIndexMatchesNothing() {
+        assertThat(LockWatchIndex.create(TreeRangeSet.create()).contains(row(TABLE, "row")))
+                .isFalse();
+    }
+
+    @Test
+    public void agreesWithRangeSet() {
+        Random random = new Random(0);
+        RangeSet<LockDescriptor> ranges = TreeRangeSet.create();
+        for (int i = 0; i < 50; i++) {
+            ranges.add(randomReference(random).accept(LockWatchReferences.TO_RANGES_VISITOR));
+        }
+        LockWatchIndex index = LockWatchIndex.create(ranges);
+
+        List<LockDescriptor> descriptors = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            descriptors.add(random.nextBoolean()
+                    ? AtlasRowLockDescriptor.of(randomTable(random), randomBytes(random))
+                    : AtlasCellLockDescriptor.of(randomTable(random), randomBytes(random), randomBytes(random)));
+        }
+        for (LockDescriptor descriptor : descriptors) {
+            assertThat(index.contains(descriptor)).as(descriptor.toString()).isEqualTo(ranges.contains(descriptor));
+        }
+    }
+
+    private static LockWatchIndex indexOf(LockWatchReference... references) {
+        RangeSet<LockDescriptor> ranges = TreeRangeSet.create();
+        for (LockWatchReference reference : references) {
+            ranges.add(reference.accept(LockWatchReferences.TO_RANGES_VISITOR));
+        }
+        return LockWatchIndex.create(ranges);
+    }
+
+    private static LockWatchReference randomReference(Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return LockWatchReferences.entireTable(THIRD_TABLE);
+            case 1:
+                return LockWatchReferences.rowPrefix(randomTable(random), randomBytes(random));
+            case 2:
+                byte[] start = randomBytes(random);
+                return LockWatchReferences.rowRange(TABLE, start, PtBytes.toBytes(PtBytes.toString(start) + "2"));
+            case 3:
+                return LockWatchReferences.exactRow(randomTable(random), randomBytes(random));
+            default:
+                return LockWatchReferences.exactCell(randomTable(random), randomBytes(random), randomBytes(random));
+        }
+    }
+
+    private static String randomTable(Random random) {
+        return random.nextBoolean() ? TABLE : OTHER_TABLE;
+    }
+
+    private static byte[] randomBytes(Random random) {
+        byte[] bytes = new byte[1 + random.nextInt(2)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) ('0' + random.nextInt(4));
+        }
+        return bytes;
+    }
+
+    private static LockDescriptor row(String table, String row) {
+        return AtlasRowLockDescriptor.of(table, PtBytes.toBytes(row));
+    }
+
+    private static LockDescriptor cell(String table, String row, String col) {
+        return AtlasCellLockDescriptor.of(table, PtBytes.toBytes(row), PtBytes.toBytes(col));
+    }
+}
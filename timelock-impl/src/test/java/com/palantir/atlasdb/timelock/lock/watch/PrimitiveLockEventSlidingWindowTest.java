@@ -0,0 +1,138 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.lock.watch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableSet;
+import com.palantir.lock.LockDescriptor;
+import com.palantir.lock.StringLockDescriptor;
+import com.palantir.lock.v2.LockToken;
+import com.palantir.lock.watch.LockEvent;
+import com.palantir.lock.watch.LockWatchCreatedEvent;
+import com.palantir.lock.watch.LockWatchEvent;
+import com.palantir.lock.watch.LockWatchReferences;
+import com.palantir.lock.watch.LockWatchReferences.LockWatchReference;
+import com.palantir.lock.watch.UnlockEvent;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.Test;
+
+public class PrimitiveLockEventSlidingWindowTest {
+    private static final int WINDOW_SIZE = 10;
+    private static final int MAX_MATERIALIZED_EVENTS = 4;
+
+    private static final LockDescriptor DESCRIPTOR_1 = StringLockDescriptor.of("lock-1");
+    private static final LockDescriptor DESCRIPTOR_2 = StringLockDescriptor.of("lock-2");
+    private static final LockToken TOKEN = LockToken.of(UUID.randomUUID());
+    private static final Set<LockWatchReference> REFERENCES = ImmutableSet.of(LockWatchReferences.entireTable("t.t"));
+
+    private final PrimitiveLockEventSlidingWindow slidingWindow =
+            new PrimitiveLockEventSlidingWindow(WINDOW_SIZE, MAX_MATERIALIZED_EVENTS);
+
+    @Test
+    public void returnsEventsAsTheyWereAdded() {
+        slidingWindow.addLockWatchCreated(REFERENCES, ImmutableSet.of(DESCRIPTOR_2));
+        slidingWindow.addLock(ImmutableSet.of(DESCRIPTOR_1, DESCRIPTOR_2), TOKEN);
+        slidingWindow.addUnlock(ImmutableSet.of(DESCRIPTOR_1));
+
+        assertThat(slidingWindow.getNextEvents(-1).get())
+                .containsExactly(
+                        LockWatchCreatedEvent.builder(REFERENCES, ImmutableSet.of(DESCRIPTOR_2)).build(0),
+                        LockEvent.builder(ImmutableSet.of(DESCRIPTOR_1, DESCRIPTOR_2), TOKEN).build(1),
+                        UnlockEvent.builder(ImmutableSet.of(DESCRIPTOR_1)).build(2));
+        assertThat(slidingWindow.getNextEvents(1).get())
+                .containsExactly(UnlockEvent.builder(ImmutableSet.of(DESCRIPTOR_1)).build(2));
+    }
+
+    @Test
+    public void returnsEmptyForVersionsOutsideTheWindow() {
+        addLocks(15);
+
+        assertThat(slidingWindow.getNextEvents(15)).isEmpty();
+        assertThat(slidingWindow.getNextEvents(3)).isEmpty();
+        assertThat(slidingWindow.getNextEvents(14).get()).isEmpty();
+        assertThat(slidingWindow.getNextEvents(4).get())
+                .extracting(LockWatchEvent::sequence)
+                .containsExactly(5L, 6L, 7L, 8L, 9L, 10L, 11L, 12L, 13L, 14L);
+    }
+
+    @Test
+    public void preservesLargeDescriptorSets() {
+        Set<LockDescriptor> descriptors = IntStream.range(0, 1_000)
+                .mapToObj(i -> StringLockDescriptor.of("row-" + i))
+                .collect(Collectors.toSet());
+        slidingWindow.addUnlock(ImmutableSet.of(DESCRIPTOR_1));
+        slidingWindow.addLock(descriptors, TOKEN);
+
+        assertThat(slidingWindow.getNextEvents(0).get())
+                .containsExactly(LockEvent.builder(descriptors, TOKEN).build(1));
+    }
+
+    @Test
+    public void releasesDescriptorsOfEvictedEvents() {
+        addLocks(WINDOW_SIZE);
+        assertThat(slidingWindow.internedDescriptors()).isEqualTo(WINDOW_SIZE);
+
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            slidingWindow.addUnlock(ImmutableSet.of(DESCRIPTOR_1));
+        }
+        assertThat(slidingWindow.internedDescriptors()).isEqualTo(1);
+    }
+
+    @Test
+    public void reusesMaterializedEventsOfRecentRecordsOnly() {
+        addLocks(WINDOW_SIZE);
+
+        List<LockWatchEvent> firstRead = slidingWindow.getNextEvents(-1).get();
+        List<LockWatchEvent> secondRead = slidingWindow.getNextEvents(-1).get();
+        assertThat(secondRead).isEqualTo(firstRead);
+        for (int i = 0; i < WINDOW_SIZE - MAX_MATERIALIZED_EVENTS; i++) {
+            assertThat(slidingWindow.isMaterialized(i)).isFalse();
+            assertThat(secondRead.get(i)).isNotSameAs(firstRead.get(i));
+        }
+        for (int i = WINDOW_SIZE - MAX_MATERIALIZED_EVENTS; i < WINDOW_SIZE; i++) {
+            assertThat(slidingWindow.isMaterialized(i)).isTrue();
+            assertThat(secondRead.get(i)).isSameAs(firstRead.get(i));
+        }
+    }
+
+    @Test
+    public void doesNotServeStaleMaterializedEvents() {
+        slidingWindow.addLock(ImmutableSet.of(DESCRIPTOR_1), TOKEN);
+        assertThat(slidingWindow.getNextEvents(-1).get())
+                .containsExactly(LockEvent.builder(ImmutableSet.of(DESCRIPTOR_1), TOKEN).build(0));
+
+        for (int i = 0; i < MAX_MATERIALIZED_EVENTS; i++) {
+            slidingWindow.addUnlock(ImmutableSet.of(DESCRIPTOR_2));
+        }
+
+        assertThat(slidingWindow.getNextEvents(-1).get())
+                .extracting(LockWatchEvent::sequence)
+                .containsExactly(0L, 1L, 2L, 3L, 4L);
+        assertThat(slidingWindow.getNextEvents(3).get())
+                .containsExactly(UnlockEvent.builder(ImmutableSet.of(DESCRIPTOR_2)).build(4));
+    }
+
+    private void addLocks(int number) {
+        for (int i = 0; i < number; i++) {
+            slidingWindow.addLock(ImmutableSet.of(StringLockDescriptor.of("lock-" + i)), TOKEN);
+        }
+    }
+}
@@ -22,11 +22,19 @@ import static org.assertj.core.api.Assertions.entry;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.palantir.common.concurrent.PTExecutors;
 import com.palantir.common.streams.KeyedStream;
 import com.palantir.paxos.Client;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.Test;
 
 public class AcceptorCacheImplTests {
@@ -151,6 +159,66 @@ public class AcceptorCacheImplTests {
                 .contains(diffAfterSecondUpdate);
     }
 
+    @Test
+    public void cacheKeysOlderThanRetainedUpdateLogSeeAllUpdates() throws InvalidAcceptorCacheKeyException {
+        AcceptorCache cache = cache(ImmutableMap.of(Client.of("client1"), 1L));
+        AcceptorCacheKey initialCacheKey = cache.getAllUpdates().newCacheKey();
+
+        for (long seq = 2; seq < AcceptorCacheImpl.RETAINED_TIMESTAMPS + 10; seq++) {
+            cache.updateSequenceNumbers(ImmutableSet.of(WithSeq.of(Client.of("client" + (seq % 3)), seq)));
+        }
+        AcceptorCacheKey recentCacheKey = cache.getAllUpdates().newCacheKey();
+        cache.updateSequenceNumbers(ImmutableSet.of(WithSeq.of(Client.of("client1"), Long.MAX_VALUE)));
+
+        assertThat(cache.updatesSinceCacheKey(initialCacheKey))
+                .map(AcceptorCacheDigest::updates)
+                .as("updates since a key that the update log no longer covers are found from the latest sequences")
+                .contains(cache.getAllUpdates().updates());
+        assertThat(cache.updatesSinceCacheKey(recentCacheKey))
+                .map(AcceptorCacheDigest::updates)
+                .contains(ImmutableMap.of(Client.of("client1"), Long.MAX_VALUE));
+    }
+
+    @Test
+    public void concurrentReadersSeeEveryUpdate() throws Exception {
+        AcceptorCache cache = cache(ImmutableMap.of());
+        ExecutorService executor = PTExecutors.newFixedThreadPool(4);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        try {
+            Future<Map<Client, Long>> reader = executor.submit(() -> {
+                Map<Client, Long> seen = new HashMap<>();
+                AcceptorCacheKey cacheKey = cache.getAllUpdates().newCacheKey();
+                while (writing.get()) {
+                    Optional<AcceptorCacheDigest> digest = cache.updatesSinceCacheKey(cacheKey);
+                    if (digest.isPresent()) {
+                        digest.get().updates().forEach((client, seq) -> seen.merge(client, seq, Math::max));
+                        cacheKey = digest.get().newCacheKey();
+                    }
+                }
+                cache.updatesSinceCacheKey(cacheKey)
+                        .ifPresent(digest ->
+                                digest.updates().forEach((client, seq) -> seen.merge(client, seq, Math::max)));
+                return seen;
+            });
+            List<Future<?>> writers = IntStream.range(0, 3)
+                    .mapToObj(writer -> executor.submit(() -> {
+                        for (long seq = 0; seq < 10_000; seq++) {
+                            cache.updateSequenceNumbers(
+                                    ImmutableSet.of(WithSeq.of(Client.of(writer + "-" + (seq % 50)), seq)));
+                        }
+                    }))
+                    .collect(Collectors.toList());
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+
+            assertThat(reader.get()).isEqualTo(cache.getAllUpdates().updates());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     private static AcceptorCache cache(Map<Client, Long> latestSequencesForClients) {
         AcceptorCacheImpl acceptorCache = new AcceptorCacheImpl();
 
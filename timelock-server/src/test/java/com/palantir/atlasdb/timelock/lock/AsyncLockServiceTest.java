@@ -48,7 +48,7 @@ public class AsyncLockServiceTest {
 
     private static final String LOCK_A = "a";
     private static final String LOCK_B = "b";
-    private static final long REAPER_PERIOD_MS = LockLeaseContract.SERVER_LEASE_TIMEOUT.toMillis() / 2;
+    private static final long REAPER_PERIOD_MS = HeldLocksCollection.REAPER_TICK.toMillis();
 
     private static final TimeLimit DEADLINE = TimeLimit.of(123L);
 
@@ -20,7 +20,15 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.palantir.lock.LockDescriptor;
 import com.palantir.lock.StringLockDescriptor;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
 public class ExclusiveLockTests {
@@ -32,6 +40,7 @@ public class ExclusiveLockTests {
     private static final LockDescriptor LOCK_DESCRIPTOR = StringLockDescriptor.of("foo");
 
     private final ExclusiveLock lock = new ExclusiveLock(LOCK_DESCRIPTOR);
+    private final SharedLock sharedLock = new SharedLock(lock);
 
     @Test
     public void canLockAndUnlock() {
@@ -219,6 +228,119 @@ public class ExclusiveLockTests {
         assertThat(request2.isCompletedSuccessfully()).isTrue();
     }
 
+    @Test
+    public void sharedLockCanBeHeldByMultipleRequests() {
+        lockSharedSynchronously(REQUEST_1);
+        lockSharedSynchronously(REQUEST_2);
+
+        assertThat(lock.getSharedHolders()).containsExactlyInAnyOrder(REQUEST_1, REQUEST_2);
+        assertThat(lock.getCurrentHolder()).isNull();
+    }
+
+    @Test
+    public void sharedAndExclusiveLocksExcludeEachOther() {
+        lockSharedSynchronously(REQUEST_1);
+        AsyncResult<Void> exclusiveRequest = lockAsync(REQUEST_2);
+        assertThat(exclusiveRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_1);
+        assertThat(exclusiveRequest.isCompletedSuccessfully()).isTrue();
+
+        AsyncResult<Void> sharedRequest = sharedLock.lock(REQUEST_3);
+        assertThat(sharedRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_2);
+        assertThat(sharedRequest.isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void queuedSharedRequestsAreGrantedTogether() {
+        lockSynchronously(REQUEST_1);
+        AsyncResult<Void> request2 = sharedLock.lock(REQUEST_2);
+        AsyncResult<Void> request3 = sharedLock.lock(REQUEST_3);
+
+        unlock(REQUEST_1);
+
+        assertThat(request2.isCompletedSuccessfully()).isTrue();
+        assertThat(request3.isCompletedSuccessfully()).isTrue();
+        assertThat(lock.getSharedHolders()).containsExactlyInAnyOrder(REQUEST_2, REQUEST_3);
+    }
+
+    @Test
+    public void queuedExclusiveRequestIsNotOvertakenBySharedRequests() {
+        lockSharedSynchronously(REQUEST_1);
+        AsyncResult<Void> exclusiveRequest = lockAsync(REQUEST_2);
+        AsyncResult<Void> sharedRequest = sharedLock.lock(REQUEST_3);
+
+        assertThat(sharedRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_1);
+        assertThat(exclusiveRequest.isCompletedSuccessfully()).isTrue();
+        assertThat(sharedRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_2);
+        assertThat(sharedRequest.isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void exclusiveRequestWaitsForAllSharedHolders() {
+        lockSharedSynchronously(REQUEST_1);
+        lockSharedSynchronously(REQUEST_2);
+        AsyncResult<Void> exclusiveRequest = lockAsync(REQUEST_3);
+
+        unlock(REQUEST_1);
+        assertThat(exclusiveRequest.isComplete()).isFalse();
+
+        unlock(REQUEST_2);
+        assertThat(exclusiveRequest.isCompletedSuccessfully()).isTrue();
+    }
+
+    @Test
+    public void sharedWaitUntilAvailableDoesNotWaitForSharedHolders() {
+        lockSharedSynchronously(REQUEST_1);
+
+        assertThat(sharedLock.waitUntilAvailable(REQUEST_2).isCompletedSuccessfully()).isTrue();
+        assertThat(waitUntilAvailableAsync(REQUEST_3).isComplete()).isFalse();
+    }
+
+    @Test
+    public void concurrentRequestsAreGrantedTheLockOneAtATime() throws Exception {
+        int numThreads = 8;
+        int iterationsPerThread = 2_000;
+        AtomicInteger holders = new AtomicInteger();
+        AtomicInteger maxHolders = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < numThreads; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < iterationsPerThread; i++) {
+                        UUID requestId = UUID.randomUUID();
+                        CountDownLatch acquired = new CountDownLatch(1);
+                        lock.lock(requestId).onComplete(acquired::countDown);
+                        acquired.await();
+                        maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+                        holders.decrementAndGet();
+                        lock.unlock(requestId);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(maxHolders).hasValue(1);
+        assertThat(lock.getCurrentHolder()).isNull();
+    }
+
+    private void lockSharedSynchronously(UUID requestId) {
+        sharedLock.lock(requestId).get();
+    }
+
     private AsyncResult<Void> waitUntilAvailableAsync(UUID request) {
         return lock.waitUntilAvailable(request);
     }
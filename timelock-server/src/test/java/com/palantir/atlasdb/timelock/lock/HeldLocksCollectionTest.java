@@ -21,6 +21,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
@@ -50,6 +51,7 @@ public class HeldLocksCollectionTest {
     private final LeaderClock leaderClock = new LeaderClock(LeadershipId.random(), () -> time.get());
     private final HeldLocksCollection heldLocksCollection = new HeldLocksCollection(leaderClock);
     private final LockWatchingService lockWatcher = mock(LockWatchingService.class);
+    private final MetricRegistry metricRegistry = new MetricRegistry();
 
     @Test
     public void callsSupplierForNewRequest() {
@@ -181,6 +183,43 @@ public class HeldLocksCollectionTest {
         assertUnlocked(REQUEST_ID);
     }
 
+    @Test
+    public void refreshedLocksAreReapedAfterTheirNewExpiry() {
+        setTime(123);
+        LockToken token = lockSync(REQUEST_ID);
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.dividedBy(2));
+        heldLocksCollection.refresh(ImmutableSet.of(token));
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.dividedBy(2).plus(Duration.ofSeconds(1)));
+        assertLocked(REQUEST_ID);
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.dividedBy(2));
+        assertUnlocked(REQUEST_ID);
+    }
+
+    @Test
+    public void locksAreReapedAfterALongPause() {
+        setTime(123);
+        lockSync(REQUEST_ID);
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.multipliedBy(10));
+        assertUnlocked(REQUEST_ID);
+    }
+
+    @Test
+    public void recordsLagBetweenExpiryAndReaping() {
+        setTime(123);
+        lockSync(REQUEST_ID);
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.plus(Duration.ofMillis(500)));
+        assertUnlocked(REQUEST_ID);
+
+        Histogram reapingLag = metricRegistry.histogram("lock.lease-reaping-lag-millis");
+        assertThat(reapingLag.getCount()).isEqualTo(1);
+        assertThat(reapingLag.getSnapshot().getMax()).isEqualTo(500);
+    }
+
     @Test
     public void lockWatchingServiceIsUpdatedAfterLockIsCreatedAndReaped() {
         setTime(123);
@@ -251,6 +290,22 @@ public class HeldLocksCollectionTest {
         assertThat(heldLocksCollection.heldLocksById).isEmpty();
     }
 
+    @Test
+    public void requestLockedAgainAfterUnlockIsReapedAtItsOwnExpiry() {
+        setTime(123);
+        LockToken token = lockSync(REQUEST_ID);
+        heldLocksCollection.unlock(ImmutableSet.of(token));
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.dividedBy(2));
+        lockSync(REQUEST_ID);
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.dividedBy(2).plus(Duration.ofSeconds(1)));
+        assertLocked(REQUEST_ID);
+
+        advance(LockLeaseContract.SERVER_LEASE_TIMEOUT.dividedBy(2));
+        assertUnlocked(REQUEST_ID);
+    }
+
     private LockToken lockSync(UUID requestId) {
         AsyncResult<HeldLocks> result = new AsyncResult<>();
         AsyncResult<Leased<LockToken>> acquireResult =
@@ -271,7 +326,7 @@ public class HeldLocksCollectionTest {
 
     private HeldLocks heldLocksForId(UUID id) {
         return HeldLocks.create(
-                new LockLog(new MetricRegistry(), () -> 2L),
+                new LockLog(metricRegistry, () -> 2L),
                 ImmutableSet.of(new ExclusiveLock(LOCK_DESCRIPTOR)),
                 id,
                 leaderClock,
@@ -288,8 +343,11 @@ public class HeldLocksCollectionTest {
     }
 
     private LockToken mockExpiredRequest() {
-        return mockHeldLocksForNewRequest(
-                heldLocks -> when(heldLocks.unlockIfExpired()).thenReturn(true));
+        return mockHeldLocksForNewRequest(heldLocks -> {
+            when(heldLocks.lastRefreshTime())
+                    .thenReturn(time.get().plus(LockLeaseContract.SERVER_LEASE_TIMEOUT.negated()));
+            when(heldLocks.unlockIfExpired()).thenReturn(true);
+        });
     }
 
     private LockToken mockNonExpiredRequest() {
@@ -334,8 +392,8 @@ public class HeldLocksCollectionTest {
     private LockToken mockHeldLocksForNewRequest(Consumer<HeldLocks> mockApplier) {
         LockToken request = LockToken.of(UUID.randomUUID());
         HeldLocks heldLocks = mock(HeldLocks.class);
-        mockApplier.accept(heldLocks);
         when(heldLocks.lastRefreshTime()).thenReturn(time.get());
+        mockApplier.accept(heldLocks);
 
         AsyncResult<HeldLocks> completedResult = new AsyncResult<>();
         completedResult.complete(heldLocks);
@@ -23,6 +23,7 @@ import static org.mockito.Mockito.when;
 
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.palantir.atlasdb.timelock.lock.watch.LockWatchingService;
 import com.palantir.lock.LockDescriptor;
 import com.palantir.lock.StringLockDescriptor;
@@ -64,6 +65,23 @@ public class HeldLocksTest {
         verify(lockB).unlock(REQUEST_ID);
     }
 
+    @Test
+    public void onlyExclusiveLocksArePublishedToLockWatches() {
+        LockWatchingService lockWatchingService = mock(LockWatchingService.class);
+        SharedLock sharedLock = new SharedLock(new ExclusiveLock(StringLockDescriptor.of("bar")));
+        sharedLock.lock(REQUEST_ID);
+        HeldLocks mixedLocks = new HeldLocks(
+                new LockLog(new MetricRegistry(), () -> 2L),
+                ImmutableList.of(lockA, sharedLock),
+                REQUEST_ID,
+                timer,
+                lockWatchingService);
+
+        mixedLocks.unlockExplicitly();
+
+        verify(lockWatchingService).registerUnlock(ImmutableSet.of(LOCK_DESCRIPTOR));
+    }
+
     @Test
     public void canRefreshBeforeUnlocking() {
         assertThat(heldLocks.refresh()).isTrue();
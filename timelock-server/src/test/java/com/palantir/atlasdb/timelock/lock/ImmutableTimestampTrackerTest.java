@@ -78,6 +78,32 @@ public class ImmutableTimestampTrackerTest {
         assertThatThrownBy(() -> unlock(TIMESTAMP_1, REQUEST_1)).isInstanceOf(IllegalStateException.class);
     }
 
+    @Test
+    public void tracksEarliestTimestampAcrossShards() {
+        ImmutableTimestampTracker shardedTracker = new ImmutableTimestampTracker(4);
+        for (long timestamp = 10; timestamp < 20; timestamp++) {
+            shardedTracker.lock(timestamp, UUID.randomUUID());
+        }
+        UUID earliestHolder = UUID.randomUUID();
+        shardedTracker.lock(TIMESTAMP_2, earliestHolder);
+        assertThat(shardedTracker.getImmutableTimestamp()).contains(TIMESTAMP_2);
+
+        shardedTracker.unlock(TIMESTAMP_2, earliestHolder);
+        assertThat(shardedTracker.getImmutableTimestamp()).contains(10L);
+    }
+
+    @Test
+    public void returnsEmptyOnceAllShardsAreUnlocked() {
+        ImmutableTimestampTracker shardedTracker = new ImmutableTimestampTracker(4);
+        shardedTracker.lock(TIMESTAMP_1, REQUEST_1);
+        shardedTracker.lock(TIMESTAMP_2, REQUEST_2);
+
+        shardedTracker.unlock(TIMESTAMP_2, REQUEST_2);
+        shardedTracker.unlock(TIMESTAMP_1, REQUEST_1);
+
+        assertThat(shardedTracker.getImmutableTimestamp()).isEmpty();
+    }
+
     private AsyncResult<Void> lock(long timestamp, UUID requestId) {
         return tracker.getLockFor(timestamp).lock(requestId);
     }
@@ -26,6 +26,7 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.palantir.atlasdb.timelock.lock.watch.LockWatchingService;
@@ -56,8 +57,9 @@ public class LockAcquirerTest {
     private final ExclusiveLock lockB = spy(new ExclusiveLock(LOCK_DESCRIPTOR));
     private final ExclusiveLock lockC = spy(new ExclusiveLock(LOCK_DESCRIPTOR));
 
+    private final MetricRegistry metricRegistry = new MetricRegistry();
     private final LockAcquirer lockAcquirer = new LockAcquirer(
-            new LockLog(new MetricRegistry(), () -> 2L), executor, leaderClock, mock(LockWatchingService.class));
+            new LockLog(metricRegistry, () -> 2L), executor, leaderClock, mock(LockWatchingService.class));
 
     @Test
     public void acquiresLocksInOrder() {
@@ -75,6 +77,32 @@ public class LockAcquirerTest {
         inOrder.verifyNoMoreInteractions();
     }
 
+    @Test
+    public void recordsNumberOfLocksAcquiredPerRequest() {
+        acquire(lockA, lockB, lockC);
+
+        Histogram locksPerRequest = metricRegistry.histogram("lock.locks-per-request");
+        assertThat(locksPerRequest.getCount()).isEqualTo(1);
+        assertThat(locksPerRequest.getSnapshot().getMax()).isEqualTo(3);
+    }
+
+    @Test
+    public void waitsForLocksAfterTheFirstHeldLockOnlyOnceItIsAcquired() {
+        lockB.lock(OTHER_REQUEST_ID);
+
+        AsyncResult<HeldLocks> acquisitions = acquire(lockA, lockB, lockC);
+
+        verify(lockA).lock(REQUEST_ID);
+        verify(lockC, never()).lock(REQUEST_ID);
+        assertThat(metricRegistry.histogram("lock.locks-per-request").getCount()).isZero();
+
+        lockB.unlock(OTHER_REQUEST_ID);
+
+        verify(lockC).lock(REQUEST_ID);
+        assertThat(acquisitions.isCompletedSuccessfully()).isTrue();
+        assertThat(metricRegistry.histogram("lock.acquisition-time-micros").getCount()).isEqualTo(1);
+    }
+
     @Test
     public void queuesAcquisitionsForHeldLocks() {
         lockA.lock(OTHER_REQUEST_ID);
@@ -0,0 +1,100 @@
+/*
+ * (c) Copyright 2022 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.atlasdb.timelock.lock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.palantir.common.time.NanoTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Test;
+
+public class TimingWheelTest {
+    private static final Duration TICK = Duration.ofSeconds(1);
+
+    private final TimingWheel<String> wheel = new TimingWheel<>(at(0), TICK, 4);
+    private final Map<String, NanoTime> rescheduledDeadlines = new HashMap<>();
+    private final List<String> seen = new ArrayList<>();
+
+    @Test
+    public void looksOnlyAtEntriesWhoseTickHasBeenReached() {
+        wheel.schedule("a", at(1));
+        wheel.schedule("b", at(2));
+
+        advanceTo(1);
+        assertThat(seen).containsExactly("a");
+
+        advanceTo(2);
+        assertThat(seen).containsExactly("a", "b");
+    }
+
+    @Test
+    public void entriesDueInThePastAreSeenOnTheNextAdvance() {
+        advanceTo(2);
+        wheel.schedule("a", at(0));
+
+        advanceTo(2);
+        assertThat(seen).containsExactly("a");
+    }
+
+    @Test
+    public void rescheduledEntriesAreSeenAgainAtTheirNewDeadline() {
+        wheel.schedule("a", at(1));
+        rescheduledDeadlines.put("a", at(3));
+
+        advanceTo(2);
+        rescheduledDeadlines.clear();
+        assertThat(seen).containsExactly("a");
+
+        advanceTo(3);
+        assertThat(seen).containsExactly("a", "a");
+
+        advanceTo(10);
+        assertThat(seen).containsExactly("a", "a");
+    }
+
+    @Test
+    public void deadlinesBeyondTheWheelAreSeenWithinARevolution() {
+        wheel.schedule("a", at(100));
+
+        advanceTo(3);
+        assertThat(seen).containsExactly("a");
+    }
+
+    @Test
+    public void seesEveryEntryAfterALongPause() {
+        wheel.schedule("a", at(1));
+        wheel.schedule("b", at(3));
+
+        advanceTo(50);
+        assertThat(seen).containsExactlyInAnyOrder("a", "b");
+    }
+
+    private void advanceTo(long seconds) {
+        wheel.advance(at(seconds), entry -> {
+            seen.add(entry);
+            return Optional.ofNullable(rescheduledDeadlines.get(entry));
+        });
+    }
+
+    private static NanoTime at(long seconds) {
+        return NanoTime.createForTests(TICK.multipliedBy(seconds).toNanos());
+    }
+}
@@ -22,6 +22,9 @@ import com.palantir.atlasdb.AtlasDbConstants;
 import com.palantir.logsafe.SafeArg;
 import com.palantir.logsafe.logger.SafeLogger;
 import com.palantir.logsafe.logger.SafeLoggerFactory;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import javax.annotation.concurrent.ThreadSafe;
 
 @ThreadSafe
@@ -50,6 +53,7 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
 
     private ErrorCheckingTimestampBoundStore store;
     private PersistentTimestamp timestamp;
+    private Function<TimestampBoundStore, PersistentUpperLimit> upperLimitFactory;
     private final InitializingWrapper wrapper = new InitializingWrapper();
 
     public static PersistentTimestampService create(TimestampBoundStore store) {
@@ -65,7 +69,27 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
     }
 
     public static PersistentTimestampService create(ErrorCheckingTimestampBoundStore store, boolean initializeAsync) {
-        PersistentTimestampServiceImpl service = new PersistentTimestampServiceImpl(store);
+        return create(store, initializeAsync, PersistentUpperLimit::new);
+    }
+
+    /**
+     * Creates a timestamp service whose upper limit is extended on the given executor before it runs out, rather than
+     * by the request that exhausts it. See {@link PersistentUpperLimit#createWithBackgroundExtension}.
+     */
+    public static PersistentTimestampService createWithBackgroundUpperLimitExtension(
+            TimestampBoundStore store, Executor backgroundExtensionExecutor, TaggedMetricRegistry metricRegistry) {
+        return create(
+                new ErrorCheckingTimestampBoundStore(store),
+                AtlasDbConstants.DEFAULT_INITIALIZE_ASYNC,
+                boundStore -> PersistentUpperLimit.createWithBackgroundExtension(
+                        boundStore, backgroundExtensionExecutor, metricRegistry));
+    }
+
+    private static PersistentTimestampService create(
+            ErrorCheckingTimestampBoundStore store,
+            boolean initializeAsync,
+            Function<TimestampBoundStore, PersistentUpperLimit> upperLimitFactory) {
+        PersistentTimestampServiceImpl service = new PersistentTimestampServiceImpl(store, upperLimitFactory);
         service.wrapper.initialize(initializeAsync);
         return service.wrapper.isInitialized() ? service : service.wrapper;
     }
@@ -75,13 +99,16 @@ public class PersistentTimestampServiceImpl implements PersistentTimestampServic
         this.timestamp = timestamp;
     }
 
-    private PersistentTimestampServiceImpl(ErrorCheckingTimestampBoundStore store) {
+    private PersistentTimestampServiceImpl(
+            ErrorCheckingTimestampBoundStore store,
+            Function<TimestampBoundStore, PersistentUpperLimit> upperLimitFactory) {
         this.store = store;
+        this.upperLimitFactory = upperLimitFactory;
     }
 
     private void tryInitialize() {
         long latestTimestamp = store.getUpperLimit();
-        PersistentUpperLimit upperLimit = new PersistentUpperLimit(store);
+        PersistentUpperLimit upperLimit = upperLimitFactory.apply(store);
         timestamp = new PersistentTimestamp(upperLimit, latestTimestamp);
     }
 
@@ -15,9 +15,24 @@
  */
 package com.palantir.timestamp;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.palantir.logsafe.SafeArg;
+import com.palantir.logsafe.logger.SafeLogger;
+import com.palantir.logsafe.logger.SafeLoggerFactory;
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
 
 public class PersistentUpperLimit {
+    private static final SafeLogger log = SafeLoggerFactory.get(PersistentUpperLimit.class);
 
     /**
      * Some internal atlas clients have behavior tied to this value and will need to
@@ -26,12 +41,72 @@ public class PersistentUpperLimit {
     @VisibleForTesting
     static final long BUFFER = 1_000_000;
 
+    @VisibleForTesting
+    static final long MAX_BUFFER = 64 * BUFFER;
+
+    /**
+     * When extending the limit in the background, the buffer is sized so that, at the rate timestamps were issued
+     * since the previous extension, it lasts about this long.
+     */
+    @VisibleForTesting
+    static final Duration TARGET_EXTENSION_INTERVAL = Duration.ofSeconds(10);
+
+    private static final String SYNCHRONOUS_EXTENSION_TIMER_NAME = "timestamp.upperLimit.synchronousExtension";
+    private static final String BACKGROUND_EXTENSION_TIMER_NAME = "timestamp.upperLimit.backgroundExtension";
+
     private volatile long currentLimit;
     private final TimestampBoundStore store;
 
+    @Nullable
+    private final Executor backgroundExtensionExecutor;
+
+    private final AtomicBoolean backgroundExtensionPending = new AtomicBoolean();
+    private final Timer synchronousExtensions;
+    private final Timer backgroundExtensions;
+    private final LongSupplier nanoClock;
+
+    private volatile long lowWaterMark = BUFFER / 2;
+
+    @GuardedBy("this")
+    private long buffer = BUFFER;
+
+    @GuardedBy("this")
+    private long lastExtensionNanos;
+
+    @GuardedBy("this")
+    private long lastExtensionTimestamp;
+
     public PersistentUpperLimit(TimestampBoundStore boundStore) {
+        this(boundStore, null, new DefaultTaggedMetricRegistry(), System::nanoTime);
+    }
+
+    @VisibleForTesting
+    PersistentUpperLimit(
+            TimestampBoundStore boundStore,
+            @Nullable Executor backgroundExtensionExecutor,
+            TaggedMetricRegistry metricRegistry,
+            LongSupplier nanoClock) {
         this.store = boundStore;
+        this.backgroundExtensionExecutor = backgroundExtensionExecutor;
+        this.synchronousExtensions =
+                metricRegistry.timer(MetricName.builder().safeName(SYNCHRONOUS_EXTENSION_TIMER_NAME).build());
+        this.backgroundExtensions =
+                metricRegistry.timer(MetricName.builder().safeName(BACKGROUND_EXTENSION_TIMER_NAME).build());
+        this.nanoClock = nanoClock;
         this.currentLimit = boundStore.getUpperLimit();
+        this.lastExtensionNanos = nanoClock.getAsLong();
+        this.lastExtensionTimestamp = currentLimit;
+    }
+
+    /**
+     * Creates an upper limit that extends itself on the given executor once fewer than half of the timestamps
+     * reserved by the last extension remain, so that callers only block on the bound store when timestamps are
+     * handed out faster than the background extension can keep up with. The size of each extension adapts to the
+     * rate at which timestamps are handed out, between {@link #BUFFER} and {@link #MAX_BUFFER}.
+     */
+    public static PersistentUpperLimit createWithBackgroundExtension(
+            TimestampBoundStore boundStore, Executor backgroundExtensionExecutor, TaggedMetricRegistry metricRegistry) {
+        return new PersistentUpperLimit(boundStore, backgroundExtensionExecutor, metricRegistry, System::nanoTime);
     }
 
     public long get() {
@@ -41,6 +116,8 @@ public class PersistentUpperLimit {
     public void increaseToAtLeast(long newLimit) {
         if (newLimit > currentLimit) {
             updateLimit(newLimit);
+        } else if (backgroundExtensionExecutor != null && currentLimit - newLimit < lowWaterMark) {
+            scheduleBackgroundExtension(newLimit);
         }
     }
 
@@ -49,11 +126,77 @@ public class PersistentUpperLimit {
             return;
         }
 
-        long newLimitWithBuffer = Math.addExact(newLimit, BUFFER);
+        try (Timer.Context timer = synchronousExtensions.time()) {
+            extendFrom(newLimit);
+        }
+    }
+
+    private void scheduleBackgroundExtension(long latestTimestamp) {
+        if (!backgroundExtensionPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            backgroundExtensionExecutor.execute(() -> {
+                try {
+                    extendInBackground(latestTimestamp);
+                } catch (Throwable t) {
+                    log.warn(
+                            "Failed to extend the timestamp upper limit in the background. Timestamp requests will"
+                                    + " extend it themselves once it is exhausted.",
+                            SafeArg.of("latestTimestamp", latestTimestamp),
+                            t);
+                } finally {
+                    backgroundExtensionPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            backgroundExtensionPending.set(false);
+            log.warn("Could not schedule a background extension of the timestamp upper limit.", e);
+        }
+    }
+
+    private synchronized void extendInBackground(long latestTimestamp) {
+        if (currentLimit - latestTimestamp >= lowWaterMark) {
+            return;
+        }
+
+        try (Timer.Context timer = backgroundExtensions.time()) {
+            extendFrom(latestTimestamp);
+        }
+    }
+
+    @GuardedBy("this")
+    private void extendFrom(long latestTimestamp) {
+        if (backgroundExtensionExecutor != null) {
+            adaptBuffer(latestTimestamp);
+        }
+        long newLimitWithBuffer = Math.addExact(latestTimestamp, buffer);
+        if (newLimitWithBuffer <= currentLimit) {
+            return;
+        }
         storeUpperLimit(newLimitWithBuffer);
         currentLimit = newLimitWithBuffer;
     }
 
+    /**
+     * Sizes the next extension based on how many timestamps were handed out since the previous one, and how long
+     * that took.
+     */
+    @GuardedBy("this")
+    private void adaptBuffer(long latestTimestamp) {
+        long now = nanoClock.getAsLong();
+        long elapsedNanos = now - lastExtensionNanos;
+        long timestampsIssued = latestTimestamp - lastExtensionTimestamp;
+        if (elapsedNanos > 0 && timestampsIssued > 0) {
+            double timestampsPerTargetInterval =
+                    timestampsIssued * (TARGET_EXTENSION_INTERVAL.toNanos() / (double) elapsedNanos);
+            buffer = (long) Math.max(BUFFER, Math.min(MAX_BUFFER, timestampsPerTargetInterval));
+            lowWaterMark = buffer / 2;
+        }
+        lastExtensionNanos = now;
+        lastExtensionTimestamp = latestTimestamp;
+    }
+
     private void storeUpperLimit(long upperLimit) {
         DebugLogger.willStoreNewUpperLimit(upperLimit);
         store.storeUpperLimit(upperLimit);
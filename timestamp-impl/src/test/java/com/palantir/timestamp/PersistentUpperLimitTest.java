@@ -24,6 +24,11 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.palantir.tritium.metrics.registry.DefaultTaggedMetricRegistry;
+import com.palantir.tritium.metrics.registry.MetricName;
+import com.palantir.tritium.metrics.registry.TaggedMetricRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -111,4 +116,58 @@ public class PersistentUpperLimitTest {
 
         assertThat(upperLimit.get()).isEqualTo(INITIAL_UPPER_LIMIT);
     }
+
+    @Test
+    public void shouldExtendInTheBackgroundOnceBelowTheLowWaterMark() {
+        TaggedMetricRegistry registry = new DefaultTaggedMetricRegistry();
+        PersistentUpperLimit backgroundUpperLimit =
+                new PersistentUpperLimit(boundStore, Runnable::run, registry, () -> 0L);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP + BUFFER / 2);
+        assertThat(backgroundUpperLimit.get()).isEqualTo(TIMESTAMP + BUFFER);
+
+        long pastLowWaterMark = TIMESTAMP + BUFFER / 2 + 1;
+        backgroundUpperLimit.increaseToAtLeast(pastLowWaterMark);
+        assertThat(backgroundUpperLimit.get()).isEqualTo(pastLowWaterMark + BUFFER);
+        assertThat(timerCount(registry, "timestamp.upperLimit.synchronousExtension")).isEqualTo(1);
+        assertThat(timerCount(registry, "timestamp.upperLimit.backgroundExtension")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldSizeBackgroundExtensionsByTheRateOfIssuance() {
+        AtomicLong clock = new AtomicLong();
+        PersistentUpperLimit backgroundUpperLimit =
+                new PersistentUpperLimit(boundStore, Runnable::run, new DefaultTaggedMetricRegistry(), clock::get);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+
+        long latestTimestamp = TIMESTAMP + BUFFER - 1;
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        backgroundUpperLimit.increaseToAtLeast(latestTimestamp);
+        assertThat(backgroundUpperLimit.get()).isEqualTo(latestTimestamp + 10 * (latestTimestamp - TIMESTAMP));
+
+        long nextTimestamp = backgroundUpperLimit.get() - 1;
+        clock.addAndGet(Duration.ofMillis(1).toNanos());
+        backgroundUpperLimit.increaseToAtLeast(nextTimestamp);
+        assertThat(backgroundUpperLimit.get()).isEqualTo(nextTimestamp + PersistentUpperLimit.MAX_BUFFER);
+    }
+
+    @Test
+    public void shouldNotThrowIfBackgroundExtensionFails() {
+        PersistentUpperLimit backgroundUpperLimit =
+                new PersistentUpperLimit(boundStore, Runnable::run, new DefaultTaggedMetricRegistry(), () -> 0L);
+        backgroundUpperLimit.increaseToAtLeast(TIMESTAMP);
+        doThrow(RuntimeException.class).doNothing().when(boundStore).storeUpperLimit(anyLong());
+
+        long latestTimestamp = TIMESTAMP + BUFFER - 1;
+        backgroundUpperLimit.increaseToAtLeast(latestTimestamp);
+        assertThat(backgroundUpperLimit.get()).isEqualTo(TIMESTAMP + BUFFER);
+
+        backgroundUpperLimit.increaseToAtLeast(latestTimestamp);
+        assertThat(backgroundUpperLimit.get()).isEqualTo(latestTimestamp + BUFFER);
+    }
+
+    private static long timerCount(TaggedMetricRegistry registry, String name) {
+        return registry.timer(MetricName.builder().safeName(name).build()).getCount();
+    }
 }